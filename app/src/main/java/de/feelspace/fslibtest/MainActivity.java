@@ -36,11 +36,16 @@ import de.feelspace.fslib.BeltMode;
 import de.feelspace.fslib.BeltOrientation;
 import de.feelspace.fslib.BeltParameter;
 import de.feelspace.fslib.BeltVibrationSignal;
+import de.feelspace.fslib.HapticPlaybackReport;
+import de.feelspace.fslib.HapticSequencer;
+import de.feelspace.fslib.HapticSequencerListener;
+import de.feelspace.fslib.HapticTimeline;
 import de.feelspace.fslib.NavigationController;
 import de.feelspace.fslib.NavigationEventListener;
 import de.feelspace.fslib.NavigationState;
 import de.feelspace.fslib.OrientationType;
 import de.feelspace.fslib.PowerStatus;
+import de.feelspace.fslib.PulseCommand;
 import de.feelspace.fslib.ResetProgressOption;
 
 import android.Manifest;
@@ -80,6 +85,7 @@ public class MainActivity extends BluetoothCheckActivity implements BluetoothChe
     private static final int REQUEST_BLUETOOTH_PERMISSIONS = 1;
 
     private Handler handler = new Handler();
+    private HapticSequencer hapticSequencer;
 
     // MARK: Activity methods overriding
 
@@ -440,63 +446,44 @@ public class MainActivity extends BluetoothCheckActivity implements BluetoothChe
     }
 
     private void vibrateLeftToRight() {
-        // Definiere die Anzahl der Positionen (z. B. 8 Positionen von 0 bis 7)
-        int[] positions = new int[]{0, 1, 2, 3, 4, 5, 6, 7};
-
-        // Dauer der Vibration für jede Position (in Millisekunden)
-        int vibrationDuration = 500; // 200 ms pro Position, nach Bedarf anpassen
-
-        BeltCommandInterface beltController = appController.getBeltController();
-        beltController.changeMode(BeltMode.APP);
-
-        // Erstelle ein Runnable, das die Vibrationen nacheinander auslöst
-        handler.post(new Runnable() {
-            int index = 0;
-
-            @Override
-            public void run() {
-                if (index < positions.length) {
-                    // Vibrieren an der aktuellen Position
-                    beltController.pulseAtPositions(new int[]{positions[index]}, vibrationDuration, 500, 1, 50, 1, false);
-                    Log.d("BeltDebug", "Vibration an Position " + positions[index]);
-
-                    // Gehe zur nächsten Position
-                    index++;
-
-                    // Wiederhole den Vorgang mit einer kurzen Verzögerung (hier 300 ms)
-                    handler.postDelayed(this, 300); // Pause zwischen den Vibrationen
-                }
-            }
-        });
+        vibrateSequence(new int[]{0, 1, 2, 3, 4, 5, 6, 7});
     }
 
     private void vibrateRightToLeft() {
-        // Definiere die Anzahl der Positionen (z. B. 8 Positionen von 0 bis 7)
-        int[] positions = new int[]{7, 6, 5, 4, 3, 2, 1, 0};
+        vibrateSequence(new int[]{7, 6, 5, 4, 3, 2, 1, 0});
+    }
 
+    private void vibrateSequence(int[] positions) {
         // Dauer der Vibration für jede Position (in Millisekunden)
-        int vibrationDuration = 500; // 200 ms pro Position, nach Bedarf anpassen
+        int vibrationDuration = 500;
+        // Abstand zwischen zwei Positionen (in Millisekunden)
+        int positionInterval = 300;
 
         BeltCommandInterface beltController = appController.getBeltController();
         beltController.changeMode(BeltMode.APP);
 
-        // Erstelle ein Runnable, das die Vibrationen nacheinander auslöst
-        handler.post(new Runnable() {
-            int index = 0;
-
+        // Zeitleiste mit absoluten Zeitpunkten, damit sich Verzögerungen nicht aufsummieren
+        HapticTimeline timeline = new HapticTimeline();
+        for (int i = 0; i < positions.length; i++) {
+            timeline.addPulse((long) i * positionInterval, new PulseCommand(1,
+                    OrientationType.BINARY_MASK, 1 << positions[i], 50, vibrationDuration, 1, 1,
+                    500, 500, ResetProgressOption.RESET_PROGRESS_ON_DIFFERENT_PERIOD, false,
+                    false));
+        }
+        if (hapticSequencer == null) {
+            hapticSequencer = new HapticSequencer(appController.getBeltConnection());
+        }
+        hapticSequencer.play(timeline, new HapticSequencerListener() {
             @Override
-            public void run() {
-                if (index < positions.length) {
-                    // Vibrieren an der aktuellen Position
-                    beltController.pulseAtPositions(new int[]{positions[index]}, vibrationDuration, 500, 1, 50, 1, false);
-                    Log.d("BeltDebug", "Vibration an Position " + positions[index]);
-
-                    // Gehe zur nächsten Position
-                    index++;
+            public void onTimelineEntrySent(int entryIndex, long latenessNano, boolean success) {
+                Log.d("BeltDebug", "Vibration an Position " + positions[entryIndex] +
+                        ", Verspätung " + (latenessNano / 1000000) + " ms");
+            }
 
-                    // Wiederhole den Vorgang mit einer kurzen Verzögerung (hier 300 ms)
-                    handler.postDelayed(this, 300); // Pause zwischen den Vibrationen
-                }
+            @Override
+            public void onTimelineCompleted(HapticPlaybackReport report) {
+                Log.d("BeltDebug", "Sequenz beendet, maximale Verspätung " +
+                        (report.getMaxLatenessNano() / 1000000) + " ms");
             }
         });
     }
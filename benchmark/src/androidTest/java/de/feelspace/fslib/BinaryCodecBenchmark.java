@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Benchmark of the little-endian codec against a wrapped <code>ByteBuffer</code>, on the fields
+ * of an orientation packet.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BinaryCodecBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    // Orientation packet
+    private final byte[] packet = new byte[16];
+
+    // Sink of the decoded fields
+    private long checksum = 0;
+
+    public BinaryCodecBenchmark() {
+        new Random(1).nextBytes(packet);
+    }
+
+    @Test
+    public void codec() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            checksum += BinaryUtils.readUInt8(packet, 0);
+            for (int offset=1; offset<11; offset+=2) {
+                checksum += BinaryUtils.readInt16LE(packet, offset);
+            }
+            for (int offset=11; offset<15; offset++) {
+                checksum += BinaryUtils.readInt8(packet, offset);
+            }
+        }
+    }
+
+    @Test
+    public void wrappedByteBuffer() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            // Wrapped for each packet, as a notification value
+            ByteBuffer buffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+            checksum += buffer.get(0) & 0xFF;
+            for (int offset=1; offset<11; offset+=2) {
+                checksum += buffer.getShort(offset);
+            }
+            for (int offset=11; offset<15; offset++) {
+                checksum += buffer.get(offset);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmark of the encoding of vibration signals, with a command built for each packet and with
+ * a precompiled template.
+ *
+ * The benchmark is in the package of the library to access the package-private encoders.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChannelConfigurationBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    // Sink of the encoded packets
+    private long checksum = 0;
+
+    @Test
+    public void commandPacket() {
+        BenchmarkState state = benchmarkRule.getState();
+        int orientation = 0;
+        while (state.keepRunning()) {
+            orientation = (orientation+1)%360;
+            checksum += new ChannelConfigurationCommand(2, BeltVibrationPattern.CONTINUOUS, 50,
+                    OrientationType.BEARING, orientation, 0, 500, 0, false, false)
+                    .getPacket()[7];
+        }
+    }
+
+    @Test
+    public void templatePacket() {
+        BenchmarkState state = benchmarkRule.getState();
+        byte[] buffer = new byte[ChannelConfigurationCommand.PACKET_LENGTH];
+        ChannelConfigurationTemplate template = ChannelConfigurationTemplate.forSignal(
+                BeltVibrationSignal.NAVIGATION);
+        int orientation = 0;
+        while (state.keepRunning()) {
+            orientation = (orientation+1)%360;
+            template.writePacket(buffer, 0, 2, 50, OrientationType.BEARING, orientation, false);
+            checksum += buffer[7];
+        }
+    }
+
+}
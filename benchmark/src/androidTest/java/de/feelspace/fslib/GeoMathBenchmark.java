@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmark of the geodesic kernels for a waypoint about 1.3 km away, the typical distance of
+ * navigation updates.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GeoMathBenchmark {
+
+    // Waypoint
+    private static final double WAYPOINT_LAT = 52.01;
+    private static final double WAYPOINT_LON = 9.01;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    // Sink of the results
+    private double checksum = 0;
+
+    @Test
+    public void ellipsoidalDistance() {
+        benchmarkDistance(GeodesicPrecision.ELLIPSOIDAL);
+    }
+
+    @Test
+    public void sphericalDistance() {
+        benchmarkDistance(GeodesicPrecision.SPHERICAL);
+    }
+
+    @Test
+    public void fastDistance() {
+        benchmarkDistance(GeodesicPrecision.FAST);
+    }
+
+    @Test
+    public void localFrameDistance() {
+        BenchmarkState state = benchmarkRule.getState();
+        GeoMath.LocalFrame frame = new GeoMath.LocalFrame(WAYPOINT_LAT, WAYPOINT_LON);
+        double lat = 52;
+        while (state.keepRunning()) {
+            lat += 1e-9;
+            checksum += frame.distanceFrom(lat, 9);
+        }
+    }
+
+    @Test
+    public void ellipsoidalBearing() {
+        BenchmarkState state = benchmarkRule.getState();
+        double lat = 52;
+        while (state.keepRunning()) {
+            lat += 1e-9;
+            checksum += GeoMath.bearing(GeodesicPrecision.ELLIPSOIDAL, lat, 9, WAYPOINT_LAT,
+                    WAYPOINT_LON);
+        }
+    }
+
+    @Test
+    public void sphericalBearing() {
+        BenchmarkState state = benchmarkRule.getState();
+        double lat = 52;
+        while (state.keepRunning()) {
+            lat += 1e-9;
+            checksum += GeoMath.bearing(GeodesicPrecision.SPHERICAL, lat, 9, WAYPOINT_LAT,
+                    WAYPOINT_LON);
+        }
+    }
+
+    /**
+     * Measures the distance to the waypoint from a slowly moving location.
+     */
+    private void benchmarkDistance(GeodesicPrecision precision) {
+        BenchmarkState state = benchmarkRule.getState();
+        double lat = 52;
+        while (state.keepRunning()) {
+            lat += 1e-9;
+            checksum += GeoMath.distance(precision, lat, 9, WAYPOINT_LAT, WAYPOINT_LON);
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Fixed-capacity history of battery status samples.
+ *
+ * Each entry of the history is the average of a number of consecutive samples. When the history
+ * is full, pairs of consecutive entries are merged and the number of samples per entry is
+ * doubled. The history therefore always covers the whole session with a resolution that
+ * decreases as the session gets longer, without growing in memory.
+ *
+ * The temperature is averaged only over the samples in which it is present, and is
+ * <code>NaN</code> for entries without temperature reading.
+ */
+public class BatteryHistory {
+
+    /**
+     * Default number of entries in the history.
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    /** Series of battery levels in percents. */
+    public static final int SERIES_LEVEL = 0;
+
+    /** Series of time to empty or time to full in seconds. */
+    public static final int SERIES_TTE_TTF = 1;
+
+    /** Series of battery currents in mA. */
+    public static final int SERIES_CURRENT = 2;
+
+    /** Series of battery voltages in mV. */
+    public static final int SERIES_VOLTAGE = 3;
+
+    /** Series of battery temperatures in degree Celsius. */
+    public static final int SERIES_TEMPERATURE = 4;
+
+    // Number of series
+    private static final int SERIES_COUNT = 5;
+
+    // Maximum number of entries
+    private final int capacity;
+
+    // Entries: time of the first sample and averaged values for each series
+    private final long[] timeNano;
+    private final float[][] values;
+    private int entryCount = 0;
+
+    // Number of samples averaged in an entry
+    private int samplesPerEntry = 1;
+
+    // Samples of the entry being accumulated
+    private int pendingCount = 0;
+    private long pendingTimeNano;
+    private final double[] pendingSums = new double[SERIES_COUNT];
+    private int pendingTemperatureCount = 0;
+
+    /**
+     * Creates a battery history.
+     *
+     * @param capacity The maximum number of entries, must be even.
+     * @throws IllegalArgumentException If the capacity is lower than 2 or odd.
+     */
+    public BatteryHistory(int capacity) {
+        if (capacity < 2 || (capacity % 2) != 0) {
+            throw new IllegalArgumentException("The capacity must be even and at least 2.");
+        }
+        this.capacity = capacity;
+        timeNano = new long[capacity];
+        values = new float[SERIES_COUNT][capacity];
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the capacity of the history.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of entries in the history.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of samples averaged in an entry. The last samples received are only
+     * visible in the history once an entry is complete.
+     *
+     * @return the number of samples per entry.
+     */
+    public synchronized int getSamplesPerEntry() {
+        return samplesPerEntry;
+    }
+
+    /**
+     * Adds a battery status to the history.
+     *
+     * @param status The battery status.
+     * @param receiveTimeNano The reception time of the status.
+     */
+    void add(@NonNull BeltBatteryStatus status, long receiveTimeNano) {
+        add(status.getLevel(), status.getTteTtf(), status.getCurrent(), status.getVoltage(),
+                status.getTemperature(), receiveTimeNano);
+    }
+
+    /**
+     * Adds a battery sample to the history.
+     *
+     * @param level The battery level in percents.
+     * @param tteTtf The time to empty or time to full in seconds.
+     * @param current The battery current in mA.
+     * @param voltage The battery voltage in mV.
+     * @param temperature The battery temperature in degree Celsius, or <code>NaN</code> if
+     * unknown.
+     * @param receiveTimeNano The reception time of the sample.
+     */
+    synchronized void add(float level, float tteTtf, float current, float voltage,
+                          float temperature, long receiveTimeNano) {
+        if (pendingCount == 0) {
+            pendingTimeNano = receiveTimeNano;
+        }
+        pendingSums[SERIES_LEVEL] += level;
+        pendingSums[SERIES_TTE_TTF] += tteTtf;
+        pendingSums[SERIES_CURRENT] += current;
+        pendingSums[SERIES_VOLTAGE] += voltage;
+        if (!Float.isNaN(temperature)) {
+            pendingSums[SERIES_TEMPERATURE] += temperature;
+            pendingTemperatureCount++;
+        }
+        pendingCount++;
+        if (pendingCount < samplesPerEntry) {
+            return;
+        }
+        // Append the completed entry
+        timeNano[entryCount] = pendingTimeNano;
+        for (int s=0; s<SERIES_TEMPERATURE; s++) {
+            values[s][entryCount] = (float) (pendingSums[s]/pendingCount);
+        }
+        values[SERIES_TEMPERATURE][entryCount] = (pendingTemperatureCount == 0)?(Float.NaN):
+                ((float) (pendingSums[SERIES_TEMPERATURE]/pendingTemperatureCount));
+        entryCount++;
+        clearPending();
+        if (entryCount == capacity) {
+            downsample();
+        }
+    }
+
+    /**
+     * Merges pairs of consecutive entries.
+     */
+    private void downsample() {
+        for (int i=0; i<capacity/2; i++) {
+            int first = 2*i;
+            timeNano[i] = timeNano[first];
+            for (int s=0; s<SERIES_TEMPERATURE; s++) {
+                values[s][i] = (values[s][first]+values[s][first+1])/2;
+            }
+            float t1 = values[SERIES_TEMPERATURE][first];
+            float t2 = values[SERIES_TEMPERATURE][first+1];
+            values[SERIES_TEMPERATURE][i] = (Float.isNaN(t1))?(t2):
+                    ((Float.isNaN(t2))?(t1):((t1+t2)/2));
+        }
+        entryCount = capacity/2;
+        samplesPerEntry *= 2;
+    }
+
+    /**
+     * Resets the accumulated samples.
+     */
+    private void clearPending() {
+        pendingCount = 0;
+        pendingTemperatureCount = 0;
+        for (int s=0; s<SERIES_COUNT; s++) {
+            pendingSums[s] = 0;
+        }
+    }
+
+    /**
+     * Removes all entries and resets the resolution.
+     */
+    synchronized void clear() {
+        entryCount = 0;
+        samplesPerEntry = 1;
+        clearPending();
+    }
+
+    /**
+     * Copies a series of the history, from the oldest to the most recent entry.
+     *
+     * @param series The series to copy, e.g. {@link #SERIES_LEVEL}.
+     * @param timeNano The array in which the time of entries is copied, or <code>null</code>.
+     * @param values The array in which the values of the series are copied.
+     * @return the number of entries copied, limited to the length of the arrays.
+     * @throws IllegalArgumentException If the series is unknown or the value array is
+     * <code>null</code>.
+     */
+    public synchronized int copySeries(int series, @Nullable long[] timeNano,
+                                       float[] values) {
+        if (series < 0 || series >= SERIES_COUNT) {
+            throw new IllegalArgumentException("Unknown battery history series.");
+        }
+        if (values == null) {
+            throw new IllegalArgumentException("Null value array.");
+        }
+        int count = Math.min(entryCount, values.length);
+        if (timeNano != null) {
+            count = Math.min(count, timeNano.length);
+            System.arraycopy(this.timeNano, 0, timeNano, 0, count);
+        }
+        System.arraycopy(this.values[series], 0, values, 0, count);
+        return count;
+    }
+
+}
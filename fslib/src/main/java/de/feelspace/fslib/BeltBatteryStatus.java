@@ -25,8 +25,32 @@ public class BeltBatteryStatus implements Parcelable {
     /** The time to empty or time to full in seconds. */
     private float tteTtf;
 
+    /** Index of the battery current in mA in the extra readings. */
+    public static final int EXTRA_CURRENT = 0;
+
+    /** Index of the battery voltage in mV in the extra readings. */
+    public static final int EXTRA_VOLTAGE = 1;
+
+    /** Index of the battery temperature in degree Celsius in the extra readings. */
+    public static final int EXTRA_TEMPERATURE = 2;
+
+    /** Index of the relative capacity in percents in the extra readings. */
+    public static final int EXTRA_CAPACITY = 3;
+
+    /** Index of the VS-L power status in the extra readings. */
+    public static final int EXTRA_VSL_POWER_STATUS = 4;
+
+    /** Index of the VS-L charge level in percents in the extra readings. */
+    public static final int EXTRA_VSL_LEVEL = 5;
+
+    /** Number of extra readings. */
+    public static final int EXTRA_COUNT = 6;
+
     /** Optional extra readings (only for debug purpose) */
-    private Float[] extraProperties = new Float[]{null, null, null, null, null, null};
+    private final float[] extraValues = new float[EXTRA_COUNT];
+
+    /** Presence bits of the extra readings, bit <code>i</code> for the reading <code>i</code>. */
+    private int extraPresence = 0;
 
     /**
      * Constructor.
@@ -47,25 +71,25 @@ public class BeltBatteryStatus implements Parcelable {
             throw new IllegalArgumentException("Malformed battery status packet to create object.");
         }
         powerStatus = PowerStatus.fromValue(packet[0], PowerStatus.UNKNOWN);
-        level = ((float)(packet[2] & 0xFF)) + (((float)(packet[1] & 0xFF)) / 256.f);
-        tteTtf = ((float)(((packet[4] & 0xFF) << 8) | (packet[3] & 0xFF)))*5.625f;
-        extraProperties[0] = (float) ((packet[6] << 8) | (packet[5] & 0xFF)); // int16 mA
-        extraProperties[1] = (float) (((packet[8]  & 0xFF) << 8) | (packet[7] & 0xFF)); // uint16 mV
+        level = BinaryUtils.readUInt16LE(packet, 1) / 256.f; // uint16 in 1/256 percent
+        tteTtf = BinaryUtils.readUInt16LE(packet, 3) * 5.625f;
+        setExtra(EXTRA_CURRENT, BinaryUtils.readInt16LE(packet, 5)); // int16 mA
+        setExtra(EXTRA_VOLTAGE, BinaryUtils.readUInt16LE(packet, 7)); // uint16 mV
         if (packet.length >= 11) {
-            extraProperties[2] = (float) ((packet[10] << 8) | (packet[9] & 0xFF)); // int16 dC
-            extraProperties[2] /= 256.f;
+            // int16 in 1/256 degree Celsius
+            setExtra(EXTRA_TEMPERATURE, BinaryUtils.readInt16LE(packet, 9) / 256.f);
         }
         if (packet.length >= 13) {
-            extraProperties[3] = (float) (((packet[12]  & 0xFF) << 8) | (packet[11] & 0xFF)); // uint16 %C
-            extraProperties[3] /= 256.f;
+            // uint16 in 1/256 percent of capacity
+            setExtra(EXTRA_CAPACITY, BinaryUtils.readUInt16LE(packet, 11) / 256.f);
         }
         if (packet.length >= 14) {
             // VS-L power status
-            extraProperties[4] = (float) packet[13];
+            setExtra(EXTRA_VSL_POWER_STATUS, BinaryUtils.readInt8(packet, 13));
         }
         if (packet.length >= 16) {
             // VS-L charge level
-            extraProperties[5] = ((float)(packet[15] & 0xFF)) + (((float)(packet[14] & 0xFF)) / 256.f);
+            setExtra(EXTRA_VSL_LEVEL, BinaryUtils.readUInt16LE(packet, 14) / 256.f);
         }
     }
 
@@ -78,12 +102,10 @@ public class BeltBatteryStatus implements Parcelable {
         powerStatus = PowerStatus.fromValue((byte)in.readInt(), PowerStatus.UNKNOWN);
         level = in.readFloat();
         tteTtf = in.readFloat();
-        extraProperties[0] = (Float) in.readValue(Float.class.getClassLoader());
-        extraProperties[1] = (Float) in.readValue(Float.class.getClassLoader());
-        extraProperties[2] = (Float) in.readValue(Float.class.getClassLoader());
-        extraProperties[3] = (Float) in.readValue(Float.class.getClassLoader());
-        extraProperties[4] = (Float) in.readValue(Float.class.getClassLoader());
-        extraProperties[5] = (Float) in.readValue(Float.class.getClassLoader());
+        extraPresence = in.readInt();
+        for (int i=0; i<EXTRA_COUNT; i++) {
+            extraValues[i] = in.readFloat();
+        }
     }
 
     /**
@@ -127,11 +149,66 @@ public class BeltBatteryStatus implements Parcelable {
     }
 
     /**
-     * Returns the extra properties (only for debug purposes).
-     * @return the extra properties.
+     * Returns the extra properties (only for debug purposes). The array is created on each call,
+     * {@link #getExtraValue(int)} should be preferred to avoid boxing.
+     * @return the extra properties, with <code>null</code> for missing readings.
      */
     public Float[] getExtra() {
-        return extraProperties;
+        Float[] extra = new Float[EXTRA_COUNT];
+        for (int i=0; i<EXTRA_COUNT; i++) {
+            extra[i] = (hasExtra(i))?(extraValues[i]):(null);
+        }
+        return extra;
+    }
+
+    /**
+     * Returns <code>true</code> if an extra reading is present in the battery status.
+     * @param index the index of the extra reading, e.g. {@link #EXTRA_TEMPERATURE}.
+     * @return <code>true</code> if the reading is present.
+     */
+    public boolean hasExtra(int index) {
+        return index >= 0 && index < EXTRA_COUNT && (extraPresence & (1 << index)) != 0;
+    }
+
+    /**
+     * Returns an extra reading (only for debug purposes).
+     * @param index the index of the extra reading, e.g. {@link #EXTRA_TEMPERATURE}.
+     * @return the value of the reading, or <code>NaN</code> if the reading is not present.
+     */
+    public float getExtraValue(int index) {
+        return (hasExtra(index))?(extraValues[index]):(Float.NaN);
+    }
+
+    /**
+     * Returns the battery current.
+     * @return the battery current in mA, or <code>NaN</code> if unknown.
+     */
+    public float getCurrent() {
+        return getExtraValue(EXTRA_CURRENT);
+    }
+
+    /**
+     * Returns the battery voltage.
+     * @return the battery voltage in mV, or <code>NaN</code> if unknown.
+     */
+    public float getVoltage() {
+        return getExtraValue(EXTRA_VOLTAGE);
+    }
+
+    /**
+     * Returns the battery temperature.
+     * @return the battery temperature in degree Celsius, or <code>NaN</code> if unknown.
+     */
+    public float getTemperature() {
+        return getExtraValue(EXTRA_TEMPERATURE);
+    }
+
+    /**
+     * Sets an extra reading and its presence bit.
+     */
+    private void setExtra(int index, float value) {
+        extraValues[index] = value;
+        extraPresence |= (1 << index);
     }
 
     @Override
@@ -144,11 +221,9 @@ public class BeltBatteryStatus implements Parcelable {
         dest.writeInt(powerStatus.getValue());
         dest.writeFloat(level);
         dest.writeFloat(tteTtf);
-        dest.writeValue(extraProperties[0]);
-        dest.writeValue(extraProperties[1]);
-        dest.writeValue(extraProperties[2]);
-        dest.writeValue(extraProperties[3]);
-        dest.writeValue(extraProperties[4]);
-        dest.writeValue(extraProperties[5]);
+        dest.writeInt(extraPresence);
+        for (int i=0; i<EXTRA_COUNT; i++) {
+            dest.writeFloat(extraValues[i]);
+        }
     }
 }
@@ -283,6 +283,23 @@ public interface BeltCommandInterface {
      */
     BeltBatteryStatus getBatteryStatus();
 
+    /**
+     * Returns the history of battery status received from the belt. The history is downsampled
+     * when full, kept across reconnection attempts and cleared when the belt is disconnected.
+     *
+     * @return the battery history.
+     */
+    BatteryHistory getBatteryHistory();
+
+    /**
+     * Returns the manager of the vibration channels. Signals that last, e.g. the navigation
+     * signal, lease a channel from the manager so that they are not overwritten by other signals.
+     * Vibration commands without channel index use a channel that is not leased when possible.
+     *
+     * @return the channel manager.
+     */
+    VibrationChannelManager getChannelManager();
+
     /**
      * Returns the last known orientation of the belt. To obtain the orientation of the belt the
      * notifications must be activated using
@@ -293,6 +310,24 @@ public interface BeltCommandInterface {
      */
     BeltOrientation getOrientation();
 
+    /**
+     * Copies the last known orientation of the belt into a sample object. Unlike
+     * {@link BeltCommandInterface#getOrientation()}, this method does not create any object.
+     *
+     * @param destination the sample in which the orientation is copied.
+     * @return <code>true</code> if the orientation has been copied, <code>false</code> if the belt
+     * is not connected or the orientation is unknown.
+     */
+    boolean getOrientationSample(OrientationSample destination);
+
+    /**
+     * Returns the history of orientation samples received from the belt. The history is cleared
+     * when the belt is disconnected.
+     *
+     * @return the orientation history.
+     */
+    OrientationHistory getOrientationHistory();
+
     /**
      * Sets the state of orientation notifications.
      *
@@ -335,6 +370,22 @@ public interface BeltCommandInterface {
      */
     void removeCommandListener(BeltCommandListener listener);
 
+    /**
+     * Adds a listener to orientation notifications. Orientation samples are passed as a reused
+     * object, see {@link BeltOrientationListener}. When the listener is also a command listener,
+     * it no more receives {@link BeltCommandListener#onBeltOrientationUpdated(BeltOrientation)}.
+     *
+     * @param listener the listener to add.
+     */
+    void addOrientationListener(BeltOrientationListener listener);
+
+    /**
+     * Removes a listener from orientation notifications.
+     *
+     * @param listener the listener to remove.
+     */
+    void removeOrientationListener(BeltOrientationListener listener);
+
     /**
      * Enables or disables the vibration signal for inaccurate compass.
      *
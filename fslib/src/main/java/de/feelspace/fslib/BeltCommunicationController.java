@@ -17,7 +17,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -139,8 +141,20 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     private Integer defaultIntensity = null;
     private Integer beltFirmwareVersion = null;
     private BeltBatteryStatus beltBatteryStatus = null;
-    private BeltOrientation beltOrientation = null;
-    private @NonNull HashMap<BeltParameter, Object> parameterValues = new HashMap<>();
+    private BeltOrientation beltOrientation = null;  // Created on demand from the sample
+    private final @NonNull OrientationSample orientationSample = new OrientationSample();
+    private boolean orientationSampleAvailable = false;
+    private final @NonNull OrientationHistory orientationHistory =
+            new OrientationHistory(OrientationHistory.DEFAULT_CAPACITY);
+    private final @NonNull BatteryHistory batteryHistory =
+            new BatteryHistory(BatteryHistory.DEFAULT_CAPACITY);
+    private final @NonNull BeltParameterCache parameterCache = new BeltParameterCache();
+
+    // Vibration channels
+    private final @NonNull VibrationChannelManager channelManager;
+
+    // Packing of parameter requests
+    private final @NonNull ParameterRequestBatcher parameterRequestBatcher;
 
     /* Static packet */
 
@@ -153,19 +167,218 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     // Request default intensity packet
     private static final byte[] REQUEST_DEFAULT_INTENSITY_PACKET = new byte[] {0x01, 0x02};
 
+    /** Pool of buffers for vibration command packets */
+    private final @NonNull PacketBufferPool packetPool = new PacketBufferPool();
+
     /** Command listeners */
     private @NonNull ArrayList<BeltCommandListener> commandListeners = new ArrayList<>();
 
+    /** Orientation listeners */
+    private @NonNull ArrayList<BeltOrientationListener> orientationListeners = new ArrayList<>();
+
+    /** Snapshots of listeners for orientation notifications, updated on listener changes */
+    private volatile @NonNull BeltOrientationListener[] orientationSampleTargets =
+            new BeltOrientationListener[0];
+    private volatile @NonNull BeltCommandListener[] orientationObjectTargets =
+            new BeltCommandListener[0];
+
     /** Communication listeners */
     private @NonNull ArrayList<BeltCommunicationListener> communicationListeners =
             new ArrayList<>();
 
+    /** Decoder of keep-alive packets. The keep-alive is acknowledged even if malformed or empty. */
+    private final @NonNull NotificationDecoder keepAliveDecoder =
+            new NotificationDecoder("keep-alive", 0) {
+        @Override
+        protected void onPacketReceived() {
+            gattController.getMetrics().increment(Metric.KEEP_ALIVES);
+            // Acknowledge keep-alive
+            if (!gattController.writeCharacteristic(keepAliveChar, KEEP_ALIVE_PACKET)) {
+                Log.e(DEBUG_TAG, "BeltCommunicationController: Unable to send keep-alive " +
+                        "acknowledgment.");
+            }
+        }
+
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            // Retrieve mode
+            BeltMode currentMode = (value.length >= 2)?(BeltMode.fromValue(value[1])):(null);
+            parsed();
+            if (currentMode == null) {
+                return false;
+            }
+            setBeltMode(currentMode);
+            return true;
+        }
+    };
+
+    /** Decoder of button press packets. */
+    private final @NonNull NotificationDecoder buttonPressDecoder =
+            new NotificationDecoder("button press", 5) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            BeltMode previousMode = BeltMode.fromValue(value[3]);
+            BeltMode subsequentMode = BeltMode.fromValue(value[4]);
+            BeltButton button = BeltButton.fromValue(value[0]);
+            parsed();
+            if (previousMode == null || subsequentMode == null || button == null) {
+                return false;
+            }
+            notifyButtonPressed(new BeltButtonPressEvent(button, previousMode, subsequentMode));
+            if (subsequentMode == BeltMode.STANDBY) {
+                gattController.disconnect();
+            }
+            return true;
+        }
+    };
+
+    /** Decoder of belt mode parameter packets. */
+    private final @NonNull NotificationDecoder beltModeParameterDecoder =
+            new NotificationDecoder("belt mode parameter", 3) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            BeltMode mode = BeltMode.fromValue(value[2]);
+            parsed();
+            if (mode == null) {
+                return false;
+            }
+            setBeltMode(mode);
+            return true;
+        }
+    };
+
+    /** Decoder of default intensity parameter packets. */
+    private final @NonNull NotificationDecoder defaultIntensityParameterDecoder =
+            new NotificationDecoder("default intensity parameter", 3) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            int intensity = BinaryUtils.readUInt8(value, 2);
+            parsed();
+            if (intensity < 0 || intensity > 100) {
+                return false;
+            }
+            setDefaultIntensity(intensity);
+            return true;
+        }
+    };
+
+    /** Decoder of heading offset parameter packets. */
+    private final @NonNull NotificationDecoder headingOffsetParameterDecoder =
+            new NotificationDecoder("heading offset parameter", 4) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            int offset = BinaryUtils.readUInt16LE(value, 2);
+            parsed();
+            setParameterValue(BeltParameter.HEADING_OFFSET, offset);
+            return true;
+        }
+    };
+
+    /** Decoder of accuracy signal state parameter packets. */
+    private final @NonNull NotificationDecoder accuracySignalParameterDecoder =
+            new NotificationDecoder("accuracy signal state parameter", 3) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            int state = BinaryUtils.readUInt8(value, 2);
+            parsed();
+            setParameterValue(BeltParameter.ACCURACY_SIGNAL_STATE, state);
+            return (state <= 3);
+        }
+    };
+
+    /** Decoder of parameters not supported by the library (Bluetooth name, buzzer). */
+    private final @NonNull NotificationDecoder unsupportedParameterDecoder =
+            new NotificationDecoder("unsupported parameter", 2) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            parsed();
+            Log.w(DEBUG_TAG, "BeltCommunicationController: Parameter not supported.");
+            return true;
+        }
+    };
+
+    /** Decoder of orientation data packets. */
+    private final @NonNull NotificationDecoder orientationDecoder =
+            new NotificationDecoder("orientation data", 16) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            int id = BinaryUtils.readUInt8(value, 0);
+            int beltHeading = BinaryUtils.readInt16LE(value, 1);
+            int heading = BinaryUtils.readInt16LE(value, 3);
+            int roll = BinaryUtils.readInt16LE(value, 5);
+            int pitch = BinaryUtils.readInt16LE(value, 7);
+            int accuracy = BinaryUtils.readInt16LE(value, 9);
+            int magStatus = BinaryUtils.readInt8(value, 11);
+            int accelStatus = BinaryUtils.readInt8(value, 12);
+            int gyroStatus = BinaryUtils.readInt8(value, 13);
+            int fusionStatus = BinaryUtils.readInt8(value, 14);
+            boolean inaccurate = (value[15]!=0);
+            parsed();
+            setOrientation(id, beltHeading, heading, roll, pitch, accuracy, magStatus,
+                    accelStatus, gyroStatus, fusionStatus, inaccurate);
+            return true;
+        }
+    };
+
+    /** Decoder of battery status packets. */
+    private final @NonNull NotificationDecoder batteryStatusDecoder =
+            new NotificationDecoder("battery status", 9) {
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            BeltBatteryStatus status;
+            try {
+                status = new BeltBatteryStatus(value);
+            } catch (Exception e) {
+                return false;
+            }
+            parsed();
+            setBatteryStatus(status);
+            return true;
+        }
+    };
+
+    /** All notification decoders, for statistics. */
+    private final @NonNull NotificationDecoder[] notificationDecoders = new NotificationDecoder[] {
+            keepAliveDecoder, buttonPressDecoder, beltModeParameterDecoder,
+            defaultIntensityParameterDecoder, headingOffsetParameterDecoder,
+            accuracySignalParameterDecoder, unsupportedParameterDecoder, orientationDecoder,
+            batteryStatusDecoder};
+
+    /** Decoders of parameter notifications indexed by opcode and parameter ID. */
+    private final @NonNull NotificationDecoder[][] parameterDecoders =
+            new NotificationDecoder[0x11][];
+    {
+        // Old-style parameter notifications (opcode 0x01)
+        parameterDecoders[0x01] = new NotificationDecoder[] {
+                null,
+                beltModeParameterDecoder,
+                defaultIntensityParameterDecoder,
+                headingOffsetParameterDecoder,
+                unsupportedParameterDecoder      // Bluetooth name
+        };
+        // Parameter notifications (opcode 0x10), indexed by parameter ID
+        parameterDecoders[0x10] = new NotificationDecoder[] {
+                defaultIntensityParameterDecoder,
+                headingOffsetParameterDecoder,
+                unsupportedParameterDecoder,     // Buzzer active
+                accuracySignalParameterDecoder
+        };
+    }
+
+    /** Decoders of notifications indexed by characteristic (except parameter notifications). */
+    private volatile @NonNull IdentityHashMap<BluetoothGattCharacteristic, NotificationDecoder>
+            characteristicDecoders = new IdentityHashMap<>();
+
     /**
      * Constructor.
      * @param gattController The GATT controller to communicate with the belt.
      */
     BeltCommunicationController(@NonNull GattController gattController) {
         this.gattController = gattController;
+        channelManager = new VibrationChannelManager(this, gattController.getExecutor());
+        parameterRequestBatcher = new ParameterRequestBatcher(
+                packet -> gattController.writeCharacteristic(parameterRequestChar, packet),
+                gattController.getExecutor());
         gattController.addGattEventListener(this);
     }
 
@@ -299,6 +512,14 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                     "in GATT profile.");
             return false;
         }
+        // Dispatch table of notifications
+        IdentityHashMap<BluetoothGattCharacteristic, NotificationDecoder> decoders =
+                new IdentityHashMap<>();
+        decoders.put(keepAliveChar, keepAliveDecoder);
+        decoders.put(buttonPressNotificationChar, buttonPressDecoder);
+        decoders.put(orientationDataChar, orientationDecoder);
+        decoders.put(batteryStatusChar, batteryStatusDecoder);
+        characteristicDecoders = decoders;
         debugInputChar = gattController.getCharacteristic(DEBUG_SERVICE_UUID, DEBUG_INPUT_CHAR_UUID);
         debugOutputChar = gattController.getCharacteristic(DEBUG_SERVICE_UUID, DEBUG_OUTPUT_CHAR_UUID);
         if (debugInputChar == null || debugOutputChar == null) {
@@ -341,29 +562,51 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
 
     @Override
     public boolean requestParameterValue(BeltParameter beltParameter) {
-        if (beltParameter == null) {
+        return requestParameterValues(beltParameter);
+    }
+
+    @Override
+    public boolean requestParameterValues(BeltParameter... beltParameters) {
+        if (beltParameters == null || beltParameters.length == 0) {
             Log.e(DEBUG_TAG, "BeltCommunicationController: Cannot send a parameter request " +
-                    "for null parameter.");
+                    "without parameter.");
             return false;
         }
+        for (BeltParameter parameter: beltParameters) {
+            if (parameter == null) {
+                Log.e(DEBUG_TAG, "BeltCommunicationController: Cannot send a parameter " +
+                        "request for null parameter.");
+                return false;
+            }
+        }
         if (gattController.getConnectionState() != GattConnectionState.GATT_CONNECTED ||
                 parameterRequestChar == null) {
             Log.e(DEBUG_TAG, "BeltCommunicationController: Cannot send a parameter request " +
                     "when disconnected.");
             return false;
         }
-        byte[] packet = new byte[] {
-                (byte) 0x10,                // Command
-                (byte) 0x01,                // Parameter count
-                beltParameter.getValue()
-        };
-        return gattController.writeCharacteristic(parameterRequestChar, packet);
+        // Each parameter is notified separately and stored in the parameter cache
+        EnumSet<BeltParameter> requested = EnumSet.noneOf(BeltParameter.class);
+        for (BeltParameter parameter: beltParameters) {
+            requested.add(parameter);
+        }
+        return parameterRequestBatcher.request(requested);
     }
 
     @Nullable
     @Override
     public Object getParameterValue(@Nullable BeltParameter beltParameter) {
-        return parameterValues.get(beltParameter);
+        synchronized (parameterCache) {
+            if (!parameterCache.hasValue(beltParameter)) {
+                return null;
+            }
+            return parameterCache.getValue(beltParameter, 0);
+        }
+    }
+
+    @Override
+    public BeltParameterCache getParameterCache() {
+        return parameterCache;
     }
 
     @Override
@@ -401,9 +644,10 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                         (byte) 0x11,                // Command
                         (byte) 0x01,                // Parameter ID
                         (byte) ((persistent)?(0x01):(0x00)),  // Store on EEPROM
-                        (byte) (offset & 0xFF),     // LSB
-                        (byte) ((offset >> 8) & 0xFF)   // MSB
+                        (byte) 0x00,                // Offset (LSB)
+                        (byte) 0x00                 // Offset (MSB)
                 };
+                BinaryUtils.writeInt16LE(packet, 3, offset);
                 break;
 
             case ACCURACY_SIGNAL_STATE:
@@ -467,6 +711,19 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
 
     @Override
     public boolean sendPulseCommand(@Nullable PulseCommand command) {
+        return sendPulseCommand(command, null);
+    }
+
+    /**
+     * Sends a pulse command and notifies a callback when the write of this command is completed.
+     *
+     * @param command The pulse command.
+     * @param completionCallback The callback notified of the completion of the write, or
+     *                           <code>null</code>.
+     * @return <code>true</code> if the command has been sent.
+     */
+    boolean sendPulseCommand(@Nullable PulseCommand command,
+                             @Nullable GattController.WriteCompletionCallback completionCallback) {
         if (command == null) {
             Log.e(DEBUG_TAG, "BeltCommunicationController: Cannot send a null pulse " +
                     "command.");
@@ -478,11 +735,29 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                     "when not connected.");
             return false;
         }
-        return gattController.writeCharacteristic(vibrationCommandChar, command.getPacket());
+        byte[] packet = packetPool.acquire(PulseCommand.PACKET_LENGTH);
+        command.writePacket(packet, 0);
+        return gattController.writeCharacteristic(vibrationCommandChar, packet, packetPool,
+                completionCallback);
     }
 
     @Override
     public boolean sendChannelConfigurationCommand(@Nullable ChannelConfigurationCommand command) {
+        return sendChannelConfigurationCommand(command, null);
+    }
+
+    /**
+     * Sends a channel configuration command and notifies a callback when the write of this
+     * command is completed.
+     *
+     * @param command The channel configuration command.
+     * @param completionCallback The callback notified of the completion of the write, or
+     *                           <code>null</code>.
+     * @return <code>true</code> if the command has been sent.
+     */
+    boolean sendChannelConfigurationCommand(
+            @Nullable ChannelConfigurationCommand command,
+            @Nullable GattController.WriteCompletionCallback completionCallback) {
         if (command == null) {
             Log.e(DEBUG_TAG, "BeltCommunicationController: Cannot send a null channel " +
                     "configuration command.");
@@ -494,7 +769,10 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                     "when not connected.");
             return false;
         }
-        return gattController.writeCharacteristic(vibrationCommandChar, command.getPacket());
+        byte[] packet = packetPool.acquire(ChannelConfigurationCommand.PACKET_LENGTH);
+        command.writePacket(packet, 0);
+        return gattController.writeCharacteristic(vibrationCommandChar, packet, packetPool,
+                completionCallback);
     }
 
     @Override
@@ -523,6 +801,7 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         synchronized (this) {
             if (listener != null && !commandListeners.contains(listener)) {
                 commandListeners.add(listener);
+                updateOrientationTargets();
             }
         }
     }
@@ -530,7 +809,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     @Override
     public void removeCommandListener(@Nullable BeltCommandListener listener) {
         synchronized (this) {
-            commandListeners.remove(listener);
+            if (commandListeners.remove(listener)) {
+                updateOrientationTargets();
+            }
         }
     }
 
@@ -570,6 +851,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         ArrayList<BeltCommandListener> targets;
         synchronized (this) {
             beltBatteryStatus = status;
+            if (status != null) {
+                batteryHistory.add(status, System.nanoTime());
+            }
             if (commandListeners.isEmpty() ||
                     gattController.getConnectionState() != GattConnectionState.GATT_CONNECTED ||
                     status == null || handshakeStarted) {
@@ -647,20 +931,53 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     /**
      * Updates the orientation and notifies listeners that the belt orientation has been updated.
      */
-    private void setOrientation(@Nullable BeltOrientation orientation) {
-        ArrayList<BeltCommandListener> targets;
+    private void setOrientation(int sourceId, int beltHeading, int controlBoxHeading,
+                                int controlBoxRoll, int controlBoxPitch, int accuracy,
+                                int magnetometerStatus, int accelerometerStatus,
+                                int gyroscopeStatus, int fusionStatus,
+                                boolean inaccurateOrientation) {
+        BeltOrientationListener[] sampleTargets;
+        BeltCommandListener[] objectTargets;
         synchronized (this) {
-            beltOrientation = orientation;
-            if (commandListeners.isEmpty() ||
-                    gattController.getConnectionState() != GattConnectionState.GATT_CONNECTED ||
-                    orientation == null || handshakeStarted) {
+            orientationSample.set(sourceId, beltHeading, controlBoxHeading, controlBoxRoll,
+                    controlBoxPitch, accuracy, magnetometerStatus, accelerometerStatus,
+                    gyroscopeStatus, fusionStatus, inaccurateOrientation, System.nanoTime());
+            orientationSampleAvailable = true;
+            beltOrientation = null;
+            orientationHistory.add(orientationSample);
+            if (gattController.getConnectionState() != GattConnectionState.GATT_CONNECTED ||
+                    handshakeStarted) {
                 return;
             }
-            targets = new ArrayList<>(commandListeners);
+            sampleTargets = orientationSampleTargets;
+            objectTargets = orientationObjectTargets;
         }
-        for (BeltCommandListener l: targets) {
-            l.onBeltOrientationUpdated(orientation);
+        // Notifications are received sequentially, the sample is not updated during dispatch
+        for (BeltOrientationListener l: sampleTargets) {
+            l.onBeltOrientationSample(orientationSample);
+        }
+        if (objectTargets.length > 0) {
+            BeltOrientation orientation = getOrientation();
+            for (BeltCommandListener l: objectTargets) {
+                l.onBeltOrientationUpdated(orientation);
+            }
+        }
+    }
+
+    /**
+     * Updates the snapshots of orientation listeners. Command listeners that are also registered
+     * as orientation listeners only receive samples. This method MUST be called inside a
+     * synchronization block.
+     */
+    private void updateOrientationTargets() {
+        ArrayList<BeltCommandListener> objectTargets = new ArrayList<>();
+        for (BeltCommandListener l: commandListeners) {
+            if (!orientationListeners.contains(l)) {
+                objectTargets.add(l);
+            }
         }
+        orientationSampleTargets = orientationListeners.toArray(new BeltOrientationListener[0]);
+        orientationObjectTargets = objectTargets.toArray(new BeltCommandListener[0]);
     }
 
     /**
@@ -669,11 +986,12 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
      * @param parameter The advanced parameter to set.
      * @param value The value of the parameter.
      */
-    private void setParameterValue(@NonNull BeltParameter parameter, @NonNull Object value) {
+    private void setParameterValue(@NonNull BeltParameter parameter, int value) {
         // Set parameter and notify communication listeners
         ArrayList<BeltCommunicationListener> communicationListenersCopy = null;
+        parameterRequestBatcher.onParameterNotified(parameter);
         synchronized (this) {
-            parameterValues.put(parameter, value);
+            parameterCache.set(parameter, value, System.nanoTime());
             if (gattController.getConnectionState() != GattConnectionState.GATT_CONNECTED ||
                     handshakeStarted) {
                 return;
@@ -683,8 +1001,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
             }
         }
         if (communicationListenersCopy != null) {
+            Integer boxedValue = value;
             for (BeltCommunicationListener l: communicationListenersCopy) {
-                l.onBeltParameterValueNotified(parameter, value);
+                l.onBeltParameterValueNotified(parameter, boxedValue);
             }
         }
         // Notifies command listeners if parameter is accuracy signal state
@@ -696,20 +1015,14 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                 }
             }
             if (commandListenersCopy != null) {
-                try {
-                    boolean signalEnabled = ((Integer) value) >= 2;
-                    for (BeltCommandListener l: commandListenersCopy) {
-                        l.onBeltCompassAccuracySignalStateNotified(signalEnabled);
-                    }
-                } catch (Exception e) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Unexpected parameter " +
-                            "object type.", e);
+                boolean signalEnabled = value >= 2;
+                for (BeltCommandListener l: commandListenersCopy) {
+                    l.onBeltCompassAccuracySignalStateNotified(signalEnabled);
                 }
             }
         }
     }
 
-
     @Override
     public boolean vibrateAtMagneticBearing(float direction, @Nullable Integer intensity,
                                             @Nullable BeltVibrationSignal vibration,
@@ -737,6 +1050,30 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                 intensity, vibration, channelIndex, stopOtherChannels);
     }
 
+    /**
+     * Encodes a pulse command in a pooled buffer and writes it on the vibration command
+     * characteristic.
+     *
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    private boolean writePulseCommand(
+            int channelIndex, @NonNull OrientationType orientationType, int orientationValue,
+            int intensity, int onDurationMs, int pulseIterations, int patternIterations,
+            int pulsePeriodMs, int patternPeriodMs,
+            @NonNull ResetProgressOption resetProgressOption, boolean exclusiveChannel,
+            boolean clearOtherChannels) {
+        byte[] packet = packetPool.acquire(PulseCommand.PACKET_LENGTH);
+        try {
+            PulseCommand.writePacket(packet, 0, channelIndex, orientationType, orientationValue,
+                    intensity, onDurationMs, pulseIterations, patternIterations, pulsePeriodMs,
+                    patternPeriodMs, resetProgressOption, exclusiveChannel, clearOtherChannels);
+        } catch (IllegalArgumentException e) {
+            packetPool.release(packet);
+            throw e;
+        }
+        return gattController.writeCharacteristic(vibrationCommandChar, packet, packetPool);
+    }
+
     /**
      * Sends a command to start the vibration.
      */
@@ -770,8 +1107,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         }
         // Continuous signal if vibration signal parameter is null
         vibration = (vibration==null)?(BeltVibrationSignal.CONTINUOUS):(vibration);
-        // Channel index 1 for non-repeated signal and 2 for repeated signal as default
-        channelIndex = (channelIndex == null)?((vibration.isRepeated())?(2):(1)):(channelIndex);
+        // Default channel not leased, 1 for non-repeated signal and 2 for repeated signal
+        channelIndex = (channelIndex == null)?
+                (channelManager.getDefaultChannel(vibration.isRepeated())):(channelIndex);
         // Don't stop other channel as default
         stopOtherChannels = (stopOtherChannels == null)?(false):(stopOtherChannels);
         // Only temporary signal on channel 0 when not in app mode
@@ -792,149 +1130,23 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
             }
         }
 
+        // Patch the precompiled packet of the signal
+        ChannelConfigurationTemplate template = ChannelConfigurationTemplate.forSignal(vibration);
+        if (template == null || template.hasFixedOrientation()) {
+            // Non-directional signal, unreachable
+            return false;
+        }
+        byte[] packet = packetPool.acquire(ChannelConfigurationCommand.PACKET_LENGTH);
         try {
-            switch (vibration) {
-                case CONTINUOUS:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.CONTINUOUS,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    500,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case NAVIGATION:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.CONTINUOUS,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    500,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case APPROACHING_DESTINATION:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_SHORT_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    500,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case TURN_ONGOING:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    750,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case DIRECTION_NOTIFICATION:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.CONTINUOUS,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    1,
-                                    1000,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case NEXT_WAYPOINT_LONG_DISTANCE:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    3000,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case NEXT_WAYPOINT_MEDIUM_DISTANCE:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    1500,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case NEXT_WAYPOINT_SHORT_DISTANCE:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    1000,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case NEXT_WAYPOINT_AREA_REACHED:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    orientationType,
-                                    orientation,
-                                    0,
-                                    750,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case DESTINATION_REACHED_REPEATED:
-                case DESTINATION_REACHED_SINGLE:
-                case OPERATION_WARNING:
-                case CRITICAL_WARNING:
-                case BATTERY_LEVEL:
-                    // Non-directional signal, unreachable
-                    return false;
-            }
+            template.writePacket(packet, 0, channelIndex, intensity, orientationType,
+                    orientation, stopOtherChannels);
         } catch (Exception e) {
+            packetPool.release(packet);
             Log.e(DEBUG_TAG, "BeltCommunicationController: Illegal argument for " +
                     "vibration command.", e);
             return false;
         }
-        // Unreachable
-        return false;
+        return gattController.writeCharacteristic(vibrationCommandChar, packet, packetPool);
     }
 
     @Override
@@ -993,8 +1205,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         } else if (intensity > 0 && intensity < 5) {
             intensity = 5;
         }
-        // Channel index 1 for non-repeated signal and 2 for repeated signal as default
-        channelIndex = (channelIndex == null)?((iterations<=0)?(2):(1)):(channelIndex);
+        // Default channel not leased, 1 for non-repeated signal and 2 for repeated signal
+        channelIndex = (channelIndex == null)?(channelManager.getDefaultChannel(iterations<=0)):
+                (channelIndex);
         // Don't stop other channel as default
         stopOtherChannels = (stopOtherChannels == null)?(false):(stopOtherChannels);
         // Only temporary signal on channel 0 when not in app mode
@@ -1015,21 +1228,19 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         }
 
         try {
-            return gattController.writeCharacteristic(vibrationCommandChar,
-                    new PulseCommand(
-                            channelIndex,
-                            orientationType,
-                            orientation,
-                            intensity,
-                            onDurationMs,
-                            1,
-                            iterations,
-                            periodMs,
-                            periodMs,
-                            ResetProgressOption.RESET_PROGRESS_ON_DIFFERENT_PERIOD,
-                            false,
-                            stopOtherChannels
-                    ).getPacket());
+            return writePulseCommand(
+                    channelIndex,
+                    orientationType,
+                    orientation,
+                    intensity,
+                    onDurationMs,
+                    1,
+                    iterations,
+                    periodMs,
+                    periodMs,
+                    ResetProgressOption.RESET_PROGRESS_ON_DIFFERENT_PERIOD,
+                    false,
+                    stopOtherChannels);
         } catch (Exception e) {
             Log.e(DEBUG_TAG, "BeltCommunicationController: Illegal argument for " +
                     "vibration command.", e);
@@ -1072,8 +1283,9 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         } else if (intensity > 0 && intensity < 5) {
             intensity = 5;
         }
-        // Channel index 1 for non-repeated signal and 2 for repeated signal as default
-        channelIndex = (channelIndex == null)?((vibration.isRepeated())?(2):(1)):(channelIndex);
+        // Default channel not leased, 1 for non-repeated signal and 2 for repeated signal
+        channelIndex = (channelIndex == null)?
+                (channelManager.getDefaultChannel(vibration.isRepeated())):(channelIndex);
         // Don't stop other channel as default
         stopOtherChannels = (stopOtherChannels == null)?(false):(stopOtherChannels);
         // Only temporary signal on channel 0 when not in app mode
@@ -1093,90 +1305,22 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
             }
         }
 
+        // Patch the precompiled packet of the signal
+        ChannelConfigurationTemplate template = ChannelConfigurationTemplate.forSignal(vibration);
+        if (template == null || !template.hasFixedOrientation()) {
+            // System signal, unreachable
+            return false;
+        }
+        byte[] packet = packetPool.acquire(ChannelConfigurationCommand.PACKET_LENGTH);
         try {
-            switch (vibration) {
-                case CONTINUOUS:
-                case NAVIGATION:
-                case APPROACHING_DESTINATION:
-                case TURN_ONGOING:
-                case DIRECTION_NOTIFICATION:
-                case NEXT_WAYPOINT_LONG_DISTANCE:
-                case NEXT_WAYPOINT_MEDIUM_DISTANCE:
-                case NEXT_WAYPOINT_SHORT_DISTANCE:
-                case NEXT_WAYPOINT_AREA_REACHED:
-                    // Directional signals, unreachable
-                    return false;
-                case DESTINATION_REACHED_REPEATED:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.DESTINATION_REACHED,
-                                    intensity,
-                                    OrientationType.VIBROMOTOR_INDEX,
-                                    0,
-                                    0,
-                                    5000,
-                                    0,
-                                    false,
-                                    stopOtherChannels
-                            ).getPacket());
-                case DESTINATION_REACHED_SINGLE:
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.DESTINATION_REACHED,
-                                    intensity,
-                                    OrientationType.VIBROMOTOR_INDEX,
-                                    0,
-                                    1,
-                                    2500,
-                                    0,
-                                    true,
-                                    stopOtherChannels
-                            ).getPacket());
-                case OPERATION_WARNING:
-                    // Note: exclusive channel is true because firmware 43 only support 4
-                    // simultaneous vibration.
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.WARNING,
-                                    intensity,
-                                    OrientationType.VIBROMOTOR_INDEX,
-                                    0,
-                                    2,
-                                    500,
-                                    0,
-                                    true,
-                                    stopOtherChannels
-                            ).getPacket());
-                case CRITICAL_WARNING:
-                    // Note: exclusive channel is true because firmware 43 only support 4
-                    // simultaneous vibration.
-                    return gattController.writeCharacteristic(vibrationCommandChar,
-                            new ChannelConfigurationCommand(
-                                    channelIndex,
-                                    BeltVibrationPattern.SINGLE_LONG_PULSE,
-                                    intensity,
-                                    OrientationType.BINARY_MASK,
-                                    0b0001000100010001,
-                                    3,
-                                    700,
-                                    0,
-                                    true,
-                                    stopOtherChannels
-                            ).getPacket());
-                case BATTERY_LEVEL:
-                    // System signal, unreachable
-                    return false;
-            }
+            template.writePacket(packet, 0, channelIndex, intensity, stopOtherChannels);
         } catch (Exception e) {
+            packetPool.release(packet);
             Log.e(DEBUG_TAG, "BeltCommunicationController: Illegal argument for " +
                     "vibration command.", e);
             return false;
         }
-        // Unreachable
-        return false;
+        return gattController.writeCharacteristic(vibrationCommandChar, packet, packetPool);
     }
 
     @Override
@@ -1265,10 +1409,11 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
         byte[] packet = new byte[] {
                 (byte) 0x01,            // 1 parameter
                 (byte) 0x82,            // Change default intensity
-                (byte) (intensity & 0xFF),        // Value to set
-                (byte) 0x00,
+                (byte) 0x00,            // Value to set (LSB)
+                (byte) 0x00,            // Value to set (MSB)
                 (byte) ((vibrationFeedback)?(0x01):(0x00))
         };
+        BinaryUtils.writeInt16LE(packet, 2, intensity);
         return gattController.writeCharacteristic(parameterRequestChar, packet);
     }
 
@@ -1287,7 +1432,65 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     @Nullable
     @Override
     public BeltOrientation getOrientation() {
-        return beltOrientation;
+        synchronized (this) {
+            if (!orientationSampleAvailable) {
+                return null;
+            }
+            if (beltOrientation == null) {
+                beltOrientation = orientationSample.toBeltOrientation();
+            }
+            return beltOrientation;
+        }
+    }
+
+    @Override
+    public boolean getOrientationSample(OrientationSample destination) {
+        if (destination == null) {
+            Log.e(DEBUG_TAG, "BeltCommunicationController: Null destination for " +
+                    "orientation sample.");
+            return false;
+        }
+        synchronized (this) {
+            if (!orientationSampleAvailable) {
+                return false;
+            }
+            orientationSample.copyTo(destination);
+            return true;
+        }
+    }
+
+    @Override
+    public OrientationHistory getOrientationHistory() {
+        return orientationHistory;
+    }
+
+    @Override
+    public BatteryHistory getBatteryHistory() {
+        return batteryHistory;
+    }
+
+    @Override
+    public VibrationChannelManager getChannelManager() {
+        return channelManager;
+    }
+
+    @Override
+    public void addOrientationListener(BeltOrientationListener listener) {
+        synchronized (this) {
+            if (listener != null && !orientationListeners.contains(listener)) {
+                orientationListeners.add(listener);
+                updateOrientationTargets();
+            }
+        }
+    }
+
+    @Override
+    public void removeOrientationListener(BeltOrientationListener listener) {
+        synchronized (this) {
+            if (orientationListeners.remove(listener)) {
+                updateOrientationTargets();
+            }
+        }
     }
 
     @Override
@@ -1340,7 +1543,14 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                 beltFirmwareVersion = null;
                 beltBatteryStatus = null;
                 beltOrientation = null;
-                parameterValues.clear();
+                orientationSampleAvailable = false;
+                synchronized (this) {
+                    // Serialized with the writer of the history
+                    orientationHistory.clear();
+                }
+                batteryHistory.clear();
+                parameterCache.clear();
+                parameterRequestBatcher.reset();
                 // Clear GATT references
                 firmwareInfoChar = null;
                 keepAliveChar = null;
@@ -1384,7 +1594,12 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                 beltFirmwareVersion = null;
                 beltBatteryStatus = null;
                 beltOrientation = null;
-                parameterValues.clear();
+                orientationSampleAvailable = false;
+                synchronized (this) {
+                    orientationHistory.clear();
+                }
+                parameterCache.clear();
+                parameterRequestBatcher.reset();
                 break;
         }
     }
@@ -1433,7 +1648,7 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
                             "firmware info characteristic");
                     return;
                 }
-                int version = (value[0] & 0xFF) | ((value[1] & 0xFF) << 8);
+                int version = BinaryUtils.readUInt16LE(value, 0);
                 setFirmwareVersion(version);
             } else if (characteristic == batteryStatusChar) {
                 try {
@@ -1466,140 +1681,49 @@ public class BeltCommunicationController implements BeltCommunicationInterface,
     @Override
     public void onCharacteristicChanged(@Nullable BluetoothGattCharacteristic characteristic,
                                         @Nullable byte[] value) {
-        if (characteristic == keepAliveChar) {
-            // Retrieve mode
-            BeltMode currentMode = null;
-            if (value != null && value.length >= 2) {
-                currentMode = BeltMode.fromValue(value[1]);
-                if (currentMode != null) {
-                    setBeltMode(currentMode);
-                }
-            }
-            if (currentMode == null) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
-                        "on keep-alive characteristic.");
-            }
-            // Acknowledge keep-alive
-            if (!gattController.writeCharacteristic(keepAliveChar, KEEP_ALIVE_PACKET)) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Unable to send keep-alive " +
-                        "acknowledgment.");
-            }
-
-        } else if (characteristic == buttonPressNotificationChar) {
-            if (value == null || value.length < 5) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
-                        "on button press notification characteristic.");
-                return;
-            }
-            BeltMode previousMode = BeltMode.fromValue(value[3]);
-            BeltMode subsequentMode = BeltMode.fromValue(value[4]);
-            BeltButton button = BeltButton.fromValue(value[0]);
-            if (previousMode == null || subsequentMode == null || button == null) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
-                        "on button press notification characteristic.");
-                return;
-            }
-            notifyButtonPressed(new BeltButtonPressEvent(button, previousMode, subsequentMode));
-            if (subsequentMode == BeltMode.STANDBY) {
-                gattController.disconnect();
-            }
-
-
-        } else if (characteristic == parameterNotificationChar) {
+        if (characteristic == null) {
+            return;
+        }
+        MetricsRegistry metrics = gattController.getMetrics();
+        metrics.increment(Metric.NOTIFICATIONS_RECEIVED);
+        NotificationDecoder decoder;
+        if (characteristic == parameterNotificationChar) {
+            // Parameter notifications are dispatched on opcode and parameter ID
             if (value == null || value.length < 2) {
+                metrics.increment(Metric.MALFORMED_PACKETS);
                 Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
                         "on parameter notification characteristic.");
                 return;
             }
-            if (value[0]==0x01 && value[1]==0x01) {
-                // Belt mode
-                if (value.length < 3) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                    return;
-                }
-                BeltMode mode = BeltMode.fromValue(value[2]);
-                if (mode == null) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                } else {
-                    setBeltMode(mode);
-                }
-            } else if ((value[0]==0x01 && value[1]==0x02) ||
-                    (value[0]==0x10 && value[1]==0x00)) {
-                // Default vibration intensity
-                if (value.length < 3) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                    return;
-                }
-                int intensity = value[2];
-                if (intensity < 0 || intensity > 100) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                } else {
-                    setDefaultIntensity(intensity);
-                }
-            } else if ((value[0]==0x01 && value[1]==0x03) ||
-                    (value[0]==0x10 && value[1]==0x01)) {
-                // Heading offset
-                if (value.length < 4) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                }
-                Integer offset = ((((int) value[3]) << 8) | (0xFF & value[2]));
-                setParameterValue(BeltParameter.HEADING_OFFSET, offset);
-            } else if (value[0]==0x01 && value[1]==0x04) {
-                // Bluetooth name
-                Log.w(DEBUG_TAG, "BeltCommunicationController: Parameter not supported.");
-            } else if (value[0]==0x10 && value[1]==0x02) {
-                // Buzzer active
-                Log.w(DEBUG_TAG, "BeltCommunicationController: Parameter not supported.");
-            } else if (value[0]==0x10 && value[1]==0x03) {
-                // Accuracy signal state
-                if (value.length < 3) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                }
-                Integer state = (0xFF & value[2]);
-                if (state < 0 || state > 3) {
-                    Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet " +
-                            "received on parameter notification characteristic.");
-                }
-                setParameterValue(BeltParameter.ACCURACY_SIGNAL_STATE, state);
-            }
-
-        } else if (characteristic == orientationDataChar) {
-            if (value == null || value.length < 16) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
-                        "on orientation data characteristic.");
+            int opcode = BinaryUtils.readUInt8(value, 0);
+            int parameterId = BinaryUtils.readUInt8(value, 1);
+            NotificationDecoder[] row = (opcode < parameterDecoders.length)?
+                    (parameterDecoders[opcode]):(null);
+            if (row == null || parameterId >= row.length) {
                 return;
             }
-            int id = (value[0] & 0xFF);
-            int beltHeading = (((int) value[2]) << 8) | (0xFF & value[1]);
-            int heading = (((int) value[4]) << 8) | (0xFF & value[3]);
-            int roll = (((int) value[6]) << 8) | (0xFF & value[5]);
-            int pitch = (((int) value[8]) << 8) | (0xFF & value[7]);
-            int accuracy = (((int) value[10]) << 8) | (0xFF & value[9]);
-            int magStatus = value[11];
-            int accelStatus = value[12];
-            int gyroStatus = value[13];
-            int fusionStatus = value[14];
-            boolean inaccurate = (value[15]!=0);
-            setOrientation(new BeltOrientation(
-                    id, beltHeading, heading, roll, pitch, accuracy, magStatus, accelStatus,
-                    gyroStatus, fusionStatus, inaccurate
-            ));
+            decoder = row[parameterId];
+        } else {
+            decoder = characteristicDecoders.get(characteristic);
+        }
+        if (decoder != null && !decoder.decode(value)) {
+            metrics.increment(Metric.MALFORMED_PACKETS);
+            Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet received " +
+                    "for " + decoder.getName() + ".");
+        }
+    }
 
-        } else if (characteristic == batteryStatusChar) {
-            try {
-                setBatteryStatus(new BeltBatteryStatus(value));
-            } catch (Exception e) {
-                Log.e(DEBUG_TAG, "BeltCommunicationController: Malformed packet read on " +
-                                "battery status characteristic",
-                        e);
-            }
+    /**
+     * Returns the decode statistics of notifications, one entry per packet type.
+     *
+     * @return the decode statistics of notifications.
+     */
+    public List<NotificationDecodeStatistics> getNotificationDecodeStatistics() {
+        ArrayList<NotificationDecodeStatistics> statistics = new ArrayList<>();
+        for (NotificationDecoder decoder: notificationDecoders) {
+            statistics.add(decoder.getStatistics());
         }
+        return statistics;
     }
 
     @Override
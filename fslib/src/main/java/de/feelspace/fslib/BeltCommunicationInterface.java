@@ -37,6 +37,18 @@ public interface BeltCommunicationInterface extends BeltCommandInterface {
      */
     boolean requestParameterValue(BeltParameter beltParameter);
 
+    /**
+     * Requests the values of several parameters to the belt in a single request. The belt
+     * notifies each parameter value separately, and values are stored in the parameter cache.
+     * When the belt does not notify all values of a packed request, the missing values are
+     * requested again with one request per parameter.
+     *
+     * @param beltParameters The requested parameters, duplicates are ignored.
+     * @return <code>true</code> if the request has been sent, <code>false</code> if no belt is
+     * connected or no parameter is given.
+     */
+    boolean requestParameterValues(BeltParameter... beltParameters);
+
     /**
      * Returns the last known value of a parameter stored locally. Returns <code>null</code> if the
      * parameter value has yet been retrieved or there is no connection to a belt.
@@ -46,6 +58,16 @@ public interface BeltCommunicationInterface extends BeltCommandInterface {
      */
     Object getParameterValue(BeltParameter beltParameter);
 
+    /**
+     * Returns the cache of parameter values retrieved from the belt. Unlike
+     * {@link BeltCommunicationInterface#getParameterValue(BeltParameter)}, the cache gives the
+     * values as primitives, with their version and update time. The cache is cleared when the
+     * connection is lost.
+     *
+     * @return the parameter cache.
+     */
+    BeltParameterCache getParameterCache();
+
     /**
      * Sends a request to the belt for changing the value of a parameter.
      *
@@ -7,6 +7,7 @@
  */
 package de.feelspace.fslib;
 
+import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.content.Context;
@@ -15,7 +16,9 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the belt connection interface.
@@ -50,6 +53,11 @@ public class BeltConnectionController extends BeltConnectionInterface implements
      */
     private final @NonNull BeltCommunicationController communicationController;
 
+    /**
+     * Metrics of the connection and communication.
+     */
+    private final @NonNull MetricsRegistry metrics = new MetricsRegistry();
+
     /**
      * Executor for timeout task and other delayed tasks.
      */
@@ -58,7 +66,35 @@ public class BeltConnectionController extends BeltConnectionInterface implements
     /**
      * Flag for pending connect.
      */
-    private boolean connectOnFirstBeltFound = false;
+    private boolean connectToBestBelt = false;
+
+    /**
+     * Duration in milliseconds of the collection of belts before connecting to the belt with the
+     * strongest signal.
+     */
+    private static final long BEST_BELT_COLLECTION_WINDOW_MS = 1500;
+
+    /**
+     * Task to connect to the best belt at the end of the collection window (not null when
+     * collecting).
+     */
+    private @Nullable ScheduledFuture<?> bestBeltTask;
+
+    /**
+     * Path of the ongoing {@link #scanAndConnect()}, <code>null</code> if none.
+     */
+    private @Nullable BeltConnectionPath connectionPath;
+
+    /**
+     * Time of the ongoing {@link #scanAndConnect()} call.
+     */
+    private long connectionStartTimeNano;
+
+    /**
+     * Path and time to connected of the last successful {@link #scanAndConnect()}.
+     */
+    private @Nullable BeltConnectionPath lastConnectionPath;
+    private long lastTimeToConnectedMs = -1;
 
     /**
      * Constructor.
@@ -73,16 +109,18 @@ public class BeltConnectionController extends BeltConnectionInterface implements
         this.applicationContext = applicationContext;
         executor = new ScheduledThreadPoolExecutor(1);
         executor.setRemoveOnCancelPolicy(true);
-        gattController = new GattController(executor);
+        gattController = new GattController(executor, metrics);
         gattController.addGattEventListener(this);
         communicationController = new BeltCommunicationController(gattController);
-        scanner = new BluetoothScanner(executor,this);
+        scanner = new BluetoothScanner(executor, metrics, this);
     }
 
     @Override
     public void scan() {
         synchronized (this) {
-            connectOnFirstBeltFound = false;
+            connectionPath = null;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
             state = BeltConnectionState.STATE_SCANNING;
         }
         gattController.disconnect();
@@ -90,13 +128,50 @@ public class BeltConnectionController extends BeltConnectionInterface implements
         notifyState();
     }
 
+    @Override
+    public void scanInBackground(@Nullable String beltAddress, long scanWindowMs,
+                                 long idleWindowMs, boolean lowPower)
+            throws IllegalArgumentException {
+        if (scanWindowMs <= 0 || idleWindowMs < 0) {
+            throw new IllegalArgumentException("Invalid scan or idle window.");
+        }
+        if (idleWindowMs > 0 && scanWindowMs+idleWindowMs < MIN_BACKGROUND_SCAN_CYCLE_MS) {
+            throw new IllegalArgumentException("The background scan cycle must last at least " +
+                    MIN_BACKGROUND_SCAN_CYCLE_MS + " ms.");
+        }
+        synchronized (this) {
+            connectionPath = null;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
+            state = BeltConnectionState.STATE_SCANNING;
+        }
+        gattController.disconnect();
+        scanner.startBackgroundScan(beltAddress, scanWindowMs, idleWindowMs, lowPower);
+        notifyState();
+    }
+
     @Override
     public void connect(BluetoothDevice device) throws IllegalArgumentException {
+        connect(device, null);
+    }
+
+    /**
+     * Connects a belt.
+     *
+     * @param device The device to connect to.
+     * @param path The path of the ongoing {@link #scanAndConnect()}, or <code>null</code> for a
+     *             connection requested by the application.
+     * @throws IllegalArgumentException if the device is <code>null</code>.
+     */
+    private void connect(BluetoothDevice device, @Nullable BeltConnectionPath path)
+            throws IllegalArgumentException {
         synchronized (this) {
             if (device == null) {
                 throw new IllegalArgumentException("Cannot connect with a null device.");
             }
-            connectOnFirstBeltFound = false;
+            connectionPath = path;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
             state = BeltConnectionState.STATE_CONNECTING;
         }
         // Stop scan before any connection attempt, even when not scanning
@@ -107,8 +182,24 @@ public class BeltConnectionController extends BeltConnectionInterface implements
 
     @Override
     public void scanAndConnect() throws IllegalStateException {
+        BluetoothDevice lastConnectedBelt = null;
+        if (gattController.getConnectionState() == GattConnectionState.GATT_DISCONNECTED) {
+            lastConnectedBelt = getLastConnectedBelt();
+        }
+        if (lastConnectedBelt != null) {
+            if (DEBUG) Log.i(DEBUG_TAG, "BeltConnectionController: Direct connection to the " +
+                    "last connected belt.");
+            synchronized (this) {
+                connectionStartTimeNano = System.nanoTime();
+            }
+            connect(lastConnectedBelt, BeltConnectionPath.DIRECT);
+            return;
+        }
         synchronized (this) {
-            connectOnFirstBeltFound = true;
+            connectionStartTimeNano = System.nanoTime();
+            connectionPath = BeltConnectionPath.SCAN;
+            connectToBestBelt = true;
+            cancelBestBeltTask();
             state = BeltConnectionState.STATE_SCANNING;
         }
         gattController.disconnect();
@@ -116,6 +207,40 @@ public class BeltConnectionController extends BeltConnectionInterface implements
         notifyState();
     }
 
+    /**
+     * Returns the last connected belt from its saved address.
+     *
+     * @return the last connected belt, or <code>null</code> if no valid address is saved or
+     * Bluetooth is not available.
+     */
+    private @Nullable BluetoothDevice getLastConnectedBelt() {
+        String address = loadDeviceAddress(applicationContext);
+        if (address == null || !BluetoothAdapter.checkBluetoothAddress(address)) {
+            return null;
+        }
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        if (bluetoothAdapter == null) {
+            return null;
+        }
+        try {
+            return bluetoothAdapter.getRemoteDevice(address);
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "BeltConnectionController: Unable to get the last connected " +
+                    "belt.", e);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized @Nullable BeltConnectionPath getLastConnectionPath() {
+        return lastConnectionPath;
+    }
+
+    @Override
+    public synchronized long getLastTimeToConnectedMs() {
+        return lastTimeToConnectedMs;
+    }
+
 
     @Override
     public void stopScan() {
@@ -123,13 +248,25 @@ public class BeltConnectionController extends BeltConnectionInterface implements
             if (state != BeltConnectionState.STATE_SCANNING) {
                 return;
             }
-            connectOnFirstBeltFound = false;
+            connectionPath = null;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
             state = BeltConnectionState.STATE_DISCONNECTED;
         }
         scanner.stopScan();
         notifyState();
     }
 
+    @Override
+    public @NonNull MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public long getScanOnTimeMs() {
+        return scanner.getScanOnTimeMs();
+    }
+
     @Override
     public void disconnect() {
         synchronized (this) {
@@ -138,12 +275,53 @@ public class BeltConnectionController extends BeltConnectionInterface implements
                 return;
             }
             state = BeltConnectionState.STATE_DISCONNECTED;
-            connectOnFirstBeltFound = false;
+            connectionPath = null;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
         }
         gattController.disconnect();
         notifyState();
     }
 
+    /**
+     * Cancels the connection to the best belt at the end of the collection window.
+     */
+    private synchronized void cancelBestBeltTask() {
+        if (bestBeltTask != null) {
+            bestBeltTask.cancel(false);
+            bestBeltTask = null;
+        }
+    }
+
+    /**
+     * Connects to the belt with the strongest signal at the end of the collection window.
+     */
+    private void connectBestBelt() {
+        BluetoothDevice device;
+        BeltConnectionPath path;
+        synchronized (this) {
+            bestBeltTask = null;
+            if (state != BeltConnectionState.STATE_SCANNING || !connectToBestBelt) {
+                return;
+            }
+            device = scanner.getBestBelt();
+            if (device == null) {
+                // Should not happen
+                return;
+            }
+            connectToBestBelt = false;
+            path = connectionPath;
+        }
+        if (DEBUG) Log.i(DEBUG_TAG, "BeltConnectionController: Connect to best belt (RSSI " +
+                scanner.getSmoothedRssi(device.getAddress()) + ").");
+        // The scan is stopped by the connection
+        try {
+            connect(device, path);
+        } catch (Exception e) {
+            // Should not happen
+        }
+    }
+
     @Override protected @NonNull ScheduledThreadPoolExecutor getExecutor() {
         return executor;
     }
@@ -205,6 +383,7 @@ public class BeltConnectionController extends BeltConnectionInterface implements
 
     @Override
     public void onGattConnectionFailed() {
+        boolean scan = false;
         synchronized (this) {
             if (state == BeltConnectionState.STATE_SCANNING ||
                     state == BeltConnectionState.STATE_DISCONNECTED ||
@@ -212,7 +391,24 @@ public class BeltConnectionController extends BeltConnectionInterface implements
                 // Ignore GATT connection event
                 return;
             }
-            state = BeltConnectionState.STATE_DISCONNECTED;
+            if (connectionPath == BeltConnectionPath.DIRECT) {
+                // Scan when the last connected belt is not reachable
+                connectionPath = BeltConnectionPath.DIRECT_THEN_SCAN;
+                connectToBestBelt = true;
+                cancelBestBeltTask();
+                state = BeltConnectionState.STATE_SCANNING;
+                scan = true;
+            } else {
+                connectionPath = null;
+                state = BeltConnectionState.STATE_DISCONNECTED;
+            }
+        }
+        if (scan) {
+            if (DEBUG) Log.i(DEBUG_TAG, "BeltConnectionController: Direct connection failed, " +
+                    "scan for belts.");
+            scanner.startScan();
+            notifyState();
+            return;
         }
         notifyConnectionFailed();
         notifyState();
@@ -227,6 +423,7 @@ public class BeltConnectionController extends BeltConnectionInterface implements
                 // Ignore GATT connection event
                 return;
             }
+            connectionPath = null;
             state = BeltConnectionState.STATE_DISCONNECTED;
         }
         notifyConnectionLost();
@@ -281,42 +478,61 @@ public class BeltConnectionController extends BeltConnectionInterface implements
 
     @Override
     public void onBeltFound(@NonNull BluetoothDevice device) {
-        boolean connect = false;
         synchronized (this) {
             if (state != BeltConnectionState.STATE_SCANNING) {
                 // Ignore if not scanning
                 return;
             }
-            if (connectOnFirstBeltFound) {
-                connectOnFirstBeltFound = false;
-                connect = true;
-            }
-        }
-        if (connect) {
-            try {
-                connect(device);
-            } catch (Exception e) {
-                // Should not happen
+            if (connectToBestBelt) {
+                // Collect belts before connecting to the best one
+                if (bestBeltTask == null) {
+                    try {
+                        bestBeltTask = executor.schedule(this::connectBestBelt,
+                                BEST_BELT_COLLECTION_WINDOW_MS, TimeUnit.MILLISECONDS);
+                    } catch (Exception e) {
+                        Log.e(DEBUG_TAG, "BeltConnectionController: Unable to schedule the " +
+                                "connection to the best belt.", e);
+                        bestBeltTask = null;
+                    }
+                    if (bestBeltTask == null) {
+                        // Connect immediately
+                        executor.execute(this::connectBestBelt);
+                    }
+                }
+                return;
             }
-        } else {
-            notifyBeltFound(device);
         }
+        notifyBeltFound(device);
     }
 
     @Override
     public void onScanFinished() {
         if (DEBUG) Log.i(DEBUG_TAG, "BeltConnectionController: Scan finished.");
         boolean noBeltFound = false;
+        boolean connect = false;
         synchronized (this) {
             if (state != BeltConnectionState.STATE_SCANNING) {
                 // Ignore if not scanning
                 return;
             }
-            if (connectOnFirstBeltFound) {
-                noBeltFound = true;
-                connectOnFirstBeltFound = false;
+            if (connectToBestBelt) {
+                cancelBestBeltTask();
+                if (scanner.getBestBelt() != null) {
+                    // Scan finished before the end of the collection window
+                    connect = true;
+                } else {
+                    noBeltFound = true;
+                    connectToBestBelt = false;
+                    connectionPath = null;
+                }
             }
-            state = BeltConnectionState.STATE_DISCONNECTED;
+            if (!connect) {
+                state = BeltConnectionState.STATE_DISCONNECTED;
+            }
+        }
+        if (connect) {
+            connectBestBelt();
+            return;
         }
         if (noBeltFound) {
             notifyNoBeltFound();
@@ -332,7 +548,9 @@ public class BeltConnectionController extends BeltConnectionInterface implements
                 // Ignore if not scanning
                 return;
             }
-            connectOnFirstBeltFound = false;
+            connectionPath = null;
+            connectToBestBelt = false;
+            cancelBestBeltTask();
             state = BeltConnectionState.STATE_DISCONNECTED;
         }
         notifyScanFailed();
@@ -353,6 +571,14 @@ public class BeltConnectionController extends BeltConnectionInterface implements
             } else if (success) {
                 saveDeviceAddress(applicationContext, gattController.getDevice());
                 state = BeltConnectionState.STATE_CONNECTED;
+                if (connectionPath != null) {
+                    lastConnectionPath = connectionPath;
+                    lastTimeToConnectedMs = (System.nanoTime()-connectionStartTimeNano)/1000000;
+                    metrics.record(Metric.TIME_TO_CONNECTED_MS, lastTimeToConnectedMs);
+                    connectionPath = null;
+                    if (DEBUG) Log.i(DEBUG_TAG, "BeltConnectionController: Connected in " +
+                            lastTimeToConnectedMs + " ms (" + lastConnectionPath + ").");
+                }
             }
         }
         if (device == null) {
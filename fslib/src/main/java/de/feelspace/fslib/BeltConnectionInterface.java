@@ -14,6 +14,7 @@ import android.preference.PreferenceManager;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -41,6 +42,23 @@ public abstract class BeltConnectionInterface {
     public static final String KEY_PREF_LAST_CONNECTED_BELT_ADDRESS =
             "KEY_PREF_LAST_CONNECTED_BELT_ADDRESS";
 
+    /**
+     * Default duration in milliseconds of the scan windows of a background scan.
+     */
+    public static final long DEFAULT_BACKGROUND_SCAN_WINDOW_MS = 2000;
+
+    /**
+     * Default duration in milliseconds of the idle windows of a background scan.
+     */
+    public static final long DEFAULT_BACKGROUND_IDLE_WINDOW_MS = 8000;
+
+    /**
+     * Minimum duration in milliseconds of a background scan cycle (scan window plus idle window).
+     * Android silently ignores the scans of an application that starts more than 5 scans in 30
+     * seconds, so a background scan must not restart the scan more than once every 6 seconds.
+     */
+    public static final long MIN_BACKGROUND_SCAN_CYCLE_MS = 6000;
+
     /**
      * Creates a connection interface to connect a belt. The connection interface can be used for
      * successive connection.
@@ -63,11 +81,59 @@ public abstract class BeltConnectionInterface {
      */
     public abstract void scan();
 
+    /**
+     * Searches for advertising belts in background with low-power settings and the default scan
+     * and idle windows.
+     *
+     * @param beltAddress The address of the belt that stops the scan when found, or
+     *                    <code>null</code> to scan until {@link #stopScan()} is called.
+     * @see #scanInBackground(String, long, long, boolean)
+     */
+    public void scanInBackground(@Nullable String beltAddress) {
+        scanInBackground(beltAddress, DEFAULT_BACKGROUND_SCAN_WINDOW_MS,
+                DEFAULT_BACKGROUND_IDLE_WINDOW_MS, true);
+    }
+
+    /**
+     * Searches for advertising belts in background, e.g. to wait for a belt coming back in range.
+     * The scan alternates scan and idle windows without timeout, until it is stopped or the
+     * target belt is found. Location permission must be granted and Bluetooth enabled before
+     * calling this method.
+     *
+     * Each scan window restarts the scan, and Android throttles applications that start more
+     * than 5 scans in 30 seconds. With an idle window, the cycle must last at least
+     * {@link #MIN_BACKGROUND_SCAN_CYCLE_MS}. Without idle window the scan is never restarted.
+     *
+     * Advertising belts are reported to listeners using
+     * {@link BeltConnectionListener#onBeltFound(BluetoothDevice)}.
+     *
+     * @param beltAddress The address of the belt that stops the scan when found, or
+     *                    <code>null</code> to scan until {@link #stopScan()} is called.
+     * @param scanWindowMs The duration of the scan windows in milliseconds.
+     * @param idleWindowMs The duration of the idle windows in milliseconds.
+     * @param lowPower <code>true</code> to use low-power scan settings, <code>false</code> for
+     *                 balanced scan settings.
+     * @throws IllegalArgumentException If the scan window is not positive, the idle window is
+     * negative, or the cycle with an idle window is shorter than
+     * {@link #MIN_BACKGROUND_SCAN_CYCLE_MS}.
+     */
+    public abstract void scanInBackground(@Nullable String beltAddress, long scanWindowMs,
+                                          long idleWindowMs, boolean lowPower)
+            throws IllegalArgumentException;
+
     /**
      * Stops the scan procedures if ongoing.
      */
     public abstract void stopScan();
 
+    /**
+     * Returns the time the Bluetooth scan was running during the last or current scan procedure.
+     * For a background scan, idle windows are not counted.
+     *
+     * @return the scan-on time in milliseconds.
+     */
+    public abstract long getScanOnTimeMs();
+
     /**
      * Connects a belt.
      *
@@ -77,12 +143,41 @@ public abstract class BeltConnectionInterface {
     public abstract void connect(BluetoothDevice device) throws IllegalArgumentException;
 
     /**
-     * Searches for advertising belts and connects to the first found.
+     * Connects to the last connected belt, or searches for advertising belts and connects to the
+     * one with the strongest signal. The last connected belt is connected directly without scan,
+     * and the scan is only started if this connection fails. When scanning, belts are collected
+     * during a short window after the first one is found.
      *
      * @throws IllegalStateException if an error occurs with the Bluetooth service.
      */
     public abstract void scanAndConnect() throws IllegalStateException;
 
+    /**
+     * Returns the path taken by the last successful {@link #scanAndConnect()}.
+     *
+     * @return the connection path, or <code>null</code> if no belt was connected with
+     * {@link #scanAndConnect()}.
+     */
+    public abstract @Nullable BeltConnectionPath getLastConnectionPath();
+
+    /**
+     * Returns the time between the last successful {@link #scanAndConnect()} call and the
+     * connected state, including the handshake.
+     *
+     * @return the time to connected in milliseconds, or <code>-1</code> if no belt was connected
+     * with {@link #scanAndConnect()}.
+     */
+    public abstract long getLastTimeToConnectedMs();
+
+    /**
+     * Returns the registry of the metrics of the connection and communication with the belt.
+     * The application can export the metrics periodically with
+     * {@link MetricsRegistry#getSnapshot()}.
+     *
+     * @return the metrics registry.
+     */
+    public abstract @NonNull MetricsRegistry getMetrics();
+
     /**
      * Closes the current connection.
      */
@@ -200,6 +295,24 @@ public abstract class BeltConnectionInterface {
         }
     }
 
+    /**
+     * Returns the device address of the last connected belt.
+     * @param applicationContext The application context to access shared preferences.
+     * @return the address of the last connected belt, or <code>null</code> if no address is
+     * saved.
+     */
+    protected @Nullable String loadDeviceAddress(@NonNull Context applicationContext) {
+        try {
+            SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(
+                    applicationContext);
+            return pref.getString(KEY_PREF_LAST_CONNECTED_BELT_ADDRESS, null);
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "BeltConnectionInterface: Unable to load the address of the " +
+                    "last connected belt.", e);
+        }
+        return null;
+    }
+
     /**
      * Saves the device address of the last connected belt.
      * @param applicationContext The application context to access shared preferences.
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Path taken by {@link BeltConnectionInterface#scanAndConnect()} to connect a belt.
+ */
+public enum BeltConnectionPath {
+
+    /**
+     * Direct connection to the last connected belt, without scan.
+     */
+    DIRECT,
+
+    /**
+     * Scan and connection to the best belt found.
+     */
+    SCAN,
+
+    /**
+     * Scan and connection to the best belt found, after a failed direct connection to the last
+     * connected belt.
+     */
+    DIRECT_THEN_SCAN
+
+}
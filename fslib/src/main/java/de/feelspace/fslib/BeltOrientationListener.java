@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Interface to listen to orientation notifications without allocation.
+ *
+ * Listeners are registered with {@link BeltCommandInterface#addOrientationListener}. A
+ * {@link BeltCommandListener} that is also registered as orientation listener receives orientation
+ * updates only through {@link #onBeltOrientationSample(OrientationSample)}, and no
+ * {@link BeltOrientation} object is created for it. Implementing this interface without this
+ * registration does not change the notifications of a command listener.
+ */
+public interface BeltOrientationListener {
+
+    /**
+     * Called when the orientation of the belt has been notified.
+     *
+     * The sample object is reused for the next notification. It must not be modified, and its
+     * values must be copied if they are used after this method returns.
+     *
+     * @param sample the orientation sample.
+     */
+    void onBeltOrientationSample(OrientationSample sample);
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import java.util.EnumMap;
+
+/**
+ * Last known values of the belt parameters.
+ *
+ * Each parameter has a slot with an integer value, a version and the time of the last update.
+ * Versions are taken from a counter of the cache that is never reset, so a version observed by a
+ * caller is never reused for another value, even after the cache has been cleared. A version of
+ * <code>0</code> indicates that the value is unknown.
+ */
+public class BeltParameterCache {
+
+    /**
+     * Version of a parameter with unknown value.
+     */
+    public static final long NO_VERSION = 0;
+
+    // Slots of parameters, created for all parameters so that updates do not allocate
+    private final @NonNull EnumMap<BeltParameter, Slot> slots = new EnumMap<>(BeltParameter.class);
+
+    // Last version assigned to a value
+    private long lastVersion = NO_VERSION;
+
+    /**
+     * Creates an empty parameter cache.
+     */
+    BeltParameterCache() {
+        for (BeltParameter parameter: BeltParameter.values()) {
+            slots.put(parameter, new Slot());
+        }
+    }
+
+    /**
+     * Sets the value of a parameter.
+     *
+     * @param parameter The parameter.
+     * @param value The value of the parameter.
+     * @param updateTimeNano The time of the update.
+     * @return the version of the value.
+     */
+    synchronized long set(@NonNull BeltParameter parameter, int value, long updateTimeNano) {
+        Slot slot = slots.get(parameter);
+        slot.value = value;
+        slot.version = ++lastVersion;
+        slot.updateTimeNano = updateTimeNano;
+        return slot.version;
+    }
+
+    /**
+     * Removes all values. Versions are not reset.
+     */
+    synchronized void clear() {
+        for (Slot slot: slots.values()) {
+            slot.version = NO_VERSION;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the value of a parameter is known.
+     *
+     * @param parameter The parameter.
+     * @return <code>true</code> if the value of the parameter is known.
+     */
+    public synchronized boolean hasValue(BeltParameter parameter) {
+        return parameter != null && slots.get(parameter).version != NO_VERSION;
+    }
+
+    /**
+     * Returns the value of a parameter.
+     *
+     * @param parameter The parameter.
+     * @param defaultValue The value to return if the value of the parameter is unknown.
+     * @return the value of the parameter, or the default value if the value is unknown.
+     */
+    public synchronized int getValue(BeltParameter parameter, int defaultValue) {
+        if (parameter == null) {
+            return defaultValue;
+        }
+        Slot slot = slots.get(parameter);
+        return (slot.version == NO_VERSION)?(defaultValue):(slot.value);
+    }
+
+    /**
+     * Returns the version of the value of a parameter. The version changes each time the value
+     * is retrieved from the belt, even when the value itself does not change.
+     *
+     * @param parameter The parameter.
+     * @return the version of the value, or {@link #NO_VERSION} if the value is unknown.
+     */
+    public synchronized long getVersion(BeltParameter parameter) {
+        return (parameter == null)?(NO_VERSION):(slots.get(parameter).version);
+    }
+
+    /**
+     * Returns the time of the last update of a parameter, on the {@link System#nanoTime()}
+     * time base.
+     *
+     * @param parameter The parameter.
+     * @return the time of the last update in nanoseconds, or <code>-1</code> if the value is
+     * unknown.
+     */
+    public synchronized long getUpdateTimeNano(BeltParameter parameter) {
+        if (parameter == null) {
+            return -1;
+        }
+        Slot slot = slots.get(parameter);
+        return (slot.version == NO_VERSION)?(-1):(slot.updateTimeNano);
+    }
+
+    /**
+     * Returns <code>true</code> if the value of a parameter is known and has been updated
+     * recently.
+     *
+     * @param parameter The parameter.
+     * @param maxAgeMs The maximum age of the value in milliseconds.
+     * @return <code>true</code> if the value is known and not older than the maximum age.
+     */
+    public synchronized boolean isFresh(BeltParameter parameter, long maxAgeMs) {
+        if (parameter == null) {
+            return false;
+        }
+        Slot slot = slots.get(parameter);
+        return slot.version != NO_VERSION &&
+                System.nanoTime()-slot.updateTimeNano <= maxAgeMs*1000000L;
+    }
+
+    /**
+     * Value of a parameter.
+     */
+    private static final class Slot {
+        int value;
+        long version = NO_VERSION;
+        long updateTimeNano;
+    }
+
+}
@@ -13,30 +13,171 @@ import androidx.annotation.Nullable;
 
 /**
  * Set of binary utility functions.
+ *
+ * All packets of the belt are little-endian. The read and write functions check that the field
+ * is inside the buffer, and read functions make the sign extension explicit in their name.
  */
 class BinaryUtils {
 
     /**
      * Converts a byte arrays to an integer.
-     * @param bytes The byte array.
+     * @param bytes The byte array, from 1 to 4 bytes.
      * @param bigEndian <code>true</code> for big-endian (ordered from most significant to least
      *                  significant), <code>false</code> for little endian.
      * @param signed <code>true</code> if the byte array uses two's complement representation.
      * @return the integer value.
+     * @throws IllegalArgumentException If the array is empty or longer than 4 bytes.
      */
     protected static int byteToInt(@NonNull byte[] bytes, boolean bigEndian, boolean signed) {
+        if (bytes == null || bytes.length == 0 || bytes.length > 4) {
+            throw new IllegalArgumentException("Byte array length must be in range [1-4].");
+        }
         int value = 0;
-        byte[] leByteArray = new byte[]{0, 0, 0, 0};
-        if (bigEndian) {
-
-        } else {
-            for (int i=0; i<bytes.length; i++) {
-                leByteArray[i] = bytes[i];
-            }
+        for (int i=0; i<bytes.length; i++) {
+            int b = bytes[(bigEndian)?(i):(bytes.length-1-i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        if (signed && bytes.length < 4) {
+            int shift = 32-8*bytes.length;
+            value = (value << shift) >> shift;
         }
         return value;
     }
 
+    /**
+     * Checks that a field is inside a buffer.
+     *
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    private static void checkBounds(@Nullable byte[] buffer, int offset, int length) {
+        if (buffer == null || offset < 0 || offset > buffer.length - length) {
+            throw new IllegalArgumentException("Field out of buffer bounds.");
+        }
+    }
+
+    /**
+     * Reads an unsigned 8-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value in range [0-255].
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static int readUInt8(@NonNull byte[] buffer, int offset) {
+        checkBounds(buffer, offset, 1);
+        return buffer[offset] & 0xFF;
+    }
+
+    /**
+     * Reads a signed 8-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value in range [-128-127].
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static int readInt8(@NonNull byte[] buffer, int offset) {
+        checkBounds(buffer, offset, 1);
+        return buffer[offset];
+    }
+
+    /**
+     * Reads an unsigned little-endian 16-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value in range [0-65535].
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static int readUInt16LE(@NonNull byte[] buffer, int offset) {
+        checkBounds(buffer, offset, 2);
+        return (buffer[offset] & 0xFF) | ((buffer[offset+1] & 0xFF) << 8);
+    }
+
+    /**
+     * Reads a signed little-endian 16-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value in range [-32768-32767].
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static int readInt16LE(@NonNull byte[] buffer, int offset) {
+        checkBounds(buffer, offset, 2);
+        return (buffer[offset] & 0xFF) | (buffer[offset+1] << 8);
+    }
+
+    /**
+     * Reads an unsigned little-endian 32-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value in range [0-4294967295].
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static long readUInt32LE(@NonNull byte[] buffer, int offset) {
+        return readInt32LE(buffer, offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads a signed little-endian 32-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @return the value.
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static int readInt32LE(@NonNull byte[] buffer, int offset) {
+        checkBounds(buffer, offset, 4);
+        return (buffer[offset] & 0xFF) | ((buffer[offset+1] & 0xFF) << 8) |
+                ((buffer[offset+2] & 0xFF) << 16) | (buffer[offset+3] << 24);
+    }
+
+    /**
+     * Writes an 8-bit integer. Only the 8 lowest bits of the value are written, so that signed
+     * and unsigned values share the same encoding.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @param value The value to write.
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static void writeInt8(@NonNull byte[] buffer, int offset, int value) {
+        checkBounds(buffer, offset, 1);
+        buffer[offset] = (byte) value;
+    }
+
+    /**
+     * Writes a little-endian 16-bit integer. Only the 16 lowest bits of the value are written,
+     * so that signed and unsigned values share the same encoding.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @param value The value to write.
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static void writeInt16LE(@NonNull byte[] buffer, int offset, int value) {
+        checkBounds(buffer, offset, 2);
+        buffer[offset] = (byte) value;
+        buffer[offset+1] = (byte) (value >> 8);
+    }
+
+    /**
+     * Writes a little-endian 32-bit integer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the field.
+     * @param value The value to write.
+     * @throws IllegalArgumentException If the field is outside the buffer.
+     */
+    static void writeInt32LE(@NonNull byte[] buffer, int offset, int value) {
+        checkBounds(buffer, offset, 4);
+        buffer[offset] = (byte) value;
+        buffer[offset+1] = (byte) (value >> 8);
+        buffer[offset+2] = (byte) (value >> 16);
+        buffer[offset+3] = (byte) (value >> 24);
+    }
+
     /**
      * Converts a list of bit indexes to a binary mask.
      *
@@ -11,20 +11,38 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.le.BluetoothLeScanner;
 import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
 import android.bluetooth.le.ScanResult;
 import android.bluetooth.le.ScanSettings;
+import android.os.ParcelUuid;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * Scanner for belt.
+ *
+ * The scan is filtered by the Bluetooth controller on the service UUID advertised by belts, so
+ * that other advertisements do not wake the application. The name of the device is checked
+ * again on each result. Because some Bluetooth stacks do not report filtered results, a filtered
+ * scan that finds no belt is followed by unfiltered scans until a belt is found.
+ *
+ * The belts found are ranked by smoothed RSSI. The ranking of the last scan remains available
+ * after the scan stops, until the next scan starts.
+ *
+ * A background scan alternates scan and idle windows with balanced or low-power scan settings,
+ * until it is stopped or the target belt is found. Background scans are always filtered, because
+ * unfiltered scans are paused by Android when the screen is off.
  */
 class BluetoothScanner {
 
@@ -40,7 +58,10 @@ class BluetoothScanner {
     // Callback
     private final BluetoothScannerDelegate callback;
 
-    // Scan timeout (not null when scanning)
+    // Metrics
+    private final MetricsRegistry metrics;
+
+    // Scan timeout or next duty cycle window (not null when scanning)
     private ScheduledFuture<?> scanTimeoutTask;
     private final ScheduledThreadPoolExecutor executor;
     private static final long DEFAULT_SCAN_TIMEOUT_MS = 5000;
@@ -48,22 +69,52 @@ class BluetoothScanner {
     // BLE scanners
     private BluetoothLeScanner bleScanner;
     private ScanSettings bleScanSettings;
+    private ScanSettings balancedScanSettings;
+    private ScanSettings lowPowerScanSettings;
     private BLEScanCallback scanCallBack;
 
+    // Hardware scan filter on the advertised service
+    private List<ScanFilter> bleScanFilters;
+    private boolean useScanFilters = true;
+    private boolean scanFiltered = false;
+
     // Device name to identify belt
     public static final String BELT_NAME_PATTERN = "(?i)naviguertel.*|(?i)vs.*"; // Lower-case for comparison
+    private static final Pattern BELT_NAME_MATCHER = Pattern.compile(BELT_NAME_PATTERN);
 
-    // List of devices to avoid duplicates
-    private final ArrayList<BluetoothDevice> beltsFound = new ArrayList<>(5);
+    // Belts found by address, to avoid duplicates
+    private final HashMap<String, BluetoothDevice> beltsFound = new HashMap<>();
+
+    // Ranking of the belts found
+    private final RssiRanking beltRanking = new RssiRanking();
+
+    // Background scan, duty-cycled until the target belt is found
+    private boolean backgroundScan = false;
+    private @Nullable String targetAddress;
+    private long scanWindowMs;
+    private long idleWindowMs;
+    private ScanSettings backgroundScanSettings;
+
+    // Scan results received during the last scan
+    private long scanStartTimeNano;
+    private long scanDurationNano;
+    private int scanResultCount;
+
+    // Time with the BLE scan running during the last scan
+    private boolean bleScanning = false;
+    private long bleScanStartTimeNano;
+    private long scanOnTimeNano;
 
     /**
      * Constructor with a callback for results of the scan procedure.
+     * @param metrics The registry of the scan metrics.
      * @param callback The callback for returning results of scan.
      */
     public BluetoothScanner(@NonNull ScheduledThreadPoolExecutor executor,
-            @NonNull BluetoothScannerDelegate callback) {
+            @NonNull MetricsRegistry metrics, @NonNull BluetoothScannerDelegate callback) {
         this.callback = callback;
         this.executor = executor;
+        this.metrics = metrics;
     }
 
     /**
@@ -77,44 +128,15 @@ class BluetoothScanner {
                 scanTimeoutTask.cancel(true);
                 scanTimeoutTask = null;
             }
-            // Retrieve BLE adapter
-            BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-            if (bluetoothAdapter == null) {
-                // No Bluetooth available
-                Log.e(DEBUG_TAG, "BluetoothScanner: No BT for scan.");
-                failed = true;
+            // Stop a background scan
+            if (backgroundScan) {
+                stopBleScan();
             }
+            backgroundScan = false;
+            targetAddress = null;
             // Start scan
-            if (!failed) {
-                // Set state
-                scanning = true;
-                // Clear list of belts found
-                beltsFound.clear();
-                // Initialize scan callback
-                if (bleScanner == null) {
-                    bleScanner = bluetoothAdapter.getBluetoothLeScanner();
-                }
-                if (bleScanSettings == null) {
-                    bleScanSettings = new ScanSettings.Builder()
-                            .setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY).build();
-                }
-                if (scanCallBack == null) {
-                    scanCallBack = new BLEScanCallback();
-                }
-                // Start scan
-                // Note: No scan filter because it does seem to be broken
-                try {
-                    bleScanner.startScan(null, bleScanSettings,
-                            scanCallBack);
-                } catch (SecurityException securityException) {
-                    scanning = false;
-                    Log.e(DEBUG_TAG, "Missing permissions for scanning.", securityException);
-                    failed = true;
-                } catch (Exception e) {
-                    scanning = false;
-                    Log.e(DEBUG_TAG, "Unable to start the scan procedure.", e);
-                    failed = true;
-                }
+            if (!beginScan(false)) {
+                failed = true;
             }
             // Start timeout task
             if (!failed) {
@@ -138,6 +160,211 @@ class BluetoothScanner {
         }
     }
 
+    /**
+     * Starts (or re-start) a background scan procedure without timeout. The scan alternates scan
+     * and idle windows until it is stopped or the target belt is found.
+     *
+     * @param targetAddress The address of the belt that stops the scan when found, or
+     *                      <code>null</code> to scan until stopped.
+     * @param scanWindowMs The duration of the scan windows in milliseconds.
+     * @param idleWindowMs The duration of the idle windows in milliseconds.
+     * @param lowPower <code>true</code> to use low-power scan settings, <code>false</code> to use
+     *                 balanced scan settings.
+     * @throws IllegalArgumentException If the scan window is not positive, the idle window is
+     * negative, or the cycle with an idle window is shorter than
+     * {@link BeltConnectionInterface#MIN_BACKGROUND_SCAN_CYCLE_MS}.
+     */
+    public void startBackgroundScan(@Nullable String targetAddress, long scanWindowMs,
+                                    long idleWindowMs, boolean lowPower) {
+        if (scanWindowMs <= 0) {
+            throw new IllegalArgumentException("The scan window must be positive.");
+        }
+        if (idleWindowMs < 0) {
+            throw new IllegalArgumentException("Negative idle window.");
+        }
+        // Android throttles more than 5 scan starts in 30 seconds
+        if (idleWindowMs > 0 && scanWindowMs+idleWindowMs <
+                BeltConnectionInterface.MIN_BACKGROUND_SCAN_CYCLE_MS) {
+            throw new IllegalArgumentException("The background scan cycle must last at least " +
+                    BeltConnectionInterface.MIN_BACKGROUND_SCAN_CYCLE_MS + " ms.");
+        }
+        boolean failed = false;
+        synchronized (this) {
+            // Cancel previous timeout task and scan
+            if (scanTimeoutTask != null) {
+                scanTimeoutTask.cancel(true);
+                scanTimeoutTask = null;
+            }
+            stopBleScan();
+            backgroundScan = true;
+            this.targetAddress = targetAddress;
+            this.scanWindowMs = scanWindowMs;
+            this.idleWindowMs = idleWindowMs;
+            // Start scan
+            if (!beginScan(lowPower)) {
+                failed = true;
+            }
+            // Start duty cycle
+            if (!failed) {
+                scheduleDutyCycle(this::pauseBackgroundScan, scanWindowMs);
+            }
+        }
+        if (failed) {
+            callback.onScanFailed();
+        } else {
+            callback.onScanStarted();
+        }
+    }
+
+    /**
+     * Initializes the scan state and starts the BLE scan.
+     *
+     * @param lowPower <code>true</code> to use low-power settings for a background scan.
+     * @return <code>true</code> if the scan is started.
+     */
+    private synchronized boolean beginScan(boolean lowPower) {
+        // Retrieve BLE adapter
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        if (bluetoothAdapter == null) {
+            // No Bluetooth available
+            Log.e(DEBUG_TAG, "BluetoothScanner: No BT for scan.");
+            return false;
+        }
+        // Set state
+        scanning = true;
+        // Clear list of belts found
+        beltsFound.clear();
+        beltRanking.clear();
+        scanResultCount = 0;
+        scanDurationNano = 0;
+        scanOnTimeNano = 0;
+        scanStartTimeNano = System.nanoTime();
+        // Initialize scan callback
+        if (bleScanner == null) {
+            bleScanner = bluetoothAdapter.getBluetoothLeScanner();
+        }
+        if (bleScanSettings == null) {
+            bleScanSettings = new ScanSettings.Builder()
+                    .setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY).build();
+        }
+        if (balancedScanSettings == null) {
+            balancedScanSettings = new ScanSettings.Builder()
+                    .setScanMode(ScanSettings.SCAN_MODE_BALANCED).build();
+        }
+        if (lowPowerScanSettings == null) {
+            lowPowerScanSettings = new ScanSettings.Builder()
+                    .setScanMode(ScanSettings.SCAN_MODE_LOW_POWER).build();
+        }
+        if (scanCallBack == null) {
+            scanCallBack = new BLEScanCallback();
+        }
+        if (bleScanFilters == null) {
+            bleScanFilters = Collections.singletonList(new ScanFilter.Builder()
+                    .setServiceUuid(new ParcelUuid(
+                            BeltCommunicationController.ADVERTISED_SERVICE_UUID))
+                    .build());
+        }
+        backgroundScanSettings = (lowPower)?(lowPowerScanSettings):(balancedScanSettings);
+        // Start scan
+        scanFiltered = backgroundScan || useScanFilters;
+        if (!startBleScan()) {
+            scanning = false;
+            return false;
+        }
+        metrics.increment(Metric.SCANS_STARTED);
+        return true;
+    }
+
+    /**
+     * Starts the BLE scan with the settings of the current scan procedure.
+     *
+     * @return <code>true</code> if the BLE scan is started.
+     */
+    private synchronized boolean startBleScan() {
+        try {
+            bleScanner.startScan((scanFiltered)?(bleScanFilters):(null),
+                    (backgroundScan)?(backgroundScanSettings):(bleScanSettings), scanCallBack);
+        } catch (SecurityException securityException) {
+            Log.e(DEBUG_TAG, "Missing permissions for scanning.", securityException);
+            return false;
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "Unable to start the scan procedure.", e);
+            return false;
+        }
+        bleScanning = true;
+        bleScanStartTimeNano = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Stops the BLE scan, even if not scanning, and updates the scan-on time.
+     */
+    private synchronized void stopBleScan() {
+        try {
+            if (bleScanner != null) {
+                bleScanner.stopScan(scanCallBack);
+            }
+        } catch (SecurityException s) {
+            if (DEBUG) Log.e(DEBUG_TAG, "Missing permission for stopping scan.", s);
+        } catch (IllegalStateException i) {
+            if (DEBUG) Log.d(DEBUG_TAG, "Scan procedure already stopped.");
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "Failed to stop the scan procedure.", e);
+        }
+        if (bleScanning) {
+            bleScanning = false;
+            scanOnTimeNano += System.nanoTime()-bleScanStartTimeNano;
+        }
+    }
+
+    /**
+     * Schedules the next window of the background scan.
+     *
+     * @param window The task starting the next window.
+     * @param delayMs The delay before the next window.
+     */
+    private synchronized void scheduleDutyCycle(Runnable window, long delayMs) {
+        try {
+            scanTimeoutTask = executor.schedule(window, delayMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "BluetoothScanner: Unable to schedule the background scan.", e);
+            scanTimeoutTask = null;
+        }
+    }
+
+    /**
+     * Ends a scan window of the background scan.
+     */
+    private void pauseBackgroundScan() {
+        synchronized (this) {
+            if (!scanning || !backgroundScan) {
+                return;
+            }
+            if (idleWindowMs == 0) {
+                scheduleDutyCycle(this::pauseBackgroundScan, scanWindowMs);
+                return;
+            }
+            stopBleScan();
+            scheduleDutyCycle(this::resumeBackgroundScan, idleWindowMs);
+        }
+    }
+
+    /**
+     * Ends an idle window of the background scan.
+     */
+    private void resumeBackgroundScan() {
+        synchronized (this) {
+            if (!scanning || !backgroundScan) {
+                return;
+            }
+            if (startBleScan()) {
+                scheduleDutyCycle(this::pauseBackgroundScan, scanWindowMs);
+                return;
+            }
+        }
+        stopScan(true);
+    }
+
     /**
      * Stops the scan procedure and cancel the timeout.
      */
@@ -164,24 +391,25 @@ class BluetoothScanner {
                 notify = true;
             }
             // Stop BLE scan, even if not scanning
-            try {
-                if (bleScanner != null) {
-                    bleScanner.stopScan(scanCallBack);
-                }
-            } catch (SecurityException s) {
-                if (DEBUG) Log.e(DEBUG_TAG, "Missing permission for stopping scan.", s);
-            } catch (IllegalStateException i) {
-                if (DEBUG) Log.d(DEBUG_TAG, "Scan procedure already stopped.");
-            } catch (Exception e) {
-                Log.e(DEBUG_TAG, "Failed to stop the scan procedure.", e);
-            }
+            stopBleScan();
             // Cancel timeout task
             if (scanTimeoutTask != null) {
                 scanTimeoutTask.cancel(true);
                 scanTimeoutTask = null;
             }
-            // Clear list of belts found
-            beltsFound.clear();
+            if (notify) {
+                scanDurationNano = System.nanoTime()-scanStartTimeNano;
+                metrics.setGauge(Metric.SCAN_ON_TIME_MS, getScanOnTimeMs());
+                if (DEBUG) Log.i(DEBUG_TAG, "BluetoothScanner: " + scanResultCount +
+                        " scan results in " + (scanDurationNano/1000000) + " ms (" +
+                        getScanResultRate() + " results/s, filtered: " + scanFiltered +
+                        ", scan-on time: " + getScanOnTimeMs() + " ms).");
+                // Alternate filtered and unfiltered scans while complete scans find no belt
+                if (!backgroundScan && beltsFound.isEmpty() && scanDurationNano >=
+                        TimeUnit.MILLISECONDS.toNanos(DEFAULT_SCAN_TIMEOUT_MS)) {
+                    useScanFilters = !scanFiltered;
+                }
+            }
         }
         if (failed) {
             callback.onScanFailed();
@@ -190,41 +418,141 @@ class BluetoothScanner {
         }
     }
 
+    /**
+     * Returns the number of scan results received during the last or current scan.
+     *
+     * @return the number of scan results.
+     */
+    public synchronized int getScanResultCount() {
+        return scanResultCount;
+    }
+
+    /**
+     * Returns the rate of scan results received during the last or current scan.
+     *
+     * @return the number of scan results per second.
+     */
+    public synchronized double getScanResultRate() {
+        long duration = (scanning)?(System.nanoTime()-scanStartTimeNano):(scanDurationNano);
+        return (duration <= 0)?(0):(scanResultCount*1e9/duration);
+    }
+
+    /**
+     * Returns <code>true</code> if the last or current scan is filtered by the Bluetooth
+     * controller.
+     *
+     * @return <code>true</code> if the scan is filtered on the advertised service.
+     */
+    public synchronized boolean isScanFiltered() {
+        return scanFiltered;
+    }
+
+    /**
+     * Returns the time the BLE scan was running during the last or current scan. For a background
+     * scan, idle windows are not counted.
+     *
+     * @return the scan-on time in milliseconds.
+     */
+    public synchronized long getScanOnTimeMs() {
+        long onTime = scanOnTimeNano;
+        if (bleScanning) {
+            onTime += System.nanoTime()-bleScanStartTimeNano;
+        }
+        return onTime/1000000;
+    }
+
+    /**
+     * Returns <code>true</code> if the last or current scan is a background scan.
+     *
+     * @return <code>true</code> for a background scan.
+     */
+    public synchronized boolean isBackgroundScan() {
+        return backgroundScan;
+    }
+
+    /**
+     * Returns the belts found during the last or current scan, from the strongest to the weakest
+     * smoothed RSSI.
+     *
+     * @return the belts found.
+     */
+    public synchronized @NonNull List<BluetoothDevice> getRankedBelts() {
+        List<String> addresses = beltRanking.getRankedAddresses();
+        ArrayList<BluetoothDevice> belts = new ArrayList<>(addresses.size());
+        for (String address: addresses) {
+            belts.add(beltsFound.get(address));
+        }
+        return belts;
+    }
+
+    /**
+     * Returns the belt with the strongest smoothed RSSI found during the last or current scan.
+     *
+     * @return the best belt, or <code>null</code> if no belt was found.
+     */
+    public synchronized @Nullable BluetoothDevice getBestBelt() {
+        String address = beltRanking.getBestAddress();
+        return (address == null)?(null):(beltsFound.get(address));
+    }
+
+    /**
+     * Returns the smoothed RSSI of a belt found during the last or current scan.
+     *
+     * @param address The address of the belt.
+     * @return the smoothed RSSI in dBm, or <code>NaN</code> if the belt was not found.
+     */
+    public synchronized double getSmoothedRssi(@NonNull String address) {
+        return beltRanking.getSmoothedRssi(address);
+    }
+
     /**
      * Checks the device found and notifies it to the callback if it is a belt.
      *
      * @param device The device to check and possibly notify.
+     * @param rssi The RSSI of the advertisement.
      */
-    private void checkAndNotifyBeltFound(BluetoothDevice device) {
+    private void checkAndNotifyBeltFound(BluetoothDevice device, int rssi) {
         if (device == null) {
             return;
         }
-        if (DEBUG) Log.d(DEBUG_TAG, "Advertisement received from: " + device.getAddress());
+        String address = device.getAddress();
         // Check name
         boolean isNewBelt = false;
+        boolean isTarget = false;
         synchronized (this) {
+            if (scanTimeoutTask == null || address == null) {
+                // Not scanning, late results are not counted
+                return;
+            }
+            scanResultCount++;
+            metrics.increment(Metric.SCAN_RESULTS);
+            if (beltsFound.containsKey(address)) {
+                // Duplicate
+                beltRanking.addSample(address, rssi);
+                return;
+            }
             String deviceName = null;
             try {
                 deviceName = device.getName();
             } catch (SecurityException s) {
                 if (DEBUG) Log.e(DEBUG_TAG, "Missing permission to get device name.", s);
             }
-            if (deviceName != null && deviceName.toLowerCase().matches(BELT_NAME_PATTERN) &&
-                    scanTimeoutTask != null) {
-                // Check for duplicate
-                for (BluetoothDevice b: beltsFound) {
-                    if (b.getAddress().equals(device.getAddress())) {
-                        return;
-                    }
-                }
+            if (deviceName != null && BELT_NAME_MATCHER.matcher(deviceName).matches()) {
                 // New belt found
                 isNewBelt = true;
-                beltsFound.add(device);
+                beltsFound.put(address, device);
+                metrics.increment(Metric.BELTS_FOUND);
+                beltRanking.addSample(address, rssi);
+                isTarget = backgroundScan && address.equalsIgnoreCase(targetAddress);
             }
         }
         if (isNewBelt) {
             callback.onBeltFound(device);
         }
+        if (isTarget) {
+            // Early stop of the background scan
+            stopScan(false);
+        }
     }
 
     /**
@@ -236,7 +564,7 @@ class BluetoothScanner {
         public void onBatchScanResults(List<ScanResult> results) {
             for (ScanResult r: results) {
                 BluetoothDevice device = r.getDevice();
-                checkAndNotifyBeltFound(device);
+                checkAndNotifyBeltFound(device, r.getRssi());
             }
         }
 
@@ -246,7 +574,7 @@ class BluetoothScanner {
                 return;
             }
             BluetoothDevice device = result.getDevice();
-            checkAndNotifyBeltFound(device);
+            checkAndNotifyBeltFound(device, result.getRssi());
         }
 
         @Override
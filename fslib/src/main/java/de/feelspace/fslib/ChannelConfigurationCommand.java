@@ -43,6 +43,11 @@ public class ChannelConfigurationCommand {
     // Clear other channels
     private boolean clearOtherChannels;
 
+    /**
+     * Length of the channel configuration packet.
+     */
+    public static final int PACKET_LENGTH = 18;
+
     /**
      * Constructor.
      *
@@ -53,13 +58,64 @@ public class ChannelConfigurationCommand {
             OrientationType orientationType, int orientationValue, int iterations,
             int periodMs, int initialTimerValueMs, boolean exclusiveChannel,
             boolean clearOtherChannels) {
+        checkArguments(channelIndex, vibrationPattern, intensity, orientationType,
+                orientationValue, iterations, periodMs, initialTimerValueMs);
+        this.channelIndex = channelIndex;
+        this.vibrationPattern = vibrationPattern;
+        this.orientationType = orientationType;
+        this.orientationValue = normalizeOrientationValue(orientationType, orientationValue);
+        this.intensity = intensity;
+        this.iterations = (iterations < 0)?(0):(iterations);
+        this.periodMs = periodMs;
+        this.initialTimerValueMs = initialTimerValueMs;
+        this.exclusiveChannel = exclusiveChannel;
+        this.clearOtherChannels = clearOtherChannels;
+    }
 
-        if (channelIndex < 0 || channelIndex > 5) {
-            throw new IllegalArgumentException("Channel index must be in range [0-5].");
-        }
+    /**
+     * Checks the arguments of a channel configuration.
+     *
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    private static void checkArguments(
+            int channelIndex, BeltVibrationPattern vibrationPattern, int intensity,
+            OrientationType orientationType, int orientationValue, int iterations,
+            int periodMs, int initialTimerValueMs) {
+        checkChannelIndex(channelIndex);
         if (vibrationPattern == null) {
             throw new IllegalArgumentException("Illegal vibration pattern.");
         }
+        checkOrientation(vibrationPattern, orientationType, orientationValue);
+        checkIntensity(intensity);
+        if (iterations > 127 || iterations < -128) {
+            throw new IllegalArgumentException("Illegal pattern iterations value.");
+        }
+        if (periodMs < 0 || periodMs > 0xFFFF) {
+            throw new IllegalArgumentException("Illegal pattern period value.");
+        }
+        if (initialTimerValueMs < 0 || initialTimerValueMs > 0xFFFF) {
+            throw new IllegalArgumentException("Illegal pattern timer initial value.");
+        }
+    }
+
+    /**
+     * Checks the channel index.
+     *
+     * @throws IllegalArgumentException If the channel index is out of range.
+     */
+    static void checkChannelIndex(int channelIndex) {
+        if (channelIndex < 0 || channelIndex > 5) {
+            throw new IllegalArgumentException("Channel index must be in range [0-5].");
+        }
+    }
+
+    /**
+     * Checks the orientation type and value for a given pattern.
+     *
+     * @throws IllegalArgumentException If the orientation is illegal.
+     */
+    static void checkOrientation(BeltVibrationPattern vibrationPattern,
+                                 OrientationType orientationType, int orientationValue) {
         if (orientationType == null) {
             throw new IllegalArgumentException("Illegal orientation type.");
         }
@@ -79,38 +135,35 @@ public class ChannelConfigurationCommand {
                 break;
             case ANGLE:
             case BEARING:
-                orientationValue = orientationValue%360;
-                if (orientationValue < 0) {
-                    orientationValue += 360;
-                }
                 break;
         }
+    }
+
+    /**
+     * Checks the intensity value.
+     *
+     * @throws IllegalArgumentException If the intensity is illegal.
+     */
+    static void checkIntensity(int intensity) {
         if (intensity < 0 || (intensity>100 &&
                 intensity!=BeltCommunicationInterface.DEFAULT_INTENSITY_CODE)) {
             throw new IllegalArgumentException("Illegal intensity value.");
         }
-        if (iterations > 127 || iterations < -128) {
-            throw new IllegalArgumentException("Illegal pattern iterations value.");
-        }
-        if (iterations < 0) {
-            iterations = 0;
-        }
-        if (periodMs < 0 || periodMs > 0xFFFF) {
-            throw new IllegalArgumentException("Illegal pattern period value.");
-        }
-        if (initialTimerValueMs < 0 || initialTimerValueMs > 0xFFFF) {
-            throw new IllegalArgumentException("Illegal pattern timer initial value.");
+    }
+
+    /**
+     * Returns the orientation value in range [0-359] for angles and bearings.
+     */
+    static int normalizeOrientationValue(OrientationType orientationType,
+                                                 int orientationValue) {
+        if (orientationType == OrientationType.ANGLE ||
+                orientationType == OrientationType.BEARING) {
+            orientationValue = orientationValue%360;
+            if (orientationValue < 0) {
+                orientationValue += 360;
+            }
         }
-        this.channelIndex = channelIndex;
-        this.vibrationPattern = vibrationPattern;
-        this.orientationType = orientationType;
-        this.orientationValue = orientationValue;
-        this.intensity = intensity;
-        this.iterations = iterations;
-        this.periodMs = periodMs;
-        this.initialTimerValueMs = initialTimerValueMs;
-        this.exclusiveChannel = exclusiveChannel;
-        this.clearOtherChannels = clearOtherChannels;
+        return orientationValue;
     }
 
     /**
@@ -119,26 +172,84 @@ public class ChannelConfigurationCommand {
      * @return the packet for this command.
      */
     public byte[] getPacket() {
-        return new byte[] {
-                (byte) channelIndex,
-                vibrationPattern.getValue(),
-                (byte) (intensity & 0xFF),
-                (byte) ((intensity >> 8) & 0xFF),
-                (byte) 0x00,
-                (byte) 0x00,
-                orientationType.getValue(),
-                (byte) (orientationValue & 0xFF),
-                (byte) ((orientationValue >> 8) & 0xFF),
-                (byte) 0x00,
-                (byte) 0x00,
-                (byte) iterations,
-                (byte) (periodMs & 0xFF),
-                (byte) ((periodMs >> 8) & 0xFF),
-                (byte) (initialTimerValueMs & 0xFF),
-                (byte) ((initialTimerValueMs >> 8) & 0xFF),
-                (byte) ((exclusiveChannel)?(0x01):(0x00)),
-                (byte) ((clearOtherChannels)?(0x01):(0x00))
-        };
+        byte[] packet = new byte[PACKET_LENGTH];
+        writePacket(packet, 0);
+        return packet;
+    }
+
+    /**
+     * Writes the packet of this channel configuration command in a buffer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If the buffer is too small for the packet.
+     */
+    public int writePacket(byte[] buffer, int offset) {
+        checkBuffer(buffer, offset);
+        return putPacket(buffer, offset, channelIndex, vibrationPattern, intensity,
+                orientationType, orientationValue, iterations, periodMs, initialTimerValueMs,
+                exclusiveChannel, clearOtherChannels);
+    }
+
+    /**
+     * Writes the packet of a channel configuration in a buffer without creating a command object.
+     * The arguments are checked as for the constructor.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If an argument has illegal value or the buffer is too small
+     * for the packet.
+     */
+    static int writePacket(
+            byte[] buffer, int offset, int channelIndex, BeltVibrationPattern vibrationPattern,
+            int intensity, OrientationType orientationType, int orientationValue, int iterations,
+            int periodMs, int initialTimerValueMs, boolean exclusiveChannel,
+            boolean clearOtherChannels) {
+        checkBuffer(buffer, offset);
+        checkArguments(channelIndex, vibrationPattern, intensity, orientationType,
+                orientationValue, iterations, periodMs, initialTimerValueMs);
+        return putPacket(buffer, offset, channelIndex, vibrationPattern, intensity,
+                orientationType, normalizeOrientationValue(orientationType, orientationValue),
+                (iterations < 0)?(0):(iterations), periodMs, initialTimerValueMs,
+                exclusiveChannel, clearOtherChannels);
+    }
+
+    /**
+     * Checks that a buffer can hold a packet at the given offset.
+     *
+     * @throws IllegalArgumentException If the buffer is too small for the packet.
+     */
+    static void checkBuffer(byte[] buffer, int offset) {
+        if (buffer == null || offset < 0 || offset > buffer.length - PACKET_LENGTH) {
+            throw new IllegalArgumentException("Buffer too small for the packet.");
+        }
+    }
+
+    /**
+     * Writes checked values in a buffer.
+     */
+    private static int putPacket(
+            byte[] buffer, int offset, int channelIndex, BeltVibrationPattern vibrationPattern,
+            int intensity, OrientationType orientationType, int orientationValue, int iterations,
+            int periodMs, int initialTimerValueMs, boolean exclusiveChannel,
+            boolean clearOtherChannels) {
+        buffer[offset] = (byte) channelIndex;
+        buffer[offset+1] = vibrationPattern.getValue();
+        BinaryUtils.writeInt16LE(buffer, offset+2, intensity);
+        buffer[offset+4] = (byte) 0x00;
+        buffer[offset+5] = (byte) 0x00;
+        buffer[offset+6] = orientationType.getValue();
+        BinaryUtils.writeInt16LE(buffer, offset+7, orientationValue);
+        buffer[offset+9] = (byte) 0x00;
+        buffer[offset+10] = (byte) 0x00;
+        buffer[offset+11] = (byte) iterations;
+        BinaryUtils.writeInt16LE(buffer, offset+12, periodMs);
+        BinaryUtils.writeInt16LE(buffer, offset+14, initialTimerValueMs);
+        buffer[offset+16] = (byte) ((exclusiveChannel)?(0x01):(0x00));
+        buffer[offset+17] = (byte) ((clearOtherChannels)?(0x01):(0x00));
+        return PACKET_LENGTH;
     }
 
 }
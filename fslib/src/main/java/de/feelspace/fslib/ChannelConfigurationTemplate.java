@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.EnumMap;
+
+/**
+ * Precompiled channel configuration packet of a vibration signal.
+ *
+ * The pattern, iterations, period and exclusive flag of a signal never change, so the packet is
+ * encoded once and only the variable bytes (channel, intensity, orientation and clear flag) are
+ * patched when a command is sent.
+ */
+final class ChannelConfigurationTemplate {
+
+    // Templates of vibration signals
+    private static final @NonNull EnumMap<BeltVibrationSignal, ChannelConfigurationTemplate>
+            SIGNAL_TEMPLATES = new EnumMap<>(BeltVibrationSignal.class);
+
+    static {
+        // Directional signals
+        addTemplate(BeltVibrationSignal.CONTINUOUS,
+                BeltVibrationPattern.CONTINUOUS, 0, 500, false);
+        addTemplate(BeltVibrationSignal.NAVIGATION,
+                BeltVibrationPattern.CONTINUOUS, 0, 500, false);
+        addTemplate(BeltVibrationSignal.APPROACHING_DESTINATION,
+                BeltVibrationPattern.SINGLE_SHORT_PULSE, 0, 500, false);
+        addTemplate(BeltVibrationSignal.TURN_ONGOING,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 750, false);
+        addTemplate(BeltVibrationSignal.DIRECTION_NOTIFICATION,
+                BeltVibrationPattern.CONTINUOUS, 1, 1000, false);
+        addTemplate(BeltVibrationSignal.NEXT_WAYPOINT_LONG_DISTANCE,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 3000, false);
+        addTemplate(BeltVibrationSignal.NEXT_WAYPOINT_MEDIUM_DISTANCE,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 1500, false);
+        addTemplate(BeltVibrationSignal.NEXT_WAYPOINT_SHORT_DISTANCE,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 1000, false);
+        addTemplate(BeltVibrationSignal.NEXT_WAYPOINT_AREA_REACHED,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 750, false);
+        // Non-directional signals
+        addTemplate(BeltVibrationSignal.DESTINATION_REACHED_REPEATED,
+                BeltVibrationPattern.DESTINATION_REACHED, OrientationType.VIBROMOTOR_INDEX, 0,
+                0, 5000, false);
+        addTemplate(BeltVibrationSignal.DESTINATION_REACHED_SINGLE,
+                BeltVibrationPattern.DESTINATION_REACHED, OrientationType.VIBROMOTOR_INDEX, 0,
+                1, 2500, true);
+        addTemplate(BeltVibrationSignal.OPERATION_WARNING,
+                BeltVibrationPattern.WARNING, OrientationType.VIBROMOTOR_INDEX, 0,
+                2, 500, true);
+        // Note: exclusive channel is true because firmware 43 only support 4 simultaneous
+        // vibration.
+        addTemplate(BeltVibrationSignal.CRITICAL_WARNING,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, OrientationType.BINARY_MASK,
+                0b0001000100010001, 3, 700, true);
+    }
+
+    // Packet with the constant values of the signal
+    private final @NonNull byte[] packet;
+
+    // Pattern of the signal
+    private final @NonNull BeltVibrationPattern vibrationPattern;
+
+    // Flag for signals with a constant orientation
+    private final boolean fixedOrientation;
+
+    /**
+     * Creates a template from a channel configuration.
+     */
+    private ChannelConfigurationTemplate(@NonNull ChannelConfigurationCommand command,
+                                         @NonNull BeltVibrationPattern vibrationPattern,
+                                         boolean fixedOrientation) {
+        this.packet = command.getPacket();
+        this.vibrationPattern = vibrationPattern;
+        this.fixedOrientation = fixedOrientation;
+    }
+
+    /**
+     * Adds the template of a directional signal.
+     */
+    private static void addTemplate(@NonNull BeltVibrationSignal signal,
+                                    @NonNull BeltVibrationPattern pattern, int iterations,
+                                    int periodMs, boolean exclusiveChannel) {
+        SIGNAL_TEMPLATES.put(signal, new ChannelConfigurationTemplate(
+                new ChannelConfigurationCommand(0, pattern, 0, OrientationType.ANGLE, 0,
+                        iterations, periodMs, 0, exclusiveChannel, false),
+                pattern, false));
+    }
+
+    /**
+     * Adds the template of a non-directional signal.
+     */
+    private static void addTemplate(@NonNull BeltVibrationSignal signal,
+                                    @NonNull BeltVibrationPattern pattern,
+                                    @NonNull OrientationType orientationType,
+                                    int orientationValue, int iterations, int periodMs,
+                                    boolean exclusiveChannel) {
+        SIGNAL_TEMPLATES.put(signal, new ChannelConfigurationTemplate(
+                new ChannelConfigurationCommand(0, pattern, 0, orientationType,
+                        orientationValue, iterations, periodMs, 0, exclusiveChannel, false),
+                pattern, true));
+    }
+
+    /**
+     * Returns the template of a vibration signal.
+     *
+     * @param signal The vibration signal.
+     * @return the template of the signal, or <code>null</code> if the signal is not sent as a
+     * channel configuration (i.e. system signals).
+     */
+    static @Nullable ChannelConfigurationTemplate forSignal(@NonNull BeltVibrationSignal signal) {
+        return SIGNAL_TEMPLATES.get(signal);
+    }
+
+    /**
+     * Returns <code>true</code> if the orientation of the signal is constant.
+     *
+     * @return <code>true</code> if the orientation of the signal is constant.
+     */
+    boolean hasFixedOrientation() {
+        return fixedOrientation;
+    }
+
+    /**
+     * Writes the packet of a signal with a constant orientation.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @param channelIndex The channel index.
+     * @param intensity The intensity.
+     * @param clearOtherChannels <code>true</code> to stop other channels.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If an argument has illegal value or the buffer is too small
+     * for the packet.
+     */
+    int writePacket(@NonNull byte[] buffer, int offset, int channelIndex, int intensity,
+                    boolean clearOtherChannels) {
+        ChannelConfigurationCommand.checkBuffer(buffer, offset);
+        ChannelConfigurationCommand.checkChannelIndex(channelIndex);
+        ChannelConfigurationCommand.checkIntensity(intensity);
+        System.arraycopy(packet, 0, buffer, offset, ChannelConfigurationCommand.PACKET_LENGTH);
+        patch(buffer, offset, channelIndex, intensity, clearOtherChannels);
+        return ChannelConfigurationCommand.PACKET_LENGTH;
+    }
+
+    /**
+     * Writes the packet of a directional signal.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @param channelIndex The channel index.
+     * @param intensity The intensity.
+     * @param orientationType The orientation type.
+     * @param orientationValue The orientation value.
+     * @param clearOtherChannels <code>true</code> to stop other channels.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If an argument has illegal value, the orientation of the
+     * signal is constant, or the buffer is too small for the packet.
+     */
+    int writePacket(@NonNull byte[] buffer, int offset, int channelIndex, int intensity,
+                    OrientationType orientationType, int orientationValue,
+                    boolean clearOtherChannels) {
+        if (fixedOrientation) {
+            throw new IllegalArgumentException("The orientation of the signal is constant.");
+        }
+        ChannelConfigurationCommand.checkBuffer(buffer, offset);
+        ChannelConfigurationCommand.checkChannelIndex(channelIndex);
+        ChannelConfigurationCommand.checkIntensity(intensity);
+        ChannelConfigurationCommand.checkOrientation(vibrationPattern, orientationType,
+                orientationValue);
+        orientationValue = ChannelConfigurationCommand.normalizeOrientationValue(
+                orientationType, orientationValue);
+        System.arraycopy(packet, 0, buffer, offset, ChannelConfigurationCommand.PACKET_LENGTH);
+        patch(buffer, offset, channelIndex, intensity, clearOtherChannels);
+        buffer[offset+6] = orientationType.getValue();
+        BinaryUtils.writeInt16LE(buffer, offset+7, orientationValue);
+        return ChannelConfigurationCommand.PACKET_LENGTH;
+    }
+
+    /**
+     * Patches the channel, intensity and clear flag.
+     */
+    private static void patch(@NonNull byte[] buffer, int offset, int channelIndex,
+                              int intensity, boolean clearOtherChannels) {
+        buffer[offset] = (byte) channelIndex;
+        BinaryUtils.writeInt16LE(buffer, offset+2, intensity);
+        buffer[offset+17] = (byte) ((clearOtherChannels)?(0x01):(0x00));
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Structured logger that writes events with primitive arguments into a preallocated ring buffer.
+ *
+ * Logging an event does not allocate and does not format a message. Messages are formatted only
+ * when the buffer is dumped, so the events of hot paths can stay enabled in production. Events
+ * below the buffer level are discarded. Events at or above the logcat level are also formatted
+ * and sent to logcat immediately, by default only errors.
+ *
+ * Writers are lock-free. A writer claims its slot with a compare-and-set on the sequence number of
+ * the slot, so that two writers wrapping onto the same slot cannot interleave their fields, and
+ * publishes the slot by writing its sequence number last. Slot fields are stored in atomic arrays
+ * so that a dump, which validates the sequence number after reading the fields, skips the slots
+ * being written or overwritten. When the buffer is full, the oldest events are overwritten.
+ */
+public final class EventLogger {
+
+    // Debug
+    @SuppressWarnings("unused")
+    private static final String DEBUG_TAG = "FeelSpace-Debug";
+
+    /**
+     * Default number of events kept in the buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // Logger of the library
+    private static final EventLogger DEFAULT_LOGGER = new EventLogger(DEFAULT_CAPACITY);
+
+    // Number of arguments per event
+    private static final int ARGUMENT_COUNT = 3;
+
+    // Events
+    private static final LogEvent[] EVENTS = LogEvent.values();
+
+    // Sequence number of an empty slot
+    private static final long EMPTY_SLOT = -1;
+
+    // Slots, the sequence number of a slot being written is encoded as -2-sequence
+    private final int mask;
+    private final AtomicLongArray timesNano;
+    private final AtomicIntegerArray events;
+    private final AtomicLongArray arguments;
+    private final AtomicLongArray sequences;
+
+    // Sequence of the next event, and of the first event after the last clear
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long firstSequence = 0;
+
+    // Events discarded because a newer writer claimed the slot
+    private final AtomicLong contendedCount = new AtomicLong();
+
+    // Levels
+    private volatile @NonNull LogLevel level = LogLevel.DEBUG;
+    private volatile @NonNull LogLevel logcatLevel = LogLevel.ERROR;
+
+    /**
+     * Creates a logger.
+     *
+     * @param capacity The number of events kept in the buffer, a power of two.
+     * @throws IllegalArgumentException If the capacity is not a positive power of two.
+     */
+    EventLogger(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two.");
+        }
+        mask = capacity-1;
+        timesNano = new AtomicLongArray(capacity);
+        events = new AtomicIntegerArray(capacity);
+        arguments = new AtomicLongArray(capacity*ARGUMENT_COUNT);
+        sequences = new AtomicLongArray(capacity);
+        for (int i=0; i<capacity; i++) {
+            sequences.set(i, EMPTY_SLOT);
+        }
+    }
+
+    /**
+     * Returns the logger of the library.
+     *
+     * @return the logger.
+     */
+    public static @NonNull EventLogger getDefault() {
+        return DEFAULT_LOGGER;
+    }
+
+    /**
+     * Sets the minimum level of the events written in the buffer.
+     *
+     * @param level The minimum level, {@link LogLevel#OFF} to disable the buffer.
+     * @throws IllegalArgumentException If the level is <code>null</code>.
+     */
+    public void setLevel(LogLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Null log level.");
+        }
+        this.level = level;
+    }
+
+    /**
+     * Returns the minimum level of the events written in the buffer.
+     *
+     * @return the minimum level.
+     */
+    public @NonNull LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the minimum level of the events sent to logcat immediately.
+     *
+     * @param level The minimum level, {@link LogLevel#OFF} to send no event.
+     * @throws IllegalArgumentException If the level is <code>null</code>.
+     */
+    public void setLogcatLevel(LogLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Null log level.");
+        }
+        this.logcatLevel = level;
+    }
+
+    /**
+     * Returns <code>true</code> if events of a level are written in the buffer or sent to logcat.
+     *
+     * @param level The level.
+     * @return <code>true</code> if the level is enabled.
+     */
+    public boolean isEnabled(@NonNull LogLevel level) {
+        int ordinal = level.ordinal();
+        return ordinal >= this.level.ordinal() || ordinal >= logcatLevel.ordinal();
+    }
+
+    /**
+     * Logs an event without argument.
+     *
+     * @param event The event.
+     */
+    public void log(@NonNull LogEvent event) {
+        log(event, 0, 0, 0);
+    }
+
+    /**
+     * Logs an event with one argument.
+     *
+     * @param event The event.
+     * @param arg0 The argument.
+     */
+    public void log(@NonNull LogEvent event, long arg0) {
+        log(event, arg0, 0, 0);
+    }
+
+    /**
+     * Logs an event with two arguments.
+     *
+     * @param event The event.
+     * @param arg0 The first argument.
+     * @param arg1 The second argument.
+     */
+    public void log(@NonNull LogEvent event, long arg0, long arg1) {
+        log(event, arg0, arg1, 0);
+    }
+
+    /**
+     * Logs an event with three arguments.
+     *
+     * @param event The event.
+     * @param arg0 The first argument.
+     * @param arg1 The second argument.
+     * @param arg2 The third argument.
+     */
+    public void log(@NonNull LogEvent event, long arg0, long arg1, long arg2) {
+        int ordinal = event.getLevel().ordinal();
+        if (ordinal >= logcatLevel.ordinal()) {
+            Log.println(event.getLevel().getPriority(), DEBUG_TAG,
+                    event.format(arg0, arg1, arg2));
+        }
+        if (ordinal < level.ordinal()) {
+            return;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        if (!claimSlot(slot, sequence)) {
+            contendedCount.incrementAndGet();
+            return;
+        }
+        timesNano.set(slot, System.nanoTime());
+        events.set(slot, event.ordinal());
+        int offset = slot*ARGUMENT_COUNT;
+        arguments.set(offset, arg0);
+        arguments.set(offset+1, arg1);
+        arguments.set(offset+2, arg2);
+        // Publish the slot
+        sequences.set(slot, sequence);
+    }
+
+    /**
+     * Claims a slot for writing an event. The claim fails when the slot is being written by
+     * another writer or already holds a newer event, in which case the event is discarded rather
+     * than waiting.
+     *
+     * @param slot The slot.
+     * @param sequence The sequence of the event.
+     * @return <code>true</code> if the slot has been claimed.
+     */
+    private boolean claimSlot(int slot, long sequence) {
+        long current = sequences.get(slot);
+        if (current < EMPTY_SLOT || current >= sequence) {
+            return false;
+        }
+        return sequences.compareAndSet(slot, current, -2-sequence);
+    }
+
+    /**
+     * Returns the number of events written in the buffer since the last clear.
+     *
+     * @return the number of events written.
+     */
+    public long getEventCount() {
+        return nextSequence.get()-firstSequence;
+    }
+
+    /**
+     * Returns the number of events overwritten since the last clear.
+     *
+     * @return the number of events overwritten.
+     */
+    public long getDroppedCount() {
+        return Math.max(0, getEventCount()-(mask+1))+contendedCount.get();
+    }
+
+    /**
+     * Removes all events from the buffer.
+     */
+    public void clear() {
+        firstSequence = nextSequence.get();
+        contendedCount.set(0);
+    }
+
+    /**
+     * Formats the events of the buffer, from the oldest to the newest, one event per line. Events
+     * being written are skipped.
+     *
+     * @return the formatted events.
+     */
+    public @NonNull String dump() {
+        StringBuilder builder = new StringBuilder();
+        long end = nextSequence.get();
+        for (long sequence=getDumpStart(end); sequence<end; sequence++) {
+            LogEvent event = formatEntry(sequence, builder);
+            if (event != null) {
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Sends the events of the buffer to logcat, from the oldest to the newest.
+     */
+    public void dumpToLogcat() {
+        StringBuilder builder = new StringBuilder();
+        long end = nextSequence.get();
+        for (long sequence=getDumpStart(end); sequence<end; sequence++) {
+            builder.setLength(0);
+            LogEvent event = formatEntry(sequence, builder);
+            if (event != null) {
+                Log.println(event.getLevel().getPriority(), DEBUG_TAG, builder.toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence of the oldest event in the buffer.
+     */
+    private long getDumpStart(long end) {
+        return Math.max(firstSequence, end-(mask+1));
+    }
+
+    /**
+     * Formats an event of the buffer.
+     *
+     * @param sequence The sequence of the event.
+     * @param builder The builder to append the formatted event to.
+     * @return the event, or <code>null</code> if the event has been overwritten or is being
+     * written.
+     */
+    private LogEvent formatEntry(long sequence, @NonNull StringBuilder builder) {
+        int slot = (int) (sequence & mask);
+        if (sequences.get(slot) != sequence) {
+            return null;
+        }
+        long timeNano = timesNano.get(slot);
+        int eventOrdinal = events.get(slot);
+        int offset = slot*ARGUMENT_COUNT;
+        long arg0 = arguments.get(offset);
+        long arg1 = arguments.get(offset+1);
+        long arg2 = arguments.get(offset+2);
+        // Atomic reads are not reordered after this validation
+        if (sequences.get(slot) != sequence) {
+            return null;
+        }
+        LogEvent event = EVENTS[eventOrdinal];
+        builder.append(timeNano/1000000).append(" ms ").append(event.getLevel()).append(' ')
+                .append(event.format(arg0, arg1, arg2));
+        return event;
+    }
+
+}
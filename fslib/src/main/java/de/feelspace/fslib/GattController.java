@@ -113,11 +113,20 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
     public static final long GATT_OPERATION_TIMEOUT_MS = 500;
     private ScheduledFuture<?> gattOperationTimeoutTask;
 
+    // Write latency (exponentially weighted moving average of write operations)
+    private static final double WRITE_LATENCY_SMOOTHING_FACTOR = 0.125;
+    private volatile long averageWriteLatencyNano = -1;
+
+    // Metrics
+    private final @NonNull MetricsRegistry metrics;
+
     /**
      * Constructor.
      */
-    GattController(@NonNull ScheduledThreadPoolExecutor executor) {
+    GattController(@NonNull ScheduledThreadPoolExecutor executor,
+                   @NonNull MetricsRegistry metrics) {
         this.executor = executor;
+        this.metrics = metrics;
     }
 
     /**
@@ -153,6 +162,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
             initialConnection = true;
             connectionLost = false;
             connectionFailed = false;
+            averageWriteLatencyNano = -1;
             this.device = device;
             this.context = context;
             try {
@@ -301,6 +311,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
     @SuppressLint("MissingPermission")
     protected void reconnect() {
         if (DEBUG) Log.i(DEBUG_TAG, "GattController: Schedule reconnection.");
+        metrics.increment(Metric.GATT_RECONNECTIONS);
         List<GattOperation> canceledOperations = null;
         synchronized (this) {
             // First, disconnect
@@ -568,6 +579,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                         1_000_000L;
                 if (timeFromLastActivity > GATT_SUPERVISION_TIMEOUT_MS) {
                     Log.w(DEBUG_TAG, "GattController: GATT supervision timeout.");
+                    metrics.increment(Metric.GATT_SUPERVISION_TIMEOUTS);
                     synchronized (GattController.this) {
                         connectionLost = true;
                         remainingReconnectionAttempts = RECONNECTION_ATTEMPTS - 1;
@@ -729,6 +741,8 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                     (runningOperation != null && runningOperation.isDone())) {
                 if (runningOperation != null && runningOperation.isDone()) {
                     cancelGattOperationTimeout();
+                    updateWriteLatency(runningOperation);
+                    updateOperationMetrics(runningOperation);
                     if (completedOperations == null) {
                         completedOperations = new ArrayList<>();
                     }
@@ -748,10 +762,12 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                             Log.e(DEBUG_TAG, "GattController: Failed to schedule GATT " +
                                     "operation timeout.", e);
                             runningOperation.setState(GattOperationState.STATE_CANCELLED);
+                            metrics.increment(Metric.GATT_OPERATIONS_CANCELLED);
                         }
                     }
                 }
             }
+            updatePendingOperationGauge();
         }
         if (completedOperations != null) {
             for (GattOperation operation: completedOperations) {
@@ -760,6 +776,103 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
         }
     }
 
+    /**
+     * Adds an operation to the queue. This method MUST be called inside a synchronization block.
+     * @param operation The operation to add.
+     */
+    private void queueOperation(@NonNull GattOperation operation) {
+        operationQueue.add(operation);
+        metrics.increment(Metric.GATT_OPERATIONS_QUEUED);
+        updatePendingOperationGauge();
+    }
+
+    /**
+     * Updates the gauge of pending operations. This method MUST be called inside a
+     * synchronization block.
+     */
+    private void updatePendingOperationGauge() {
+        metrics.setGauge(Metric.GATT_PENDING_OPERATIONS,
+                operationQueue.size() + ((runningOperation == null) ? 0 : 1));
+    }
+
+    /**
+     * Updates the metrics with a completed operation. This method MUST be called inside a
+     * synchronization block.
+     * @param operation The completed operation.
+     */
+    private void updateOperationMetrics(@NonNull GattOperation operation) {
+        if (operation.succeed()) {
+            metrics.increment(Metric.GATT_OPERATIONS_COMPLETED);
+            long latency = operation.getLatencyNano();
+            if (latency >= 0) {
+                metrics.record(Metric.GATT_OPERATION_LATENCY_US, latency/1000);
+            }
+        } else if (operation.getState() == GattOperationState.STATE_FAILED) {
+            metrics.increment(Metric.GATT_OPERATIONS_FAILED);
+        }
+    }
+
+    /**
+     * Updates the average write latency with a completed operation. This method MUST be called
+     * inside a synchronization block.
+     * @param operation The completed operation.
+     */
+    private void updateWriteLatency(@NonNull GattOperation operation) {
+        if (!(operation instanceof GattOperationWriteCharacteristic) || !operation.succeed()) {
+            return;
+        }
+        long latency = operation.getLatencyNano();
+        if (latency < 0) {
+            return;
+        }
+        if (averageWriteLatencyNano < 0) {
+            averageWriteLatencyNano = latency;
+        } else {
+            averageWriteLatencyNano = (long) (averageWriteLatencyNano +
+                    WRITE_LATENCY_SMOOTHING_FACTOR * (latency - averageWriteLatencyNano));
+        }
+    }
+
+    /**
+     * Returns the average latency of characteristic writes, i.e. the time between the start of a
+     * write operation and its acknowledgment.
+     *
+     * @return the average write latency in nanoseconds, or <code>-1</code> if no write has been
+     * acknowledged yet.
+     */
+    public long getAverageWriteLatencyNano() {
+        return averageWriteLatencyNano;
+    }
+
+    /**
+     * Returns the metrics registry of the GATT controller.
+     *
+     * @return the metrics registry.
+     */
+    @NonNull MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the executor of the GATT controller.
+     *
+     * @return the executor.
+     */
+    @NonNull ScheduledThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of operations waiting in the queue, including the running operation.
+     *
+     * @return the number of pending operations.
+     */
+    public int getPendingOperationCount() {
+        synchronized (this) {
+            return operationQueue.size() + ((runningOperation == null) ? 0 : 1);
+        }
+    }
+
     /**
      * Runnable for the timeout of an operation.
      */
@@ -783,7 +896,9 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 if (runningOperation == operation) {
                     cancelGattOperationTimeout();
                     runningOperation.setState(GattOperationState.STATE_CANCELLED);
-                    Log.w(DEBUG_TAG, "GattController: Operation timeout for "+runningOperation.toString());
+                    metrics.increment(Metric.GATT_OPERATIONS_TIMED_OUT);
+                    EventLogger.getDefault().log(LogEvent.GATT_OPERATION_TIMEOUT,
+                            operation.getLogKind(), operation.getLogUuid(), operation.getId());
                 } else {
                     // Should not happen
                     Log.w(DEBUG_TAG, "GattController: Timeout of non running operation.");
@@ -812,6 +927,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 operation.setState(GattOperationState.STATE_CANCELLED);
                 operations.add(operation);
             }
+            metrics.add(Metric.GATT_OPERATIONS_CANCELLED, operations.size());
             operationQueue.clear();
         }
         return operations;
@@ -827,6 +943,9 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
             ArrayList<GattEventListener> targets;
             synchronized (listeners) {
                 if (listeners.isEmpty()) {
+                    if (operation instanceof GattOperationWriteCharacteristic) {
+                        completeWrite((GattOperationWriteCharacteristic) operation);
+                    }
                     return;
                 }
                 targets = new ArrayList<>(listeners);
@@ -853,6 +972,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                     l.onCharacteristicWrite(writeCharacteristic.getCharacteristic(),
                             writeCharacteristic.getValue(), operation.succeed());
                 }
+                completeWrite(writeCharacteristic);
             } else if (operation instanceof GattOperationRequest) {
                 GattOperationRequest request = (GattOperationRequest) operation;
                 for (GattEventListener l : targets) {
@@ -871,6 +991,19 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
         }
     }
 
+    /**
+     * Notifies the completion callback of a write operation and returns its buffer to the pool.
+     * This method must NOT be called inside a synchronization block.
+     * @param operation The completed write operation.
+     */
+    private void completeWrite(@NonNull GattOperationWriteCharacteristic operation) {
+        WriteCompletionCallback callback = operation.getCompletionCallback();
+        if (callback != null) {
+            callback.onWriteCompleted(operation.succeed());
+        }
+        operation.releaseBuffer();
+    }
+
     /**
      * Enables or disables the notifications on a characteristic.
      *
@@ -903,7 +1036,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 return false;
             }
             BluetoothGattDescriptor descriptor = characteristic.getDescriptors().get(0);
-            operationQueue.add(new GattOperationSetNotificationIndication(gattServer, descriptor,
+            queueOperation(new GattOperationSetNotificationIndication(gattServer, descriptor,
                     enableNotification, enableIndication));
         }
         checkAndStartGattOperation();
@@ -930,7 +1063,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 Log.w(DEBUG_TAG, "GattController: No GATT server for the operation.");
                 return false;
             }
-            operationQueue.add(new GattOperationReadCharacteristic(gattServer, characteristic));
+            queueOperation(new GattOperationReadCharacteristic(gattServer, characteristic));
         }
         checkAndStartGattOperation();
         return true;
@@ -958,13 +1091,66 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 Log.w(DEBUG_TAG, "GattController: No GATT server for the operation.");
                 return false;
             }
-            operationQueue.add(
+            queueOperation(
                     new GattOperationWriteCharacteristic(gattServer, characteristic, value));
         }
         checkAndStartGattOperation();
         return true;
     }
 
+    /**
+     * Writes a characteristic with a pooled buffer. The operation takes ownership of the buffer,
+     * which is returned to the pool after the completion of the write, or immediately when the
+     * operation cannot be queued. Listeners must not keep a reference to the value passed to
+     * {@link GattEventListener#onCharacteristicWrite(BluetoothGattCharacteristic, byte[], boolean)}.
+     *
+     * @param characteristic The characteristic to write.
+     * @param value The value to write, acquired from the pool.
+     * @param bufferPool The pool of the buffer.
+     * @return <code>true</code> if the request has been correctly been sent.
+     */
+    boolean writeCharacteristic(@Nullable BluetoothGattCharacteristic characteristic,
+                                @NonNull byte[] value, @NonNull PacketBufferPool bufferPool) {
+        return writeCharacteristic(characteristic, value, bufferPool, null);
+    }
+
+    /**
+     * Writes a characteristic with a pooled buffer and notifies a callback of the completion of
+     * this specific write. The callback is also called, with a failure, when the operation is
+     * cancelled by a disconnection.
+     *
+     * @param characteristic The characteristic to write.
+     * @param value The value to write, acquired from the pool.
+     * @param bufferPool The pool of the buffer.
+     * @param completionCallback The callback notified of the completion, or <code>null</code>.
+     * @return <code>true</code> if the request has been correctly been sent.
+     */
+    boolean writeCharacteristic(@Nullable BluetoothGattCharacteristic characteristic,
+                                @NonNull byte[] value, @NonNull PacketBufferPool bufferPool,
+                                @Nullable WriteCompletionCallback completionCallback) {
+        synchronized (this) {
+            if (characteristic == null) {
+                Log.e(DEBUG_TAG, "GattController: Operation on null characteristic.");
+                bufferPool.release(value);
+                return false;
+            }
+            if (connectionState != GATT_CONNECTED) {
+                Log.w(DEBUG_TAG, "GattController: No connection for the operation.");
+                bufferPool.release(value);
+                return false;
+            }
+            if (gattServer == null) {
+                Log.w(DEBUG_TAG, "GattController: No GATT server for the operation.");
+                bufferPool.release(value);
+                return false;
+            }
+            queueOperation(new GattOperationWriteCharacteristic(gattServer, characteristic,
+                    value, bufferPool, completionCallback));
+        }
+        checkAndStartGattOperation();
+        return true;
+    }
+
     /**
      * Sends a request on a characteristic and wait for a notification that acknowledge the request.
      *
@@ -994,7 +1180,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 Log.w(DEBUG_TAG, "GattController: No GATT server for the operation.");
                 return false;
             }
-            operationQueue.add(new GattOperationRequest(gattServer, writeCharacteristic,
+            queueOperation(new GattOperationRequest(gattServer, writeCharacteristic,
                     notifyCharacteristic, writeValue, notifyPattern, requestId));
         }
         checkAndStartGattOperation();
@@ -1017,7 +1203,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
                 Log.w(DEBUG_TAG, "GattController: No GATT server for the operation.");
                 return false;
             }
-            operationQueue.add(new GattOperationRequestMtu(gattServer, mtu));
+            queueOperation(new GattOperationRequestMtu(gattServer, mtu));
         }
         checkAndStartGattOperation();
         return true;
@@ -1369,6 +1555,7 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
      */
     private void notifyConnectionFailed() {
         if (DEBUG) Log.i(DEBUG_TAG, "GattController: Notify connection failed.");
+        metrics.increment(Metric.GATT_CONNECTION_FAILURES);
         ArrayList<GattEventListener> targets;
         synchronized (listeners) {
             if (listeners.isEmpty()) {
@@ -1418,6 +1605,19 @@ public class GattController extends BluetoothGattCallback implements BluetoothPa
         }
     }
 
+    /**
+     * Callback for the completion of a single characteristic write.
+     */
+    interface WriteCompletionCallback {
+
+        /**
+         * Called when the write operation is completed.
+         *
+         * @param success <code>true</code> if the write has been acknowledged successfully.
+         */
+        void onWriteCompleted(boolean success);
+    }
+
     /**
      * Callback interface for GATT events.
      */
@@ -9,11 +9,13 @@ package de.feelspace.fslib;
 
 import android.bluetooth.BluetoothGatt;
 import android.bluetooth.BluetoothGattCallback;
-import android.util.Log;
+import android.bluetooth.BluetoothGattCharacteristic;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static de.feelspace.fslib.GattOperationState.STATE_NOT_STARTED;
 import static de.feelspace.fslib.GattOperationState.STATE_STARTED;
 import static de.feelspace.fslib.GattOperationState.STATE_SUCCESS;
@@ -31,6 +33,19 @@ abstract class GattOperation extends BluetoothGattCallback {
     @SuppressWarnings("unused")
     private static final boolean DEBUG = true;
 
+    /* Kinds of operations for logging */
+    static final int LOG_KIND_OTHER = 0;
+    static final int LOG_KIND_READ = 1;
+    static final int LOG_KIND_WRITE = 2;
+    static final int LOG_KIND_SET_NOTIFICATION = 3;
+    static final int LOG_KIND_REQUEST = 4;
+    static final int LOG_KIND_REQUEST_MTU = 5;
+    private static final String[] LOG_KIND_NAMES = {"Operation", "Read characteristic",
+            "Write characteristic", "Set notification", "Request", "Request MTU"};
+
+    /* Logger */
+    protected static final EventLogger LOGGER = EventLogger.getDefault();
+
     /* GATT service for the execution of the operation. */
     protected @NonNull BluetoothGatt gatt;
 
@@ -41,6 +56,14 @@ abstract class GattOperation extends BluetoothGattCallback {
     /* State of the operation */
     private volatile @NonNull GattOperationState state = STATE_NOT_STARTED;
 
+    /* Identifier of the operation for logging */
+    private static final AtomicLong OPERATION_COUNTER = new AtomicLong();
+    private final long id = OPERATION_COUNTER.incrementAndGet();
+
+    /* Start and completion time of the operation (monotonic clock) */
+    private volatile long startTimeNano = 0;
+    private volatile long completionTimeNano = 0;
+
     /**
      * References the GATT service and the callback.
      * @param gatt The GATT service.
@@ -70,16 +93,25 @@ abstract class GattOperation extends BluetoothGattCallback {
      * @param state The state of the operation.
      */
     protected void setState(@NonNull GattOperationState state) {
+        // Timestamps for latency measurement
+        if (state == STATE_STARTED) {
+            startTimeNano = System.nanoTime();
+        } else if (state != STATE_NOT_STARTED && completionTimeNano == 0) {
+            completionTimeNano = System.nanoTime();
+        }
         // Log for failure
         switch (state) {
             case STATE_CANCELLED:
-                if (DEBUG) Log.w(DEBUG_TAG, "GattOperation: Cancelled BLE operation: "+toString());
+                LOGGER.log(LogEvent.GATT_OPERATION_CANCELLED, getLogKind(), getLogUuid(),
+                        getElapsedMicros());
                 break;
             case STATE_FAILED:
-                Log.e(DEBUG_TAG, "GattOperation: BLE operation failed: "+toString());
+                LOGGER.log(LogEvent.GATT_OPERATION_FAILED, getLogKind(), getLogUuid(),
+                        getElapsedMicros());
                 break;
             case STATE_TIMED_OUT:
-                Log.e(DEBUG_TAG, "GattOperation: BLE operation timed out: "+toString());
+                LOGGER.log(LogEvent.GATT_OPERATION_TIMED_OUT, getLogKind(), getLogUuid(),
+                        getElapsedMicros());
                 break;
             case STATE_NOT_STARTED:
             case STATE_STARTED:
@@ -90,6 +122,72 @@ abstract class GattOperation extends BluetoothGattCallback {
         this.state = state;
     }
 
+    /**
+     * Returns the identifier of the operation, unique for the process.
+     *
+     * @return the identifier of the operation.
+     */
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the time since the start of the operation.
+     *
+     * @return the elapsed time in microseconds, or <code>-1</code> if the operation has not been
+     * started.
+     */
+    protected long getElapsedMicros() {
+        long start = startTimeNano;
+        return (start == 0)?(-1):((System.nanoTime()-start)/1000);
+    }
+
+    /**
+     * Returns the kind of the operation for logging.
+     *
+     * @return the kind of operation.
+     */
+    protected int getLogKind() {
+        return LOG_KIND_OTHER;
+    }
+
+    /**
+     * Returns the first 32 bits of the UUID of the characteristic of the operation for logging,
+     * e.g. <code>0000FE01</code> for a characteristic of the belt control service.
+     *
+     * @return the first 32 bits of the characteristic UUID, or <code>0</code> if the operation
+     * has no characteristic.
+     */
+    protected int getLogUuid() {
+        return 0;
+    }
+
+    /**
+     * Returns the first 32 bits of the UUID of a characteristic.
+     *
+     * @param characteristic The characteristic.
+     * @return the first 32 bits of the UUID, or <code>0</code> if not available.
+     */
+    static int getLogUuid(@Nullable BluetoothGattCharacteristic characteristic) {
+        try {
+            return (int) (characteristic.getUuid().getMostSignificantBits() >>> 32);
+        } catch (Exception e) {
+            // In case the characteristic UUID is no more accessible
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the name of a kind of operation.
+     *
+     * @param kind The kind of operation.
+     * @return the name of the kind of operation.
+     */
+    static @NonNull String getLogKindName(int kind) {
+        return (kind >= 0 && kind < LOG_KIND_NAMES.length)?(LOG_KIND_NAMES[kind]):
+                (LOG_KIND_NAMES[LOG_KIND_OTHER]);
+    }
+
     /**
      * Returns the state of the operation.
      * @return the state of the operation.
@@ -98,6 +196,19 @@ abstract class GattOperation extends BluetoothGattCallback {
         return state;
     }
 
+    /**
+     * Returns the time between the start and the completion of the operation.
+     *
+     * @return the latency of the operation in nanoseconds, or <code>-1</code> if the operation has
+     * not been started or is not completed.
+     */
+    protected long getLatencyNano() {
+        if (startTimeNano == 0 || completionTimeNano == 0) {
+            return -1;
+        }
+        return completionTimeNano-startTimeNano;
+    }
+
     /**
      * Starts the operation.
      *
@@ -95,6 +95,16 @@ class GattOperationReadCharacteristic extends GattOperation {
         }
     }
 
+    @Override
+    protected int getLogKind() {
+        return LOG_KIND_READ;
+    }
+
+    @Override
+    protected int getLogUuid() {
+        return getLogUuid(characteristic);
+    }
+
     @Override
     public String toString() {
         try {
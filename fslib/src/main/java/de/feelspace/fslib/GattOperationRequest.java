@@ -9,7 +9,6 @@ package de.feelspace.fslib;
 
 import android.bluetooth.BluetoothGatt;
 import android.bluetooth.BluetoothGattCharacteristic;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -81,8 +80,9 @@ class GattOperationRequest extends GattOperation {
 
     @Override
     protected void start() {
-        if (DEBUG) Log.d(DEBUG_TAG, "GattOperationRequest: BLE operation started: "+toString());
         setState(STATE_STARTED);
+        LOGGER.log(LogEvent.GATT_REQUEST_STARTED, requestId, getLogUuid(),
+                writeValue.length);
         try {
             writeCharacteristic.setValue(writeValue);
             if(!gatt.writeCharacteristic(writeCharacteristic)) {
@@ -171,10 +171,21 @@ class GattOperationRequest extends GattOperation {
             if (writeAcknowledged) {
                 setState(STATE_SUCCESS);
             }
-            if (DEBUG) Log.d(DEBUG_TAG, "GattOperationRequest: BLE request completed: "+toString());
+            LOGGER.log(LogEvent.GATT_REQUEST_COMPLETED, requestId, getLogUuid(),
+                    getElapsedMicros());
         }
     }
 
+    @Override
+    protected int getLogKind() {
+        return LOG_KIND_REQUEST;
+    }
+
+    @Override
+    protected int getLogUuid() {
+        return getLogUuid(writeCharacteristic);
+    }
+
     @Override
     public String toString() {
         try {
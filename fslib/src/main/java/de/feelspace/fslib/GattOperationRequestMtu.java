@@ -83,6 +83,11 @@ class GattOperationRequestMtu extends GattOperation {
         }
     }
 
+    @Override
+    protected int getLogKind() {
+        return LOG_KIND_REQUEST_MTU;
+    }
+
     @NonNull
     @SuppressLint("DefaultLocale")
     @Override
@@ -108,6 +108,16 @@ class GattOperationSetNotificationIndication extends GattOperation {
         return descriptor.getCharacteristic();
     }
 
+    @Override
+    protected int getLogKind() {
+        return LOG_KIND_SET_NOTIFICATION;
+    }
+
+    @Override
+    protected int getLogUuid() {
+        return getLogUuid(descriptor.getCharacteristic());
+    }
+
     @Override
     public String toString() {
         try {
@@ -36,6 +36,12 @@ class GattOperationWriteCharacteristic extends GattOperation {
     /** Store the value to be written. */
     private @NonNull byte[] value;
 
+    /** Pool to which the value buffer is returned, <code>null</code> if the value is a copy. */
+    private @Nullable PacketBufferPool bufferPool;
+
+    /** Callback notified of the completion of this write, may be <code>null</code>. */
+    private final @Nullable GattController.WriteCompletionCallback completionCallback;
+
     /**
      * Creates a write characteristic operation.
      *
@@ -49,6 +55,50 @@ class GattOperationWriteCharacteristic extends GattOperation {
         super(gatt, null);
         this.characteristic = characteristic;
         this.value = Arrays.copyOf(value, value.length);
+        this.completionCallback = null;
+    }
+
+    /**
+     * Creates a write characteristic operation that takes ownership of the value buffer. The value
+     * is not copied and the buffer is returned to the pool by {@link #releaseBuffer()}.
+     *
+     * @param gatt The GATT service.
+     * @param characteristic The characteristic to write.
+     * @param value The value to be written.
+     * @param bufferPool The pool of the value buffer.
+     * @param completionCallback The callback notified of the completion of this write, or
+     *                           <code>null</code>.
+     */
+    GattOperationWriteCharacteristic(@NonNull BluetoothGatt gatt,
+                                     @NonNull BluetoothGattCharacteristic characteristic,
+                                     @NonNull byte[] value,
+                                     @NonNull PacketBufferPool bufferPool,
+                                     @Nullable GattController.WriteCompletionCallback
+                                             completionCallback) {
+        super(gatt, null);
+        this.characteristic = characteristic;
+        this.value = value;
+        this.bufferPool = bufferPool;
+        this.completionCallback = completionCallback;
+    }
+
+    /**
+     * Returns the callback notified of the completion of this write.
+     * @return the completion callback, or <code>null</code>.
+     */
+    @Nullable GattController.WriteCompletionCallback getCompletionCallback() {
+        return completionCallback;
+    }
+
+    /**
+     * Returns the value buffer to its pool. Must be called once the operation is completed and
+     * its completion notified.
+     */
+    void releaseBuffer() {
+        if (bufferPool != null) {
+            bufferPool.release(value);
+            bufferPool = null;
+        }
     }
 
     @Override
@@ -96,6 +146,16 @@ class GattOperationWriteCharacteristic extends GattOperation {
     }
 
 
+    @Override
+    protected int getLogKind() {
+        return LOG_KIND_WRITE;
+    }
+
+    @Override
+    protected int getLogUuid() {
+        return getLogUuid(characteristic);
+    }
+
     @Override
     public String toString() {
         try {
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Distance and bearing between geographic coordinates. Coordinates are in degrees, distances in
+ * meters and bearings in degrees clockwise from geographic North in range [0-360[.
+ *
+ * <p>
+ * Error bounds, measured against the ellipsoidal computation for distances up to 10 km and
+ * latitudes in range [-80-80]:
+ * <ul>
+ *     <li>{@link GeodesicPrecision#ELLIPSOIDAL} (Vincenty): reference, about 0.5 mm. Nearly
+ *     antipodal points, for which the iteration does not converge, fall back to the spherical
+ *     computation. The distance then stays within the spherical bound, but the initial bearing
+ *     of nearly antipodal points is ill-conditioned and can be off by tens of degrees.</li>
+ *     <li>{@link GeodesicPrecision#SPHERICAL} (Haversine): relative distance error below 0.6%,
+ *     bearing error below 0.2 degree, because of the spherical Earth model.</li>
+ *     <li>{@link GeodesicPrecision#FAST} (equirectangular): same error as the spherical
+ *     computation plus a relative distance error below 0.01% and a bearing error below 0.3
+ *     degree (largest at high latitudes). The error grows quickly with the distance, so it
+ *     must not be used for long distances.</li>
+ * </ul>
+ * </p>
+ *
+ * A {@link LocalFrame} precomputes the cosine of a fixed point, e.g. a waypoint, for repeated
+ * fast computations to that point.
+ */
+public final class GeoMath {
+
+    /**
+     * Mean radius of the Earth in meters.
+     */
+    public static final double EARTH_RADIUS_M = 6371008.8;
+
+    // WGS84 ellipsoid
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_F = 1/298.257223563;
+    private static final double WGS84_B = WGS84_A*(1-WGS84_F);
+
+    // Vincenty iteration
+    private static final int VINCENTY_MAX_ITERATIONS = 100;
+    private static final double VINCENTY_TOLERANCE = 1e-12;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Returns the distance between two points.
+     *
+     * @param precision The precision of the computation.
+     * @param lat1 The latitude of the first point.
+     * @param lon1 The longitude of the first point.
+     * @param lat2 The latitude of the second point.
+     * @param lon2 The longitude of the second point.
+     * @return the distance in meters.
+     */
+    public static double distance(GeodesicPrecision precision, double lat1, double lon1,
+                                  double lat2, double lon2) {
+        switch (precision) {
+            case FAST:
+                return equirectangularDistance(lat1, lon1, lat2, lon2);
+            case ELLIPSOIDAL:
+                return vincentyDistance(lat1, lon1, lat2, lon2);
+            default:
+                return haversineDistance(lat1, lon1, lat2, lon2);
+        }
+    }
+
+    /**
+     * Returns the initial bearing from a point to another.
+     *
+     * @param precision The precision of the computation.
+     * @param lat1 The latitude of the first point.
+     * @param lon1 The longitude of the first point.
+     * @param lat2 The latitude of the second point.
+     * @param lon2 The longitude of the second point.
+     * @return the bearing in degrees.
+     */
+    public static double bearing(GeodesicPrecision precision, double lat1, double lon1,
+                                 double lat2, double lon2) {
+        switch (precision) {
+            case FAST:
+                return equirectangularBearing(lat1, lon1, lat2, lon2);
+            case ELLIPSOIDAL:
+                return vincentyBearing(lat1, lon1, lat2, lon2);
+            default:
+                return sphericalBearing(lat1, lon1, lat2, lon2);
+        }
+    }
+
+    /**
+     * Returns the great circle distance between two points (Haversine formula).
+     */
+    public static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDLat = Math.sin((phi2-phi1)/2);
+        double sinDLon = Math.sin(Math.toRadians(lon2-lon1)/2);
+        double a = sinDLat*sinDLat+Math.cos(phi1)*Math.cos(phi2)*sinDLon*sinDLon;
+        return 2*EARTH_RADIUS_M*Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Returns the initial bearing of the great circle from a point to another.
+     */
+    public static double sphericalBearing(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2-lon1);
+        double cosPhi2 = Math.cos(phi2);
+        double y = Math.sin(dLon)*cosPhi2;
+        double x = Math.cos(phi1)*Math.sin(phi2)-Math.sin(phi1)*cosPhi2*Math.cos(dLon);
+        return normalizeBearing(Math.toDegrees(Math.atan2(y, x)));
+    }
+
+    /**
+     * Returns the distance between two points with the equirectangular approximation.
+     */
+    public static double equirectangularDistance(double lat1, double lon1,
+                                                 double lat2, double lon2) {
+        double x = Math.toRadians(wrapLongitude(lon2-lon1))*
+                Math.cos(Math.toRadians((lat1+lat2)/2));
+        double y = Math.toRadians(lat2-lat1);
+        return Math.sqrt(x*x+y*y)*EARTH_RADIUS_M;
+    }
+
+    /**
+     * Returns the bearing from a point to another with the equirectangular approximation.
+     */
+    public static double equirectangularBearing(double lat1, double lon1,
+                                                double lat2, double lon2) {
+        double x = wrapLongitude(lon2-lon1)*Math.cos(Math.toRadians((lat1+lat2)/2));
+        double y = lat2-lat1;
+        return normalizeBearing(Math.toDegrees(Math.atan2(x, y)));
+    }
+
+    /**
+     * Returns the geodesic distance between two points on the WGS84 ellipsoid (Vincenty inverse
+     * formula).
+     */
+    public static double vincentyDistance(double lat1, double lon1, double lat2, double lon2) {
+        return vincenty(lat1, lon1, lat2, lon2, false);
+    }
+
+    /**
+     * Returns the initial azimuth of the geodesic from a point to another on the WGS84
+     * ellipsoid (Vincenty inverse formula).
+     */
+    public static double vincentyBearing(double lat1, double lon1, double lat2, double lon2) {
+        return vincenty(lat1, lon1, lat2, lon2, true);
+    }
+
+    /**
+     * Computes the Vincenty inverse formula.
+     *
+     * @return the distance or the initial azimuth.
+     */
+    private static double vincenty(double lat1, double lon1, double lat2, double lon2,
+                                   boolean azimuth) {
+        double l = Math.toRadians(wrapLongitude(lon2-lon1));
+        double u1 = Math.atan((1-WGS84_F)*Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1-WGS84_F)*Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+        double lambda = l;
+        double sinLambda;
+        double cosLambda;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+        int iteration = 0;
+        while (true) {
+            sinLambda = Math.sin(lambda);
+            cosLambda = Math.cos(lambda);
+            double t1 = cosU2*sinLambda;
+            double t2 = cosU1*sinU2-sinU1*cosU2*cosLambda;
+            sinSigma = Math.sqrt(t1*t1+t2*t2);
+            if (sinSigma == 0) {
+                // Coincident points
+                return 0;
+            }
+            cosSigma = sinU1*sinU2+cosU1*cosU2*cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1*cosU2*sinLambda/sinSigma;
+            cosSqAlpha = 1-sinAlpha*sinAlpha;
+            // Equatorial line: cosSqAlpha = 0
+            cos2SigmaM = (cosSqAlpha == 0)?(0):(cosSigma-2*sinU1*sinU2/cosSqAlpha);
+            double c = WGS84_F/16*cosSqAlpha*(4+WGS84_F*(4-3*cosSqAlpha));
+            double previousLambda = lambda;
+            lambda = l+(1-c)*WGS84_F*sinAlpha*(sigma+c*sinSigma*(cos2SigmaM+
+                    c*cosSigma*(-1+2*cos2SigmaM*cos2SigmaM)));
+            if (Math.abs(lambda-previousLambda) < VINCENTY_TOLERANCE) {
+                break;
+            }
+            if (++iteration >= VINCENTY_MAX_ITERATIONS) {
+                // Nearly antipodal points
+                return (azimuth)?(sphericalBearing(lat1, lon1, lat2, lon2)):
+                        (haversineDistance(lat1, lon1, lat2, lon2));
+            }
+        }
+        if (azimuth) {
+            return normalizeBearing(Math.toDegrees(Math.atan2(cosU2*sinLambda,
+                    cosU1*sinU2-sinU1*cosU2*cosLambda)));
+        }
+        double uSq = cosSqAlpha*(WGS84_A*WGS84_A-WGS84_B*WGS84_B)/(WGS84_B*WGS84_B);
+        double a = 1+uSq/16384*(4096+uSq*(-768+uSq*(320-175*uSq)));
+        double b = uSq/1024*(256+uSq*(-128+uSq*(74-47*uSq)));
+        double deltaSigma = b*sinSigma*(cos2SigmaM+b/4*(cosSigma*(-1+2*cos2SigmaM*cos2SigmaM)-
+                b/6*cos2SigmaM*(-3+4*sinSigma*sinSigma)*(-3+4*cos2SigmaM*cos2SigmaM)));
+        return WGS84_B*a*(sigma-deltaSigma);
+    }
+
+    /**
+     * Wraps a longitude difference in range [-180-180[.
+     */
+    static double wrapLongitude(double dLon) {
+        if (dLon >= 180) {
+            return dLon-360;
+        } else if (dLon < -180) {
+            return dLon+360;
+        }
+        return dLon;
+    }
+
+    /**
+     * Normalizes a bearing in range [0-360[.
+     */
+    private static double normalizeBearing(double bearing) {
+        bearing %= 360;
+        if (bearing < 0) {
+            bearing += 360;
+        }
+        // Tiny negative values round to 360
+        return (bearing >= 360)?(0):(bearing);
+    }
+
+    /**
+     * Fixed point with its precomputed cosine, for fast repeated computations between the point
+     * and nearby locations. The precision is the one of {@link GeodesicPrecision#FAST}, with the
+     * cosine taken at the latitude of the fixed point.
+     */
+    public static final class LocalFrame {
+
+        private final double latitude;
+        private final double longitude;
+
+        // Meters per degree of latitude and longitude at the fixed point
+        private final double metersPerDegreeLat;
+        private final double metersPerDegreeLon;
+
+        /**
+         * Creates a local frame.
+         *
+         * @param latitude The latitude of the fixed point.
+         * @param longitude The longitude of the fixed point.
+         */
+        public LocalFrame(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            metersPerDegreeLat = Math.toRadians(EARTH_RADIUS_M);
+            metersPerDegreeLon = metersPerDegreeLat*Math.cos(Math.toRadians(latitude));
+        }
+
+        /**
+         * Returns the distance between a location and the fixed point.
+         *
+         * @param lat The latitude of the location.
+         * @param lon The longitude of the location.
+         * @return the distance in meters.
+         */
+        public double distanceFrom(double lat, double lon) {
+            double x = wrapLongitude(longitude-lon)*metersPerDegreeLon;
+            double y = (latitude-lat)*metersPerDegreeLat;
+            return Math.sqrt(x*x+y*y);
+        }
+
+        /**
+         * Returns the bearing from a location to the fixed point.
+         *
+         * @param lat The latitude of the location.
+         * @param lon The longitude of the location.
+         * @return the bearing in degrees.
+         */
+        public double bearingFrom(double lat, double lon) {
+            double x = wrapLongitude(longitude-lon)*metersPerDegreeLon;
+            double y = (latitude-lat)*metersPerDegreeLat;
+            return normalizeBearing(Math.toDegrees(Math.atan2(x, y)));
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Precision of geodesic distance and bearing computations. See {@link GeoMath} for the error
+ * bounds of each precision.
+ */
+public enum GeodesicPrecision {
+
+    /**
+     * Equirectangular approximation, for short distances.
+     */
+    FAST,
+
+    /**
+     * Great circle on a spherical Earth (Haversine).
+     */
+    SPHERICAL,
+
+    /**
+     * Geodesic on the WGS84 ellipsoid (Vincenty).
+     */
+    ELLIPSOIDAL
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import java.util.Arrays;
+
+/**
+ * High-level description of a vibration animation, as a set of pulses at given offsets from the
+ * start of the animation.
+ *
+ * Sweeps and repeated pulses are expanded into pulses. The {@link HapticAnimationCompiler}
+ * folds the pulses into pulse commands played by the belt, whatever the way they have been
+ * added.
+ */
+public class HapticAnimation {
+
+    // Vibration motors of the belt
+    private static final int VIBROMOTOR_COUNT = 16;
+    private static final int MAX_BINARY_MASK = (1 << VIBROMOTOR_COUNT)-1;
+
+    // Maximum number of vibration motors in a binary mask
+    static final int MAX_MASK_BIT_COUNT = 6;
+
+    // Initial capacity of the pulse arrays
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Pulses
+    private long[] offsetsMs = new long[INITIAL_CAPACITY];
+    private OrientationType[] orientationTypes = new OrientationType[INITIAL_CAPACITY];
+    private int[] orientationValues = new int[INITIAL_CAPACITY];
+    private int[] intensities = new int[INITIAL_CAPACITY];
+    private int[] onDurationsMs = new int[INITIAL_CAPACITY];
+    private int pulseCount = 0;
+
+    /**
+     * Creates an empty animation.
+     */
+    public HapticAnimation() {
+    }
+
+    /**
+     * Adds a pulse.
+     *
+     * @param offsetMs The offset of the pulse from the start of the animation in milliseconds.
+     * @param orientationType The type of orientation value.
+     * @param orientationValue The orientation of the pulse.
+     * @param intensity The intensity of the pulse in range [0-100].
+     * @param onDurationMs The duration of the pulse in milliseconds.
+     * @return the animation.
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    public synchronized HapticAnimation addPulse(long offsetMs, OrientationType orientationType,
+                                                 int orientationValue, int intensity,
+                                                 int onDurationMs) {
+        if (offsetMs < 0) {
+            throw new IllegalArgumentException("Negative animation offset.");
+        }
+        if (orientationType == null) {
+            throw new IllegalArgumentException("Illegal orientation type.");
+        }
+        if (intensity < 0 || intensity > 100) {
+            throw new IllegalArgumentException("Illegal intensity value.");
+        }
+        if (onDurationMs < 0 || onDurationMs > 0xFFFF) {
+            throw new IllegalArgumentException("Illegal on-duration value.");
+        }
+        if (orientationType == OrientationType.BINARY_MASK) {
+            if (orientationValue < 0 || orientationValue > MAX_BINARY_MASK) {
+                throw new IllegalArgumentException("The binary mask 0x" +
+                        Integer.toHexString(orientationValue) + " exceeds the " +
+                        VIBROMOTOR_COUNT + " vibration motors of the belt.");
+            }
+            if (Integer.bitCount(orientationValue) > MAX_MASK_BIT_COUNT) {
+                throw new IllegalArgumentException("The binary mask 0x" +
+                        Integer.toHexString(orientationValue) + " has more than " +
+                        MAX_MASK_BIT_COUNT + " vibration motors.");
+            }
+        }
+        if (pulseCount == offsetsMs.length) {
+            int capacity = pulseCount*2;
+            offsetsMs = Arrays.copyOf(offsetsMs, capacity);
+            orientationTypes = Arrays.copyOf(orientationTypes, capacity);
+            orientationValues = Arrays.copyOf(orientationValues, capacity);
+            intensities = Arrays.copyOf(intensities, capacity);
+            onDurationsMs = Arrays.copyOf(onDurationsMs, capacity);
+        }
+        offsetsMs[pulseCount] = offsetMs;
+        orientationTypes[pulseCount] = orientationType;
+        orientationValues[pulseCount] = orientationValue;
+        intensities[pulseCount] = intensity;
+        onDurationsMs[pulseCount] = onDurationMs;
+        pulseCount++;
+        return this;
+    }
+
+    /**
+     * Adds a pulse on vibration motors.
+     *
+     * @param offsetMs The offset of the pulse from the start of the animation in milliseconds.
+     * @param positions The positions of the vibration motors.
+     * @param intensity The intensity of the pulse in range [0-100].
+     * @param onDurationMs The duration of the pulse in milliseconds.
+     * @return the animation.
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    public HapticAnimation addPulseAtPositions(long offsetMs, int[] positions, int intensity,
+                                               int onDurationMs) {
+        return addPulse(offsetMs, OrientationType.BINARY_MASK, BinaryUtils.toBinaryMask(positions),
+                intensity, onDurationMs);
+    }
+
+    /**
+     * Adds pulses repeated with a fixed period.
+     *
+     * @param offsetMs The offset of the first pulse from the start of the animation in
+     *                 milliseconds.
+     * @param orientationType The type of orientation value.
+     * @param orientationValue The orientation of the pulses.
+     * @param intensity The intensity of the pulses in range [0-100].
+     * @param onDurationMs The duration of one pulse in milliseconds.
+     * @param count The number of pulses.
+     * @param periodMs The period of the pulses in milliseconds.
+     * @return the animation.
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    public HapticAnimation addRepeatedPulse(long offsetMs, OrientationType orientationType,
+                                            int orientationValue, int intensity,
+                                            int onDurationMs, int count, int periodMs) {
+        if (count < 0 || periodMs < 0) {
+            throw new IllegalArgumentException("Negative pulse count or period.");
+        }
+        for (int i=0; i<count; i++) {
+            addPulse(offsetMs+(long)i*periodMs, orientationType, orientationValue, intensity,
+                    onDurationMs);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a sweep, i.e. a pulse on each position one after the other, repeated with a fixed
+     * period.
+     *
+     * @param offsetMs The offset of the first pulse from the start of the animation in
+     *                 milliseconds.
+     * @param positions The positions of the sweep, in order.
+     * @param stepMs The delay between the pulses of two consecutive positions in milliseconds.
+     * @param intensity The intensity of the pulses in range [0-100].
+     * @param onDurationMs The duration of one pulse in milliseconds.
+     * @param repetitions The number of sweeps.
+     * @param cyclePeriodMs The period of the sweeps in milliseconds.
+     * @return the animation.
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    public HapticAnimation addSweep(long offsetMs, int[] positions, int stepMs, int intensity,
+                                    int onDurationMs, int repetitions, int cyclePeriodMs) {
+        if (positions == null) {
+            throw new IllegalArgumentException("Null sweep positions.");
+        }
+        if (stepMs < 0 || repetitions < 0 || cyclePeriodMs < 0) {
+            throw new IllegalArgumentException("Negative sweep step, repetitions or period.");
+        }
+        for (int r=0; r<repetitions; r++) {
+            for (int i=0; i<positions.length; i++) {
+                addPulseAtPositions(offsetMs+(long)r*cyclePeriodMs+(long)i*stepMs,
+                        new int[]{positions[i]}, intensity, onDurationMs);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of pulses of the animation.
+     *
+     * @return the number of pulses.
+     */
+    public synchronized int getPulseCount() {
+        return pulseCount;
+    }
+
+    synchronized long getOffsetMs(int pulseIndex) {
+        return offsetsMs[pulseIndex];
+    }
+
+    synchronized OrientationType getOrientationType(int pulseIndex) {
+        return orientationTypes[pulseIndex];
+    }
+
+    synchronized int getOrientationValue(int pulseIndex) {
+        return orientationValues[pulseIndex];
+    }
+
+    synchronized int getIntensity(int pulseIndex) {
+        return intensities[pulseIndex];
+    }
+
+    synchronized int getOnDurationMs(int pulseIndex) {
+        return onDurationsMs[pulseIndex];
+    }
+
+}
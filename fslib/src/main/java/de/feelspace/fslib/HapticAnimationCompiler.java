@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Compiles haptic animations into a minimal timeline of pulse commands, so that the belt plays
+ * the timing of repeated pulses locally.
+ *
+ * The compilation folds the pulses in four steps:
+ * <ul>
+ *     <li>Pulses with the same orientation, intensity and duration at a fixed period are folded
+ *     into one command with pattern iterations.</li>
+ *     <li>Groups of pulses repeated at a fixed period, e.g. double pulses, are folded into one
+ *     command with pulse iterations and pattern iterations.</li>
+ *     <li>Commands on vibration motors with the same timing are merged into one binary mask.</li>
+ *     <li>Commands are assigned to channels, a channel being reused when its previous command
+ *     has finished. When there are more overlapping commands than channels, the longest
+ *     overlapping command is unfolded into single pulses.</li>
+ * </ul>
+ */
+public class HapticAnimationCompiler {
+
+    /**
+     * Default channels used for animations. Channel 0 is left for temporary signals.
+     */
+    public static final int[] DEFAULT_CHANNELS = {1, 2, 3, 4, 5};
+
+    // Limits of the pulse command
+    private static final int MAX_PULSE_ITERATIONS = 9;
+    private static final int MAX_PATTERN_ITERATIONS = 127;
+    private static final int MAX_PERIOD_MS = 0xFFFF;
+
+    // Channels used for animations
+    private final int[] channels;
+
+    /**
+     * Creates a compiler using the default channels.
+     */
+    public HapticAnimationCompiler() {
+        this(DEFAULT_CHANNELS);
+    }
+
+    /**
+     * Creates a compiler.
+     *
+     * @param channelIndexes The channels used for animations.
+     * @throws IllegalArgumentException If no channel is given or a channel index is out of range.
+     */
+    public HapticAnimationCompiler(int... channelIndexes) {
+        if (channelIndexes == null || channelIndexes.length == 0) {
+            throw new IllegalArgumentException("No channel for animations.");
+        }
+        for (int channel: channelIndexes) {
+            if (channel < 0 || channel > 5) {
+                throw new IllegalArgumentException("Channel index must be in range [0-5].");
+            }
+        }
+        channels = channelIndexes.clone();
+    }
+
+    /**
+     * Compiles an animation.
+     *
+     * @param animation The animation to compile.
+     * @return the compiled animation.
+     * @throws IllegalArgumentException If the animation is <code>null</code>, or has more
+     * overlapping pulses than channels.
+     */
+    public HapticCompilation compile(HapticAnimation animation) {
+        if (animation == null) {
+            throw new IllegalArgumentException("Null animation.");
+        }
+        int pulseCount = animation.getPulseCount();
+        ArrayList<Fold> folds = foldPulses(animation);
+        folds = mergeMasks(folds);
+        int[] assignedChannels = new int[folds.size()];
+        int blocked;
+        while ((blocked = assignChannels(folds, assignedChannels)) >= 0) {
+            if (!unfoldLongestOverlap(folds, folds.get(blocked))) {
+                throw new IllegalArgumentException(
+                        "More overlapping pulses than channels for the animation.");
+            }
+            assignedChannels = new int[folds.size()];
+        }
+        HapticTimeline timeline = new HapticTimeline();
+        boolean[] used = new boolean[6];
+        int usedCount = 0;
+        for (int i=0; i<folds.size(); i++) {
+            Fold fold = folds.get(i);
+            int channel = assignedChannels[i];
+            timeline.addPulse(fold.startMs, new PulseCommand(channel, fold.orientationType,
+                    fold.orientationValue, fold.intensity, fold.onDurationMs,
+                    fold.pulseIterations, fold.patternIterations, fold.pulsePeriodMs,
+                    fold.patternPeriodMs, ResetProgressOption.RESET_PROGRESS, false, false));
+            if (!used[channel]) {
+                used[channel] = true;
+                usedCount++;
+            }
+        }
+        return new HapticCompilation(timeline, pulseCount, usedCount);
+    }
+
+    /**
+     * Folds the pulses with the same orientation, intensity and duration.
+     */
+    private static @NonNull ArrayList<Fold> foldPulses(@NonNull HapticAnimation animation) {
+        int n = animation.getPulseCount();
+        Integer[] order = new Integer[n];
+        for (int i=0; i<n; i++) {
+            order[i] = i;
+        }
+        // Group pulses, then sort by offset
+        Arrays.sort(order, (a, b) -> {
+            int c = animation.getOrientationType(a).compareTo(animation.getOrientationType(b));
+            if (c == 0) {
+                c = Integer.compare(animation.getOrientationValue(a),
+                        animation.getOrientationValue(b));
+            }
+            if (c == 0) {
+                c = Integer.compare(animation.getIntensity(a), animation.getIntensity(b));
+            }
+            if (c == 0) {
+                c = Integer.compare(animation.getOnDurationMs(a), animation.getOnDurationMs(b));
+            }
+            if (c == 0) {
+                c = Long.compare(animation.getOffsetMs(a), animation.getOffsetMs(b));
+            }
+            return c;
+        });
+        ArrayList<Fold> folds = new ArrayList<>();
+        long[] offsets = new long[n];
+        int groupStart = 0;
+        while (groupStart < n) {
+            int first = order[groupStart];
+            int groupEnd = groupStart+1;
+            while (groupEnd < n && sameGroup(animation, first, order[groupEnd])) {
+                groupEnd++;
+            }
+            // Offsets of the group without duplicates
+            int count = 0;
+            for (int i=groupStart; i<groupEnd; i++) {
+                long offset = animation.getOffsetMs(order[i]);
+                if (count == 0 || offsets[count-1] != offset) {
+                    offsets[count++] = offset;
+                }
+            }
+            foldGroup(new Fold(animation.getOrientationType(first),
+                    animation.getOrientationValue(first), animation.getIntensity(first),
+                    animation.getOnDurationMs(first)), offsets, count, folds);
+            groupStart = groupEnd;
+        }
+        return folds;
+    }
+
+    /**
+     * Returns <code>true</code> if two pulses have the same orientation, intensity and duration.
+     */
+    private static boolean sameGroup(@NonNull HapticAnimation animation, int a, int b) {
+        return animation.getOrientationType(a) == animation.getOrientationType(b) &&
+                animation.getOrientationValue(a) == animation.getOrientationValue(b) &&
+                animation.getIntensity(a) == animation.getIntensity(b) &&
+                animation.getOnDurationMs(a) == animation.getOnDurationMs(b);
+    }
+
+    /**
+     * Folds the sorted offsets of a group of pulses.
+     */
+    private static void foldGroup(@NonNull Fold pulse, @NonNull long[] offsets, int count,
+                                  @NonNull ArrayList<Fold> folds) {
+        int onDuration = pulse.onDurationMs;
+        // Runs of pulses at a fixed period
+        ArrayList<long[]> runs = new ArrayList<>();
+        int i = 0;
+        while (i < count) {
+            int j = i+1;
+            long period = (j < count)?(offsets[j]-offsets[i]):(0);
+            if (isValidPeriod(period, onDuration)) {
+                while (j+1 < count && offsets[j+1]-offsets[j] == period) {
+                    j++;
+                }
+                j++;
+            } else {
+                period = 0;
+            }
+            // Run: start, number of pulses, period
+            runs.add(new long[]{offsets[i], j-i, period});
+            i = j;
+        }
+        // Runs repeated at a fixed period
+        int r = 0;
+        while (r < runs.size()) {
+            long[] run = runs.get(r);
+            int pulses = (int) run[1];
+            long period = run[2];
+            int patterns = 1;
+            long patternPeriod = 0;
+            if (pulses > 1 && pulses <= MAX_PULSE_ITERATIONS && r+1 < runs.size()) {
+                long[] next = runs.get(r+1);
+                patternPeriod = next[0]-run[0];
+                long patternLength = (pulses-1)*period+onDuration;
+                if (next[1] == pulses && next[2] == period && patternPeriod >= patternLength &&
+                        patternPeriod <= MAX_PERIOD_MS) {
+                    patterns = 2;
+                    while (r+patterns < runs.size() && patterns < MAX_PATTERN_ITERATIONS) {
+                        long[] following = runs.get(r+patterns);
+                        if (following[1] != pulses || following[2] != period ||
+                                following[0]-runs.get(r+patterns-1)[0] != patternPeriod) {
+                            break;
+                        }
+                        patterns++;
+                    }
+                }
+            }
+            if (patterns > 1) {
+                folds.add(pulse.copy(run[0], pulses, (int) period, patterns,
+                        (int) patternPeriod));
+                r += patterns;
+            } else {
+                // Pulses as pattern iterations, split at the maximum number of iterations
+                for (int p=0; p<pulses; p+=MAX_PATTERN_ITERATIONS) {
+                    int iterations = Math.min(MAX_PATTERN_ITERATIONS, pulses-p);
+                    int foldPeriod = (iterations > 1)?((int) period):(onDuration);
+                    folds.add(pulse.copy(run[0]+p*period, 1, foldPeriod, iterations,
+                            foldPeriod));
+                }
+                r++;
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if pulses can be repeated at the given period.
+     */
+    private static boolean isValidPeriod(long periodMs, int onDurationMs) {
+        return periodMs > 0 && periodMs >= onDurationMs && periodMs <= MAX_PERIOD_MS;
+    }
+
+    /**
+     * Merges the commands on vibration motors that have the same timing.
+     */
+    private static @NonNull ArrayList<Fold> mergeMasks(@NonNull ArrayList<Fold> folds) {
+        ArrayList<Fold> merged = new ArrayList<>(folds.size());
+        for (Fold fold: folds) {
+            Fold target = null;
+            if (fold.orientationType == OrientationType.BINARY_MASK) {
+                for (Fold candidate: merged) {
+                    if (candidate.orientationType == OrientationType.BINARY_MASK &&
+                            candidate.hasSameTiming(fold) && Integer.bitCount(
+                            candidate.orientationValue | fold.orientationValue) <=
+                            HapticAnimation.MAX_MASK_BIT_COUNT) {
+                        target = candidate;
+                        break;
+                    }
+                }
+            }
+            if (target == null) {
+                merged.add(fold);
+            } else {
+                target.orientationValue |= fold.orientationValue;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sorts the commands by start time and assigns them to channels.
+     *
+     * @param folds The commands.
+     * @param assigned The array to fill with the channel of each command.
+     * @return the index of the first command without channel when there are more overlapping
+     * commands than channels, or <code>-1</code> if all commands have a channel.
+     */
+    private int assignChannels(@NonNull ArrayList<Fold> folds, @NonNull int[] assigned) {
+        Collections.sort(folds, FOLD_START_COMPARATOR);
+        long[] channelEnds = new long[channels.length];
+        Arrays.fill(channelEnds, Long.MIN_VALUE);
+        for (int i=0; i<folds.size(); i++) {
+            Fold fold = folds.get(i);
+            // Free channel that has finished first, for an even use of channels
+            int best = -1;
+            for (int c=0; c<channels.length; c++) {
+                if (channelEnds[c] <= fold.startMs &&
+                        (best == -1 || channelEnds[c] < channelEnds[best])) {
+                    best = c;
+                }
+            }
+            if (best == -1) {
+                return i;
+            }
+            channelEnds[best] = fold.getEndMs();
+            assigned[i] = channels[best];
+        }
+        return -1;
+    }
+
+    /**
+     * Unfolds the longest command that overlaps a command without channel.
+     *
+     * @return <code>false</code> if no command can be unfolded.
+     */
+    private static boolean unfoldLongestOverlap(@NonNull ArrayList<Fold> folds,
+                                                @NonNull Fold blocked) {
+        // Longest folded command active at the start of the blocked command
+        Fold longest = null;
+        for (Fold fold: folds) {
+            if (fold.startMs > blocked.startMs) {
+                break;
+            }
+            if (fold.getPulseCount() > 1 && fold.getEndMs() > blocked.startMs &&
+                    (longest == null || fold.getEndMs()-fold.startMs >
+                            longest.getEndMs()-longest.startMs)) {
+                longest = fold;
+            }
+        }
+        if (longest == null) {
+            return false;
+        }
+        folds.remove(longest);
+        for (int k=0; k<longest.patternIterations; k++) {
+            for (int p=0; p<longest.pulseIterations; p++) {
+                folds.add(longest.copy(longest.startMs+(long)k*longest.patternPeriodMs+
+                        (long)p*longest.pulsePeriodMs, 1, longest.onDurationMs, 1,
+                        longest.onDurationMs));
+            }
+        }
+        return true;
+    }
+
+    // Order of commands by start time
+    private static final Comparator<Fold> FOLD_START_COMPARATOR =
+            (a, b) -> Long.compare(a.startMs, b.startMs);
+
+    /**
+     * Folded pulses, i.e. the parameters of one pulse command.
+     */
+    private static class Fold {
+
+        // Pulse
+        final OrientationType orientationType;
+        int orientationValue;
+        final int intensity;
+        final int onDurationMs;
+
+        // Timing
+        long startMs;
+        int pulseIterations;
+        int pulsePeriodMs;
+        int patternIterations;
+        int patternPeriodMs;
+
+        Fold(OrientationType orientationType, int orientationValue, int intensity,
+             int onDurationMs) {
+            this.orientationType = orientationType;
+            this.orientationValue = orientationValue;
+            this.intensity = intensity;
+            this.onDurationMs = onDurationMs;
+        }
+
+        /**
+         * Returns a copy of the pulse with the given timing.
+         */
+        Fold copy(long startMs, int pulseIterations, int pulsePeriodMs, int patternIterations,
+                  int patternPeriodMs) {
+            Fold fold = new Fold(orientationType, orientationValue, intensity, onDurationMs);
+            fold.startMs = startMs;
+            fold.pulseIterations = pulseIterations;
+            fold.pulsePeriodMs = pulsePeriodMs;
+            fold.patternIterations = patternIterations;
+            fold.patternPeriodMs = patternPeriodMs;
+            return fold;
+        }
+
+        /**
+         * Returns <code>true</code> if the pulses have the same intensity, duration and timing.
+         */
+        boolean hasSameTiming(Fold other) {
+            return intensity == other.intensity && onDurationMs == other.onDurationMs &&
+                    startMs == other.startMs && pulseIterations == other.pulseIterations &&
+                    pulsePeriodMs == other.pulsePeriodMs &&
+                    patternIterations == other.patternIterations &&
+                    patternPeriodMs == other.patternPeriodMs;
+        }
+
+        /**
+         * Returns the number of pulses of the command.
+         */
+        int getPulseCount() {
+            return pulseIterations*patternIterations;
+        }
+
+        /**
+         * Returns the end time of the last pulse.
+         */
+        long getEndMs() {
+            return startMs+(long)(patternIterations-1)*patternPeriodMs+
+                    (long)(pulseIterations-1)*pulsePeriodMs+onDurationMs;
+        }
+    }
+
+}
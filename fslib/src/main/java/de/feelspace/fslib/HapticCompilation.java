@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Result of the compilation of a haptic animation.
+ */
+public class HapticCompilation {
+
+    // Timeline of commands
+    private final @NonNull HapticTimeline timeline;
+
+    // Number of pulses of the animation
+    private final int pulseCount;
+
+    // Number of channels used
+    private final int channelCount;
+
+    HapticCompilation(@NonNull HapticTimeline timeline, int pulseCount, int channelCount) {
+        this.timeline = timeline;
+        this.pulseCount = pulseCount;
+        this.channelCount = channelCount;
+    }
+
+    /**
+     * Returns the timeline of commands to play with a {@link HapticSequencer}.
+     *
+     * @return the timeline of commands.
+     */
+    public @NonNull HapticTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Returns the number of pulses of the animation, i.e. the number of writes to send the
+     * animation with one command per pulse.
+     *
+     * @return the number of pulses.
+     */
+    public int getPulseCount() {
+        return pulseCount;
+    }
+
+    /**
+     * Returns the number of commands of the compiled animation.
+     *
+     * @return the number of commands.
+     */
+    public int getCommandCount() {
+        return timeline.getEntryCount();
+    }
+
+    /**
+     * Returns the number of writes saved compared to one command per pulse.
+     *
+     * @return the number of writes saved.
+     */
+    public int getSavedWriteCount() {
+        return pulseCount-timeline.getEntryCount();
+    }
+
+    /**
+     * Returns the number of channels used by the commands.
+     *
+     * @return the number of channels used.
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+}
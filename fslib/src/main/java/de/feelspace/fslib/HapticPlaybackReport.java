@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Report of the playback of a haptic timeline, with the sending time and lateness of each
+ * entry. Entries are indexed in the order of the timeline sorted by offset.
+ */
+public class HapticPlaybackReport {
+
+    // Start time of the playback
+    private final long startTimeNano;
+
+    // Entries
+    private final long[] sendTimesNano;
+    private final long[] latenessNano;
+    private final boolean[] success;
+    private int sentCount = 0;
+
+    // Cancel flag
+    private boolean cancelled = false;
+
+    /**
+     * Creates an empty report.
+     */
+    HapticPlaybackReport(int entryCount, long startTimeNano) {
+        this.startTimeNano = startTimeNano;
+        sendTimesNano = new long[entryCount];
+        latenessNano = new long[entryCount];
+        success = new boolean[entryCount];
+    }
+
+    /**
+     * Records the sending of the next entry.
+     */
+    synchronized void recordEntry(long sendTimeNano, long scheduledTimeNano, boolean sent) {
+        sendTimesNano[sentCount] = sendTimeNano;
+        latenessNano[sentCount] = Math.max(0, sendTimeNano-scheduledTimeNano);
+        success[sentCount] = sent;
+        sentCount++;
+    }
+
+    /**
+     * Sets the cancel flag.
+     */
+    synchronized void setCancelled() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns the start time of the playback, from {@link System#nanoTime()}.
+     *
+     * @return the start time in nanoseconds.
+     */
+    public long getStartTimeNano() {
+        return startTimeNano;
+    }
+
+    /**
+     * Returns the number of entries of the timeline.
+     *
+     * @return the number of entries.
+     */
+    public int getEntryCount() {
+        return sendTimesNano.length;
+    }
+
+    /**
+     * Returns the number of entries sent.
+     *
+     * @return the number of entries sent.
+     */
+    public synchronized int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Returns <code>true</code> if the playback has been cancelled.
+     *
+     * @return <code>true</code> if the playback has been cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the sending time of an entry, from {@link System#nanoTime()}.
+     *
+     * @param entryIndex The entry index.
+     * @return the sending time in nanoseconds, or <code>-1</code> if the entry has not been sent.
+     */
+    public synchronized long getSendTimeNano(int entryIndex) {
+        return (entryIndex >= 0 && entryIndex < sentCount)?(sendTimesNano[entryIndex]):(-1);
+    }
+
+    /**
+     * Returns the delay between the scheduled time of an entry and its sending time.
+     *
+     * @param entryIndex The entry index.
+     * @return the lateness in nanoseconds, or <code>-1</code> if the entry has not been sent.
+     */
+    public synchronized long getLatenessNano(int entryIndex) {
+        return (entryIndex >= 0 && entryIndex < sentCount)?(latenessNano[entryIndex]):(-1);
+    }
+
+    /**
+     * Returns <code>true</code> if an entry has been sent to the belt.
+     *
+     * @param entryIndex The entry index.
+     * @return <code>true</code> if an entry has been sent to the belt.
+     */
+    public synchronized boolean isEntrySent(int entryIndex) {
+        return entryIndex >= 0 && entryIndex < sentCount && success[entryIndex];
+    }
+
+    /**
+     * Returns the mean lateness of the entries sent.
+     *
+     * @return the mean lateness in nanoseconds.
+     */
+    public synchronized long getMeanLatenessNano() {
+        if (sentCount == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i=0; i<sentCount; i++) {
+            sum += latenessNano[i];
+        }
+        return sum/sentCount;
+    }
+
+    /**
+     * Returns the maximum lateness of the entries sent.
+     *
+     * @return the maximum lateness in nanoseconds.
+     */
+    public synchronized long getMaxLatenessNano() {
+        long max = 0;
+        for (int i=0; i<sentCount; i++) {
+            max = Math.max(max, latenessNano[i]);
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays haptic timelines on a belt.
+ *
+ * Each entry is scheduled at the start time of the playback plus its offset, using the
+ * monotonic clock {@link System#nanoTime()}. The delay to the next entry is computed from the
+ * start time and not from the previous entry, so that the lateness of an entry does not delay
+ * the following ones. Entries that are due at the same time are sent in the same task.
+ *
+ * Only one timeline is played at a time, playing a timeline cancels the current playback.
+ */
+public class HapticSequencer {
+    // Debug
+    @SuppressWarnings("unused")
+    private static final boolean DEBUG = true;
+    private static final String DEBUG_TAG = "FeelSpace-Debug";
+
+    // Belt connection
+    private final @NonNull BeltConnectionInterface beltConnection;
+
+    // Executor for scheduling entries
+    private final @NonNull ScheduledThreadPoolExecutor executor;
+
+    // Current playback
+    private @Nullable Playback playback;
+
+    /**
+     * Creates a sequencer for a belt connection.
+     *
+     * @param beltConnection The belt connection.
+     * @throws IllegalArgumentException If the belt connection is <code>null</code>.
+     */
+    public HapticSequencer(BeltConnectionInterface beltConnection) {
+        if (beltConnection == null) {
+            throw new IllegalArgumentException("Null belt connection.");
+        }
+        this.beltConnection = beltConnection;
+        executor = beltConnection.getExecutor();
+    }
+
+    /**
+     * Starts playing a timeline. The current playback, if any, is cancelled and its listener is
+     * notified of the cancelled playback.
+     *
+     * @param timeline The timeline to play.
+     * @param listener The listener of the playback, or <code>null</code>.
+     * @return the report of the playback, filled while entries are sent.
+     * @throws IllegalArgumentException If the timeline is <code>null</code>.
+     */
+    public HapticPlaybackReport play(HapticTimeline timeline,
+                                     @Nullable HapticSequencerListener listener) {
+        if (timeline == null) {
+            throw new IllegalArgumentException("Null timeline.");
+        }
+        Playback replaced;
+        HapticPlaybackReport report;
+        synchronized (this) {
+            replaced = playback;
+            cancelPlayback();
+            playback = new Playback(timeline, listener, System.nanoTime());
+            report = playback.report;
+            playback.scheduleNext();
+        }
+        if (replaced != null) {
+            replaced.notifyCompleted();
+        }
+        return report;
+    }
+
+    /**
+     * Cancels the current playback. Commands already sent are not stopped.
+     */
+    public void cancel() {
+        Playback cancelled;
+        synchronized (this) {
+            cancelled = playback;
+            cancelPlayback();
+        }
+        if (cancelled != null) {
+            cancelled.notifyCompleted();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a timeline is being played.
+     *
+     * @return <code>true</code> if a timeline is being played.
+     */
+    public synchronized boolean isPlaying() {
+        return playback != null;
+    }
+
+    /**
+     * Cancels the current playback without notification.
+     */
+    private void cancelPlayback() {
+        if (playback != null) {
+            if (playback.task != null) {
+                playback.task.cancel(false);
+            }
+            playback.report.setCancelled();
+            playback = null;
+        }
+    }
+
+    /**
+     * Sends the command of an entry.
+     *
+     * @return <code>true</code> if the command has been sent.
+     */
+    private boolean sendCommand(Object command) {
+        if (command instanceof PulseCommand) {
+            return beltConnection.getCommunicationInterface().sendPulseCommand(
+                    (PulseCommand) command);
+        } else if (command instanceof ChannelConfigurationCommand) {
+            return beltConnection.getCommunicationInterface().sendChannelConfigurationCommand(
+                    (ChannelConfigurationCommand) command);
+        } else if (command instanceof int[]) {
+            return beltConnection.getCommandInterface().stopVibration((int[]) command);
+        }
+        return false;
+    }
+
+    /**
+     * Playback of a timeline.
+     */
+    private class Playback implements Runnable {
+
+        // Timeline sorted by offset
+        private final long[] offsetsNano;
+        private final Object[] commands;
+
+        // Listener
+        private final @Nullable HapticSequencerListener listener;
+
+        // Start time
+        private final long startTimeNano;
+
+        // Report
+        private final HapticPlaybackReport report;
+
+        // Index of the next entry
+        private int nextEntry = 0;
+
+        // Task of the next entry
+        private @Nullable ScheduledFuture<?> task;
+
+        Playback(@NonNull HapticTimeline timeline, @Nullable HapticSequencerListener listener,
+                 long startTimeNano) {
+            long[] offsetsMs = timeline.getSortedOffsetsMs();
+            offsetsNano = new long[offsetsMs.length];
+            for (int i=0; i<offsetsMs.length; i++) {
+                offsetsNano[i] = TimeUnit.MILLISECONDS.toNanos(offsetsMs[i]);
+            }
+            commands = timeline.getSortedCommands();
+            this.listener = listener;
+            this.startTimeNano = startTimeNano;
+            report = new HapticPlaybackReport(commands.length, startTimeNano);
+        }
+
+        /**
+         * Schedules the next entry from the start time, or completes the playback. Must be
+         * called in a block synchronized on the sequencer.
+         */
+        void scheduleNext() {
+            if (nextEntry >= commands.length) {
+                playback = null;
+                executor.execute(this::notifyCompleted);
+                return;
+            }
+            long delay = startTimeNano+offsetsNano[nextEntry]-System.nanoTime();
+            try {
+                task = executor.schedule(this, Math.max(0, delay), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                Log.e(DEBUG_TAG, "HapticSequencer: Unable to schedule a timeline entry.", e);
+                playback = null;
+                report.setCancelled();
+                executor.execute(this::notifyCompleted);
+            }
+        }
+
+        @Override
+        public void run() {
+            int first;
+            int last;
+            synchronized (HapticSequencer.this) {
+                if (playback != this) {
+                    return;
+                }
+                first = nextEntry;
+                // Entries due now, including entries delayed by a late task
+                long now = System.nanoTime();
+                last = first+1;
+                while (last < commands.length && startTimeNano+offsetsNano[last] <= now) {
+                    last++;
+                }
+                nextEntry = last;
+            }
+            for (int i=first; i<last; i++) {
+                long scheduledTime = startTimeNano+offsetsNano[i];
+                boolean sent = sendCommand(commands[i]);
+                long sendTime = System.nanoTime();
+                report.recordEntry(sendTime, scheduledTime, sent);
+                if (listener != null) {
+                    listener.onTimelineEntrySent(i, Math.max(0, sendTime-scheduledTime), sent);
+                }
+            }
+            synchronized (HapticSequencer.this) {
+                if (playback == this) {
+                    scheduleNext();
+                }
+            }
+        }
+
+        /**
+         * Notifies the listener of the end of the playback.
+         */
+        void notifyCompleted() {
+            if (listener != null) {
+                listener.onTimelineCompleted(report);
+            }
+        }
+    }
+
+}
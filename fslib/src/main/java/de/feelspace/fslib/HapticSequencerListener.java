@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Interface for listening the playback of a haptic timeline.
+ */
+public interface HapticSequencerListener {
+
+    /**
+     * Called when an entry of the timeline has been sent.
+     *
+     * @param entryIndex The index of the entry in the timeline sorted by offset.
+     * @param latenessNano The delay between the scheduled time of the entry and its sending time
+     *                     in nanoseconds.
+     * @param success <code>true</code> if the command has been sent to the belt.
+     */
+    void onTimelineEntrySent(int entryIndex, long latenessNano, boolean success);
+
+    /**
+     * Called when the playback of the timeline has finished or has been cancelled.
+     *
+     * @param report The report of the playback.
+     */
+    void onTimelineCompleted(HapticPlaybackReport report);
+
+}
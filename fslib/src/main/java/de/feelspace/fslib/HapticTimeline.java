@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Timeline of vibration commands, each one with an offset from the start of the timeline.
+ *
+ * Entries can be added in any order. Entries with the same offset are sent in the order they
+ * have been added. A timeline is played by a {@link HapticSequencer}.
+ */
+public class HapticTimeline {
+
+    // Initial capacity of the entry arrays
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Entries, in insertion order
+    private long[] offsetsMs = new long[INITIAL_CAPACITY];
+    private Object[] commands = new Object[INITIAL_CAPACITY];
+    private int entryCount = 0;
+
+    // Entry indexes sorted by offset, null when entries have changed
+    private int[] order;
+
+    /**
+     * Creates an empty timeline.
+     */
+    public HapticTimeline() {
+    }
+
+    /**
+     * Adds a pulse command.
+     *
+     * @param offsetMs The offset of the command from the start of the timeline in milliseconds.
+     * @param command The command.
+     * @return the timeline.
+     * @throws IllegalArgumentException If the offset is negative or the command is
+     * <code>null</code>.
+     */
+    public HapticTimeline addPulse(long offsetMs, PulseCommand command) {
+        return addEntry(offsetMs, command);
+    }
+
+    /**
+     * Adds a channel configuration command.
+     *
+     * @param offsetMs The offset of the command from the start of the timeline in milliseconds.
+     * @param command The command.
+     * @return the timeline.
+     * @throws IllegalArgumentException If the offset is negative or the command is
+     * <code>null</code>.
+     */
+    public HapticTimeline addChannelConfiguration(long offsetMs,
+                                                  ChannelConfigurationCommand command) {
+        return addEntry(offsetMs, command);
+    }
+
+    /**
+     * Adds a command to stop the vibration of channels.
+     *
+     * @param offsetMs The offset of the command from the start of the timeline in milliseconds.
+     * @param channelIndexes The channels to stop, or no channel to stop all channels.
+     * @return the timeline.
+     * @throws IllegalArgumentException If the offset is negative.
+     */
+    public HapticTimeline addStop(long offsetMs, int... channelIndexes) {
+        return addEntry(offsetMs, (channelIndexes == null)?(new int[0]):(channelIndexes.clone()));
+    }
+
+    /**
+     * Adds an entry.
+     */
+    private synchronized HapticTimeline addEntry(long offsetMs, Object command) {
+        if (offsetMs < 0) {
+            throw new IllegalArgumentException("Negative timeline offset.");
+        }
+        if (command == null) {
+            throw new IllegalArgumentException("Null timeline command.");
+        }
+        if (entryCount == offsetsMs.length) {
+            offsetsMs = Arrays.copyOf(offsetsMs, entryCount*2);
+            commands = Arrays.copyOf(commands, entryCount*2);
+        }
+        offsetsMs[entryCount] = offsetMs;
+        commands[entryCount] = command;
+        entryCount++;
+        order = null;
+        return this;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the offset of the last entry.
+     *
+     * @return the duration of the timeline in milliseconds.
+     */
+    public synchronized long getDurationMs() {
+        long duration = 0;
+        for (int i=0; i<entryCount; i++) {
+            duration = Math.max(duration, offsetsMs[i]);
+        }
+        return duration;
+    }
+
+    /**
+     * Returns the offsets of the entries sorted by offset.
+     *
+     * @return a copy of the sorted offsets in milliseconds.
+     */
+    synchronized @NonNull long[] getSortedOffsetsMs() {
+        int[] sorted = getOrder();
+        long[] offsets = new long[entryCount];
+        for (int i=0; i<entryCount; i++) {
+            offsets[i] = offsetsMs[sorted[i]];
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the commands of the entries sorted by offset.
+     *
+     * @return a copy of the sorted commands.
+     */
+    synchronized @NonNull Object[] getSortedCommands() {
+        int[] sorted = getOrder();
+        Object[] sortedCommands = new Object[entryCount];
+        for (int i=0; i<entryCount; i++) {
+            sortedCommands[i] = commands[sorted[i]];
+        }
+        return sortedCommands;
+    }
+
+    /**
+     * Returns the entry indexes sorted by offset, keeping the insertion order of equal offsets.
+     */
+    private @NonNull int[] getOrder() {
+        if (order == null) {
+            // Insertion sort, timelines are short and mostly sorted
+            int[] indexes = new int[entryCount];
+            for (int i=0; i<entryCount; i++) {
+                int j = i;
+                while (j > 0 && offsetsMs[indexes[j-1]] > offsetsMs[i]) {
+                    indexes[j] = indexes[j-1];
+                    j--;
+                }
+                indexes[j] = i;
+            }
+            order = indexes;
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Predictor of the belt heading from the orientation stream.
+ *
+ * The predictor extrapolates the last heading with a smoothed angular velocity. The prediction
+ * horizon is limited, so that a pause of the orientation stream does not extrapolate a turn
+ * indefinitely.
+ *
+ * Each sample is also compared with the heading predicted for its reception time from the
+ * previous samples, which gives the prediction error of the stream, e.g. in a simulation.
+ */
+public class HeadingPredictor {
+
+    /**
+     * Default smoothing factor of the angular velocity.
+     */
+    public static final double DEFAULT_VELOCITY_SMOOTHING_FACTOR = 0.3;
+
+    /**
+     * Default maximum prediction horizon in milliseconds.
+     */
+    public static final int DEFAULT_MAX_HORIZON_MS = 500;
+
+    // Smoothing factor of the angular velocity
+    private final double velocitySmoothingFactor;
+
+    // Maximum prediction horizon
+    private final long maxHorizonNano;
+
+    // Last sample
+    private int sampleCount = 0;
+    private double lastHeading;
+    private long lastTimeNano;
+
+    // Smoothed angular velocity in degrees per second
+    private double angularVelocity = 0;
+
+    // Prediction errors
+    private long errorCount = 0;
+    private double absoluteErrorSum = 0;
+    private double maxAbsoluteError = 0;
+
+    /**
+     * Creates a heading predictor with default parameters.
+     */
+    public HeadingPredictor() {
+        this(DEFAULT_VELOCITY_SMOOTHING_FACTOR, DEFAULT_MAX_HORIZON_MS);
+    }
+
+    /**
+     * Creates a heading predictor.
+     *
+     * @param velocitySmoothingFactor The smoothing factor of the angular velocity in range
+     *                                ]0-1], <code>1</code> for no smoothing.
+     * @param maxHorizonMs The maximum prediction horizon in milliseconds.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     */
+    public HeadingPredictor(double velocitySmoothingFactor, int maxHorizonMs) {
+        if (!(velocitySmoothingFactor > 0 && velocitySmoothingFactor <= 1)) {
+            throw new IllegalArgumentException("Smoothing factor must be in range ]0-1].");
+        }
+        if (maxHorizonMs < 0) {
+            throw new IllegalArgumentException("Negative prediction horizon.");
+        }
+        this.velocitySmoothingFactor = velocitySmoothingFactor;
+        this.maxHorizonNano = maxHorizonMs*1000000L;
+    }
+
+    /**
+     * Adds a heading sample.
+     *
+     * @param heading The heading in degrees.
+     * @param receiveTimeNano The reception time of the sample.
+     */
+    public synchronized void addSample(int heading, long receiveTimeNano) {
+        if (sampleCount > 0) {
+            long dt = receiveTimeNano-lastTimeNano;
+            if (dt <= 0) {
+                // Sample out of order or duplicated
+                return;
+            }
+            if (sampleCount > 1) {
+                double error = Math.abs(angleDifference(heading, predictUnchecked(receiveTimeNano)));
+                absoluteErrorSum += error;
+                maxAbsoluteError = Math.max(maxAbsoluteError, error);
+                errorCount++;
+            }
+            double velocity = angleDifference(heading, lastHeading)*1e9/dt;
+            angularVelocity = (sampleCount == 1)?(velocity):
+                    (angularVelocity+velocitySmoothingFactor*(velocity-angularVelocity));
+        }
+        lastHeading = heading;
+        lastTimeNano = receiveTimeNano;
+        sampleCount++;
+    }
+
+    /**
+     * Predicts the heading at a given time.
+     *
+     * @param timeNano The time of the prediction.
+     * @return the predicted heading in degrees in range [0-360[, or <code>NaN</code> if no
+     * sample has been received.
+     */
+    public synchronized double predict(long timeNano) {
+        if (sampleCount == 0) {
+            return Double.NaN;
+        }
+        return predictUnchecked(timeNano);
+    }
+
+    /**
+     * Predicts the rotation of the belt over a short horizon starting at a given time, e.g. the
+     * rotation between the sending of a command and its reception by the belt. Only the rotation
+     * within the horizon is returned, whatever the rotation before the start time.
+     *
+     * @param timeNano The start time of the horizon.
+     * @param horizonNano The duration of the horizon.
+     * @return the predicted rotation in degrees, positive clockwise, or <code>NaN</code> if no
+     * sample has been received.
+     */
+    public synchronized double predictRotation(long timeNano, long horizonNano) {
+        if (sampleCount == 0) {
+            return Double.NaN;
+        }
+        long start = Math.max(0, Math.min(maxHorizonNano, timeNano-lastTimeNano));
+        long end = Math.max(0, Math.min(maxHorizonNano, timeNano+horizonNano-lastTimeNano));
+        return angularVelocity*(end-start)/1e9;
+    }
+
+    /**
+     * Predicts the heading from the last sample.
+     */
+    private double predictUnchecked(long timeNano) {
+        long horizon = Math.max(0, Math.min(maxHorizonNano, timeNano-lastTimeNano));
+        double heading = (lastHeading+angularVelocity*horizon/1e9)%360;
+        return (heading < 0)?(heading+360):(heading);
+    }
+
+    /**
+     * Returns the signed difference between two angles.
+     *
+     * @return the difference in degrees in range [-180-180[.
+     */
+    static double angleDifference(double a, double b) {
+        double delta = (a-b)%360;
+        if (delta >= 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the smoothed angular velocity of the belt. Positive values are clockwise.
+     *
+     * @return the angular velocity in degrees per second.
+     */
+    public synchronized double getAngularVelocity() {
+        return angularVelocity;
+    }
+
+    /**
+     * Returns the number of samples compared with their prediction.
+     *
+     * @return the number of prediction errors measured.
+     */
+    public synchronized long getPredictionErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the mean absolute error between samples and their prediction from the previous
+     * samples.
+     *
+     * @return the mean absolute error in degrees, or <code>0</code> if no error was measured.
+     */
+    public synchronized double getMeanAbsoluteError() {
+        return (errorCount == 0)?(0):(absoluteErrorSum/errorCount);
+    }
+
+    /**
+     * Returns the maximum absolute error between samples and their prediction.
+     *
+     * @return the maximum absolute error in degrees.
+     */
+    public synchronized double getMaxAbsoluteError() {
+        return maxAbsoluteError;
+    }
+
+    /**
+     * Removes all samples and errors.
+     */
+    public synchronized void reset() {
+        sampleCount = 0;
+        angularVelocity = 0;
+        errorCount = 0;
+        absoluteErrorSum = 0;
+        maxAbsoluteError = 0;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Events of the {@link EventLogger}. Each event has a level and a message pattern for its three
+ * primitive arguments. For GATT operation events, the first argument is the kind of operation
+ * (see {@link GattOperation#getLogKind()}) and the second the first 32 bits of the characteristic
+ * UUID.
+ */
+public enum LogEvent {
+
+    /**
+     * A GATT operation has been cancelled. Arguments: kind of operation, characteristic UUID and
+     * time since the start of the operation in microseconds.
+     */
+    GATT_OPERATION_CANCELLED(LogLevel.WARN,
+            "GattOperation: Cancelled BLE operation: %s on %08X after %d us.", true),
+
+    /**
+     * A GATT operation failed. Arguments: kind of operation, characteristic UUID and time since
+     * the start of the operation in microseconds.
+     */
+    GATT_OPERATION_FAILED(LogLevel.ERROR,
+            "GattOperation: BLE operation failed: %s on %08X after %d us.", true),
+
+    /**
+     * A GATT operation reached the timed out state. Arguments: kind of operation, characteristic
+     * UUID and time since the start of the operation in microseconds.
+     */
+    GATT_OPERATION_TIMED_OUT(LogLevel.ERROR,
+            "GattOperation: BLE operation timed out: %s on %08X after %d us.", true),
+
+    /**
+     * The GATT controller cancelled its running operation after the operation timeout. Arguments:
+     * kind of operation, characteristic UUID and identifier of the operation.
+     */
+    GATT_OPERATION_TIMEOUT(LogLevel.WARN,
+            "GattController: Operation timeout for %s on %08X, operation %d.", true),
+
+    /**
+     * A GATT request has been written. Arguments: request ID, characteristic UUID and number of
+     * bytes written.
+     */
+    GATT_REQUEST_STARTED(LogLevel.DEBUG,
+            "GattOperationRequest: BLE request %d started on %08X with %d bytes.", false),
+
+    /**
+     * A GATT request received its notification. Arguments: request ID, characteristic UUID and
+     * time since the start of the request in microseconds.
+     */
+    GATT_REQUEST_COMPLETED(LogLevel.DEBUG,
+            "GattOperationRequest: BLE request %d completed on %08X after %d us.", false);
+
+    // Level of the event
+    private final @NonNull LogLevel level;
+
+    // Message pattern
+    private final @NonNull String pattern;
+
+    // Flag for a kind of GATT operation as first argument
+    private final boolean operationKindArgument;
+
+    LogEvent(@NonNull LogLevel level, @NonNull String pattern, boolean operationKindArgument) {
+        this.level = level;
+        this.pattern = pattern;
+        this.operationKindArgument = operationKindArgument;
+    }
+
+    /**
+     * Returns the level of the event.
+     *
+     * @return the level of the event.
+     */
+    public @NonNull LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Formats the message of the event.
+     *
+     * @param arg0 The first argument.
+     * @param arg1 The second argument.
+     * @param arg2 The third argument.
+     * @return the message.
+     */
+    @NonNull String format(long arg0, long arg1, long arg2) {
+        Object first = (operationKindArgument)?(GattOperation.getLogKindName((int) arg0)):(arg0);
+        return String.format(Locale.ROOT, pattern, first, arg1, arg2);
+    }
+
+}
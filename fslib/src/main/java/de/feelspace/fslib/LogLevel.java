@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import android.util.Log;
+
+/**
+ * Levels of the events of the {@link EventLogger}, from the most to the least verbose.
+ */
+public enum LogLevel {
+
+    VERBOSE(Log.VERBOSE),
+    DEBUG(Log.DEBUG),
+    INFO(Log.INFO),
+    WARN(Log.WARN),
+    ERROR(Log.ERROR),
+
+    /**
+     * No event, only used as threshold.
+     */
+    OFF(Log.ERROR);
+
+    // Android log priority
+    private final int priority;
+
+    LogLevel(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the Android log priority of the level.
+     *
+     * @return the log priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+}
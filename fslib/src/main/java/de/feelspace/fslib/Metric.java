@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Metrics of the library, see {@link MetricsRegistry}.
+ */
+public enum Metric {
+
+    /**
+     * GATT operations added to the queue.
+     */
+    GATT_OPERATIONS_QUEUED(MetricType.COUNTER),
+
+    /**
+     * GATT operations completed successfully.
+     */
+    GATT_OPERATIONS_COMPLETED(MetricType.COUNTER),
+
+    /**
+     * GATT operations that failed.
+     */
+    GATT_OPERATIONS_FAILED(MetricType.COUNTER),
+
+    /**
+     * GATT operations cancelled, e.g. on disconnection.
+     */
+    GATT_OPERATIONS_CANCELLED(MetricType.COUNTER),
+
+    /**
+     * GATT operations cancelled after a timeout.
+     */
+    GATT_OPERATIONS_TIMED_OUT(MetricType.COUNTER),
+
+    /**
+     * Reconnection attempts.
+     */
+    GATT_RECONNECTIONS(MetricType.COUNTER),
+
+    /**
+     * GATT supervision timeouts.
+     */
+    GATT_SUPERVISION_TIMEOUTS(MetricType.COUNTER),
+
+    /**
+     * Failed connections.
+     */
+    GATT_CONNECTION_FAILURES(MetricType.COUNTER),
+
+    /**
+     * Notifications received from the belt.
+     */
+    NOTIFICATIONS_RECEIVED(MetricType.COUNTER),
+
+    /**
+     * Malformed notification packets.
+     */
+    MALFORMED_PACKETS(MetricType.COUNTER),
+
+    /**
+     * Keep-alive packets received.
+     */
+    KEEP_ALIVES(MetricType.COUNTER),
+
+    /**
+     * Scan procedures started.
+     */
+    SCANS_STARTED(MetricType.COUNTER),
+
+    /**
+     * Scan results received.
+     */
+    SCAN_RESULTS(MetricType.COUNTER),
+
+    /**
+     * Belts found, once per scan procedure.
+     */
+    BELTS_FOUND(MetricType.COUNTER),
+
+    /**
+     * Navigation vibration commands sent.
+     */
+    NAVIGATION_COMMANDS_SENT(MetricType.COUNTER),
+
+    /**
+     * Navigation direction updates suppressed by the deadband.
+     */
+    NAVIGATION_UPDATES_SUPPRESSED(MetricType.COUNTER),
+
+    /**
+     * Number of GATT operations pending, including the running operation.
+     */
+    GATT_PENDING_OPERATIONS(MetricType.GAUGE),
+
+    /**
+     * Scan-on time of the last scan procedure in milliseconds.
+     */
+    SCAN_ON_TIME_MS(MetricType.GAUGE),
+
+    /**
+     * Latency of completed GATT operations in microseconds.
+     */
+    GATT_OPERATION_LATENCY_US(MetricType.HISTOGRAM),
+
+    /**
+     * Time between successive navigation vibration commands in milliseconds.
+     */
+    NAVIGATION_COMMAND_INTERVAL_MS(MetricType.HISTOGRAM),
+
+    /**
+     * Time from a scan-and-connect request to the connected state in milliseconds.
+     */
+    TIME_TO_CONNECTED_MS(MetricType.HISTOGRAM);
+
+    // Type of the metric
+    private final MetricType type;
+
+    Metric(MetricType type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the type of the metric.
+     *
+     * @return the type of the metric.
+     */
+    public MetricType getType() {
+        return type;
+    }
+
+}
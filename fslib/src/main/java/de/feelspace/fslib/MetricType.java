@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Types of metrics.
+ */
+public enum MetricType {
+
+    /**
+     * Number of events since the creation of the registry.
+     */
+    COUNTER,
+
+    /**
+     * Last value set.
+     */
+    GAUGE,
+
+    /**
+     * Distribution of recorded values in power-of-two buckets, with count, sum and maximum.
+     */
+    HISTOGRAM
+
+}
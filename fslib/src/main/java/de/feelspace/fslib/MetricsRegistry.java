@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of the counters, gauges and histograms of the library.
+ *
+ * Updates are lock-free and do not allocate, so they can be made on the Bluetooth callback
+ * threads. Each update is bracketed by two counters of started and completed updates, which lets
+ * {@link #getSnapshot()} detect concurrent updates and retry the copy. When updates never pause,
+ * the snapshot is taken after a few attempts and flagged as not consistent.
+ *
+ * Histogram bucket <code>0</code> holds the values lower than <code>1</code>, and bucket
+ * <code>i</code> the values in range [2^(i-1)-2^i[. The last bucket has no upper bound.
+ */
+public class MetricsRegistry {
+
+    /**
+     * Number of buckets of histograms.
+     */
+    public static final int HISTOGRAM_BUCKET_COUNT = 32;
+
+    // Attempts to take a consistent snapshot
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    // Metrics
+    private static final Metric[] METRICS = Metric.values();
+
+    // Counter and gauge values, histogram counts
+    private final AtomicLongArray values = new AtomicLongArray(METRICS.length);
+
+    // Histogram sums, maxima and buckets
+    private final AtomicLongArray sums = new AtomicLongArray(METRICS.length);
+    private final AtomicLongArray maxima = new AtomicLongArray(METRICS.length);
+    private final AtomicLongArray buckets =
+            new AtomicLongArray(METRICS.length*HISTOGRAM_BUCKET_COUNT);
+
+    // Updates started and completed
+    private final AtomicLong startedUpdates = new AtomicLong();
+    private final AtomicLong completedUpdates = new AtomicLong();
+
+    /**
+     * Creates an empty registry.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param metric The counter.
+     * @throws IllegalArgumentException If the metric is not a counter.
+     */
+    public void increment(@NonNull Metric metric) {
+        add(metric, 1);
+    }
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param metric The counter.
+     * @param delta The value to add.
+     * @throws IllegalArgumentException If the metric is not a counter.
+     */
+    public void add(@NonNull Metric metric, long delta) {
+        checkType(metric, MetricType.COUNTER);
+        startedUpdates.incrementAndGet();
+        values.addAndGet(metric.ordinal(), delta);
+        completedUpdates.incrementAndGet();
+    }
+
+    /**
+     * Sets the value of a gauge.
+     *
+     * @param metric The gauge.
+     * @param value The value.
+     * @throws IllegalArgumentException If the metric is not a gauge.
+     */
+    public void setGauge(@NonNull Metric metric, long value) {
+        checkType(metric, MetricType.GAUGE);
+        startedUpdates.incrementAndGet();
+        values.set(metric.ordinal(), value);
+        completedUpdates.incrementAndGet();
+    }
+
+    /**
+     * Records a value in a histogram.
+     *
+     * @param metric The histogram.
+     * @param value The value, negative values are recorded as <code>0</code>.
+     * @throws IllegalArgumentException If the metric is not a histogram.
+     */
+    public void record(@NonNull Metric metric, long value) {
+        checkType(metric, MetricType.HISTOGRAM);
+        int index = metric.ordinal();
+        if (value < 0) {
+            value = 0;
+        }
+        startedUpdates.incrementAndGet();
+        values.incrementAndGet(index);
+        sums.addAndGet(index, value);
+        buckets.incrementAndGet(index*HISTOGRAM_BUCKET_COUNT+bucketIndex(value));
+        long max = maxima.get(index);
+        while (value > max && !maxima.compareAndSet(index, max, value)) {
+            max = maxima.get(index);
+        }
+        completedUpdates.incrementAndGet();
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value The value.
+     * @return the bucket index.
+     */
+    static int bucketIndex(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_BUCKET_COUNT-1, 64-Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Checks the type of a metric.
+     *
+     * @throws IllegalArgumentException If the type does not match.
+     */
+    private static void checkType(@NonNull Metric metric, @NonNull MetricType type) {
+        if (metric.getType() != type) {
+            throw new IllegalArgumentException("The metric " + metric + " is not a " + type +
+                    ".");
+        }
+    }
+
+    /**
+     * Returns a snapshot of all metrics.
+     *
+     * @return the snapshot.
+     */
+    public @NonNull MetricsSnapshot getSnapshot() {
+        int n = METRICS.length;
+        long[] valueCopy = new long[n];
+        long[] sumCopy = new long[n];
+        long[] maxCopy = new long[n];
+        long[] bucketCopy = new long[n*HISTOGRAM_BUCKET_COUNT];
+        boolean consistent = false;
+        for (int attempt=0; attempt<SNAPSHOT_ATTEMPTS && !consistent; attempt++) {
+            long started = startedUpdates.get();
+            long completed = completedUpdates.get();
+            for (int i=0; i<n; i++) {
+                valueCopy[i] = values.get(i);
+                sumCopy[i] = sums.get(i);
+                maxCopy[i] = maxima.get(i);
+            }
+            for (int i=0; i<bucketCopy.length; i++) {
+                bucketCopy[i] = buckets.get(i);
+            }
+            // No update in progress before the copy and no update started since
+            consistent = (started == completed && startedUpdates.get() == started);
+        }
+        return new MetricsSnapshot(System.nanoTime(), consistent, valueCopy, sumCopy, maxCopy,
+                bucketCopy);
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snapshot of the metrics of a {@link MetricsRegistry}.
+ */
+public class MetricsSnapshot {
+
+    // Time of the snapshot
+    private final long timeNano;
+
+    // Flag for a snapshot without concurrent update
+    private final boolean consistent;
+
+    // Counter and gauge values, histogram counts
+    private final long[] values;
+
+    // Histogram sums, maxima and buckets
+    private final long[] sums;
+    private final long[] maxima;
+    private final long[] buckets;
+
+    /**
+     * Constructor.
+     */
+    MetricsSnapshot(long timeNano, boolean consistent, @NonNull long[] values,
+                    @NonNull long[] sums, @NonNull long[] maxima, @NonNull long[] buckets) {
+        this.timeNano = timeNano;
+        this.consistent = consistent;
+        this.values = values;
+        this.sums = sums;
+        this.maxima = maxima;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Returns the time of the snapshot.
+     *
+     * @return the time of the snapshot from {@link System#nanoTime()}.
+     */
+    public long getTimeNano() {
+        return timeNano;
+    }
+
+    /**
+     * Returns <code>true</code> if no metric was updated while the snapshot was taken.
+     *
+     * @return <code>true</code> if the snapshot is consistent.
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param metric The counter.
+     * @return the value of the counter.
+     * @throws IllegalArgumentException If the metric is not a counter.
+     */
+    public long getCounter(@NonNull Metric metric) {
+        checkType(metric, MetricType.COUNTER);
+        return values[metric.ordinal()];
+    }
+
+    /**
+     * Returns the value of a gauge.
+     *
+     * @param metric The gauge.
+     * @return the value of the gauge.
+     * @throws IllegalArgumentException If the metric is not a gauge.
+     */
+    public long getGauge(@NonNull Metric metric) {
+        checkType(metric, MetricType.GAUGE);
+        return values[metric.ordinal()];
+    }
+
+    /**
+     * Returns the number of values recorded in a histogram.
+     *
+     * @param metric The histogram.
+     * @return the number of values.
+     * @throws IllegalArgumentException If the metric is not a histogram.
+     */
+    public long getHistogramCount(@NonNull Metric metric) {
+        checkType(metric, MetricType.HISTOGRAM);
+        return values[metric.ordinal()];
+    }
+
+    /**
+     * Returns the sum of the values recorded in a histogram.
+     *
+     * @param metric The histogram.
+     * @return the sum of the values.
+     * @throws IllegalArgumentException If the metric is not a histogram.
+     */
+    public long getHistogramSum(@NonNull Metric metric) {
+        checkType(metric, MetricType.HISTOGRAM);
+        return sums[metric.ordinal()];
+    }
+
+    /**
+     * Returns the maximum value recorded in a histogram.
+     *
+     * @param metric The histogram.
+     * @return the maximum value, or <code>0</code> if no value was recorded.
+     * @throws IllegalArgumentException If the metric is not a histogram.
+     */
+    public long getHistogramMax(@NonNull Metric metric) {
+        checkType(metric, MetricType.HISTOGRAM);
+        return maxima[metric.ordinal()];
+    }
+
+    /**
+     * Returns the mean of the values recorded in a histogram.
+     *
+     * @param metric The histogram.
+     * @return the mean value, or <code>0</code> if no value was recorded.
+     * @throws IllegalArgumentException If the metric is not a histogram.
+     */
+    public double getHistogramMean(@NonNull Metric metric) {
+        long count = getHistogramCount(metric);
+        return (count == 0)?(0):((double) sums[metric.ordinal()]/count);
+    }
+
+    /**
+     * Returns the number of values in a bucket of a histogram.
+     *
+     * @param metric The histogram.
+     * @param bucket The bucket index, see {@link MetricsRegistry}.
+     * @return the number of values in the bucket.
+     * @throws IllegalArgumentException If the metric is not a histogram or the bucket index is
+     * out of range.
+     */
+    public long getHistogramBucket(@NonNull Metric metric, int bucket) {
+        checkType(metric, MetricType.HISTOGRAM);
+        if (bucket < 0 || bucket >= MetricsRegistry.HISTOGRAM_BUCKET_COUNT) {
+            throw new IllegalArgumentException("Bucket index out of range.");
+        }
+        return buckets[metric.ordinal()*MetricsRegistry.HISTOGRAM_BUCKET_COUNT+bucket];
+    }
+
+    /**
+     * Returns an upper bound of a percentile of a histogram, i.e. the upper bound of the bucket
+     * that contains the percentile, limited to the maximum value.
+     *
+     * @param metric The histogram.
+     * @param percentile The percentile in range [0-100].
+     * @return the upper bound of the percentile, or <code>0</code> if no value was recorded.
+     * @throws IllegalArgumentException If the metric is not a histogram or the percentile is out
+     * of range.
+     */
+    public long getHistogramPercentile(@NonNull Metric metric, double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be in range [0-100].");
+        }
+        long count = getHistogramCount(metric);
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count*percentile/100));
+        int offset = metric.ordinal()*MetricsRegistry.HISTOGRAM_BUCKET_COUNT;
+        long max = maxima[metric.ordinal()];
+        long cumulated = 0;
+        for (int i=0; i<MetricsRegistry.HISTOGRAM_BUCKET_COUNT-1; i++) {
+            cumulated += buckets[offset+i];
+            if (cumulated >= rank) {
+                return Math.min(max, (1L << i)-1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Checks the type of a metric.
+     *
+     * @throws IllegalArgumentException If the type does not match.
+     */
+    private static void checkType(@NonNull Metric metric, @NonNull MetricType type) {
+        if (metric.getType() != type) {
+            throw new IllegalArgumentException("The metric " + metric + " is not a " + type +
+                    ".");
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Metric metric: Metric.values()) {
+            int index = metric.ordinal();
+            builder.append(metric).append('=');
+            if (metric.getType() == MetricType.HISTOGRAM) {
+                builder.append("{count=").append(values[index])
+                        .append(", mean=").append(getHistogramMean(metric))
+                        .append(", p50=").append(getHistogramPercentile(metric, 50))
+                        .append(", p99=").append(getHistogramPercentile(metric, 99))
+                        .append(", max=").append(maxima[index]).append('}');
+            } else {
+                builder.append(values[index]);
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,781 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the same vibration command to multiple belts so that the vibrations start at the same time.
+ *
+ * The time between a write request and the start of the vibration depends on the connection of
+ * each belt (write latency and number of pending GATT operations). The broadcaster estimates this
+ * delivery time for each belt and delays the commands of the belts with a faster link. The skew
+ * between belts is measured from the write acknowledgments and reported after each broadcast.
+ *
+ * The broadcaster owns a thread for delayed commands and must be released with {@link #close()}
+ * when it is no more used.
+ */
+public class MultiBeltBroadcaster {
+
+    // Debug
+    @SuppressWarnings("unused")
+    private static final String DEBUG_TAG = "FeelSpace-Debug";
+    @SuppressWarnings("unused")
+    private static final boolean DEBUG = true;
+
+    /**
+     * Write latency used when no write has been acknowledged yet by a belt.
+     */
+    public static final long DEFAULT_WRITE_LATENCY_NANO = 30*1000000L;
+
+    /**
+     * Default tolerated skew between belts. When the estimated spread of delivery times is below
+     * this value, commands are sent without delay.
+     */
+    public static final long DEFAULT_TOLERATED_SKEW_NANO = 5*1000000L;
+
+    /**
+     * Time after which a broadcast is reported even if some acknowledgments are missing.
+     */
+    public static final long BROADCAST_REPORT_TIMEOUT_MS = 1000;
+
+    // Executor for delayed commands and report timeout
+    private final @NonNull ScheduledThreadPoolExecutor executor;
+
+    // Belts
+    private final @NonNull ArrayList<BeltTarget> belts = new ArrayList<>();
+
+    // Broadcasts not reported yet
+    private final @NonNull ArrayList<Broadcast> activeBroadcasts = new ArrayList<>();
+
+    // Tolerated skew
+    private volatile long toleratedSkewNano = DEFAULT_TOLERATED_SKEW_NANO;
+
+    // Broadcast counter
+    private int broadcastCounter = 0;
+
+    // Flag for a closed broadcaster
+    private boolean closed = false;
+
+    // Listeners
+    private final @NonNull ArrayList<BroadcastListener> listeners = new ArrayList<>();
+
+    /**
+     * Constructor.
+     */
+    public MultiBeltBroadcaster() {
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Adds a belt to the broadcast group.
+     *
+     * @param belt The connection interface of the belt.
+     * @return <code>true</code> if the belt has been added.
+     */
+    public boolean addBelt(BeltConnectionInterface belt) {
+        if (belt == null) {
+            Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Cannot add a null belt.");
+            return false;
+        }
+        if (!(belt.getCommunicationInterface() instanceof BeltCommunicationController)) {
+            Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Unsupported communication interface.");
+            return false;
+        }
+        return addTarget(new GattBeltTarget(belt,
+                (BeltCommunicationController) belt.getCommunicationInterface()));
+    }
+
+    /**
+     * Adds a target to the broadcast group and registers it for connection events.
+     *
+     * @param target The target to add.
+     * @return <code>true</code> if the target has been added or was already in the group.
+     */
+    boolean addTarget(@NonNull BeltTarget target) {
+        synchronized (this) {
+            if (closed) {
+                Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Cannot add a belt after close.");
+                return false;
+            }
+            for (BeltTarget t: belts) {
+                if (t == target || (t.belt != null && t.belt == target.belt)) {
+                    return true;
+                }
+            }
+            belts.add(target);
+        }
+        target.register();
+        return true;
+    }
+
+    /**
+     * Removes a belt from the broadcast group. Commands sent to this belt that are not yet
+     * acknowledged are reported as failed.
+     *
+     * @param belt The belt to remove.
+     */
+    public void removeBelt(BeltConnectionInterface belt) {
+        BeltTarget target = null;
+        synchronized (this) {
+            Iterator<BeltTarget> iterator = belts.iterator();
+            while (iterator.hasNext()) {
+                BeltTarget t = iterator.next();
+                if (t.belt == belt) {
+                    target = t;
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+        if (target != null) {
+            target.unregister();
+            failPendingCommands(target);
+        }
+    }
+
+    /**
+     * Releases the broadcaster. All belts are removed from the group, pending broadcasts are
+     * reported, and the executor of the broadcaster is shut down. The broadcaster cannot be used
+     * after this call.
+     */
+    public void close() {
+        ArrayList<BeltTarget> targets;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            targets = new ArrayList<>(belts);
+            belts.clear();
+        }
+        for (BeltTarget target: targets) {
+            target.unregister();
+            failPendingCommands(target);
+        }
+        executor.shutdownNow();
+        synchronized (listeners) {
+            listeners.clear();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the broadcaster has been closed.
+     *
+     * @return <code>true</code> if the broadcaster has been closed.
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Sets the tolerated skew between belts. Commands are not delayed when the estimated spread of
+     * delivery times is below this value.
+     *
+     * @param toleratedSkewMs The tolerated skew in milliseconds.
+     */
+    public void setToleratedSkew(int toleratedSkewMs) {
+        if (toleratedSkewMs < 0) {
+            Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Negative tolerated skew.");
+            return;
+        }
+        toleratedSkewNano = toleratedSkewMs*1000000L;
+    }
+
+    /**
+     * Broadcasts a pulse command to all connected belts of the group.
+     *
+     * @param command The pulse command.
+     * @return <code>true</code> if the command has been sent or scheduled for at least one belt.
+     */
+    public boolean broadcastPulseCommand(@Nullable final PulseCommand command) {
+        if (command == null) {
+            Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Cannot broadcast a null pulse command.");
+            return false;
+        }
+        return broadcast(new CommandSender() {
+            @Override
+            public boolean send(@NonNull BeltTarget target,
+                                @NonNull GattController.WriteCompletionCallback callback) {
+                return target.sendPulseCommand(command, callback);
+            }
+        });
+    }
+
+    /**
+     * Broadcasts a channel configuration command to all connected belts of the group.
+     *
+     * @param command The channel configuration command.
+     * @return <code>true</code> if the command has been sent or scheduled for at least one belt.
+     */
+    public boolean broadcastChannelConfigurationCommand(
+            @Nullable final ChannelConfigurationCommand command) {
+        if (command == null) {
+            Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Cannot broadcast a null channel " +
+                    "configuration command.");
+            return false;
+        }
+        return broadcast(new CommandSender() {
+            @Override
+            public boolean send(@NonNull BeltTarget target,
+                                @NonNull GattController.WriteCompletionCallback callback) {
+                return target.sendChannelConfigurationCommand(command, callback);
+            }
+        });
+    }
+
+    /**
+     * Estimates delivery times, schedules the commands and registers the broadcast for reporting.
+     *
+     * @param sender The sender of the command.
+     * @return <code>true</code> if the command has been sent or scheduled for at least one belt.
+     */
+    private boolean broadcast(@NonNull final CommandSender sender) {
+        // Select connected belts
+        ArrayList<BeltTarget> targets = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Cannot broadcast after close.");
+                return false;
+            }
+            for (BeltTarget t: belts) {
+                if (t.isConnected()) {
+                    targets.add(t);
+                }
+            }
+        }
+        if (targets.isEmpty()) {
+            Log.w(DEBUG_TAG, "MultiBeltBroadcaster: No connected belt for broadcast.");
+            return false;
+        }
+        // Estimate delivery time for each belt
+        int n = targets.size();
+        long[] estimatedDelivery = new long[n];
+        long minDelivery = Long.MAX_VALUE;
+        long maxDelivery = 0;
+        for (int i=0; i<n; i++) {
+            BeltTarget target = targets.get(i);
+            long latency = target.getAverageWriteLatencyNano();
+            if (latency < 0) {
+                latency = DEFAULT_WRITE_LATENCY_NANO;
+            }
+            // Pending operations are executed first, the belt receives the packet about half of the
+            // write round-trip before the acknowledgment
+            estimatedDelivery[i] = target.getPendingOperationCount()*latency + latency/2;
+            minDelivery = Math.min(minDelivery, estimatedDelivery[i]);
+            maxDelivery = Math.max(maxDelivery, estimatedDelivery[i]);
+        }
+        boolean compensate = (maxDelivery-minDelivery) > toleratedSkewNano;
+        // Register broadcast
+        final Broadcast broadcast;
+        synchronized (this) {
+            broadcast = new Broadcast(++broadcastCounter, targets);
+            activeBroadcasts.add(broadcast);
+        }
+        for (int i=0; i<n; i++) {
+            broadcast.delayNano[i] = (compensate)?(maxDelivery-estimatedDelivery[i]):(0);
+        }
+        // Schedule delayed commands first, then send immediate commands
+        for (int i=0; i<n; i++) {
+            if (broadcast.delayNano[i] > 0) {
+                final int index = i;
+                try {
+                    executor.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendCommand(broadcast, index, sender);
+                        }
+                    }, broadcast.delayNano[i], TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Failed to schedule command.", e);
+                    sendCommand(broadcast, index, sender);
+                }
+            }
+        }
+        for (int i=0; i<n; i++) {
+            if (broadcast.delayNano[i] <= 0) {
+                sendCommand(broadcast, i, sender);
+            }
+        }
+        // Timeout for the report
+        synchronized (broadcast) {
+            if (!broadcast.reported) {
+                try {
+                    broadcast.timeoutTask = executor.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            completeBroadcast(broadcast);
+                        }
+                    }, BROADCAST_REPORT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    Log.e(DEBUG_TAG, "MultiBeltBroadcaster: Failed to schedule report timeout.",
+                            e);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends the command of a broadcast to one belt. The acknowledgment is matched to this command
+     * by the completion callback of its write operation.
+     *
+     * @param broadcast The broadcast.
+     * @param index The index of the belt in the broadcast.
+     * @param sender The command sender.
+     */
+    private void sendCommand(@NonNull final Broadcast broadcast, final int index,
+                             @NonNull CommandSender sender) {
+        BeltTarget target = broadcast.targets.get(index);
+        synchronized (broadcast) {
+            broadcast.sendTimeNano[index] = System.nanoTime();
+        }
+        boolean sent = sender.send(target, new GattController.WriteCompletionCallback() {
+            @Override
+            public void onWriteCompleted(boolean success) {
+                onCommandAcknowledged(broadcast, index, success);
+            }
+        });
+        if (!sent) {
+            onCommandAcknowledged(broadcast, index, false);
+        }
+    }
+
+    /**
+     * Records the acknowledgment of a command by a belt. Only the first acknowledgment or failure
+     * of each belt is recorded.
+     *
+     * @param broadcast The broadcast.
+     * @param index The index of the belt in the broadcast.
+     * @param success <code>true</code> if the write succeed.
+     */
+    private void onCommandAcknowledged(@NonNull Broadcast broadcast, int index, boolean success) {
+        long now = System.nanoTime();
+        boolean complete;
+        synchronized (broadcast) {
+            if (broadcast.done[index]) {
+                return;
+            }
+            broadcast.done[index] = true;
+            if (success) {
+                broadcast.ackTimeNano[index] = now;
+            }
+            complete = (--broadcast.pendingCount == 0);
+        }
+        if (complete) {
+            completeBroadcast(broadcast);
+        }
+    }
+
+    /**
+     * Reports as failed the commands of active broadcasts that are not yet acknowledged by a belt.
+     *
+     * @param target The belt.
+     */
+    private void failPendingCommands(@NonNull BeltTarget target) {
+        ArrayList<Broadcast> broadcasts;
+        synchronized (this) {
+            if (activeBroadcasts.isEmpty()) {
+                return;
+            }
+            broadcasts = new ArrayList<>(activeBroadcasts);
+        }
+        for (Broadcast broadcast: broadcasts) {
+            int index = broadcast.targets.indexOf(target);
+            if (index >= 0) {
+                onCommandAcknowledged(broadcast, index, false);
+            }
+        }
+    }
+
+    /**
+     * Computes the report of a broadcast and notifies listeners. The report is only produced once.
+     *
+     * @param broadcast The broadcast to complete.
+     */
+    private void completeBroadcast(@NonNull Broadcast broadcast) {
+        BroadcastReport report;
+        synchronized (broadcast) {
+            if (broadcast.reported) {
+                return;
+            }
+            broadcast.reported = true;
+            if (broadcast.timeoutTask != null) {
+                broadcast.timeoutTask.cancel(false);
+            }
+            int n = broadcast.targets.size();
+            BeltConnectionInterface[] beltArray = new BeltConnectionInterface[n];
+            long[] onsetTimeNano = new long[n];
+            long minOnset = Long.MAX_VALUE;
+            long maxOnset = Long.MIN_VALUE;
+            int acknowledged = 0;
+            for (int i=0; i<n; i++) {
+                BeltTarget target = broadcast.targets.get(i);
+                beltArray[i] = target.belt;
+                if (broadcast.ackTimeNano[i] == 0) {
+                    onsetTimeNano[i] = -1;
+                    continue;
+                }
+                long latency = target.getAverageWriteLatencyNano();
+                if (latency < 0) {
+                    latency = DEFAULT_WRITE_LATENCY_NANO;
+                }
+                onsetTimeNano[i] = broadcast.ackTimeNano[i]-latency/2;
+                minOnset = Math.min(minOnset, onsetTimeNano[i]);
+                maxOnset = Math.max(maxOnset, onsetTimeNano[i]);
+                acknowledged++;
+            }
+            report = new BroadcastReport(broadcast.id, beltArray, broadcast.delayNano,
+                    broadcast.sendTimeNano, onsetTimeNano, acknowledged,
+                    (acknowledged > 1)?(maxOnset-minOnset):(0));
+        }
+        synchronized (this) {
+            activeBroadcasts.remove(broadcast);
+        }
+        ArrayList<BroadcastListener> targets;
+        synchronized (listeners) {
+            targets = new ArrayList<>(listeners);
+        }
+        for (BroadcastListener l: targets) {
+            l.onBroadcastCompleted(report);
+        }
+    }
+
+    /**
+     * Adds a broadcast listener.
+     *
+     * @param listener The listener to add.
+     */
+    public void addBroadcastListener(BroadcastListener listener) {
+        synchronized (listeners) {
+            if (listener != null && !listeners.contains(listener)) {
+                listeners.add(listener);
+            }
+        }
+    }
+
+    /**
+     * Removes a broadcast listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeBroadcastListener(BroadcastListener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Sender of a command to one belt.
+     */
+    private interface CommandSender {
+        boolean send(@NonNull BeltTarget target,
+                     @NonNull GattController.WriteCompletionCallback callback);
+    }
+
+    /**
+     * State of a broadcast.
+     */
+    private static class Broadcast {
+        final int id;
+        final @NonNull ArrayList<BeltTarget> targets;
+        final long[] delayNano;
+        final long[] sendTimeNano;
+        final long[] ackTimeNano;
+        final boolean[] done;
+        int pendingCount;
+        boolean reported = false;
+        @Nullable ScheduledFuture<?> timeoutTask;
+
+        Broadcast(int id, @NonNull ArrayList<BeltTarget> targets) {
+            this.id = id;
+            this.targets = targets;
+            int n = targets.size();
+            delayNano = new long[n];
+            sendTimeNano = new long[n];
+            ackTimeNano = new long[n];
+            done = new boolean[n];
+            pendingCount = n;
+        }
+    }
+
+    /**
+     * Belt of the broadcast group.
+     */
+    abstract static class BeltTarget {
+
+        final @Nullable BeltConnectionInterface belt;
+
+        BeltTarget(@Nullable BeltConnectionInterface belt) {
+            this.belt = belt;
+        }
+
+        /**
+         * Returns <code>true</code> if the belt is connected.
+         * @return <code>true</code> if the belt is connected.
+         */
+        abstract boolean isConnected();
+
+        /**
+         * Returns the average write latency of the belt.
+         * @return the average write latency in nanoseconds, or <code>-1</code> if unknown.
+         */
+        abstract long getAverageWriteLatencyNano();
+
+        /**
+         * Returns the number of GATT operations waiting before a new command.
+         * @return the number of pending operations.
+         */
+        abstract int getPendingOperationCount();
+
+        /**
+         * Sends a pulse command.
+         * @param command The command.
+         * @param callback The callback notified of the completion of the write.
+         * @return <code>true</code> if the command has been sent.
+         */
+        abstract boolean sendPulseCommand(@NonNull PulseCommand command,
+                                          @NonNull GattController.WriteCompletionCallback callback);
+
+        /**
+         * Sends a channel configuration command.
+         * @param command The command.
+         * @param callback The callback notified of the completion of the write.
+         * @return <code>true</code> if the command has been sent.
+         */
+        abstract boolean sendChannelConfigurationCommand(
+                @NonNull ChannelConfigurationCommand command,
+                @NonNull GattController.WriteCompletionCallback callback);
+
+        /**
+         * Registers the target for the connection events of the belt.
+         */
+        abstract void register();
+
+        /**
+         * Unregisters the target from the connection events of the belt.
+         */
+        abstract void unregister();
+    }
+
+    /**
+     * Belt connected through a GATT controller. Pending commands are reported as failed when the
+     * connection is lost, because the GATT controller does not notify cancelled writes.
+     */
+    private class GattBeltTarget extends BeltTarget implements GattController.GattEventListener {
+
+        final @NonNull BeltCommunicationController communicationController;
+        final @NonNull GattController gattController;
+
+        GattBeltTarget(@NonNull BeltConnectionInterface belt,
+                       @NonNull BeltCommunicationController communicationController) {
+            super(belt);
+            this.communicationController = communicationController;
+            this.gattController = communicationController.getGattController();
+        }
+
+        @Override
+        boolean isConnected() {
+            return gattController.getConnectionState() == GattConnectionState.GATT_CONNECTED;
+        }
+
+        @Override
+        long getAverageWriteLatencyNano() {
+            return gattController.getAverageWriteLatencyNano();
+        }
+
+        @Override
+        int getPendingOperationCount() {
+            return gattController.getPendingOperationCount();
+        }
+
+        @Override
+        boolean sendPulseCommand(@NonNull PulseCommand command,
+                                 @NonNull GattController.WriteCompletionCallback callback) {
+            return communicationController.sendPulseCommand(command, callback);
+        }
+
+        @Override
+        boolean sendChannelConfigurationCommand(
+                @NonNull ChannelConfigurationCommand command,
+                @NonNull GattController.WriteCompletionCallback callback) {
+            return communicationController.sendChannelConfigurationCommand(command, callback);
+        }
+
+        @Override
+        void register() {
+            gattController.addGattEventListener(this);
+        }
+
+        @Override
+        void unregister() {
+            gattController.removeGattEventListener(this);
+        }
+
+        @Override
+        public void onGattConnectionStateChange(GattConnectionState state) {
+            if (state == GattConnectionState.GATT_DISCONNECTED) {
+                failPendingCommands(this);
+            }
+        }
+
+        @Override
+        public void onGattConnectionFailed() {}
+
+        @Override
+        public void onGattConnectionLost() {
+            failPendingCommands(this);
+        }
+
+        @Override
+        public void onCharacteristicNotificationSet(
+                @NonNull BluetoothGattCharacteristic characteristic, boolean enable,
+                boolean success) {}
+
+        @Override
+        public void onCharacteristicRead(@NonNull BluetoothGattCharacteristic characteristic,
+                                         @Nullable byte[] value, boolean success) {}
+
+        @Override
+        public void onCharacteristicWrite(@NonNull BluetoothGattCharacteristic characteristic,
+                                          @Nullable byte[] value, boolean success) {}
+
+        @Override
+        public void onCharacteristicChanged(@Nullable BluetoothGattCharacteristic characteristic,
+                                            @Nullable byte[] value) {}
+
+        @Override
+        public void onRequestCompleted(int requestId, @Nullable byte[] notifiedValue,
+                                       boolean success) {}
+
+        @Override
+        public void onMtuChanged(int mtu, boolean success) {}
+    }
+
+    /**
+     * Report of a broadcast with the compensation delays and the measured skew.
+     */
+    public static class BroadcastReport {
+
+        private final int broadcastId;
+        private final BeltConnectionInterface[] belts;
+        private final long[] delayNano;
+        private final long[] sendTimeNano;
+        private final long[] onsetTimeNano;
+        private final int acknowledgedCount;
+        private final long skewNano;
+
+        BroadcastReport(int broadcastId, BeltConnectionInterface[] belts, long[] delayNano,
+                        long[] sendTimeNano, long[] onsetTimeNano, int acknowledgedCount,
+                        long skewNano) {
+            this.broadcastId = broadcastId;
+            this.belts = belts;
+            this.delayNano = delayNano;
+            this.sendTimeNano = sendTimeNano;
+            this.onsetTimeNano = onsetTimeNano;
+            this.acknowledgedCount = acknowledgedCount;
+            this.skewNano = skewNano;
+        }
+
+        /**
+         * Returns the identifier of the broadcast.
+         * @return the identifier of the broadcast.
+         */
+        public int getBroadcastId() {
+            return broadcastId;
+        }
+
+        /**
+         * Returns the number of belts targeted by the broadcast.
+         * @return the number of belts targeted by the broadcast.
+         */
+        public int getBeltCount() {
+            return belts.length;
+        }
+
+        /**
+         * Returns the number of belts that acknowledged the command.
+         * @return the number of belts that acknowledged the command.
+         */
+        public int getAcknowledgedCount() {
+            return acknowledgedCount;
+        }
+
+        /**
+         * Returns the belt at the given index of the report.
+         * @param index The index of the belt.
+         * @return the belt at the given index.
+         */
+        public BeltConnectionInterface getBelt(int index) {
+            return belts[index];
+        }
+
+        /**
+         * Returns the compensation delay applied to the belt at the given index.
+         * @param index The index of the belt.
+         * @return the compensation delay in nanoseconds.
+         */
+        public long getDelayNano(int index) {
+            return delayNano[index];
+        }
+
+        /**
+         * Returns the time at which the command has been passed to the GATT controller of the belt.
+         * @param index The index of the belt.
+         * @return the send time in nanoseconds (<code>System.nanoTime()</code> clock).
+         */
+        public long getSendTimeNano(int index) {
+            return sendTimeNano[index];
+        }
+
+        /**
+         * Returns the estimated onset time of the vibration for the belt at the given index.
+         * @param index The index of the belt.
+         * @return the estimated onset time in nanoseconds (<code>System.nanoTime()</code> clock),
+         * or <code>-1</code> if the command has not been acknowledged.
+         */
+        public long getOnsetTimeNano(int index) {
+            return onsetTimeNano[index];
+        }
+
+        /**
+         * Returns the measured skew, i.e. the spread of estimated onset times between acknowledged
+         * belts.
+         * @return the measured skew in nanoseconds.
+         */
+        public long getSkewNano() {
+            return skewNano;
+        }
+    }
+
+    /**
+     * Callback interface for broadcast reports.
+     */
+    public interface BroadcastListener {
+
+        /**
+         * Called when all belts acknowledged a broadcast command, or after
+         * {@link #BROADCAST_REPORT_TIMEOUT_MS}.
+         *
+         * @param report The report of the broadcast.
+         */
+        void onBroadcastCompleted(BroadcastReport report);
+    }
+
+}
@@ -12,6 +12,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The navigation controller simplifies connection and interaction with a belt. It is design for
@@ -30,8 +31,11 @@ public class NavigationController {
     // Belt controller
     private @NonNull BeltCommandInterface beltController;
 
-    // Navigation signal
-    private @Nullable BeltVibrationSignal navigationSignal;
+    // Log of inputs and decisions
+    private final @NonNull NavigationEventLog eventLog = new NavigationEventLog();
+
+    // Navigation state and decisions
+    private final @NonNull NavigationStateMachine stateMachine;
 
     // Flag for scheduled vibration command
     private @NonNull AtomicBoolean isVibrationCommandScheduled = new AtomicBoolean(false);
@@ -43,22 +47,62 @@ public class NavigationController {
     private @Nullable ScheduledFuture vibrationCommandTask;
 
     // Last vibration command send time
-    private long lastVibrationCommandNanoTime = 0;
+    private volatile long lastVibrationCommandNanoTime = 0;
 
-    // Minimum period between two vibration command
+    // Minimum period between two vibration command when the link latency is unknown
     private static final long MINIMUM_VIBRATION_COMMAND_UPDATE_PERIOD_NANO = 100*1000000;
 
-    // Direction of the navigation
-    private int navigationDirection = 0;
+    // Bounds of the adaptive period between two vibration commands
+    private static final long MIN_ADAPTIVE_UPDATE_PERIOD_NANO = 40*1000000;
+    private static final long MAX_ADAPTIVE_UPDATE_PERIOD_NANO = 500*1000000;
+
+    // Number of write latencies to wait between two vibration commands on an idle link
+    private static final int IDLE_LINK_LATENCY_FACTOR = 2;
+
+    // Smoothing factor of the interval between vibration commands
+    private static final double UPDATE_INTERVAL_SMOOTHING_FACTOR = 0.25;
+
+    // GATT controller for link feedback, null if the command interface is not the default one
+    private @Nullable GattController gattController;
+
+    // Smoothed interval between two vibration commands sent, or -1 if unknown
+    private volatile double averageUpdateIntervalNano = -1;
+
+    // Deadband and hysteresis of direction updates in degrees
+    private int directionDeadband = 0;
+    private int directionHysteresis = 0;
+
+    // Minimum time a direction is signaled before being changed
+    private volatile long minDirectionHoldTimeNano = 0;
+
+    // Flag for a direction that is changing, i.e. the last direction update passed the deadband
+    private boolean directionTracking = false;
+
+    // Last direction sent and its send time
+    private volatile int lastSentDirection = 0;
+    private volatile long lastDirectionChangeNanoTime = 0;
+
+    // Predictor of the belt heading for directions relative to the belt
+    private final @NonNull HeadingPredictor headingPredictor = new HeadingPredictor();
+
+    // Flag for the compensation of the command latency with the predicted heading
+    private volatile boolean headingPredictionEnabled = true;
+
+    // Route followed by the navigation, null when navigating with directions
+    private volatile @Nullable RouteFollower routeFollower;
 
-    // Flag for mag. bearing
-    private boolean isMagneticBearingDirection = true;
+    // Magnetic declination at the route location, in degrees East
+    private volatile float routeMagneticDeclination = 0;
 
-    // State of the navigation
-    private @NonNull NavigationState navigationState;
+    // Distances in meters that select the route navigation signal
+    private static final double WAYPOINT_AREA_DISTANCE_M = 20;
+    private static final double WAYPOINT_SHORT_DISTANCE_M = 50;
+    private static final double WAYPOINT_MEDIUM_DISTANCE_M = 200;
+    private static final double APPROACHING_DESTINATION_DISTANCE_M = 50;
+    private static final double DESTINATION_REACHED_DISTANCE_M = 10;
 
-    // Flag that indicate that the current pause mode has been set by the application
-    private boolean isPauseModeForNavigation = false;
+    // Number of direction updates suppressed by the deadband
+    private final @NonNull AtomicLong suppressedDirectionUpdateCount = new AtomicLong();
 
     // Flag for compass accuracy signal
     private Boolean compassAccuracySignalEnabled = null;
@@ -67,10 +111,19 @@ public class NavigationController {
     private @NonNull ArrayList<NavigationEventListener> listeners = new ArrayList<>();
 
     /**
-     * Channel index used for the navigation signal.
+     * Preferred channel index for the navigation signal. The channel is leased from the channel
+     * manager of the belt, and another channel is used if the preferred one is leased.
      */
     protected static final int NAVIGATION_SIGNAL_CHANNEL = 2;
 
+    /**
+     * Priority of the navigation signal for the channel manager of the belt.
+     */
+    protected static final int NAVIGATION_SIGNAL_PRIORITY = 50;
+
+    // Channel lease of the navigation signal, null when no signal is played
+    private @Nullable VibrationChannelLease navigationLease;
+
     /**
      * Constructor.
      *
@@ -84,8 +137,12 @@ public class NavigationController {
         BeltListener beltListener = new BeltListener();
         beltConnection.addConnectionListener(beltListener);
         beltController.addCommandListener(beltListener);
-        this.navigationState = NavigationState.STOPPED;
+        beltController.addOrientationListener(beltListener);
+        stateMachine = new NavigationStateMachine(new NavigationEffects(), eventLog);
         executor = beltConnection.getExecutor();
+        if (beltController instanceof BeltCommunicationController) {
+            gattController = ((BeltCommunicationController) beltController).getGattController();
+        }
     }
 
     /**
@@ -124,7 +181,8 @@ public class NavigationController {
      * Disconnects the belt.
      */
     public void disconnectBelt() {
-        if (navigationState == NavigationState.PAUSED && isPauseModeForNavigation &&
+        if (stateMachine.getState() == NavigationState.PAUSED &&
+                stateMachine.isPauseModeForNavigation() &&
                 beltConnection.getState() == BeltConnectionState.STATE_CONNECTED) {
             // TODO Check if mode change with timeout is necessary, or delayed disconnection
             beltController.changeMode(BeltMode.WAIT);
@@ -148,7 +206,24 @@ public class NavigationController {
      * @return The navigation state.
      */
     public NavigationState getNavigationState() {
-        return navigationState;
+        return stateMachine.getState();
+    }
+
+    /**
+     * Returns the log of the inputs and decisions of the navigation. The log can be written to a
+     * stream and replayed offline with {@link NavigationReplay}.
+     *
+     * @return the navigation event log.
+     */
+    public NavigationEventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Returns <code>true</code> if the belt is connected.
+     */
+    private boolean isBeltConnected() {
+        return beltConnection.getState() == BeltConnectionState.STATE_CONNECTED;
     }
 
     /**
@@ -296,22 +371,12 @@ public class NavigationController {
         if (signal != null && !signal.isRepeated()) {
             throw new IllegalArgumentException("The navigation signal must be a repeated signal.");
         }
-        if (navigationState == NavigationState.NAVIGATING) {
+        if (stateMachine.getState() == NavigationState.NAVIGATING) {
             updateNavigationSignal(direction, isMagneticBearing, signal);
             return;
         }
-        navigationDirection = direction;
-        isMagneticBearingDirection = isMagneticBearing;
-        navigationSignal = signal;
-        navigationState = NavigationState.NAVIGATING;
-        if (beltConnection.getState() == BeltConnectionState.STATE_CONNECTED) {
-            if (beltController.getMode() == BeltMode.APP) {
-                scheduleOrSendVibrationCommand();
-            } else {
-                beltController.changeMode(BeltMode.APP);
-            }
-        }
-        notifyNavigationStateChanged();
+        stateMachine.startNavigation(direction, isMagneticBearing, signal, isBeltConnected(),
+                beltController.getMode());
     }
 
     /**
@@ -330,41 +395,160 @@ public class NavigationController {
         if (signal != null && !signal.isRepeated()) {
             throw new IllegalArgumentException("The navigation signal must be a repeated signal.");
         }
-        navigationDirection = direction;
-        isMagneticBearingDirection = isMagneticBearing;
-        navigationSignal = signal;
-        scheduleOrSendVibrationCommand();
+        boolean suppressed = isMagneticBearing == stateMachine.isMagneticBearing() &&
+                signal == stateMachine.getSignal() && isDirectionChangeSuppressed(direction);
+        if (suppressed) {
+            suppressedDirectionUpdateCount.incrementAndGet();
+            beltConnection.getMetrics().increment(Metric.NAVIGATION_UPDATES_SUPPRESSED);
+        }
+        stateMachine.updateNavigationSignal(direction, isMagneticBearing, signal, suppressed);
     }
 
     /**
-     * Pauses the navigation and changes the mode of the belt to Pause if connected and in App mode.
+     * Starts the navigation along a route. The navigation starts with the first location given
+     * to {@link #updateRouteLocation(double, double)}. The navigation signal is then oriented to
+     * the next waypoint, and its type depends on the distance to the waypoint and to the
+     * destination. The navigation is stopped when the destination is reached.
+     *
+     * @param latitudes The latitudes of the waypoints in degrees, the last one is the destination.
+     * @param longitudes The longitudes of the waypoints in degrees.
+     * @param magneticDeclination The magnetic declination in degrees East, used to convert
+     *                            geographic bearings to magnetic bearings.
+     * @throws IllegalArgumentException If the route has less than two waypoints or a coordinate
+     * is out of range.
      */
-    public void pauseNavigation() {
-        if (navigationState != NavigationState.NAVIGATING) {
-            return;
+    public void startRouteNavigation(double[] latitudes, double[] longitudes,
+                                     float magneticDeclination) throws IllegalArgumentException {
+        RouteFollower follower = new RouteFollower(latitudes, longitudes);
+        routeMagneticDeclination = magneticDeclination;
+        routeFollower = follower;
+    }
+
+    /**
+     * Updates the location for the navigation along a route.
+     *
+     * @param latitude The latitude in degrees.
+     * @param longitude The longitude in degrees.
+     * @return <code>false</code> if no route is followed or the location is out of range.
+     */
+    public boolean updateRouteLocation(double latitude, double longitude) {
+        RouteFollower follower = routeFollower;
+        if (follower == null) {
+            Log.e(DEBUG_TAG, "NavigationController: No route to update.");
+            return false;
+        }
+        try {
+            follower.update(latitude, longitude);
+        } catch (IllegalArgumentException e) {
+            Log.e(DEBUG_TAG, "NavigationController: Route location out of range.");
+            return false;
+        }
+        double destinationDistance = follower.getDistanceToDestination();
+        if (follower.isLastSegment() && destinationDistance < DESTINATION_REACHED_DISTANCE_M) {
+            notifyDestinationReached(true);
+            return true;
+        }
+        BeltVibrationSignal signal;
+        double waypointDistance = follower.getDistanceToNextWaypoint();
+        if (follower.isLastSegment() &&
+                destinationDistance < APPROACHING_DESTINATION_DISTANCE_M) {
+            signal = BeltVibrationSignal.APPROACHING_DESTINATION;
+        } else if (waypointDistance < WAYPOINT_AREA_DISTANCE_M) {
+            signal = BeltVibrationSignal.NEXT_WAYPOINT_AREA_REACHED;
+        } else if (waypointDistance < WAYPOINT_SHORT_DISTANCE_M) {
+            signal = BeltVibrationSignal.NEXT_WAYPOINT_SHORT_DISTANCE;
+        } else if (waypointDistance < WAYPOINT_MEDIUM_DISTANCE_M) {
+            signal = BeltVibrationSignal.NEXT_WAYPOINT_MEDIUM_DISTANCE;
+        } else {
+            signal = BeltVibrationSignal.NEXT_WAYPOINT_LONG_DISTANCE;
         }
-        navigationState = NavigationState.PAUSED;
-        if (beltConnection.getState() == BeltConnectionState.STATE_CONNECTED &&
-                beltController.getMode() == BeltMode.APP) {
-            beltController.changeMode(BeltMode.PAUSE);
+        int direction = (int) Math.round(
+                follower.getBearingToNextWaypoint()-routeMagneticDeclination);
+        direction = ((direction%360)+360)%360;
+        if (stateMachine.getState() == NavigationState.STOPPED) {
+            startNavigation(direction, true, signal);
+        } else {
+            updateNavigationSignal(direction, true, signal);
         }
-        notifyNavigationStateChanged();
+        return true;
     }
 
     /**
-     * Stops the navigation and changes the mode of the belt to Wait if connected and in App mode.
+     * Returns the follower of the current route.
+     *
+     * @return the route follower, or <code>null</code> if no route is followed.
      */
-    public void stopNavigation() {
-        if (navigationState == NavigationState.STOPPED) {
-            return;
+    public @Nullable RouteFollower getRouteFollower() {
+        return routeFollower;
+    }
+
+    /**
+     * Sets the deadband of navigation direction updates. A direction update is ignored when the
+     * difference with the current direction is below the deadband. The hysteresis raises the
+     * threshold by its value when the direction is stable, and lowers it by its value when the
+     * direction is changing, so that noise around the threshold does not toggle the signal.
+     *
+     * @param deadband The deadband in degrees, <code>0</code> to disable the deadband.
+     * @param hysteresis The hysteresis in degrees, lower than the deadband, or <code>0</code> when
+     *                   the deadband is disabled.
+     * @param minHoldTimeMs The minimum time in milliseconds a direction is signaled before being
+     *                      changed, <code>0</code> for no minimum time.
+     * @throws IllegalArgumentException If a value is negative or the hysteresis is not lower than
+     * a non-zero deadband.
+     */
+    public void setDirectionDeadband(int deadband, int hysteresis, long minHoldTimeMs)
+            throws IllegalArgumentException {
+        // A hysteresis equal to the deadband would disable the deadband once tracking
+        if (deadband < 0 || deadband > 180 || hysteresis < 0 ||
+                (hysteresis > 0 && hysteresis >= deadband) || minHoldTimeMs < 0) {
+            throw new IllegalArgumentException("Illegal direction deadband parameters.");
         }
-        navigationState = NavigationState.STOPPED;
-        if (beltConnection.getState() == BeltConnectionState.STATE_CONNECTED &&
-                (beltController.getMode() == BeltMode.APP ||
-                        (beltController.getMode() == BeltMode.PAUSE && isPauseModeForNavigation))) {
-            beltController.changeMode(BeltMode.WAIT);
+        synchronized (this) {
+            directionDeadband = deadband;
+            directionHysteresis = hysteresis;
+            minDirectionHoldTimeNano = minHoldTimeMs*1000000L;
+            directionTracking = false;
         }
-        notifyNavigationStateChanged();
+    }
+
+    /**
+     * Returns the number of direction updates ignored because of the deadband.
+     *
+     * @return the number of suppressed direction updates.
+     */
+    public long getSuppressedDirectionUpdateCount() {
+        return suppressedDirectionUpdateCount.get();
+    }
+
+    /**
+     * Checks a direction update against the deadband and updates the hysteresis state.
+     *
+     * @return <code>true</code> if the update must be ignored.
+     */
+    private synchronized boolean isDirectionChangeSuppressed(int direction) {
+        if (directionDeadband == 0) {
+            return false;
+        }
+        int delta = Math.abs(((direction-stateMachine.getDirection())%360+540)%360-180);
+        int threshold = (directionTracking)?(directionDeadband-directionHysteresis):
+                (directionDeadband+directionHysteresis);
+        directionTracking = (delta >= threshold);
+        return !directionTracking;
+    }
+
+    /**
+     * Pauses the navigation and changes the mode of the belt to Pause if connected and in App mode.
+     */
+    public void pauseNavigation() {
+        stateMachine.pauseNavigation(isBeltConnected(), beltController.getMode());
+    }
+
+    /**
+     * Stops the navigation and changes the mode of the belt to Wait if connected and in App mode.
+     */
+    public void stopNavigation() {
+        routeFollower = null;
+        stateMachine.stopNavigation(isBeltConnected(), beltController.getMode());
     }
 
     /**
@@ -501,12 +685,16 @@ public class NavigationController {
     private void scheduleOrSendVibrationCommand() {
         if (isVibrationCommandScheduled.compareAndSet(false, true)) {
             long currentTimeNano = System.nanoTime();
-            if (lastVibrationCommandNanoTime+MINIMUM_VIBRATION_COMMAND_UPDATE_PERIOD_NANO <
-                    currentTimeNano) {
+            long nextUpdateTimeNano = lastVibrationCommandNanoTime+
+                    getVibrationCommandUpdatePeriodNano();
+            if (stateMachine.getDirection() != lastSentDirection) {
+                // Keep the current direction for the minimum hold time
+                nextUpdateTimeNano = Math.max(nextUpdateTimeNano,
+                        lastDirectionChangeNanoTime+minDirectionHoldTimeNano);
+            }
+            if (nextUpdateTimeNano < currentTimeNano) {
                 // Send command
-                lastVibrationCommandNanoTime = System.nanoTime();
-                sendVibrationCommand(beltConnection, navigationDirection,
-                        isMagneticBearingDirection, navigationSignal);
+                sendNavigationVibrationCommand();
                 isVibrationCommandScheduled.set(false);
             } else {
                 // Schedule command
@@ -514,25 +702,132 @@ public class NavigationController {
                     vibrationCommandTask = executor.schedule(new Runnable() {
                         @Override
                         public void run() {
-                            sendVibrationCommand(beltConnection, navigationDirection,
-                                    isMagneticBearingDirection, navigationSignal);
+                            sendNavigationVibrationCommand();
                             vibrationCommandTask = null;
                             isVibrationCommandScheduled.set(false);
                         }
-                    }, MINIMUM_VIBRATION_COMMAND_UPDATE_PERIOD_NANO, TimeUnit.NANOSECONDS);
+                    }, nextUpdateTimeNano-currentTimeNano, TimeUnit.NANOSECONDS);
                 } catch (Exception e) {
                     Log.e(DEBUG_TAG, "NavigationController: Unable to delay the " +
                             "vibration command.");
                     // Send command
-                    lastVibrationCommandNanoTime = System.nanoTime();
-                    sendVibrationCommand(beltConnection, navigationDirection,
-                            isMagneticBearingDirection, navigationSignal);
+                    sendNavigationVibrationCommand();
                     isVibrationCommandScheduled.set(false);
                 }
             }
         } // Else: a vibration command is already scheduled
     }
 
+    /**
+     * Sends the vibration command of the navigation and updates the update interval.
+     */
+    private void sendNavigationVibrationCommand() {
+        long sendTimeNano = System.nanoTime();
+        long previousSendTimeNano = lastVibrationCommandNanoTime;
+        lastVibrationCommandNanoTime = sendTimeNano;
+        int direction = stateMachine.getDirection();
+        if (direction != lastSentDirection) {
+            lastSentDirection = direction;
+            lastDirectionChangeNanoTime = sendTimeNano;
+        }
+        MetricsRegistry metrics = beltConnection.getMetrics();
+        metrics.increment(Metric.NAVIGATION_COMMANDS_SENT);
+        if (previousSendTimeNano != 0) {
+            long interval = sendTimeNano-previousSendTimeNano;
+            metrics.record(Metric.NAVIGATION_COMMAND_INTERVAL_MS, interval/1000000);
+            double average = averageUpdateIntervalNano;
+            averageUpdateIntervalNano = (average < 0)?(interval):
+                    (average+UPDATE_INTERVAL_SMOOTHING_FACTOR*(interval-average));
+        }
+        boolean isMagneticBearing = stateMachine.isMagneticBearing();
+        BeltVibrationSignal signal = stateMachine.getSignal();
+        if (!isMagneticBearing && headingPredictionEnabled) {
+            direction = compensateRelativeDirection(direction, sendTimeNano);
+        }
+        sendVibrationCommand(beltConnection, direction, isMagneticBearing, signal);
+        VibrationChannelLease lease = navigationLease;
+        eventLog.append(NavigationLogEventType.VIBRATION_COMMAND_SENT, direction,
+                NavigationStateMachine.encodeSignal(isMagneticBearing, signal),
+                (lease == null)?(VibrationChannelLease.NO_CHANNEL):(lease.getChannelIndex()));
+    }
+
+    /**
+     * Compensates a direction relative to the belt for the rotation of the belt between the
+     * sending of the command and its reception by the belt. The rotation before the sending is
+     * not compensated, so re-sending a direction after a turn gives the same direction.
+     *
+     * @param direction The relative direction in degrees.
+     * @param sendTimeNano The time the command is sent.
+     * @return the compensated direction in degrees.
+     */
+    private int compensateRelativeDirection(int direction, long sendTimeNano) {
+        // The belt applies the command about half the write round trip after sending
+        long latency = 0;
+        GattController gatt = gattController;
+        if (gatt != null && gatt.getAverageWriteLatencyNano() > 0) {
+            latency = gatt.getAverageWriteLatencyNano()/2;
+        }
+        double rotation = headingPredictor.predictRotation(sendTimeNano, latency);
+        if (Double.isNaN(rotation)) {
+            return direction;
+        }
+        return (int) Math.round(direction-rotation);
+    }
+
+    /**
+     * Enables or disables the compensation of the command latency for directions relative to
+     * the belt. When enabled, the rotation of the belt predicted from the orientation stream
+     * between the sending and the reception of the command is subtracted from the direction.
+     *
+     * @param enable <code>true</code> to enable the compensation.
+     */
+    public void setHeadingPredictionEnabled(boolean enable) {
+        headingPredictionEnabled = enable;
+    }
+
+    /**
+     * Returns the heading predictor used to compensate the command latency. The predictor gives
+     * the prediction error measured on the orientation stream.
+     *
+     * @return the heading predictor.
+     */
+    public HeadingPredictor getHeadingPredictor() {
+        return headingPredictor;
+    }
+
+    /**
+     * Returns the minimum period between two navigation vibration commands. The period adapts to
+     * the link: it is a few times the average write latency on an idle link, and increases with
+     * the number of operations waiting in the GATT queue.
+     *
+     * @return the minimum update period in nanoseconds.
+     */
+    public long getVibrationCommandUpdatePeriodNano() {
+        GattController gatt = gattController;
+        if (gatt == null) {
+            return MINIMUM_VIBRATION_COMMAND_UPDATE_PERIOD_NANO;
+        }
+        long latency = gatt.getAverageWriteLatencyNano();
+        if (latency < 0) {
+            return MINIMUM_VIBRATION_COMMAND_UPDATE_PERIOD_NANO;
+        }
+        long period = latency*(IDLE_LINK_LATENCY_FACTOR+gatt.getPendingOperationCount());
+        return Math.max(MIN_ADAPTIVE_UPDATE_PERIOD_NANO,
+                Math.min(MAX_ADAPTIVE_UPDATE_PERIOD_NANO, period));
+    }
+
+    /**
+     * Returns the effective update rate of the navigation signal, computed from the smoothed
+     * interval between vibration commands sent to the belt.
+     *
+     * @return the effective update rate in Hz, or <code>0</code> if less than two commands have
+     * been sent.
+     */
+    public double getEffectiveUpdateRate() {
+        double interval = averageUpdateIntervalNano;
+        return (interval > 0)?(1e9/interval):(0);
+    }
+
     /**
      * Sends the command for the navigation signal.
      *
@@ -556,38 +851,94 @@ public class NavigationController {
         }
         if (signal == null || !signal.isRepeated()) {
             // Stop the vibration
-            controller.stopVibration(NAVIGATION_SIGNAL_CHANNEL);
-        } else if (signal.isDirectional()) {
+            releaseNavigationChannel();
+            return;
+        }
+        int channel = getNavigationChannel(controller);
+        if (channel == VibrationChannelLease.NO_CHANNEL) {
+            // Suspended by signals with higher priority
+            return;
+        }
+        if (signal.isDirectional()) {
             if (isMagneticBearing) {
                 controller.vibrateAtMagneticBearing(
                         direction,
                         null,
                         signal,
-                        NAVIGATION_SIGNAL_CHANNEL,
+                        channel,
                         null);
             } else {
                 controller.vibrateAtAngle(
                         direction,
                         null,
                         signal,
-                        NAVIGATION_SIGNAL_CHANNEL,
+                        channel,
                         null);
             }
         } else {
             controller.signal(
                     signal,
                     null,
-                    NAVIGATION_SIGNAL_CHANNEL,
+                    channel,
                     null);
         }
     }
 
+    /**
+     * Returns the channel of the navigation signal, leasing a channel if necessary.
+     *
+     * @param controller The command interface of the belt.
+     * @return the channel index, or {@link VibrationChannelLease#NO_CHANNEL} if the navigation
+     * signal is suspended.
+     */
+    private synchronized int getNavigationChannel(@NonNull BeltCommandInterface controller) {
+        if (navigationLease == null) {
+            navigationLease = controller.getChannelManager().acquire(NAVIGATION_SIGNAL_PRIORITY,
+                    NAVIGATION_SIGNAL_CHANNEL, new NavigationChannelSignal());
+        }
+        return navigationLease.getChannelIndex();
+    }
+
+    /**
+     * Releases the channel of the navigation signal, which stops the signal.
+     */
+    private void releaseNavigationChannel() {
+        VibrationChannelLease lease;
+        synchronized (this) {
+            lease = navigationLease;
+            navigationLease = null;
+        }
+        if (lease != null) {
+            lease.release();
+        }
+    }
+
+    /**
+     * Signal of the navigation for the channel manager.
+     */
+    private class NavigationChannelSignal implements VibrationChannelSignal {
+
+        @Override
+        public void onChannelGranted(int channelIndex) {
+            if (stateMachine.getState() == NavigationState.NAVIGATING) {
+                // Restart the navigation signal on the new channel
+                executor.execute(NavigationController.this::scheduleOrSendVibrationCommand);
+            }
+        }
+
+        @Override
+        public void onChannelRevoked(int channelIndex) {
+            if (DEBUG) Log.i(DEBUG_TAG, "NavigationController: Navigation signal suspended " +
+                    "for a signal with higher priority.");
+        }
+    }
+
     /**
      * Notifies listeners of a navigation state change.
      */
     private void notifyNavigationStateChanged() {
         ArrayList<NavigationEventListener> targets;
-        NavigationState state = navigationState;
+        NavigationState state = stateMachine.getState();
         synchronized (this) {
             if (listeners.isEmpty()) {
                 return;
@@ -753,138 +1104,61 @@ public class NavigationController {
         }
     }
 
+    /**
+     * Effects of the decisions of the state machine.
+     */
+    private class NavigationEffects implements NavigationStateMachine.Effects {
+
+        @Override
+        public void changeBeltMode(@NonNull BeltMode mode) {
+            beltController.changeMode(mode);
+        }
+
+        @Override
+        public void sendVibrationCommand() {
+            scheduleOrSendVibrationCommand();
+        }
+
+        @Override
+        public void onNavigationStateChanged(@NonNull NavigationState state) {
+            if (state != NavigationState.NAVIGATING) {
+                releaseNavigationChannel();
+            }
+            if (state == NavigationState.STOPPED) {
+                routeFollower = null;
+            }
+            notifyNavigationStateChanged();
+        }
+
+        @Override
+        public void onHomeButtonPressed(boolean navigating) {
+            notifyHomeButtonPressed(navigating);
+        }
+
+        @Override
+        public void onOutOfSync(@NonNull NavigationState state, @NonNull BeltMode mode) {
+            Log.w(DEBUG_TAG, "NavigationController: Navigation state and belt mode out of " +
+                    "sync (" + state + ", " + mode + ").");
+        }
+    }
+
     /**
      * Connection listener and command listener for the navigation controller.
      */
-    class BeltListener implements BeltConnectionListener, BeltCommandListener {
+    class BeltListener implements BeltConnectionListener, BeltCommandListener,
+            BeltOrientationListener {
 
         @Override
         public void onBeltModeChanged(BeltMode mode) {
-            isPauseModeForNavigation = false;
-            switch (mode) {
-                case STANDBY:
-                    // Nothing to do, the belt has been switched-off
-                    break;
-                case WAIT:
-                    // The navigation should be in stop state
-                    if (navigationState != NavigationState.STOPPED) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        stopNavigation();
-                    }
-                    break;
-                case APP:
-                    // The navigation have been started
-                    if (navigationState != NavigationState.NAVIGATING) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        if (navigationState == NavigationState.STOPPED) {
-                            beltController.changeMode(BeltMode.WAIT);
-                        } else if (navigationState == NavigationState.PAUSED) {
-                            beltController.changeMode(BeltMode.PAUSE);
-                        }
-                    } else {
-                        scheduleOrSendVibrationCommand();
-                    }
-                    break;
-                case PAUSE:
-                    // The navigation has been paused
-                    if (navigationState != NavigationState.PAUSED) {
-                        pauseNavigation();
-                    } else {
-                        isPauseModeForNavigation = true;
-                    }
-                    break;
-                case COMPASS:
-                case CALIBRATION:
-                case CROSSING:
-                    // The navigation should be in pause or stop state
-                    if (navigationState == NavigationState.NAVIGATING) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        pauseNavigation();
-                    }
-                    break;
-                case UNKNOWN:
-                    // Nothing to do
-                    break;
-            }
+            stateMachine.onBeltModeChanged(mode, isBeltConnected(), beltController.getMode());
         }
 
         @Override
         public void onBeltButtonPressed(BeltButtonPressEvent beltButtonPressEvent) {
-            isPauseModeForNavigation = false;
-            if (beltButtonPressEvent.getButton() == BeltButton.HOME &&
-                    beltButtonPressEvent.getPreviousMode() ==
-                            beltButtonPressEvent.getSubsequentMode()) {
-                // Home button pressed for application action
-                // Note: Home button can be pressed to stop calibration and return to wait mode.
-                switch (navigationState) {
-                    case STOPPED:
-                        // Should not be in app mode
-                        if (beltController.getMode() == BeltMode.APP) {
-                            Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                    "belt mode out of sync.");
-                            beltController.changeMode(BeltMode.WAIT);
-                        } else {
-                            notifyHomeButtonPressed(false);
-                        }
-                        break;
-                    case PAUSED:
-                        // Resume navigation
-                        startNavigation(navigationDirection, isMagneticBearingDirection,
-                                navigationSignal);
-                        break;
-                    case NAVIGATING:
-                        // Should be in app mode
-                        if (beltController.getMode() != BeltMode.APP) {
-                            Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                    "belt mode out of sync.");
-                            beltController.changeMode(BeltMode.APP);
-                        } else {
-                            notifyHomeButtonPressed(true);
-                        }
-                        break;
-                }
-            } else if (beltButtonPressEvent.getButton() == BeltButton.PAUSE &&
-                    beltButtonPressEvent.getPreviousMode() ==
-                            beltButtonPressEvent.getSubsequentMode()) {
-                // Pause button pressed for application pause or resume
-                if (beltButtonPressEvent.getSubsequentMode() == BeltMode.APP) {
-                    // Pause request from belt (should be navigating)
-                    if (navigationState == NavigationState.PAUSED) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        beltController.changeMode(BeltMode.PAUSE);
-                    } else if (navigationState == NavigationState.STOPPED) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        beltController.changeMode(BeltMode.WAIT);
-                    } else {
-                        pauseNavigation();
-                    }
-                } else if (beltButtonPressEvent.getSubsequentMode() == BeltMode.PAUSE) {
-                    // Resume request from belt (should be in pause state)
-                    if (navigationState == NavigationState.NAVIGATING) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        beltController.changeMode(BeltMode.APP);
-                    } else if (navigationState == NavigationState.STOPPED) {
-                        Log.w(DEBUG_TAG, "NavigationController: Navigation state and " +
-                                "belt mode out of sync.");
-                        beltController.changeMode(BeltMode.WAIT);
-                    } else {
-                        startNavigation(navigationDirection, isMagneticBearingDirection,
-                                navigationSignal);
-                    }
-                } // Note: Pause button changes the mode in any other cases.
-            } else if (beltButtonPressEvent.getSubsequentMode() != BeltMode.APP) {
-                // Pause the navigation if navigating
-                // Note: The mode cannot be changed to app mode with a button press.
-                if (navigationState == NavigationState.NAVIGATING) {
-                    pauseNavigation();
-                }
-            }
+            stateMachine.onBeltButtonPressed(beltButtonPressEvent.getButton(),
+                    beltButtonPressEvent.getPreviousMode(),
+                    beltButtonPressEvent.getSubsequentMode(), isBeltConnected(),
+                    beltController.getMode());
         }
 
         @Override
@@ -899,9 +1173,13 @@ public class NavigationController {
 
         @Override
         public void onBeltOrientationUpdated(BeltOrientation orientation) {
-            notifyBeltOrientationUpdated(orientation.getBeltHeading(),
-                    (orientation.isOrientationAccurate()==null)?(true):
-                            (orientation.isOrientationAccurate()));
+            // Orientation updates are received as samples
+        }
+
+        @Override
+        public void onBeltOrientationSample(OrientationSample sample) {
+            headingPredictor.addSample(sample.getBeltHeading(), sample.getReceiveTimeNano());
+            notifyBeltOrientationUpdated(sample.getBeltHeading(), sample.isOrientationAccurate());
         }
 
         @Override
@@ -927,19 +1205,15 @@ public class NavigationController {
 
         @Override
         public void onConnectionStateChange(BeltConnectionState state) {
-            isPauseModeForNavigation = false;
             compassAccuracySignalEnabled = null;
+            if (state != BeltConnectionState.STATE_CONNECTED) {
+                headingPredictor.reset();
+            }
             if (state == BeltConnectionState.STATE_CONNECTED) {
                 beltController.setOrientationNotificationsActive(true);
                 beltController.requestCompassAccuracySignalState();
-                if (navigationState == NavigationState.NAVIGATING) {
-                    if (beltController.getMode() == BeltMode.APP) {
-                        scheduleOrSendVibrationCommand();
-                    } else {
-                        beltController.changeMode(BeltMode.APP);
-                    }
-                }
             }
+            stateMachine.onConnectionStateChanged(state, beltController.getMode());
             notifyBeltConnectionStateChanged(state);
         }
 
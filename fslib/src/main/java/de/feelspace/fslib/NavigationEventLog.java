@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Log of the inputs and decisions of the navigation controller.
+ *
+ * The log is a preallocated ring buffer of events with three integer arguments, so that
+ * appending an event does not allocate memory. When the log is full, the oldest events are
+ * overwritten. The log can be written to a stream and read back for a replay with
+ * {@link NavigationReplay}.
+ *
+ * <P>
+ * Arguments of events:
+ * <ul>
+ *     <li>{@link NavigationLogEventType#SNAPSHOT}: navigation state, direction, signal flags
+ *     with the pause flag in bit 8.</li>
+ *     <li>{@link NavigationLogEventType#START_NAVIGATION}: direction, signal flags, belt
+ *     context.</li>
+ *     <li>{@link NavigationLogEventType#UPDATE_NAVIGATION_SIGNAL}: direction, signal flags,
+ *     <code>1</code> if the update has been suppressed by the deadband.</li>
+ *     <li>{@link NavigationLogEventType#PAUSE_NAVIGATION},
+ *     {@link NavigationLogEventType#STOP_NAVIGATION}: belt context in the third argument.</li>
+ *     <li>{@link NavigationLogEventType#BELT_MODE_CHANGED}: new mode, unused, belt context.</li>
+ *     <li>{@link NavigationLogEventType#BELT_BUTTON_PRESSED}: button, previous mode and
+ *     subsequent mode (<code>previous*256+subsequent</code>), belt context.</li>
+ *     <li>{@link NavigationLogEventType#CONNECTION_STATE_CHANGED}: connection state, unused,
+ *     belt context.</li>
+ *     <li>{@link NavigationLogEventType#NAVIGATION_STATE_CHANGED}: navigation state.</li>
+ *     <li>{@link NavigationLogEventType#BELT_MODE_CHANGE_REQUESTED}: requested mode.</li>
+ *     <li>{@link NavigationLogEventType#VIBRATION_COMMAND_REQUESTED}: direction, signal
+ *     flags.</li>
+ *     <li>{@link NavigationLogEventType#HOME_BUTTON_NOTIFIED}: <code>1</code> if
+ *     navigating.</li>
+ *     <li>{@link NavigationLogEventType#VIBRATION_COMMAND_SENT}: direction sent, signal flags,
+ *     channel.</li>
+ * </ul>
+ * Enumerations are logged by ordinal. Signal flags are <code>1</code> for a magnetic bearing
+ * plus twice the ordinal of the signal plus one (<code>0</code> for no signal). The belt context
+ * is <code>1</code> if the belt is connected plus twice the ordinal of the belt mode.
+ * </P>
+ */
+public class NavigationEventLog {
+
+    /**
+     * Default number of events of the log.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // Stream format
+    private static final int STREAM_MAGIC = 0x4E41564C; // "NAVL"
+    private static final int STREAM_VERSION = 1;
+
+    // Events
+    private final long[] timesNano;
+    private final byte[] types;
+    private final int[] args;
+
+    // Index of the oldest event and number of events
+    private int first = 0;
+    private int count = 0;
+
+    // Number of events overwritten
+    private long droppedCount = 0;
+
+    /**
+     * Creates a log with the default capacity.
+     */
+    public NavigationEventLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a log.
+     *
+     * @param capacity The maximum number of events of the log.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public NavigationEventLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Log capacity must be positive.");
+        }
+        timesNano = new long[capacity];
+        types = new byte[capacity];
+        args = new int[capacity*3];
+    }
+
+    /**
+     * Appends an event with the current time.
+     */
+    void append(@NonNull NavigationLogEventType type, int arg0, int arg1, int arg2) {
+        append(System.nanoTime(), type, arg0, arg1, arg2);
+    }
+
+    /**
+     * Appends an event.
+     */
+    synchronized void append(long timeNano, @NonNull NavigationLogEventType type, int arg0,
+                             int arg1, int arg2) {
+        int capacity = types.length;
+        int index;
+        if (count < capacity) {
+            index = (first+count)%capacity;
+            count++;
+        } else {
+            index = first;
+            first = (first+1)%capacity;
+            droppedCount++;
+        }
+        timesNano[index] = timeNano;
+        types[index] = (byte) type.ordinal();
+        args[index*3] = arg0;
+        args[index*3+1] = arg1;
+        args[index*3+2] = arg2;
+    }
+
+    /**
+     * Returns the number of events in the log.
+     *
+     * @return the number of events.
+     */
+    public synchronized int getEventCount() {
+        return count;
+    }
+
+    /**
+     * Returns the maximum number of events of the log.
+     *
+     * @return the capacity of the log.
+     */
+    public int getCapacity() {
+        return types.length;
+    }
+
+    /**
+     * Returns the number of events overwritten because the log was full.
+     *
+     * @return the number of events dropped.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the type of an event.
+     *
+     * @param index The index of the event, <code>0</code> for the oldest event.
+     * @return the type of the event.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public synchronized NavigationLogEventType getType(int index) {
+        return NavigationLogEventType.values()[types[position(index)]];
+    }
+
+    /**
+     * Returns the time of an event, from {@link System#nanoTime()}.
+     *
+     * @param index The index of the event, <code>0</code> for the oldest event.
+     * @return the time of the event in nanoseconds.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public synchronized long getTimeNano(int index) {
+        return timesNano[position(index)];
+    }
+
+    /**
+     * Returns an argument of an event.
+     *
+     * @param index The index of the event, <code>0</code> for the oldest event.
+     * @param argIndex The index of the argument in range [0-2].
+     * @return the argument.
+     * @throws IndexOutOfBoundsException If an index is out of range.
+     */
+    public synchronized int getArg(int index, int argIndex) {
+        if (argIndex < 0 || argIndex > 2) {
+            throw new IndexOutOfBoundsException("Argument index out of range.");
+        }
+        return args[position(index)*3+argIndex];
+    }
+
+    /**
+     * Returns the position of an event in the buffer.
+     */
+    private int position(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Event index out of range.");
+        }
+        return (first+index)%types.length;
+    }
+
+    /**
+     * Removes all events.
+     */
+    public synchronized void clear() {
+        first = 0;
+        count = 0;
+        droppedCount = 0;
+    }
+
+    /**
+     * Writes the events of the log to a stream.
+     *
+     * @param out The output stream.
+     * @throws IOException If the events cannot be written.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        synchronized (this) {
+            data.writeInt(STREAM_MAGIC);
+            data.writeInt(STREAM_VERSION);
+            data.writeInt(count);
+            for (int i=0; i<count; i++) {
+                int p = (first+i)%types.length;
+                data.writeLong(timesNano[p]);
+                data.writeByte(types[p]);
+                data.writeInt(args[p*3]);
+                data.writeInt(args[p*3+1]);
+                data.writeInt(args[p*3+2]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a log from a stream.
+     *
+     * @param in The input stream.
+     * @return the log, with a capacity equal to the number of events read.
+     * @throws IOException If the log cannot be read or the format is invalid.
+     */
+    public static NavigationEventLog readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != STREAM_MAGIC || data.readInt() != STREAM_VERSION) {
+            throw new IOException("Invalid navigation log format.");
+        }
+        int eventCount = data.readInt();
+        if (eventCount < 0) {
+            throw new IOException("Invalid navigation log format.");
+        }
+        NavigationEventLog log = new NavigationEventLog(Math.max(1, eventCount));
+        NavigationLogEventType[] eventTypes = NavigationLogEventType.values();
+        for (int i=0; i<eventCount; i++) {
+            long time = data.readLong();
+            int type = data.readByte();
+            int arg0 = data.readInt();
+            int arg1 = data.readInt();
+            int arg2 = data.readInt();
+            if (type < 0 || type >= eventTypes.length) {
+                throw new IOException("Invalid navigation log event type.");
+            }
+            log.append(time, eventTypes[type], arg0, arg1, arg2);
+        }
+        return log;
+    }
+
+}
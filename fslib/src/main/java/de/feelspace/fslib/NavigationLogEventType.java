@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Enumeration of the events of the navigation event log.
+ *
+ * <P>
+ * Inputs are the API calls and belt events received by the navigation controller. Decisions are
+ * the state transitions and commands that result from inputs, and are reproduced by a replay of
+ * the log. Snapshots contain the navigation state from which a replay can start. Observations
+ * are recorded for analysis only.
+ */
+public enum NavigationLogEventType {
+
+    /**
+     * Navigation state, direction, signal and pause flag.
+     */
+    SNAPSHOT(false, false),
+
+    /**
+     * Navigation started by the application.
+     */
+    START_NAVIGATION(true, false),
+
+    /**
+     * Navigation signal updated by the application.
+     */
+    UPDATE_NAVIGATION_SIGNAL(true, false),
+
+    /**
+     * Navigation paused by the application.
+     */
+    PAUSE_NAVIGATION(true, false),
+
+    /**
+     * Navigation stopped by the application.
+     */
+    STOP_NAVIGATION(true, false),
+
+    /**
+     * Mode of the belt changed.
+     */
+    BELT_MODE_CHANGED(true, false),
+
+    /**
+     * Button pressed on the belt.
+     */
+    BELT_BUTTON_PRESSED(true, false),
+
+    /**
+     * Connection state changed.
+     */
+    CONNECTION_STATE_CHANGED(true, false),
+
+    /**
+     * Navigation state changed.
+     */
+    NAVIGATION_STATE_CHANGED(false, true),
+
+    /**
+     * Mode change requested to the belt.
+     */
+    BELT_MODE_CHANGE_REQUESTED(false, true),
+
+    /**
+     * Vibration command of the navigation signal requested.
+     */
+    VIBRATION_COMMAND_REQUESTED(false, true),
+
+    /**
+     * Home button press notified to listeners.
+     */
+    HOME_BUTTON_NOTIFIED(false, true),
+
+    /**
+     * Vibration command of the navigation signal sent to the belt.
+     */
+    VIBRATION_COMMAND_SENT(false, false);
+
+    // Category of the event
+    private final boolean input;
+    private final boolean decision;
+
+    /**
+     * Constructor.
+     * @param input <code>true</code> for an input event.
+     * @param decision <code>true</code> for a decision event.
+     */
+    NavigationLogEventType(boolean input, boolean decision) {
+        this.input = input;
+        this.decision = decision;
+    }
+
+    /**
+     * Indicates if the event is an input of the navigation controller.
+     *
+     * @return <code>true</code> for an input event.
+     */
+    public boolean isInput() {
+        return input;
+    }
+
+    /**
+     * Indicates if the event is a decision of the navigation controller, reproduced by a replay.
+     *
+     * @return <code>true</code> for a decision event.
+     */
+    public boolean isDecision() {
+        return decision;
+    }
+
+}
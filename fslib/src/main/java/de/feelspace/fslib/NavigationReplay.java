@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Offline replay of a navigation event log.
+ *
+ * The replay starts from the first snapshot of the log, feeds the logged inputs to the
+ * navigation state machine, and compares the decisions of the replay with the logged decisions.
+ * The replayed inputs and decisions are recorded in a new log. The timing of vibration commands
+ * sent to the belt depends on the link and is not replayed.
+ */
+public class NavigationReplay {
+
+    // Replayed log
+    private final @NonNull NavigationEventLog replayedLog;
+
+    // Comparison
+    private int inputCount = 0;
+    private int decisionCount = 0;
+    private int mismatchCount = 0;
+    private int firstMismatchIndex = -1;
+
+    // Final state
+    private @NonNull NavigationState finalState = NavigationState.STOPPED;
+    private int finalDirection = 0;
+    private boolean finalMagneticBearing = true;
+    private @Nullable BeltVibrationSignal finalSignal;
+
+    private NavigationReplay(@NonNull NavigationEventLog replayedLog) {
+        this.replayedLog = replayedLog;
+    }
+
+    /**
+     * Replays a log.
+     *
+     * @param log The log to replay.
+     * @return the result of the replay.
+     * @throws IllegalArgumentException If the log is <code>null</code> or contains invalid
+     * events.
+     */
+    public static NavigationReplay replay(NavigationEventLog log) {
+        if (log == null) {
+            throw new IllegalArgumentException("Null log.");
+        }
+        int count = log.getEventCount();
+        NavigationReplay replay = new NavigationReplay(
+                new NavigationEventLog(Math.max(1, count*2)));
+        // Start from the first snapshot
+        int start = 0;
+        while (start < count && log.getType(start) != NavigationLogEventType.SNAPSHOT) {
+            start++;
+        }
+        if (start == count) {
+            return replay;
+        }
+        NavigationStateMachine machine = new NavigationStateMachine(null, replay.replayedLog);
+        // Replace the initial snapshot with the snapshot of the log
+        replay.replayedLog.clear();
+        restore(machine, log, start);
+        int i = start+1;
+        while (i < count) {
+            NavigationLogEventType type = log.getType(i);
+            if (!type.isInput()) {
+                i++;
+                continue;
+            }
+            // Replay the input
+            int replayedStart = replay.replayedLog.getEventCount();
+            apply(machine, log, i);
+            replay.inputCount++;
+            // Compare the decisions until the next input
+            int logged = i+1;
+            int replayed = replayedStart;
+            int replayedEnd = replay.replayedLog.getEventCount();
+            while (true) {
+                while (logged < count && !log.getType(logged).isInput() &&
+                        !log.getType(logged).isDecision()) {
+                    logged++;
+                }
+                while (replayed < replayedEnd &&
+                        !replay.replayedLog.getType(replayed).isDecision()) {
+                    replayed++;
+                }
+                boolean loggedDecision = logged < count && log.getType(logged).isDecision();
+                boolean replayedDecision = replayed < replayedEnd;
+                if (!loggedDecision && !replayedDecision) {
+                    break;
+                }
+                if (replayedDecision) {
+                    replay.decisionCount++;
+                }
+                if (!loggedDecision || !replayedDecision ||
+                        !sameEvent(log, logged, replay.replayedLog, replayed)) {
+                    replay.mismatchCount++;
+                    if (replay.firstMismatchIndex < 0) {
+                        replay.firstMismatchIndex = (loggedDecision)?(logged):(i);
+                    }
+                }
+                if (loggedDecision) {
+                    logged++;
+                }
+                if (replayedDecision) {
+                    replayed++;
+                }
+            }
+            i = logged;
+        }
+        replay.finalState = machine.getState();
+        replay.finalDirection = machine.getDirection();
+        replay.finalMagneticBearing = machine.isMagneticBearing();
+        replay.finalSignal = machine.getSignal();
+        return replay;
+    }
+
+    /**
+     * Restores the state of a snapshot.
+     */
+    private static void restore(@NonNull NavigationStateMachine machine,
+                                @NonNull NavigationEventLog log, int index) {
+        int flags = log.getArg(index, 2);
+        machine.restore(enumValue(NavigationState.values(), log.getArg(index, 0)),
+                log.getArg(index, 1), (flags & 1) != 0,
+                decodeSignal(flags & 0xFF), (flags & 0x100) != 0);
+    }
+
+    /**
+     * Applies an input to the state machine.
+     */
+    private static void apply(@NonNull NavigationStateMachine machine,
+                              @NonNull NavigationEventLog log, int index) {
+        int arg0 = log.getArg(index, 0);
+        int arg1 = log.getArg(index, 1);
+        int arg2 = log.getArg(index, 2);
+        boolean connected = (arg2 & 1) != 0;
+        BeltMode mode = enumValue(BeltMode.values(), arg2 >> 1);
+        switch (log.getType(index)) {
+            case START_NAVIGATION:
+                machine.startNavigation(arg0, (arg1 & 1) != 0, decodeSignal(arg1), connected,
+                        mode);
+                break;
+            case UPDATE_NAVIGATION_SIGNAL:
+                machine.updateNavigationSignal(arg0, (arg1 & 1) != 0, decodeSignal(arg1),
+                        arg2 != 0);
+                break;
+            case PAUSE_NAVIGATION:
+                machine.pauseNavigation(connected, mode);
+                break;
+            case STOP_NAVIGATION:
+                machine.stopNavigation(connected, mode);
+                break;
+            case BELT_MODE_CHANGED:
+                machine.onBeltModeChanged(enumValue(BeltMode.values(), arg0), connected, mode);
+                break;
+            case BELT_BUTTON_PRESSED:
+                machine.onBeltButtonPressed(enumValue(BeltButton.values(), arg0),
+                        enumValue(BeltMode.values(), arg1 >> 8),
+                        enumValue(BeltMode.values(), arg1 & 0xFF), connected, mode);
+                break;
+            case CONNECTION_STATE_CHANGED:
+                machine.onConnectionStateChanged(
+                        enumValue(BeltConnectionState.values(), arg0), mode);
+                break;
+        }
+    }
+
+    /**
+     * Returns the signal of signal flags.
+     *
+     * @throws IllegalArgumentException If the signal is invalid.
+     */
+    private static @Nullable BeltVibrationSignal decodeSignal(int flags) {
+        int ordinal = (flags >> 1)-1;
+        return (ordinal < 0)?(null):(enumValue(BeltVibrationSignal.values(), ordinal));
+    }
+
+    /**
+     * Returns an enumeration item from its ordinal.
+     *
+     * @throws IllegalArgumentException If the ordinal is invalid.
+     */
+    private static <T> T enumValue(T[] values, int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Invalid enumeration value in log.");
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Returns <code>true</code> if two events have the same type and arguments.
+     */
+    private static boolean sameEvent(@NonNull NavigationEventLog log1, int index1,
+                                     @NonNull NavigationEventLog log2, int index2) {
+        if (log1.getType(index1) != log2.getType(index2)) {
+            return false;
+        }
+        for (int a=0; a<3; a++) {
+            if (log1.getArg(index1, a) != log2.getArg(index2, a)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the log of the replayed inputs and decisions.
+     *
+     * @return the replayed log.
+     */
+    public @NonNull NavigationEventLog getReplayedLog() {
+        return replayedLog;
+    }
+
+    /**
+     * Returns the number of inputs replayed.
+     *
+     * @return the number of inputs replayed.
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Returns the number of decisions of the replay.
+     *
+     * @return the number of decisions.
+     */
+    public int getDecisionCount() {
+        return decisionCount;
+    }
+
+    /**
+     * Returns the number of decisions that differ between the log and the replay.
+     *
+     * @return the number of mismatches, <code>0</code> if the replay reproduces the log.
+     */
+    public int getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * Returns the index in the source log of the first decision that differs.
+     *
+     * @return the index of the first mismatch in the source log, or <code>-1</code>.
+     */
+    public int getFirstMismatchIndex() {
+        return firstMismatchIndex;
+    }
+
+    /**
+     * Returns the navigation state at the end of the replay.
+     *
+     * @return the final navigation state.
+     */
+    public @NonNull NavigationState getFinalState() {
+        return finalState;
+    }
+
+    /**
+     * Returns the navigation direction at the end of the replay.
+     *
+     * @return the final direction in degrees.
+     */
+    public int getFinalDirection() {
+        return finalDirection;
+    }
+
+    /**
+     * Returns <code>true</code> if the final direction is a magnetic bearing.
+     *
+     * @return <code>true</code> if the final direction is a magnetic bearing.
+     */
+    public boolean isFinalMagneticBearing() {
+        return finalMagneticBearing;
+    }
+
+    /**
+     * Returns the navigation signal at the end of the replay.
+     *
+     * @return the final signal, or <code>null</code>.
+     */
+    public @Nullable BeltVibrationSignal getFinalSignal() {
+        return finalSignal;
+    }
+
+}
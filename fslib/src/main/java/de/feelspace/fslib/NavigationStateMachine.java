@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Navigation state and decisions of the navigation controller.
+ *
+ * The state machine receives the inputs of the navigation controller with the context of the
+ * belt at the time of the input, i.e. the connection and the mode of the belt. Decisions only
+ * depend on the state and the inputs, so that a replay of the inputs logged in a
+ * {@link NavigationEventLog} reproduces the decisions.
+ */
+class NavigationStateMachine {
+    // Debug
+    @SuppressWarnings("unused")
+    private static final boolean DEBUG = true;
+    private static final String DEBUG_TAG = "FeelSpace-Debug";
+
+    /**
+     * Number of inputs between two snapshots in the log.
+     */
+    static final int SNAPSHOT_INTERVAL = 64;
+
+    /**
+     * Effects of the decisions.
+     */
+    interface Effects {
+
+        /**
+         * Requests a mode change to the belt.
+         */
+        void changeBeltMode(@NonNull BeltMode mode);
+
+        /**
+         * Sends or schedules the vibration command of the navigation signal.
+         */
+        void sendVibrationCommand();
+
+        /**
+         * Called when the navigation state has changed.
+         */
+        void onNavigationStateChanged(@NonNull NavigationState state);
+
+        /**
+         * Called when the home button is pressed and does not resume the navigation.
+         */
+        void onHomeButtonPressed(boolean navigating);
+
+        /**
+         * Called when the navigation state and the belt mode are out of sync, before the state
+         * or the mode is corrected.
+         */
+        void onOutOfSync(@NonNull NavigationState state, @NonNull BeltMode mode);
+    }
+
+    // Effects, or null for a replay
+    private final @Nullable Effects effects;
+
+    // Log
+    private final @Nullable NavigationEventLog log;
+
+    // State
+    private volatile @NonNull NavigationState state = NavigationState.STOPPED;
+    private volatile int direction = 0;
+    private volatile boolean magneticBearing = true;
+    private volatile @Nullable BeltVibrationSignal signal;
+
+    // Flag that indicate that the current pause mode has been set by the application
+    private volatile boolean pauseModeForNavigation = false;
+
+    // Number of inputs since the last snapshot
+    private int inputsSinceSnapshot = 0;
+
+    /**
+     * Creates a state machine in stopped state. The initial state is logged as a snapshot.
+     *
+     * @param effects The effects of decisions, or <code>null</code>.
+     * @param log The log of inputs and decisions, or <code>null</code>.
+     */
+    NavigationStateMachine(@Nullable Effects effects, @Nullable NavigationEventLog log) {
+        this.effects = effects;
+        this.log = log;
+        logSnapshot();
+    }
+
+    /**
+     * Restores a state, e.g. from a snapshot of the log. The restored state is logged as a
+     * snapshot.
+     */
+    void restore(@NonNull NavigationState state, int direction, boolean magneticBearing,
+                 @Nullable BeltVibrationSignal signal, boolean pauseModeForNavigation) {
+        this.state = state;
+        this.direction = direction;
+        this.magneticBearing = magneticBearing;
+        this.signal = signal;
+        this.pauseModeForNavigation = pauseModeForNavigation;
+        logSnapshot();
+    }
+
+    @NonNull NavigationState getState() {
+        return state;
+    }
+
+    int getDirection() {
+        return direction;
+    }
+
+    boolean isMagneticBearing() {
+        return magneticBearing;
+    }
+
+    @Nullable BeltVibrationSignal getSignal() {
+        return signal;
+    }
+
+    boolean isPauseModeForNavigation() {
+        return pauseModeForNavigation;
+    }
+
+    /**
+     * Returns the signal flags of the log.
+     */
+    static int encodeSignal(boolean magneticBearing, @Nullable BeltVibrationSignal signal) {
+        return ((magneticBearing)?(1):(0)) | (((signal == null)?(0):(signal.ordinal()+1)) << 1);
+    }
+
+    /**
+     * Returns the belt context of the log.
+     */
+    static int encodeContext(boolean connected, @NonNull BeltMode mode) {
+        return ((connected)?(1):(0)) | (mode.ordinal() << 1);
+    }
+
+    /**
+     * Logs an event.
+     */
+    private void logEvent(@NonNull NavigationLogEventType type, int arg0, int arg1, int arg2) {
+        if (log != null) {
+            log.append(type, arg0, arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs an input, preceded by a snapshot when the snapshot interval is reached.
+     */
+    private void logInput(@NonNull NavigationLogEventType type, int arg0, int arg1, int arg2) {
+        if (log == null) {
+            return;
+        }
+        synchronized (this) {
+            if (++inputsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+                logSnapshot();
+            }
+        }
+        log.append(type, arg0, arg1, arg2);
+    }
+
+    /**
+     * Logs the current state.
+     */
+    private synchronized void logSnapshot() {
+        inputsSinceSnapshot = 0;
+        logEvent(NavigationLogEventType.SNAPSHOT, state.ordinal(), direction,
+                encodeSignal(magneticBearing, signal) | ((pauseModeForNavigation)?(0x100):(0)));
+    }
+
+    /**
+     * Starts the navigation. The navigation must not be in navigating state.
+     */
+    void startNavigation(int direction, boolean magneticBearing,
+                         @Nullable BeltVibrationSignal signal, boolean connected,
+                         @NonNull BeltMode mode) {
+        logInput(NavigationLogEventType.START_NAVIGATION, direction,
+                encodeSignal(magneticBearing, signal), encodeContext(connected, mode));
+        start(direction, magneticBearing, signal, connected, mode);
+    }
+
+    /**
+     * Updates the navigation signal.
+     *
+     * @param suppressed <code>true</code> if the update is suppressed by the deadband.
+     */
+    void updateNavigationSignal(int direction, boolean magneticBearing,
+                                @Nullable BeltVibrationSignal signal, boolean suppressed) {
+        logInput(NavigationLogEventType.UPDATE_NAVIGATION_SIGNAL, direction,
+                encodeSignal(magneticBearing, signal), (suppressed)?(1):(0));
+        if (suppressed) {
+            return;
+        }
+        setSignal(direction, magneticBearing, signal);
+        requestVibrationCommand();
+    }
+
+    /**
+     * Pauses the navigation.
+     */
+    void pauseNavigation(boolean connected, @NonNull BeltMode mode) {
+        logInput(NavigationLogEventType.PAUSE_NAVIGATION, 0, 0, encodeContext(connected, mode));
+        pause(connected, mode);
+    }
+
+    /**
+     * Stops the navigation.
+     */
+    void stopNavigation(boolean connected, @NonNull BeltMode mode) {
+        logInput(NavigationLogEventType.STOP_NAVIGATION, 0, 0, encodeContext(connected, mode));
+        stop(connected, mode);
+    }
+
+    /**
+     * Handles a mode change of the belt.
+     */
+    void onBeltModeChanged(@NonNull BeltMode newMode, boolean connected,
+                           @NonNull BeltMode mode) {
+        logInput(NavigationLogEventType.BELT_MODE_CHANGED, newMode.ordinal(), 0,
+                encodeContext(connected, mode));
+        pauseModeForNavigation = false;
+        switch (newMode) {
+            case STANDBY:
+                // Nothing to do, the belt has been switched-off
+                break;
+            case WAIT:
+                // The navigation should be in stop state
+                if (state != NavigationState.STOPPED) {
+                    notifyOutOfSync(newMode);
+                    stop(connected, mode);
+                }
+                break;
+            case APP:
+                // The navigation have been started
+                if (state != NavigationState.NAVIGATING) {
+                    notifyOutOfSync(newMode);
+                    if (state == NavigationState.STOPPED) {
+                        changeBeltMode(BeltMode.WAIT);
+                    } else if (state == NavigationState.PAUSED) {
+                        changeBeltMode(BeltMode.PAUSE);
+                    }
+                } else {
+                    requestVibrationCommand();
+                }
+                break;
+            case PAUSE:
+                // The navigation has been paused
+                if (state != NavigationState.PAUSED) {
+                    pause(connected, mode);
+                } else {
+                    pauseModeForNavigation = true;
+                }
+                break;
+            case COMPASS:
+            case CALIBRATION:
+            case CROSSING:
+                // The navigation should be in pause or stop state
+                if (state == NavigationState.NAVIGATING) {
+                    notifyOutOfSync(newMode);
+                    pause(connected, mode);
+                }
+                break;
+            case UNKNOWN:
+                // Nothing to do
+                break;
+        }
+    }
+
+    /**
+     * Handles a button press on the belt.
+     */
+    void onBeltButtonPressed(@NonNull BeltButton button, @NonNull BeltMode previousMode,
+                             @NonNull BeltMode subsequentMode, boolean connected,
+                             @NonNull BeltMode mode) {
+        logInput(NavigationLogEventType.BELT_BUTTON_PRESSED, button.ordinal(),
+                previousMode.ordinal()*256+subsequentMode.ordinal(),
+                encodeContext(connected, mode));
+        pauseModeForNavigation = false;
+        if (button == BeltButton.HOME && previousMode == subsequentMode) {
+            // Home button pressed for application action
+            // Note: Home button can be pressed to stop calibration and return to wait mode.
+            switch (state) {
+                case STOPPED:
+                    // Should not be in app mode
+                    if (mode == BeltMode.APP) {
+                        notifyOutOfSync(mode);
+                        changeBeltMode(BeltMode.WAIT);
+                    } else {
+                        notifyHomeButtonPressed(false);
+                    }
+                    break;
+                case PAUSED:
+                    // Resume navigation
+                    start(direction, magneticBearing, signal, connected, mode);
+                    break;
+                case NAVIGATING:
+                    // Should be in app mode
+                    if (mode != BeltMode.APP) {
+                        notifyOutOfSync(mode);
+                        changeBeltMode(BeltMode.APP);
+                    } else {
+                        notifyHomeButtonPressed(true);
+                    }
+                    break;
+            }
+        } else if (button == BeltButton.PAUSE && previousMode == subsequentMode) {
+            // Pause button pressed for application pause or resume
+            if (subsequentMode == BeltMode.APP) {
+                // Pause request from belt (should be navigating)
+                if (state == NavigationState.PAUSED) {
+                    notifyOutOfSync(mode);
+                    changeBeltMode(BeltMode.PAUSE);
+                } else if (state == NavigationState.STOPPED) {
+                    notifyOutOfSync(mode);
+                    changeBeltMode(BeltMode.WAIT);
+                } else {
+                    pause(connected, mode);
+                }
+            } else if (subsequentMode == BeltMode.PAUSE) {
+                // Resume request from belt (should be in pause state)
+                if (state == NavigationState.NAVIGATING) {
+                    notifyOutOfSync(mode);
+                    changeBeltMode(BeltMode.APP);
+                } else if (state == NavigationState.STOPPED) {
+                    notifyOutOfSync(mode);
+                    changeBeltMode(BeltMode.WAIT);
+                } else {
+                    start(direction, magneticBearing, signal, connected, mode);
+                }
+            } // Note: Pause button changes the mode in any other cases.
+        } else if (subsequentMode != BeltMode.APP) {
+            // Pause the navigation if navigating
+            // Note: The mode cannot be changed to app mode with a button press.
+            if (state == NavigationState.NAVIGATING) {
+                pause(connected, mode);
+            }
+        }
+    }
+
+    /**
+     * Handles a connection state change.
+     */
+    void onConnectionStateChanged(@NonNull BeltConnectionState connectionState,
+                                  @NonNull BeltMode mode) {
+        boolean connected = connectionState == BeltConnectionState.STATE_CONNECTED;
+        logInput(NavigationLogEventType.CONNECTION_STATE_CHANGED, connectionState.ordinal(), 0,
+                encodeContext(connected, mode));
+        pauseModeForNavigation = false;
+        if (connected && state == NavigationState.NAVIGATING) {
+            if (mode == BeltMode.APP) {
+                requestVibrationCommand();
+            } else {
+                changeBeltMode(BeltMode.APP);
+            }
+        }
+    }
+
+    /**
+     * Starts the navigation.
+     */
+    private void start(int direction, boolean magneticBearing,
+                       @Nullable BeltVibrationSignal signal, boolean connected,
+                       @NonNull BeltMode mode) {
+        setSignal(direction, magneticBearing, signal);
+        setState(NavigationState.NAVIGATING);
+        if (connected) {
+            if (mode == BeltMode.APP) {
+                requestVibrationCommand();
+            } else {
+                changeBeltMode(BeltMode.APP);
+            }
+        }
+        notifyStateChanged();
+    }
+
+    /**
+     * Pauses the navigation if navigating.
+     */
+    private void pause(boolean connected, @NonNull BeltMode mode) {
+        if (state != NavigationState.NAVIGATING) {
+            return;
+        }
+        setState(NavigationState.PAUSED);
+        if (connected && mode == BeltMode.APP) {
+            changeBeltMode(BeltMode.PAUSE);
+        }
+        notifyStateChanged();
+    }
+
+    /**
+     * Stops the navigation if not stopped.
+     */
+    private void stop(boolean connected, @NonNull BeltMode mode) {
+        if (state == NavigationState.STOPPED) {
+            return;
+        }
+        setState(NavigationState.STOPPED);
+        if (connected && (mode == BeltMode.APP ||
+                (mode == BeltMode.PAUSE && pauseModeForNavigation))) {
+            changeBeltMode(BeltMode.WAIT);
+        }
+        notifyStateChanged();
+    }
+
+    private void setSignal(int direction, boolean magneticBearing,
+                           @Nullable BeltVibrationSignal signal) {
+        this.direction = direction;
+        this.magneticBearing = magneticBearing;
+        this.signal = signal;
+    }
+
+    private void setState(@NonNull NavigationState state) {
+        this.state = state;
+        logEvent(NavigationLogEventType.NAVIGATION_STATE_CHANGED, state.ordinal(), 0, 0);
+    }
+
+    private void changeBeltMode(@NonNull BeltMode mode) {
+        logEvent(NavigationLogEventType.BELT_MODE_CHANGE_REQUESTED, mode.ordinal(), 0, 0);
+        if (effects != null) {
+            effects.changeBeltMode(mode);
+        }
+    }
+
+    private void requestVibrationCommand() {
+        logEvent(NavigationLogEventType.VIBRATION_COMMAND_REQUESTED, direction,
+                encodeSignal(magneticBearing, signal), 0);
+        if (effects != null) {
+            effects.sendVibrationCommand();
+        }
+    }
+
+    private void notifyStateChanged() {
+        if (effects != null) {
+            effects.onNavigationStateChanged(state);
+        }
+    }
+
+    private void notifyOutOfSync(@NonNull BeltMode mode) {
+        if (effects != null) {
+            effects.onOutOfSync(state, mode);
+        }
+    }
+
+    private void notifyHomeButtonPressed(boolean navigating) {
+        logEvent(NavigationLogEventType.HOME_BUTTON_NOTIFIED, (navigating)?(1):(0), 0, 0);
+        if (effects != null) {
+            effects.onHomeButtonPressed(navigating);
+        }
+    }
+
+}
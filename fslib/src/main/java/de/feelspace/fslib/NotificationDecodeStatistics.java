@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Decode statistics of one type of notification packet.
+ */
+public class NotificationDecodeStatistics {
+
+    // Name of the packet type
+    private final String packetType;
+
+    // Number of decoded packets (including malformed packets)
+    private final long decodedCount;
+
+    // Number of malformed packets
+    private final long malformedCount;
+
+    // Total decode time
+    private final long totalDecodeTimeNano;
+
+    /**
+     * Constructor.
+     */
+    NotificationDecodeStatistics(String packetType, long decodedCount, long malformedCount,
+                                 long totalDecodeTimeNano) {
+        this.packetType = packetType;
+        this.decodedCount = decodedCount;
+        this.malformedCount = malformedCount;
+        this.totalDecodeTimeNano = totalDecodeTimeNano;
+    }
+
+    /**
+     * Returns the name of the packet type.
+     * @return the name of the packet type.
+     */
+    public String getPacketType() {
+        return packetType;
+    }
+
+    /**
+     * Returns the number of packets received, including malformed packets.
+     * @return the number of packets received.
+     */
+    public long getDecodedCount() {
+        return decodedCount;
+    }
+
+    /**
+     * Returns the number of malformed packets.
+     * @return the number of malformed packets.
+     */
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    /**
+     * Returns the total time spent parsing packets of this type. The time spent in listeners is
+     * not included.
+     * @return the total decode time in nanoseconds.
+     */
+    public long getTotalDecodeTimeNano() {
+        return totalDecodeTimeNano;
+    }
+
+    /**
+     * Returns the average time to decode a packet of this type.
+     * @return the average decode time in nanoseconds, or <code>0</code> if no packet has been
+     * received.
+     */
+    public long getAverageDecodeTimeNano() {
+        return (decodedCount == 0)?(0):(totalDecodeTimeNano/decodedCount);
+    }
+
+    @Override
+    public String toString() {
+        return packetType+": "+decodedCount+" packets, "+malformedCount+" malformed, "+
+                getAverageDecodeTimeNano()+" ns/packet";
+    }
+}
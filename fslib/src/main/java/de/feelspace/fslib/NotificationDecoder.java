@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Decoder of one type of notification packet.
+ *
+ * The length of the packet is checked once against the minimum length of the packet type before
+ * decoding, and the decode time is measured for each packet. The decode time only covers the
+ * parsing of the packet: decoders call {@link #parsed()} before they pass the decoded values to
+ * the listeners or send a response.
+ */
+abstract class NotificationDecoder {
+
+    // Name of the packet type
+    private final @NonNull String name;
+
+    // Minimum length of the packet
+    private final int minLength;
+
+    // Statistics, updated from the notification thread only
+    private volatile long decodedCount = 0;
+    private volatile long malformedCount = 0;
+    private volatile long totalDecodeTimeNano = 0;
+
+    // End of the parsing of the current packet
+    private long parseEndTime;
+    private boolean parseEnded;
+
+    /**
+     * Constructor.
+     *
+     * @param name The name of the packet type.
+     * @param minLength The minimum length of the packet.
+     */
+    NotificationDecoder(@NonNull String name, int minLength) {
+        this.name = name;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Checks the length of a packet, decodes it and updates the statistics.
+     *
+     * @param value The packet.
+     * @return <code>true</code> if the packet has been decoded, <code>false</code> if the packet
+     * is malformed.
+     */
+    final boolean decode(@Nullable byte[] value) {
+        onPacketReceived();
+        parseEnded = false;
+        long startTime = System.nanoTime();
+        boolean success = (value != null && value.length >= minLength) && decodeChecked(value);
+        long endTime = (parseEnded)?(parseEndTime):(System.nanoTime());
+        totalDecodeTimeNano += endTime-startTime;
+        decodedCount++;
+        if (!success) {
+            malformedCount++;
+        }
+        return success;
+    }
+
+    /**
+     * Decodes a packet with a length that has already been checked.
+     *
+     * @param value The packet, with at least the minimum length.
+     * @return <code>true</code> if the packet has been decoded, <code>false</code> if the packet
+     * is malformed.
+     */
+    protected abstract boolean decodeChecked(@NonNull byte[] value);
+
+    /**
+     * Marks the end of the parsing of the current packet. Decoders call this method before they
+     * dispatch the decoded values, so that the decode time does not include the dispatch.
+     */
+    protected final void parsed() {
+        parseEndTime = System.nanoTime();
+        parseEnded = true;
+    }
+
+    /**
+     * Called for each packet before the length check, including <code>null</code> and short
+     * packets, e.g. to acknowledge the packet. The time of this call is not included in the
+     * decode time.
+     */
+    protected void onPacketReceived() {
+    }
+
+    /**
+     * Returns the name of the packet type.
+     *
+     * @return the name of the packet type.
+     */
+    @NonNull String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a snapshot of the decode statistics.
+     *
+     * @return the decode statistics.
+     */
+    @NonNull NotificationDecodeStatistics getStatistics() {
+        return new NotificationDecodeStatistics(name, decodedCount, malformedCount,
+                totalDecodeTimeNano);
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity history of belt heading samples with reception timestamps.
+ *
+ * The history keeps running sums (sine and cosine of the heading, unwrapped heading and number of
+ * inaccurate samples) for each slot, so that statistics over a window are computed from the first
+ * and last samples of the window in constant time. Only the lookup of the first sample of a time
+ * window requires a binary search on timestamps.
+ *
+ * Samples are added by a single writer, the notification thread, without lock. Statistics can be
+ * read from any thread without lock: the reader validates after computing that the slots it used
+ * have not been overwritten, and retries otherwise. Slots are stored in atomic arrays so that the
+ * reads of a slot cannot be reordered after the validation read of the write counter. Running sums
+ * are stored as raw bits of doubles.
+ */
+public class OrientationHistory {
+
+    /**
+     * Default number of samples in the history.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // Maximum number of read attempts when samples are overwritten during a read
+    private static final int MAX_READ_ATTEMPTS = 4;
+
+    // Maximum number of samples in a window
+    private final int capacity;
+
+    // Number of slots: the slot before the oldest sample holds the running sums to subtract, and
+    // one more slot can be written while a window is read
+    private final int size;
+
+    // Samples
+    private final AtomicLongArray timeNano;
+    private final AtomicIntegerArray heading;
+
+    // Running sums including the sample of the slot, doubles stored as raw bits
+    private final AtomicLongArray sumSin;
+    private final AtomicLongArray sumCos;
+    private final AtomicLongArray unwrappedHeading;
+    private final AtomicLongArray inaccurateCount;
+
+    // Number of samples written, published after the slot has been written
+    private volatile long writeCount = 0;
+
+    // Sequence number of the first sample after the last clear
+    private volatile long firstValidSample = 0;
+
+    /**
+     * Creates an orientation history.
+     *
+     * @param capacity The maximum number of samples in a window.
+     * @throws IllegalArgumentException If the capacity is lower than 2.
+     */
+    public OrientationHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity must be at least 2.");
+        }
+        this.capacity = capacity;
+        size = capacity+2;
+        timeNano = new AtomicLongArray(size);
+        heading = new AtomicIntegerArray(size);
+        sumSin = new AtomicLongArray(size);
+        sumCos = new AtomicLongArray(size);
+        unwrappedHeading = new AtomicLongArray(size);
+        inaccurateCount = new AtomicLongArray(size);
+    }
+
+    /**
+     * Returns the maximum number of samples in a window.
+     *
+     * @return the capacity of the history.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a sample to the history.
+     *
+     * @param sample The orientation sample.
+     */
+    void add(OrientationSample sample) {
+        add(sample.getBeltHeading(), !sample.isOrientationAccurate(),
+                sample.getReceiveTimeNano());
+    }
+
+    /**
+     * Adds a sample to the history. Must only be called by the writer, i.e. not concurrently with
+     * another call to <code>add</code> or <code>clear</code>.
+     *
+     * @param beltHeading The heading of the belt in degrees.
+     * @param inaccurateOrientation <code>true</code> if the orientation is inaccurate.
+     * @param receiveTimeNano The reception time of the sample.
+     */
+    void add(int beltHeading, boolean inaccurateOrientation, long receiveTimeNano) {
+        long seq = writeCount;
+        int slot = (int) (seq % size);
+        double radians = Math.toRadians(beltHeading);
+        double sin = Math.sin(radians);
+        double cos = Math.cos(radians);
+        double unwrapped = beltHeading;
+        long inaccurate = (inaccurateOrientation)?(1):(0);
+        if (seq != firstValidSample) {
+            int previous = (int) ((seq-1) % size);
+            sin += getDouble(sumSin, previous);
+            cos += getDouble(sumCos, previous);
+            int delta = beltHeading-heading.get(previous);
+            delta = ((delta%360)+540)%360-180;
+            unwrapped = getDouble(unwrappedHeading, previous)+delta;
+            inaccurate += inaccurateCount.get(previous);
+        }
+        sumSin.set(slot, Double.doubleToRawLongBits(sin));
+        sumCos.set(slot, Double.doubleToRawLongBits(cos));
+        unwrappedHeading.set(slot, Double.doubleToRawLongBits(unwrapped));
+        inaccurateCount.set(slot, inaccurate);
+        timeNano.set(slot, receiveTimeNano);
+        heading.set(slot, beltHeading);
+        writeCount = seq+1;
+    }
+
+    /**
+     * Removes all samples. Must only be called by the writer, i.e. not concurrently with
+     * <code>add</code>.
+     */
+    void clear() {
+        firstValidSample = writeCount;
+    }
+
+    /**
+     * Returns a double stored as raw bits in a slot.
+     */
+    private static double getDouble(AtomicLongArray array, int slot) {
+        return Double.longBitsToDouble(array.get(slot));
+    }
+
+    /**
+     * Returns the number of samples in the history.
+     *
+     * @return the number of samples in the history.
+     */
+    public int getSampleCount() {
+        return (int) Math.min(writeCount-firstValidSample, capacity);
+    }
+
+    /**
+     * Computes statistics over the last samples.
+     *
+     * @param sampleCount The number of samples in the window, limited to the capacity.
+     * @param statistics The object in which statistics are written.
+     * @return <code>true</code> if the statistics have been computed, <code>false</code> if the
+     * history is empty.
+     * @throws IllegalArgumentException If the statistics object is <code>null</code>.
+     */
+    public boolean computeForSamples(int sampleCount, Statistics statistics) {
+        if (statistics == null) {
+            throw new IllegalArgumentException("Null statistics object.");
+        }
+        for (int attempt=0; attempt<MAX_READ_ATTEMPTS; attempt++) {
+            long firstValid = firstValidSample;
+            long count = writeCount;
+            if (count <= firstValid || sampleCount <= 0) {
+                statistics.clear();
+                return false;
+            }
+            long last = count-1;
+            long first = Math.max(count-Math.min(sampleCount, capacity), firstValid);
+            if (compute(first, last, firstValid, statistics)) {
+                return true;
+            }
+        }
+        statistics.clear();
+        return false;
+    }
+
+    /**
+     * Computes statistics over the samples received in a time window ending with the last sample.
+     *
+     * @param windowMs The duration of the window in milliseconds.
+     * @param statistics The object in which statistics are written.
+     * @return <code>true</code> if the statistics have been computed, <code>false</code> if the
+     * history is empty.
+     * @throws IllegalArgumentException If the statistics object is <code>null</code>.
+     */
+    public boolean computeForTimeWindow(int windowMs, Statistics statistics) {
+        if (statistics == null) {
+            throw new IllegalArgumentException("Null statistics object.");
+        }
+        for (int attempt=0; attempt<MAX_READ_ATTEMPTS; attempt++) {
+            long firstValid = firstValidSample;
+            long count = writeCount;
+            if (count <= firstValid || windowMs < 0) {
+                statistics.clear();
+                return false;
+            }
+            long last = count-1;
+            long oldest = Math.max(count-(capacity), firstValid);
+            long startTime = timeNano.get((int) (last % size))-windowMs*1000000L;
+            // Binary search of the first sample in the window
+            long low = oldest;
+            long high = last;
+            while (low < high) {
+                long mid = (low+high) >>> 1;
+                if (timeNano.get((int) (mid % size)) - startTime < 0) {
+                    low = mid+1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (writeCount >= oldest+size) {
+                // Samples overwritten during the search
+                continue;
+            }
+            if (compute(low, last, firstValid, statistics)) {
+                return true;
+            }
+        }
+        statistics.clear();
+        return false;
+    }
+
+    /**
+     * Computes the statistics between two samples and validates that slots have not been
+     * overwritten.
+     *
+     * @return <code>false</code> if the slots have been overwritten during the computation.
+     */
+    private boolean compute(long first, long last, long firstValid, Statistics statistics) {
+        int firstSlot = (int) (first % size);
+        int lastSlot = (int) (last % size);
+        double sin = getDouble(sumSin, lastSlot);
+        double cos = getDouble(sumCos, lastSlot);
+        long inaccurateSamples = inaccurateCount.get(lastSlot);
+        if (first > firstValid) {
+            int beforeSlot = (int) ((first-1) % size);
+            sin -= getDouble(sumSin, beforeSlot);
+            cos -= getDouble(sumCos, beforeSlot);
+            inaccurateSamples -= inaccurateCount.get(beforeSlot);
+        }
+        double headingDelta = getDouble(unwrappedHeading, lastSlot)-
+                getDouble(unwrappedHeading, firstSlot);
+        long timeSpan = timeNano.get(lastSlot)-timeNano.get(firstSlot);
+        // The slot before the first sample must not be in the slot being written
+        long firstUsed = (first > firstValid)?(first-1):(first);
+        if (writeCount >= firstUsed+size || firstValidSample != firstValid) {
+            return false;
+        }
+        int n = (int) (last-first+1);
+        double meanLength = Math.sqrt(sin*sin+cos*cos)/n;
+        double mean = Math.toDegrees(Math.atan2(sin, cos));
+        if (mean < 0) {
+            mean += 360;
+        }
+        statistics.sampleCount = n;
+        statistics.timeSpanNano = timeSpan;
+        statistics.meanHeading = (meanLength < 1e-9)?(Double.NaN):(mean);
+        statistics.circularVariance = Math.max(0, 1-meanLength);
+        statistics.angularVelocity = (timeSpan > 0)?(headingDelta*1e9/timeSpan):(0);
+        statistics.inaccurateRatio = inaccurateSamples/(double) n;
+        return true;
+    }
+
+    /**
+     * Statistics of a window of orientation samples. The object can be reused for successive
+     * computations.
+     */
+    public static class Statistics {
+
+        private int sampleCount;
+        private long timeSpanNano;
+        private double meanHeading = Double.NaN;
+        private double circularVariance;
+        private double angularVelocity;
+        private double inaccurateRatio;
+
+        /**
+         * Resets the statistics for an empty window.
+         */
+        void clear() {
+            sampleCount = 0;
+            timeSpanNano = 0;
+            meanHeading = Double.NaN;
+            circularVariance = 0;
+            angularVelocity = 0;
+            inaccurateRatio = 0;
+        }
+
+        /**
+         * Returns the number of samples in the window.
+         * @return the number of samples in the window.
+         */
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Returns the time between the first and last samples of the window.
+         * @return the time span of the window in nanoseconds.
+         */
+        public long getTimeSpanNano() {
+            return timeSpanNano;
+        }
+
+        /**
+         * Returns the circular mean of the belt heading.
+         * @return the mean heading in degrees in range [0-360[, or <code>NaN</code> if the
+         * headings cancel each other or the window is empty.
+         */
+        public double getMeanHeading() {
+            return meanHeading;
+        }
+
+        /**
+         * Returns the circular variance of the belt heading, from <code>0</code> when all headings
+         * are equal to <code>1</code> when headings are uniformly spread.
+         * @return the circular variance of the belt heading.
+         */
+        public double getCircularVariance() {
+            return circularVariance;
+        }
+
+        /**
+         * Returns the angular velocity of the belt, computed from the unwrapped heading between
+         * the first and last samples. Positive values are clockwise.
+         * @return the angular velocity in degrees per second.
+         */
+        public double getAngularVelocity() {
+            return angularVelocity;
+        }
+
+        /**
+         * Returns the ratio of samples flagged as inaccurate.
+         * @return the ratio of inaccurate samples in range [0-1].
+         */
+        public double getInaccurateRatio() {
+            return inaccurateRatio;
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Orientation sample of the belt with primitive values.
+ *
+ * Samples passed to {@link BeltOrientationListener} are reused by the library for the next
+ * orientation notification. Listeners must not modify the sample, and must copy the values (e.g.
+ * with {@link #copyTo(OrientationSample)}) if they are used after the callback returns.
+ */
+public class OrientationSample {
+
+    /** ID of the orientation source. */
+    private int sourceId;
+
+    /** Heading of the belt, adjusted with heading offset. */
+    private int beltHeading;
+
+    /** Heading of the control box. */
+    private int controlBoxHeading;
+
+    /** Roll of the control box. */
+    private int controlBoxRoll;
+
+    /** Pitch of the control box.  */
+    private int controlBoxPitch;
+
+    /** Accuracy of the orientation. */
+    private int accuracy;
+
+    /** Status of the magnetometer. */
+    private int magnetometerStatus;
+
+    /** Status of the accelerometer. */
+    private int accelerometerStatus;
+
+    /** Status of the gyroscope. */
+    private int gyroscopeStatus;
+
+    /** Status of the fusion. */
+    private int fusionStatus;
+
+    /** Accuracy flag. */
+    private boolean inaccurateOrientation;
+
+    /** Reception time of the sample (<code>System.nanoTime()</code> clock). */
+    private long receiveTimeNano;
+
+    /**
+     * Creates an empty sample that can be filled with {@link #copyTo(OrientationSample)}.
+     */
+    public OrientationSample() {
+    }
+
+    /**
+     * Sets the values of the sample.
+     */
+    void set(int sourceId, int beltHeading, int controlBoxHeading, int controlBoxRoll,
+             int controlBoxPitch, int accuracy, int magnetometerStatus, int accelerometerStatus,
+             int gyroscopeStatus, int fusionStatus, boolean inaccurateOrientation,
+             long receiveTimeNano) {
+        this.sourceId = sourceId;
+        this.beltHeading = beltHeading;
+        this.controlBoxHeading = controlBoxHeading;
+        this.controlBoxRoll = controlBoxRoll;
+        this.controlBoxPitch = controlBoxPitch;
+        this.accuracy = accuracy;
+        this.magnetometerStatus = magnetometerStatus;
+        this.accelerometerStatus = accelerometerStatus;
+        this.gyroscopeStatus = gyroscopeStatus;
+        this.fusionStatus = fusionStatus;
+        this.inaccurateOrientation = inaccurateOrientation;
+        this.receiveTimeNano = receiveTimeNano;
+    }
+
+    /**
+     * Copies the values of this sample into another sample.
+     *
+     * @param destination The destination sample.
+     * @throws IllegalArgumentException If the destination is <code>null</code>.
+     */
+    public void copyTo(OrientationSample destination) {
+        if (destination == null) {
+            throw new IllegalArgumentException("Null destination sample.");
+        }
+        destination.set(sourceId, beltHeading, controlBoxHeading, controlBoxRoll,
+                controlBoxPitch, accuracy, magnetometerStatus, accelerometerStatus,
+                gyroscopeStatus, fusionStatus, inaccurateOrientation, receiveTimeNano);
+    }
+
+    /**
+     * Creates a {@link BeltOrientation} object with the values of this sample.
+     *
+     * @return a new orientation object.
+     */
+    public BeltOrientation toBeltOrientation() {
+        return new BeltOrientation(sourceId, beltHeading, controlBoxHeading, controlBoxRoll,
+                controlBoxPitch, accuracy, magnetometerStatus, accelerometerStatus,
+                gyroscopeStatus, fusionStatus, inaccurateOrientation);
+    }
+
+    /**
+     * Returns the ID of the orientation source.
+     *
+     * @return The source ID.
+     */
+    public int getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * Returns the heading orientation of the belt in degrees. The heading of the belt take into
+     * account the heading offset.
+     *
+     * @return the heading orientation of the belt in degrees.
+     */
+    public int getBeltHeading() {
+        return beltHeading;
+    }
+
+    /**
+     * Returns the heading of the control box in degrees.
+     *
+     * @return the heading of the control box in degrees.
+     */
+    public int getControlBoxHeading() {
+        return controlBoxHeading;
+    }
+
+    /**
+     * Returns the roll of the control box in degrees.
+     *
+     * @return the roll of the control box in degrees.
+     */
+    public int getControlBoxRoll() {
+        return controlBoxRoll;
+    }
+
+    /**
+     * Returns the pitch of the control box in degrees.
+     *
+     * @return the pitch of the control box in degrees.
+     */
+    public int getControlBoxPitch() {
+        return controlBoxPitch;
+    }
+
+    /**
+     * Returns the accuracy of the orientation in degrees.
+     *
+     * @return the accuracy of the orientation in degrees.
+     */
+    public int getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Returns the status of the magnetometer, from <code>0</code> for inaccurate or not
+     * calibrated, to <code>3</code> for accurate.
+     *
+     * @return the status of the magnetometer.
+     */
+    public int getMagnetometerStatus() {
+        return magnetometerStatus;
+    }
+
+    /**
+     * Returns the status of the accelerometer, from <code>0</code> for inaccurate or not
+     * calibrated, to <code>3</code> for accurate.
+     *
+     * @return the status of the accelerometer.
+     */
+    public int getAccelerometerStatus() {
+        return accelerometerStatus;
+    }
+
+    /**
+     * Returns the status of the gyroscope, from <code>0</code> for inaccurate or not calibrated,
+     * to <code>3</code> for accurate.
+     *
+     * @return the status of the gyroscope.
+     */
+    public int getGyroscopeStatus() {
+        return gyroscopeStatus;
+    }
+
+    /**
+     * Returns the status of the fusion, from <code>0</code> for inaccurate or not calibrated, to
+     * <code>3</code> for accurate.
+     *
+     * @return the status of the fusion.
+     */
+    public int getFusionStatus() {
+        return fusionStatus;
+    }
+
+    /**
+     * Returns a flag that indicates if the orientation is accurate.
+     *
+     * @return <code>true</code> if the orientation is accurate.
+     */
+    public boolean isOrientationAccurate() {
+        return !inaccurateOrientation;
+    }
+
+    /**
+     * Returns the reception time of the sample.
+     *
+     * @return the reception time in nanoseconds (<code>System.nanoTime()</code> clock).
+     */
+    public long getReceiveTimeNano() {
+        return receiveTimeNano;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Pool of reusable packet buffers. Buffers are kept in free lists per packet length, so that
+ * packets can be encoded and written repeatedly without allocation.
+ *
+ * A buffer obtained with {@link #acquire(int)} must be released only once, when it is no more
+ * used (typically by the GATT controller after the completion of the write operation).
+ */
+class PacketBufferPool {
+
+    /**
+     * Maximum length of pooled buffers (default ATT payload size).
+     */
+    static final int MAX_PACKET_LENGTH = 20;
+
+    /**
+     * Maximum number of free buffers kept per length.
+     */
+    static final int MAX_FREE_BUFFERS_PER_LENGTH = 8;
+
+    // Free buffers, indexed by length
+    private final @NonNull byte[][][] freeBuffers =
+            new byte[MAX_PACKET_LENGTH+1][MAX_FREE_BUFFERS_PER_LENGTH][];
+
+    // Number of free buffers, indexed by length
+    private final @NonNull int[] freeCount = new int[MAX_PACKET_LENGTH+1];
+
+    /**
+     * Returns a buffer of the given length. The content of the buffer is undefined.
+     *
+     * @param length The length of the buffer.
+     * @return a buffer of the given length.
+     */
+    @NonNull byte[] acquire(int length) {
+        if (length <= 0 || length > MAX_PACKET_LENGTH) {
+            return new byte[Math.max(length, 0)];
+        }
+        synchronized (this) {
+            int count = freeCount[length];
+            if (count > 0) {
+                count--;
+                byte[] buffer = freeBuffers[length][count];
+                freeBuffers[length][count] = null;
+                freeCount[length] = count;
+                return buffer;
+            }
+        }
+        return new byte[length];
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers with unsupported length or exceeding the capacity of
+     * the pool are left to the garbage collector.
+     *
+     * @param buffer The buffer to release.
+     */
+    void release(@Nullable byte[] buffer) {
+        if (buffer == null || buffer.length == 0 || buffer.length > MAX_PACKET_LENGTH) {
+            return;
+        }
+        synchronized (this) {
+            int count = freeCount[buffer.length];
+            if (count < MAX_FREE_BUFFERS_PER_LENGTH) {
+                freeBuffers[buffer.length][count] = buffer;
+                freeCount[buffer.length] = count+1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.EnumSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the requests of several belt parameters in one parameter request packet.
+ *
+ * A packed request contains the parameter count followed by the parameter IDs, and the belt
+ * notifies each value separately. When some values of a packed request are not notified within
+ * {@link #RESPONSE_TIMEOUT_MS}, the missing parameters are requested again with
+ * single-parameter requests, and the following requests are not packed until the batcher is
+ * reset on disconnection.
+ */
+class ParameterRequestBatcher {
+
+    /**
+     * Sender of parameter request packets.
+     */
+    interface PacketSender {
+
+        /**
+         * Sends a parameter request packet.
+         *
+         * @param packet The packet to send.
+         * @return <code>true</code> if the packet has been placed in the operation queue.
+         */
+        boolean sendParameterRequest(@NonNull byte[] packet);
+    }
+
+    /**
+     * Delay in milliseconds after which the values of a packed request that are not notified
+     * are requested again with single-parameter requests.
+     */
+    static final long RESPONSE_TIMEOUT_MS = 1000;
+
+    // Parameter request command
+    private static final byte PARAMETER_REQUEST_COMMAND = (byte) 0x10;
+
+    // Sender of packets
+    private final @NonNull PacketSender sender;
+
+    // Executor for the response timeout, or null
+    private final @Nullable ScheduledThreadPoolExecutor executor;
+
+    // Parameters of packed requests that are not yet notified
+    private final @NonNull EnumSet<BeltParameter> pendingParameters =
+            EnumSet.noneOf(BeltParameter.class);
+    private @Nullable ScheduledFuture<?> timeoutTask;
+
+    // Flag set when the belt does not answer packed requests
+    private boolean packingDisabled = false;
+
+    /**
+     * Creates a batcher.
+     *
+     * @param sender The sender of packets.
+     * @param executor The executor for the response timeout, or <code>null</code>.
+     */
+    ParameterRequestBatcher(@NonNull PacketSender sender,
+                            @Nullable ScheduledThreadPoolExecutor executor) {
+        this.sender = sender;
+        this.executor = executor;
+    }
+
+    /**
+     * Requests the values of parameters, in a packed request when possible.
+     *
+     * @param parameters The requested parameters.
+     * @return <code>true</code> if all packets have been sent.
+     */
+    boolean request(@NonNull EnumSet<BeltParameter> parameters) {
+        if (parameters.isEmpty()) {
+            return false;
+        }
+        boolean pack;
+        synchronized (this) {
+            pack = parameters.size() > 1 && !packingDisabled;
+            if (pack) {
+                // Registered before sending so that fast notifications are matched
+                pendingParameters.addAll(parameters);
+            }
+        }
+        if (!pack) {
+            return sendSingleRequests(parameters);
+        }
+        byte[] packet = new byte[2+parameters.size()];
+        packet[0] = PARAMETER_REQUEST_COMMAND;      // Command
+        packet[1] = (byte) parameters.size();       // Parameter count
+        int position = 2;
+        for (BeltParameter parameter: parameters) {
+            packet[position++] = parameter.getValue();  // Parameter ID
+        }
+        if (!sender.sendParameterRequest(packet)) {
+            synchronized (this) {
+                pendingParameters.removeAll(parameters);
+            }
+            return false;
+        }
+        synchronized (this) {
+            if (executor != null && !pendingParameters.isEmpty()) {
+                // The timeout restarts with the last packed request
+                if (timeoutTask != null) {
+                    timeoutTask.cancel(false);
+                }
+                timeoutTask = executor.schedule(this::onResponseTimeout, RESPONSE_TIMEOUT_MS,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Informs the batcher that the value of a parameter has been notified.
+     *
+     * @param parameter The notified parameter.
+     */
+    synchronized void onParameterNotified(@NonNull BeltParameter parameter) {
+        if (pendingParameters.remove(parameter) && pendingParameters.isEmpty() &&
+                timeoutTask != null) {
+            timeoutTask.cancel(false);
+            timeoutTask = null;
+        }
+    }
+
+    /**
+     * Requests again the parameters of packed requests that have not been notified with
+     * single-parameter requests, and stops packing requests.
+     */
+    void onResponseTimeout() {
+        EnumSet<BeltParameter> missing;
+        synchronized (this) {
+            timeoutTask = null;
+            if (pendingParameters.isEmpty()) {
+                return;
+            }
+            missing = EnumSet.copyOf(pendingParameters);
+            pendingParameters.clear();
+            packingDisabled = true;
+        }
+        sendSingleRequests(missing);
+    }
+
+    /**
+     * Clears the pending requests and packs the next requests again, e.g. after a disconnection.
+     */
+    synchronized void reset() {
+        pendingParameters.clear();
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+            timeoutTask = null;
+        }
+        packingDisabled = false;
+    }
+
+    /**
+     * Returns <code>true</code> if requests are not packed because the belt did not answer a
+     * packed request.
+     *
+     * @return <code>true</code> if requests are not packed.
+     */
+    synchronized boolean isPackingDisabled() {
+        return packingDisabled;
+    }
+
+    /**
+     * Sends one single-parameter request per parameter.
+     */
+    private boolean sendSingleRequests(@NonNull EnumSet<BeltParameter> parameters) {
+        boolean sent = true;
+        for (BeltParameter parameter: parameters) {
+            byte[] packet = new byte[] {
+                    PARAMETER_REQUEST_COMMAND,  // Command
+                    (byte) 0x01,                // Parameter count
+                    parameter.getValue()        // Parameter ID
+            };
+            sent &= sender.sendParameterRequest(packet);
+        }
+        return sent;
+    }
+
+}
@@ -10,7 +10,7 @@ package de.feelspace.fslib;
 /**
  * Command to start a pulse on the belt.
  */
-class PulseCommand {
+public class PulseCommand {
 
     // Channel index
     private int channelIndex;
@@ -48,6 +48,11 @@ class PulseCommand {
     // Clear other channels
     private boolean clearOtherChannels;
 
+    /**
+     * Length of the pulse command packet.
+     */
+    public static final int PACKET_LENGTH = 17;
+
     /**
      * Constructor.
      *
@@ -58,6 +63,32 @@ class PulseCommand {
             int  intensity, int onDurationMs, int pulseIterations, int patternIterations,
             int pulsePeriodMs, int patternPeriodMs, ResetProgressOption resetProgressOption,
             boolean exclusiveChannel, boolean clearOtherChannels) {
+        checkArguments(channelIndex, orientationType, orientationValue, intensity, onDurationMs,
+                pulseIterations, patternIterations, pulsePeriodMs, patternPeriodMs,
+                resetProgressOption);
+        this.channelIndex = channelIndex;
+        this.orientationType = orientationType;
+        this.orientationValue = normalizeOrientationValue(orientationType, orientationValue);
+        this.intensity = intensity;
+        this.onDurationMs = onDurationMs;
+        this.pulseIterations = pulseIterations;
+        this.patternIterations = (patternIterations < 0)?(0):(patternIterations);
+        this.pulsePeriodMs = pulsePeriodMs;
+        this.patternPeriodMs = patternPeriodMs;
+        this.resetProgressOption = resetProgressOption;
+        this.exclusiveChannel = exclusiveChannel;
+        this.clearOtherChannels = clearOtherChannels;
+    }
+
+    /**
+     * Checks the arguments of a pulse command.
+     *
+     * @throws IllegalArgumentException If an argument has illegal value.
+     */
+    private static void checkArguments(
+            int channelIndex, OrientationType orientationType, int orientationValue,
+            int  intensity, int onDurationMs, int pulseIterations, int patternIterations,
+            int pulsePeriodMs, int patternPeriodMs, ResetProgressOption resetProgressOption) {
         if (channelIndex < 0 || channelIndex > 5) {
             throw new IllegalArgumentException("Channel index must be in range [0-5].");
         }
@@ -77,10 +108,6 @@ class PulseCommand {
                 break;
             case ANGLE:
             case BEARING:
-                orientationValue = orientationValue%360;
-                if (orientationValue < 0) {
-                    orientationValue += 360;
-                }
                 break;
         }
         if (intensity < 0 || (intensity>100 &&
@@ -96,9 +123,6 @@ class PulseCommand {
         if (patternIterations > 127 || patternIterations < -128) {
             throw new IllegalArgumentException("Illegal pattern iterations value.");
         }
-        if (patternIterations < 0) {
-            patternIterations = 0;
-        }
         if (pulsePeriodMs < 0 || pulsePeriodMs > 0xFFFF) {
             throw new IllegalArgumentException("Illegal pulse period value.");
         }
@@ -108,18 +132,21 @@ class PulseCommand {
         if (resetProgressOption == null) {
             throw new IllegalArgumentException("Illegal reset pattern option value.");
         }
-        this.channelIndex = channelIndex;
-        this.orientationType = orientationType;
-        this.orientationValue = orientationValue;
-        this.intensity = intensity;
-        this.onDurationMs = onDurationMs;
-        this.pulseIterations = pulseIterations;
-        this.patternIterations = patternIterations;
-        this.pulsePeriodMs = pulsePeriodMs;
-        this.patternPeriodMs = patternPeriodMs;
-        this.resetProgressOption = resetProgressOption;
-        this.exclusiveChannel = exclusiveChannel;
-        this.clearOtherChannels = clearOtherChannels;
+    }
+
+    /**
+     * Returns the orientation value in range [0-359] for angles and bearings.
+     */
+    private static int normalizeOrientationValue(OrientationType orientationType,
+                                                 int orientationValue) {
+        if (orientationType == OrientationType.ANGLE ||
+                orientationType == OrientationType.BEARING) {
+            orientationValue = orientationValue%360;
+            if (orientationValue < 0) {
+                orientationValue += 360;
+            }
+        }
+        return orientationValue;
     }
 
     /**
@@ -128,25 +155,87 @@ class PulseCommand {
      * @return the packet for this pulse command.
      */
     public byte[] getPacket() {
-        return new byte[] {
-                (byte) 0x40,
-                (byte) channelIndex,
-                orientationType.getValue(),
-                (byte) (orientationValue & 0xFF),
-                (byte) ((orientationValue >> 8) & 0xFF),
-                (byte) intensity,
-                (byte) (onDurationMs & 0xFF),
-                (byte) ((onDurationMs >> 8) & 0xFF),
-                (byte) pulseIterations,
-                (byte) (patternIterations & 0xFF),
-                (byte) (pulsePeriodMs & 0xFF),
-                (byte) ((pulsePeriodMs >> 8) & 0xFF),
-                (byte) (patternPeriodMs & 0xFF),
-                (byte) ((patternPeriodMs >> 8) & 0xFF),
-                resetProgressOption.getValue(),
-                (byte) ((exclusiveChannel)?(0x01):(0x00)),
-                (byte) ((clearOtherChannels)?(0x01):(0x00))
-        };
+        byte[] packet = new byte[PACKET_LENGTH];
+        writePacket(packet, 0);
+        return packet;
+    }
+
+    /**
+     * Writes the packet of this pulse command in a buffer.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If the buffer is too small for the packet.
+     */
+    public int writePacket(byte[] buffer, int offset) {
+        checkBuffer(buffer, offset);
+        return putPacket(buffer, offset, channelIndex, orientationType, orientationValue,
+                intensity, onDurationMs, pulseIterations, patternIterations, pulsePeriodMs,
+                patternPeriodMs, resetProgressOption, exclusiveChannel, clearOtherChannels);
+    }
+
+    /**
+     * Writes the packet of a pulse command in a buffer without creating a command object. The
+     * arguments are checked as for the constructor.
+     *
+     * @param buffer The buffer.
+     * @param offset The position of the packet in the buffer.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException If an argument has illegal value or the buffer is too small
+     * for the packet.
+     */
+    static int writePacket(
+            byte[] buffer, int offset, int channelIndex, OrientationType orientationType,
+            int orientationValue, int  intensity, int onDurationMs, int pulseIterations,
+            int patternIterations, int pulsePeriodMs, int patternPeriodMs,
+            ResetProgressOption resetProgressOption, boolean exclusiveChannel,
+            boolean clearOtherChannels) {
+        checkBuffer(buffer, offset);
+        checkArguments(channelIndex, orientationType, orientationValue, intensity, onDurationMs,
+                pulseIterations, patternIterations, pulsePeriodMs, patternPeriodMs,
+                resetProgressOption);
+        return putPacket(buffer, offset, channelIndex, orientationType,
+                normalizeOrientationValue(orientationType, orientationValue), intensity,
+                onDurationMs, pulseIterations, (patternIterations < 0)?(0):(patternIterations),
+                pulsePeriodMs, patternPeriodMs, resetProgressOption, exclusiveChannel,
+                clearOtherChannels);
+    }
+
+    /**
+     * Checks that a buffer can hold a packet at the given offset.
+     *
+     * @throws IllegalArgumentException If the buffer is too small for the packet.
+     */
+    private static void checkBuffer(byte[] buffer, int offset) {
+        if (buffer == null || offset < 0 || offset > buffer.length - PACKET_LENGTH) {
+            throw new IllegalArgumentException("Buffer too small for the packet.");
+        }
+    }
+
+    /**
+     * Writes checked values in a buffer.
+     */
+    private static int putPacket(
+            byte[] buffer, int offset, int channelIndex, OrientationType orientationType,
+            int orientationValue, int  intensity, int onDurationMs, int pulseIterations,
+            int patternIterations, int pulsePeriodMs, int patternPeriodMs,
+            ResetProgressOption resetProgressOption, boolean exclusiveChannel,
+            boolean clearOtherChannels) {
+        buffer[offset] = (byte) 0x40;
+        buffer[offset+1] = (byte) channelIndex;
+        buffer[offset+2] = orientationType.getValue();
+        BinaryUtils.writeInt16LE(buffer, offset+3, orientationValue);
+        buffer[offset+5] = (byte) intensity;
+        BinaryUtils.writeInt16LE(buffer, offset+6, onDurationMs);
+        buffer[offset+8] = (byte) pulseIterations;
+        buffer[offset+9] = (byte) (patternIterations & 0xFF);
+        BinaryUtils.writeInt16LE(buffer, offset+10, pulsePeriodMs);
+        BinaryUtils.writeInt16LE(buffer, offset+12, patternPeriodMs);
+        buffer[offset+14] = resetProgressOption.getValue();
+        buffer[offset+15] = (byte) ((exclusiveChannel)?(0x01):(0x00));
+        buffer[offset+16] = (byte) ((clearOtherChannels)?(0x01):(0x00));
+        return PACKET_LENGTH;
     }
 
 }
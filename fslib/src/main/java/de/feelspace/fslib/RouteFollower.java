@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Follows the progress along a route given as a polyline of waypoints.
+ *
+ * The follower keeps the active segment of the route and only examines the active segment and
+ * a few following segments on each location update, so the cost of an update does not depend on
+ * the length of the route. The active segment never moves backward.
+ *
+ * The position on segments is computed on a local plane around each location. Distances and
+ * bearings to waypoints are computed with the precision given at creation, see {@link GeoMath}.
+ */
+public class RouteFollower {
+
+    /**
+     * Default distance in meters under which a waypoint is considered passed.
+     */
+    public static final double DEFAULT_WAYPOINT_RADIUS_M = 8;
+
+    // Number of segments after the active one examined on each update
+    private static final int LOOKAHEAD_SEGMENTS = 3;
+
+    // Waypoints in radians
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    // Waypoints in degrees
+    private final double[] latitudesDeg;
+    private final double[] longitudesDeg;
+
+    // Precision of distances and bearings to waypoints
+    private final GeodesicPrecision precision;
+
+    // Length of the route from each waypoint to the destination
+    private final double[] remainingLengths;
+
+    // Distance under which a waypoint is passed
+    private final double waypointRadius;
+
+    // Index of the first waypoint of the active segment
+    private int activeSegment = 0;
+
+    // Results of the last update
+    private boolean located = false;
+    private double bearingToNextWaypoint = 0;
+    private double distanceToNextWaypoint = 0;
+    private double distanceToDestination = 0;
+    private double distanceToRoute = 0;
+
+    /**
+     * Creates a route follower with the default waypoint radius.
+     *
+     * @param latitudes The latitudes of the waypoints in degrees.
+     * @param longitudes The longitudes of the waypoints in degrees.
+     * @throws IllegalArgumentException If the route has less than two waypoints, or a coordinate
+     * is out of range.
+     */
+    public RouteFollower(double[] latitudes, double[] longitudes) {
+        this(latitudes, longitudes, DEFAULT_WAYPOINT_RADIUS_M, GeodesicPrecision.SPHERICAL);
+    }
+
+    /**
+     * Creates a route follower.
+     *
+     * @param latitudes The latitudes of the waypoints in degrees.
+     * @param longitudes The longitudes of the waypoints in degrees.
+     * @param waypointRadius The distance in meters under which a waypoint is considered passed.
+     * @param precision The precision of distances and bearings to waypoints.
+     * @throws IllegalArgumentException If the route has less than two waypoints, a coordinate is
+     * out of range, the radius is negative or the precision is <code>null</code>.
+     */
+    public RouteFollower(double[] latitudes, double[] longitudes, double waypointRadius,
+                         GeodesicPrecision precision) {
+        if (latitudes == null || longitudes == null || latitudes.length != longitudes.length ||
+                latitudes.length < 2) {
+            throw new IllegalArgumentException("A route must have at least two waypoints.");
+        }
+        if (!(waypointRadius >= 0)) {
+            throw new IllegalArgumentException("Negative waypoint radius.");
+        }
+        if (precision == null) {
+            throw new IllegalArgumentException("Null geodesic precision.");
+        }
+        this.precision = precision;
+        int n = latitudes.length;
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        latitudesDeg = latitudes.clone();
+        longitudesDeg = longitudes.clone();
+        for (int i=0; i<n; i++) {
+            checkCoordinates(latitudes[i], longitudes[i]);
+            this.latitudes[i] = Math.toRadians(latitudes[i]);
+            this.longitudes[i] = Math.toRadians(longitudes[i]);
+        }
+        this.waypointRadius = waypointRadius;
+        remainingLengths = new double[n];
+        for (int i=n-2; i>=0; i--) {
+            remainingLengths[i] = remainingLengths[i+1]+GeoMath.distance(precision,
+                    latitudesDeg[i], longitudesDeg[i], latitudesDeg[i+1], longitudesDeg[i+1]);
+        }
+    }
+
+    /**
+     * Checks the range of coordinates.
+     *
+     * @throws IllegalArgumentException If a coordinate is out of range.
+     */
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range.");
+        }
+    }
+
+    /**
+     * Updates the progress along the route with a new location.
+     *
+     * @param latitude The latitude of the location in degrees.
+     * @param longitude The longitude of the location in degrees.
+     * @return <code>true</code> if the active segment has changed.
+     * @throws IllegalArgumentException If a coordinate is out of range.
+     */
+    public synchronized boolean update(double latitude, double longitude) {
+        checkCoordinates(latitude, longitude);
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        int previousSegment = activeSegment;
+        int lastSegment = latitudes.length-2;
+        // Jump to a closer segment ahead
+        double bestDistance = segmentDistance(activeSegment, lat, lon, cosLat);
+        int lookaheadEnd = Math.min(lastSegment, activeSegment+LOOKAHEAD_SEGMENTS);
+        int bestSegment = activeSegment;
+        for (int s=activeSegment+1; s<=lookaheadEnd; s++) {
+            double d = segmentDistance(s, lat, lon, cosLat);
+            if (d < bestDistance) {
+                bestDistance = d;
+                bestSegment = s;
+            }
+        }
+        activeSegment = bestSegment;
+        // Pass the waypoints that are reached or behind
+        while (activeSegment < lastSegment) {
+            int next = activeSegment+1;
+            if (projection(activeSegment, lat, lon, cosLat) < 1 &&
+                    GeoMath.distance(precision, latitude, longitude, latitudesDeg[next],
+                            longitudesDeg[next]) > waypointRadius) {
+                break;
+            }
+            activeSegment = next;
+            bestDistance = segmentDistance(activeSegment, lat, lon, cosLat);
+        }
+        int next = activeSegment+1;
+        distanceToRoute = bestDistance;
+        distanceToNextWaypoint = GeoMath.distance(precision, latitude, longitude,
+                latitudesDeg[next], longitudesDeg[next]);
+        distanceToDestination = distanceToNextWaypoint+remainingLengths[next];
+        bearingToNextWaypoint = GeoMath.bearing(precision, latitude, longitude,
+                latitudesDeg[next], longitudesDeg[next]);
+        located = true;
+        return activeSegment != previousSegment;
+    }
+
+    /**
+     * Returns the position of the projection of a location on a segment, <code>0</code> at the
+     * first waypoint and <code>1</code> at the second waypoint.
+     */
+    private double projection(int segment, double lat, double lon, double cosLat) {
+        // Local plane centered on the location, in radians of arc
+        double ax = localX(segment, lon, cosLat);
+        double ay = latitudes[segment]-lat;
+        double bx = localX(segment+1, lon, cosLat);
+        double by = latitudes[segment+1]-lat;
+        double dx = bx-ax;
+        double dy = by-ay;
+        double lengthSquared = dx*dx+dy*dy;
+        if (lengthSquared == 0) {
+            return 1;
+        }
+        return -(ax*dx+ay*dy)/lengthSquared;
+    }
+
+    /**
+     * Returns the East coordinate of a waypoint in the local plane centered on a location, with
+     * the longitude difference wrapped across the antimeridian.
+     */
+    private double localX(int waypoint, double lon, double cosLat) {
+        return Math.toRadians(GeoMath.wrapLongitude(
+                Math.toDegrees(longitudes[waypoint]-lon)))*cosLat;
+    }
+
+    /**
+     * Returns the distance in meters between a location and a segment.
+     */
+    private double segmentDistance(int segment, double lat, double lon, double cosLat) {
+        double t = Math.max(0, Math.min(1, projection(segment, lat, lon, cosLat)));
+        double ax = localX(segment, lon, cosLat);
+        double ay = latitudes[segment]-lat;
+        double bx = localX(segment+1, lon, cosLat);
+        double by = latitudes[segment+1]-lat;
+        double px = ax+t*(bx-ax);
+        double py = ay+t*(by-ay);
+        return Math.sqrt(px*px+py*py)*GeoMath.EARTH_RADIUS_M;
+    }
+
+    /**
+     * Returns <code>true</code> if a location has been given.
+     *
+     * @return <code>true</code> if a location has been given.
+     */
+    public synchronized boolean isLocated() {
+        return located;
+    }
+
+    /**
+     * Returns the number of waypoints of the route, including the destination.
+     *
+     * @return the number of waypoints.
+     */
+    public int getWaypointCount() {
+        return latitudes.length;
+    }
+
+    /**
+     * Returns the index of the first waypoint of the active segment.
+     *
+     * @return the index of the active segment.
+     */
+    public synchronized int getActiveSegmentIndex() {
+        return activeSegment;
+    }
+
+    /**
+     * Returns the index of the next waypoint.
+     *
+     * @return the index of the next waypoint.
+     */
+    public synchronized int getNextWaypointIndex() {
+        return activeSegment+1;
+    }
+
+    /**
+     * Returns <code>true</code> if the next waypoint is the destination.
+     *
+     * @return <code>true</code> if the next waypoint is the destination.
+     */
+    public synchronized boolean isLastSegment() {
+        return activeSegment == latitudes.length-2;
+    }
+
+    /**
+     * Returns the bearing to the next waypoint at the last location.
+     *
+     * @return the bearing relative to geographic North in degrees in range [0-360[.
+     */
+    public synchronized double getBearingToNextWaypoint() {
+        return bearingToNextWaypoint;
+    }
+
+    /**
+     * Returns the distance to the next waypoint at the last location.
+     *
+     * @return the distance in meters.
+     */
+    public synchronized double getDistanceToNextWaypoint() {
+        return distanceToNextWaypoint;
+    }
+
+    /**
+     * Returns the distance to the destination along the route at the last location.
+     *
+     * @return the distance in meters.
+     */
+    public synchronized double getDistanceToDestination() {
+        return distanceToDestination;
+    }
+
+    /**
+     * Returns the distance between the last location and the active segment.
+     *
+     * @return the distance in meters.
+     */
+    public synchronized double getDistanceToRoute() {
+        return distanceToRoute;
+    }
+
+}
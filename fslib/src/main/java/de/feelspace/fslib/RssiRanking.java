@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Ranking of scan candidates by smoothed signal strength.
+ *
+ * The RSSI of each candidate is smoothed with an exponential moving average, so that a single
+ * strong advertisement does not decide the ranking. Candidates with the same smoothed RSSI are
+ * ranked by number of samples, then by order of discovery.
+ */
+class RssiRanking {
+
+    /**
+     * Default smoothing factor of the RSSI.
+     */
+    public static final double DEFAULT_SMOOTHING_FACTOR = 0.3;
+
+    // Smoothing factor of the RSSI
+    private final double smoothingFactor;
+
+    // Candidates by address
+    private final HashMap<String, Candidate> candidates = new HashMap<>();
+
+    /**
+     * Creates a ranking with the default smoothing factor.
+     */
+    public RssiRanking() {
+        this(DEFAULT_SMOOTHING_FACTOR);
+    }
+
+    /**
+     * Creates a ranking.
+     *
+     * @param smoothingFactor The smoothing factor of the RSSI in range ]0-1], <code>1</code> for
+     *                        no smoothing.
+     * @throws IllegalArgumentException If the smoothing factor is out of range.
+     */
+    public RssiRanking(double smoothingFactor) {
+        if (!(smoothingFactor > 0 && smoothingFactor <= 1)) {
+            throw new IllegalArgumentException("Smoothing factor must be in range ]0-1].");
+        }
+        this.smoothingFactor = smoothingFactor;
+    }
+
+    /**
+     * Adds an RSSI sample of a candidate.
+     *
+     * @param address The address of the candidate.
+     * @param rssi The RSSI in dBm.
+     * @return the smoothed RSSI of the candidate.
+     */
+    public synchronized double addSample(@NonNull String address, int rssi) {
+        Candidate candidate = candidates.get(address);
+        if (candidate == null) {
+            candidate = new Candidate(address, candidates.size(), rssi);
+            candidates.put(address, candidate);
+        } else {
+            candidate.smoothedRssi += smoothingFactor*(rssi-candidate.smoothedRssi);
+            candidate.sampleCount++;
+        }
+        return candidate.smoothedRssi;
+    }
+
+    /**
+     * Returns <code>true</code> if a candidate has been sampled.
+     *
+     * @param address The address of the candidate.
+     * @return <code>true</code> if the candidate is in the ranking.
+     */
+    public synchronized boolean contains(@NonNull String address) {
+        return candidates.containsKey(address);
+    }
+
+    /**
+     * Returns the smoothed RSSI of a candidate.
+     *
+     * @param address The address of the candidate.
+     * @return the smoothed RSSI in dBm, or <code>NaN</code> if the candidate is unknown.
+     */
+    public synchronized double getSmoothedRssi(@NonNull String address) {
+        Candidate candidate = candidates.get(address);
+        return (candidate == null)?(Double.NaN):(candidate.smoothedRssi);
+    }
+
+    /**
+     * Returns the number of RSSI samples of a candidate.
+     *
+     * @param address The address of the candidate.
+     * @return the number of samples.
+     */
+    public synchronized int getSampleCount(@NonNull String address) {
+        Candidate candidate = candidates.get(address);
+        return (candidate == null)?(0):(candidate.sampleCount);
+    }
+
+    /**
+     * Returns the number of candidates.
+     *
+     * @return the number of candidates.
+     */
+    public synchronized int size() {
+        return candidates.size();
+    }
+
+    /**
+     * Returns the address of the best candidate.
+     *
+     * @return the address of the best candidate, or <code>null</code> if there is no candidate.
+     */
+    public synchronized @Nullable String getBestAddress() {
+        Candidate best = null;
+        for (Candidate candidate: candidates.values()) {
+            if (best == null || candidate.compareTo(best) < 0) {
+                best = candidate;
+            }
+        }
+        return (best == null)?(null):(best.address);
+    }
+
+    /**
+     * Returns the addresses of the candidates from the best to the worst.
+     *
+     * @return the ranked addresses.
+     */
+    public synchronized @NonNull List<String> getRankedAddresses() {
+        ArrayList<Candidate> ranked = new ArrayList<>(candidates.values());
+        Collections.sort(ranked);
+        ArrayList<String> addresses = new ArrayList<>(ranked.size());
+        for (Candidate candidate: ranked) {
+            addresses.add(candidate.address);
+        }
+        return addresses;
+    }
+
+    /**
+     * Removes all candidates.
+     */
+    public synchronized void clear() {
+        candidates.clear();
+    }
+
+    /**
+     * Candidate with its smoothed RSSI, ordered from the best to the worst.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        private final String address;
+        private final int discoveryIndex;
+        private double smoothedRssi;
+        private int sampleCount = 1;
+
+        private Candidate(String address, int discoveryIndex, int rssi) {
+            this.address = address;
+            this.discoveryIndex = discoveryIndex;
+            this.smoothedRssi = rssi;
+        }
+
+        @Override
+        public int compareTo(@NonNull Candidate other) {
+            if (smoothedRssi != other.smoothedRssi) {
+                return (smoothedRssi > other.smoothedRssi)?(-1):(1);
+            }
+            if (sampleCount != other.sampleCount) {
+                return (sampleCount > other.sampleCount)?(-1):(1);
+            }
+            return Integer.compare(discoveryIndex, other.discoveryIndex);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Lease of a vibration channel by a logical signal. A lease may be suspended, i.e. without
+ * channel, when channels are used by signals with higher priority.
+ */
+public class VibrationChannelLease {
+
+    /**
+     * Channel index of a suspended lease.
+     */
+    public static final int NO_CHANNEL = -1;
+
+    // Manager
+    private final @NonNull VibrationChannelManager manager;
+
+    // Signal
+    final @NonNull VibrationChannelSignal signal;
+
+    // Priority
+    private final int priority;
+
+    // Preferred channel or NO_CHANNEL
+    final int preferredChannel;
+
+    // Acquisition order
+    final long sequence;
+
+    // Channel, accessed under the lock of the manager
+    int channelIndex = NO_CHANNEL;
+
+    // Release flag, accessed under the lock of the manager
+    boolean released = false;
+
+    VibrationChannelLease(@NonNull VibrationChannelManager manager,
+                          @NonNull VibrationChannelSignal signal, int priority,
+                          int preferredChannel, long sequence) {
+        this.manager = manager;
+        this.signal = signal;
+        this.priority = priority;
+        this.preferredChannel = preferredChannel;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the priority of the lease.
+     *
+     * @return the priority of the lease, higher values have higher priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the channel of the lease.
+     *
+     * @return the channel index, or {@link #NO_CHANNEL} if the lease is suspended or released.
+     */
+    public int getChannelIndex() {
+        synchronized (manager) {
+            return channelIndex;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the lease has been released.
+     *
+     * @return <code>true</code> if the lease has been released.
+     */
+    public boolean isReleased() {
+        synchronized (manager) {
+            return released;
+        }
+    }
+
+    /**
+     * Releases the lease. The channel is stopped or granted to a suspended lease.
+     */
+    public void release() {
+        manager.release(this);
+    }
+
+}
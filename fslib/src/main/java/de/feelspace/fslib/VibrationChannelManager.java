@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager of the vibration channels of the belt.
+ *
+ * Logical signals lease channels with a priority. When there are more leases than channels, the
+ * leases with lowest priority are suspended. Leases with the same priority as the last lease
+ * with a channel can share the remaining channels in turns when a multiplexing period is set.
+ * When leases change, only the channels that are not reused are stopped, and a lease keeps its
+ * channel as long as it is not suspended.
+ *
+ * Vibration commands without channel index use a default channel that is not leased when
+ * possible, see {@link #getDefaultChannel(boolean)}.
+ */
+public class VibrationChannelManager {
+    // Debug
+    @SuppressWarnings("unused")
+    private static final boolean DEBUG = true;
+    private static final String DEBUG_TAG = "FeelSpace-Debug";
+
+    /**
+     * Default order in which channels are leased. Channels 1 and 2, the default channels of
+     * temporary and repeated signals, are leased last, and channel 0 is also used for temporary
+     * signals outside App mode.
+     */
+    public static final int[] DEFAULT_LEASE_ORDER = {3, 4, 5, 2, 1, 0};
+
+    // Order of channels for commands without channel index
+    private static final int[] DEFAULT_CHANNEL_ORDER = {1, 2, 3, 4, 5, 0};
+
+    // Order of leases
+    private static final Comparator<VibrationChannelLease> LEASE_COMPARATOR = (a, b) -> {
+        int c = Integer.compare(b.getPriority(), a.getPriority());
+        return (c != 0)?(c):(Long.compare(a.sequence, b.sequence));
+    };
+
+    // Command interface to stop channels, or null
+    private final @Nullable BeltCommandInterface commandInterface;
+
+    // Executor for multiplexing, or null
+    private final @Nullable ScheduledThreadPoolExecutor executor;
+
+    // Channels in lease order
+    private final int[] channels;
+
+    // Active leases
+    private final ArrayList<VibrationChannelLease> leases = new ArrayList<>();
+    private long nextSequence = 0;
+
+    // Channels of released leases, to stop or reuse
+    private final boolean[] releasedChannels = new boolean[6];
+
+    // Multiplexing
+    private long multiplexPeriodMs = 0;
+    private long multiplexRotation = 0;
+    private @Nullable ScheduledFuture<?> multiplexTask;
+
+    /**
+     * Creates a channel manager with the default lease order.
+     *
+     * @param commandInterface The command interface to stop channels, or <code>null</code>.
+     * @param executor The executor for multiplexing, or <code>null</code>.
+     */
+    VibrationChannelManager(@Nullable BeltCommandInterface commandInterface,
+                            @Nullable ScheduledThreadPoolExecutor executor) {
+        this(commandInterface, executor, DEFAULT_LEASE_ORDER);
+    }
+
+    /**
+     * Creates a channel manager.
+     *
+     * @param commandInterface The command interface to stop channels, or <code>null</code>.
+     * @param executor The executor for multiplexing, or <code>null</code>.
+     * @param channels The channels that can be leased, in lease order.
+     * @throws IllegalArgumentException If no channel is given or a channel index is out of range.
+     */
+    VibrationChannelManager(@Nullable BeltCommandInterface commandInterface,
+                            @Nullable ScheduledThreadPoolExecutor executor, int... channels) {
+        if (channels == null || channels.length == 0) {
+            throw new IllegalArgumentException("No channel to lease.");
+        }
+        for (int channel: channels) {
+            if (channel < 0 || channel > 5) {
+                throw new IllegalArgumentException("Channel index must be in range [0-5].");
+            }
+        }
+        this.commandInterface = commandInterface;
+        this.executor = executor;
+        this.channels = channels.clone();
+    }
+
+    /**
+     * Acquires a lease for a signal.
+     *
+     * The lease has a channel when the returned lease has a channel index, in this case the
+     * signal must be started on this channel by the caller. The signal is notified only of later
+     * changes of the lease.
+     *
+     * @param priority The priority of the signal, higher values have higher priority.
+     * @param preferredChannel The preferred channel of the signal, or
+     *                         {@link VibrationChannelLease#NO_CHANNEL}.
+     * @param signal The signal.
+     * @return the lease.
+     * @throws IllegalArgumentException If the signal is <code>null</code>.
+     */
+    public VibrationChannelLease acquire(int priority, int preferredChannel,
+                                         VibrationChannelSignal signal) {
+        if (signal == null) {
+            throw new IllegalArgumentException("Null signal.");
+        }
+        VibrationChannelLease lease;
+        synchronized (this) {
+            lease = new VibrationChannelLease(this, signal, priority, preferredChannel,
+                    nextSequence++);
+        }
+        allocate(lease);
+        return lease;
+    }
+
+    /**
+     * Releases a lease.
+     */
+    void release(@NonNull VibrationChannelLease lease) {
+        synchronized (this) {
+            if (lease.released) {
+                return;
+            }
+            lease.released = true;
+            leases.remove(lease);
+            if (lease.channelIndex != VibrationChannelLease.NO_CHANNEL) {
+                releasedChannels[lease.channelIndex] = true;
+                lease.channelIndex = VibrationChannelLease.NO_CHANNEL;
+            }
+        }
+        allocate(null);
+    }
+
+    /**
+     * Sets the period at which leases of the same priority share channels in turns.
+     *
+     * @param periodMs The multiplexing period in milliseconds, or <code>0</code> to suspend the
+     *                 last acquired leases.
+     */
+    public void setMultiplexPeriod(long periodMs) {
+        synchronized (this) {
+            multiplexPeriodMs = Math.max(0, periodMs);
+        }
+        allocate(null);
+    }
+
+    /**
+     * Returns the number of active leases, with or without channel.
+     *
+     * @return the number of active leases.
+     */
+    public synchronized int getLeaseCount() {
+        return leases.size();
+    }
+
+    /**
+     * Returns <code>true</code> if a channel is leased.
+     *
+     * @param channelIndex The channel index.
+     * @return <code>true</code> if the channel is leased.
+     */
+    public synchronized boolean isLeased(int channelIndex) {
+        for (VibrationChannelLease lease: leases) {
+            if (lease.channelIndex == channelIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the channel for a vibration command without channel index. The default channel is
+     * 2 for repeated signals and 1 for temporary signals, or another channel that is not leased.
+     *
+     * @param repeated <code>true</code> for a repeated signal.
+     * @return the default channel index.
+     */
+    public synchronized int getDefaultChannel(boolean repeated) {
+        int preferred = (repeated)?(2):(1);
+        if (!isLeased(preferred)) {
+            return preferred;
+        }
+        for (int channel: DEFAULT_CHANNEL_ORDER) {
+            if (!isLeased(channel)) {
+                return channel;
+            }
+        }
+        return preferred;
+    }
+
+    /**
+     * Assigns channels to leases and applies the changes.
+     *
+     * @param acquired The lease being acquired, added to the leases and not notified of its
+     *                 channel, or <code>null</code>.
+     */
+    private void allocate(@Nullable VibrationChannelLease acquired) {
+        ArrayList<VibrationChannelLease> revoked = new ArrayList<>();
+        int[] revokedChannels = new int[channels.length];
+        ArrayList<VibrationChannelLease> granted = new ArrayList<>();
+        int[] stopped;
+        synchronized (this) {
+            if (acquired != null) {
+                leases.add(acquired);
+            }
+            ArrayList<VibrationChannelLease> selected = selectLeases();
+            // Revoke the channels of suspended leases
+            boolean[] freed = releasedChannels.clone();
+            Arrays.fill(releasedChannels, false);
+            for (VibrationChannelLease lease: leases) {
+                if (lease.channelIndex != VibrationChannelLease.NO_CHANNEL &&
+                        !selected.contains(lease)) {
+                    revokedChannels[revoked.size()] = lease.channelIndex;
+                    revoked.add(lease);
+                    freed[lease.channelIndex] = true;
+                    lease.channelIndex = VibrationChannelLease.NO_CHANNEL;
+                }
+            }
+            boolean[] held = new boolean[6];
+            for (VibrationChannelLease lease: selected) {
+                if (lease.channelIndex != VibrationChannelLease.NO_CHANNEL) {
+                    held[lease.channelIndex] = true;
+                }
+            }
+            // Grant channels, reusing freed channels to avoid stop commands
+            for (VibrationChannelLease lease: selected) {
+                if (lease.channelIndex != VibrationChannelLease.NO_CHANNEL) {
+                    continue;
+                }
+                int channel = VibrationChannelLease.NO_CHANNEL;
+                if (isManaged(lease.preferredChannel) && !held[lease.preferredChannel]) {
+                    channel = lease.preferredChannel;
+                } else {
+                    for (int c: channels) {
+                        if (!held[c] && (channel == VibrationChannelLease.NO_CHANNEL ||
+                                (freed[c] && !freed[channel]))) {
+                            channel = c;
+                        }
+                    }
+                }
+                held[channel] = true;
+                lease.channelIndex = channel;
+                if (lease != acquired) {
+                    granted.add(lease);
+                }
+            }
+            // Stop the freed channels that are not reused
+            int stopCount = 0;
+            int[] toStop = new int[channels.length];
+            for (int channel: channels) {
+                if (freed[channel] && !held[channel]) {
+                    toStop[stopCount++] = channel;
+                }
+            }
+            stopped = Arrays.copyOf(toStop, stopCount);
+            scheduleMultiplexing();
+        }
+        if (stopped.length > 0 && commandInterface != null) {
+            commandInterface.stopVibration(stopped);
+        }
+        for (int i=0; i<revoked.size(); i++) {
+            revoked.get(i).signal.onChannelRevoked(revokedChannels[i]);
+        }
+        for (VibrationChannelLease lease: granted) {
+            int channel = lease.getChannelIndex();
+            if (channel != VibrationChannelLease.NO_CHANNEL) {
+                lease.signal.onChannelGranted(channel);
+            }
+        }
+    }
+
+    /**
+     * Returns the leases that have a channel, by priority. Must be called in a block
+     * synchronized on the manager.
+     */
+    private @NonNull ArrayList<VibrationChannelLease> selectLeases() {
+        ArrayList<VibrationChannelLease> sorted = new ArrayList<>(leases);
+        Collections.sort(sorted, LEASE_COMPARATOR);
+        if (sorted.size() <= channels.length) {
+            return sorted;
+        }
+        ArrayList<VibrationChannelLease> selected =
+                new ArrayList<>(sorted.subList(0, channels.length));
+        if (multiplexPeriodMs > 0) {
+            // Leases with the priority of the last selected lease share the remaining channels
+            int lastPriority = sorted.get(channels.length-1).getPriority();
+            int groupStart = channels.length-1;
+            while (groupStart > 0 && sorted.get(groupStart-1).getPriority() == lastPriority) {
+                groupStart--;
+            }
+            int groupEnd = channels.length;
+            while (groupEnd < sorted.size() && sorted.get(groupEnd).getPriority() == lastPriority) {
+                groupEnd++;
+            }
+            int groupSize = groupEnd-groupStart;
+            int slots = channels.length-groupStart;
+            if (groupSize > slots) {
+                int offset = (int) ((multiplexRotation*slots)%groupSize);
+                for (int i=0; i<slots; i++) {
+                    selected.set(groupStart+i, sorted.get(groupStart+(offset+i)%groupSize));
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns <code>true</code> if the channel can be leased.
+     */
+    private boolean isManaged(int channelIndex) {
+        for (int channel: channels) {
+            if (channel == channelIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Schedules the next rotation of multiplexed leases when leases share channels. Must be
+     * called in a block synchronized on the manager.
+     */
+    private void scheduleMultiplexing() {
+        boolean needed = multiplexPeriodMs > 0 && leases.size() > channels.length;
+        if (!needed || executor == null) {
+            if (multiplexTask != null) {
+                multiplexTask.cancel(false);
+                multiplexTask = null;
+            }
+            return;
+        }
+        if (multiplexTask != null) {
+            return;
+        }
+        try {
+            multiplexTask = executor.schedule(() -> {
+                synchronized (VibrationChannelManager.this) {
+                    multiplexTask = null;
+                }
+                rotate();
+            }, multiplexPeriodMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.e(DEBUG_TAG, "VibrationChannelManager: Unable to schedule the multiplexing.", e);
+        }
+    }
+
+    /**
+     * Rotates the leases that share channels, as done at each multiplexing period.
+     */
+    void rotate() {
+        synchronized (this) {
+            multiplexRotation++;
+        }
+        allocate(null);
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2024. feelSpace GmbH. All rights reserved.
+ *
+ * More info: www.feelspace.de
+ * Developer contact: dev@feelspace.de
+ * General information contact: info@feelspace.de
+ */
+package de.feelspace.fslib;
+
+/**
+ * Interface of a logical vibration signal that leases a channel from a
+ * {@link VibrationChannelManager}.
+ */
+public interface VibrationChannelSignal {
+
+    /**
+     * Called when a channel has been granted to the signal after the lease has been acquired,
+     * e.g. when a signal with higher priority released its channel. The signal must be started
+     * on the channel.
+     *
+     * @param channelIndex The channel granted to the signal.
+     */
+    void onChannelGranted(int channelIndex);
+
+    /**
+     * Called when the channel of the signal has been revoked for a signal with higher priority.
+     * The channel is stopped or reused by the manager, the signal must not send commands on
+     * this channel anymore.
+     *
+     * @param channelIndex The channel revoked.
+     */
+    void onChannelRevoked(int channelIndex);
+
+}
@@ -0,0 +1,74 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the battery status decoding and of the downsampled battery history.
+ */
+public class BatteryHistoryTest {
+
+    @Test
+    public void batteryStatus_decodesPresenceOfExtraReadings() {
+        // Discharging, 50.5%, TTE 100*5.625s, -300 mA, 3900 mV
+        byte[] packet = new byte[] {0x03, (byte) 0x80, 50, 100, 0, (byte) 0xD4, (byte) 0xFE,
+                0x3C, 0x0F};
+        BeltBatteryStatus status = new BeltBatteryStatus(packet);
+        assertEquals(50.5f, status.getLevel(), 1e-6f);
+        assertEquals(562.5f, status.getTteTtf(), 1e-3f);
+        assertEquals(-300f, status.getCurrent(), 0f);
+        assertEquals(3900f, status.getVoltage(), 0f);
+        assertFalse(status.hasExtra(BeltBatteryStatus.EXTRA_TEMPERATURE));
+        assertTrue(Float.isNaN(status.getTemperature()));
+        assertNull(status.getExtra()[BeltBatteryStatus.EXTRA_TEMPERATURE]);
+        // Negative temperature of -2.5 degrees
+        byte[] extended = new byte[11];
+        System.arraycopy(packet, 0, extended, 0, packet.length);
+        extended[9] = (byte) 0x80;
+        extended[10] = (byte) 0xFD;
+        status = new BeltBatteryStatus(extended);
+        assertTrue(status.hasExtra(BeltBatteryStatus.EXTRA_TEMPERATURE));
+        assertEquals(-2.5f, status.getTemperature(), 0f);
+    }
+
+    @Test
+    public void history_downsamplesWhenFull() {
+        BatteryHistory history = new BatteryHistory(4);
+        for (int i=0; i<4; i++) {
+            history.add(100-i, 0, 0, 4000, Float.NaN, i);
+        }
+        assertEquals(2, history.getEntryCount());
+        assertEquals(2, history.getSamplesPerEntry());
+        long[] times = new long[4];
+        float[] levels = new float[4];
+        assertEquals(2, history.copySeries(BatteryHistory.SERIES_LEVEL, times, levels));
+        assertEquals(99.5f, levels[0], 0f);
+        assertEquals(97.5f, levels[1], 0f);
+        assertEquals(0, times[0]);
+        assertEquals(2, times[1]);
+        // The next entry is complete after two samples
+        history.add(96, 0, 0, 4000, 20, 4);
+        assertEquals(2, history.getEntryCount());
+        history.add(95, 0, 0, 4000, Float.NaN, 5);
+        assertEquals(3, history.getEntryCount());
+        float[] temperatures = new float[4];
+        history.copySeries(BatteryHistory.SERIES_TEMPERATURE, null, temperatures);
+        assertTrue(Float.isNaN(temperatures[0]));
+        assertEquals(20f, temperatures[2], 0f);
+    }
+
+    @Test
+    public void clear_resetsResolution() {
+        BatteryHistory history = new BatteryHistory(2);
+        for (int i=0; i<5; i++) {
+            history.add(50, 0, 0, 4000, 25, i);
+        }
+        history.clear();
+        assertEquals(0, history.getEntryCount());
+        assertEquals(1, history.getSamplesPerEntry());
+        history.add(40, 0, 0, 4000, 25, 10);
+        assertEquals(1, history.getEntryCount());
+    }
+
+}
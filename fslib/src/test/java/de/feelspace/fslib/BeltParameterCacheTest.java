@@ -0,0 +1,40 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the versioned parameter cache.
+ */
+public class BeltParameterCacheTest {
+
+    @Test
+    public void versions_increaseAndSurviveClear() {
+        BeltParameterCache cache = new BeltParameterCache();
+        assertFalse(cache.hasValue(BeltParameter.HEADING_OFFSET));
+        assertEquals(BeltParameterCache.NO_VERSION, cache.getVersion(BeltParameter.HEADING_OFFSET));
+        assertEquals(-1, cache.getValue(BeltParameter.HEADING_OFFSET, -1));
+        long v1 = cache.set(BeltParameter.HEADING_OFFSET, 45, 10);
+        long v2 = cache.set(BeltParameter.HEADING_OFFSET, 45, 20);
+        assertTrue(v2 > v1);
+        assertEquals(45, cache.getValue(BeltParameter.HEADING_OFFSET, -1));
+        assertEquals(20, cache.getUpdateTimeNano(BeltParameter.HEADING_OFFSET));
+        assertFalse(cache.hasValue(BeltParameter.ACCURACY_SIGNAL_STATE));
+        cache.clear();
+        assertFalse(cache.hasValue(BeltParameter.HEADING_OFFSET));
+        assertEquals(-1, cache.getUpdateTimeNano(BeltParameter.HEADING_OFFSET));
+        assertTrue(cache.set(BeltParameter.HEADING_OFFSET, 90, 30) > v2);
+    }
+
+    @Test
+    public void freshness_usesUpdateTime() {
+        BeltParameterCache cache = new BeltParameterCache();
+        assertFalse(cache.isFresh(BeltParameter.ACCURACY_SIGNAL_STATE, 1000));
+        cache.set(BeltParameter.ACCURACY_SIGNAL_STATE, 3, System.nanoTime());
+        assertTrue(cache.isFresh(BeltParameter.ACCURACY_SIGNAL_STATE, 1000));
+        cache.set(BeltParameter.ACCURACY_SIGNAL_STATE, 3, System.nanoTime()-5000000000L);
+        assertFalse(cache.isFresh(BeltParameter.ACCURACY_SIGNAL_STATE, 1000));
+    }
+
+}
@@ -0,0 +1,98 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Property tests of the little-endian codec, using ByteBuffer as reference.
+ */
+public class BinaryUtilsTest {
+
+    private static final int CASES = 10000;
+
+    @Test
+    public void reads_matchByteBuffer() {
+        Random random = new Random(42);
+        byte[] buffer = new byte[16];
+        for (int c=0; c<CASES; c++) {
+            random.nextBytes(buffer);
+            int offset = random.nextInt(buffer.length-3);
+            ByteBuffer reference = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(reference.get(offset), BinaryUtils.readInt8(buffer, offset));
+            assertEquals(reference.get(offset) & 0xFF, BinaryUtils.readUInt8(buffer, offset));
+            assertEquals(reference.getShort(offset), BinaryUtils.readInt16LE(buffer, offset));
+            assertEquals(reference.getShort(offset) & 0xFFFF,
+                    BinaryUtils.readUInt16LE(buffer, offset));
+            assertEquals(reference.getInt(offset), BinaryUtils.readInt32LE(buffer, offset));
+            assertEquals(reference.getInt(offset) & 0xFFFFFFFFL,
+                    BinaryUtils.readUInt32LE(buffer, offset));
+        }
+    }
+
+    @Test
+    public void writes_roundTrip() {
+        Random random = new Random(7);
+        byte[] buffer = new byte[8];
+        for (int c=0; c<CASES; c++) {
+            int value = random.nextInt();
+            int offset = random.nextInt(buffer.length-3);
+            BinaryUtils.writeInt32LE(buffer, offset, value);
+            assertEquals(value, BinaryUtils.readInt32LE(buffer, offset));
+            // Signed and unsigned 16-bit values share the same encoding
+            int value16 = random.nextInt(0x10000+0x8000)-0x8000;
+            BinaryUtils.writeInt16LE(buffer, offset, value16);
+            assertEquals((short) value16, BinaryUtils.readInt16LE(buffer, offset));
+            assertEquals(value16 & 0xFFFF, BinaryUtils.readUInt16LE(buffer, offset));
+            BinaryUtils.writeInt8(buffer, offset, value);
+            assertEquals((byte) value, BinaryUtils.readInt8(buffer, offset));
+        }
+    }
+
+    @Test
+    public void byteToInt_matchesReads() {
+        Random random = new Random(3);
+        byte[] bytes = new byte[2];
+        for (int c=0; c<CASES; c++) {
+            random.nextBytes(bytes);
+            assertEquals(BinaryUtils.readInt16LE(bytes, 0),
+                    BinaryUtils.byteToInt(bytes, false, true));
+            assertEquals(BinaryUtils.readUInt16LE(bytes, 0),
+                    BinaryUtils.byteToInt(bytes, false, false));
+            byte[] reversed = new byte[] {bytes[1], bytes[0]};
+            assertEquals(BinaryUtils.readInt16LE(bytes, 0),
+                    BinaryUtils.byteToInt(reversed, true, true));
+        }
+    }
+
+    @Test
+    public void outOfBounds_isRejected() {
+        byte[] buffer = new byte[4];
+        int[] offsets = new int[] {-1, 3, 4, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int offset: offsets) {
+            try {
+                BinaryUtils.readInt16LE(buffer, offset);
+                fail("Offset " + offset + " accepted.");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            try {
+                BinaryUtils.writeInt16LE(buffer, offset, 0);
+                fail("Offset " + offset + " accepted.");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        try {
+            BinaryUtils.readInt32LE(buffer, 1);
+            fail("Field outside buffer accepted.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
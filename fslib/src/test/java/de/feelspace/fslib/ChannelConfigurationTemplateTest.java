@@ -0,0 +1,78 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the precompiled channel configuration packets against the command encoder.
+ */
+public class ChannelConfigurationTemplateTest {
+
+    private static final OrientationType[] DIRECTIONAL_TYPES = new OrientationType[] {
+            OrientationType.ANGLE, OrientationType.BEARING, OrientationType.VIBROMOTOR_INDEX,
+            OrientationType.BINARY_MASK};
+
+    // Pattern, iterations and period of directional signals, as defined before templates
+    private static final Object[][] DIRECTIONAL_SIGNALS = new Object[][] {
+            {BeltVibrationSignal.CONTINUOUS, BeltVibrationPattern.CONTINUOUS, 0, 500},
+            {BeltVibrationSignal.NAVIGATION, BeltVibrationPattern.CONTINUOUS, 0, 500},
+            {BeltVibrationSignal.APPROACHING_DESTINATION,
+                    BeltVibrationPattern.SINGLE_SHORT_PULSE, 0, 500},
+            {BeltVibrationSignal.TURN_ONGOING, BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 750},
+            {BeltVibrationSignal.DIRECTION_NOTIFICATION, BeltVibrationPattern.CONTINUOUS, 1, 1000},
+            {BeltVibrationSignal.NEXT_WAYPOINT_LONG_DISTANCE,
+                    BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 3000},
+            {BeltVibrationSignal.NEXT_WAYPOINT_MEDIUM_DISTANCE,
+                    BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 1500},
+            {BeltVibrationSignal.NEXT_WAYPOINT_SHORT_DISTANCE,
+                    BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 1000},
+            {BeltVibrationSignal.NEXT_WAYPOINT_AREA_REACHED,
+                    BeltVibrationPattern.SINGLE_LONG_PULSE, 0, 750}
+    };
+
+    @Test
+    public void directionalTemplates_matchCommandPackets() {
+        byte[] buffer = new byte[ChannelConfigurationCommand.PACKET_LENGTH];
+        for (Object[] definition: DIRECTIONAL_SIGNALS) {
+            BeltVibrationSignal signal = (BeltVibrationSignal) definition[0];
+            ChannelConfigurationTemplate template = ChannelConfigurationTemplate.forSignal(signal);
+            assertNotNull(template);
+            assertFalse(template.hasFixedOrientation());
+            for (OrientationType type: DIRECTIONAL_TYPES) {
+                int orientation = (type == OrientationType.BINARY_MASK)?(0b101):
+                        ((type == OrientationType.VIBROMOTOR_INDEX)?(7):(-90));
+                for (int channel=0; channel<=5; channel++) {
+                    template.writePacket(buffer, 0, channel, 70, type, orientation, true);
+                    byte[] expected = new ChannelConfigurationCommand(channel,
+                            (BeltVibrationPattern) definition[1], 70, type, orientation,
+                            (Integer) definition[2], (Integer) definition[3], 0, false,
+                            true).getPacket();
+                    assertArrayEquals(signal.name(), expected, buffer);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fixedTemplates_matchSignalDefinition() {
+        byte[] buffer = new byte[ChannelConfigurationCommand.PACKET_LENGTH];
+        ChannelConfigurationTemplate template = ChannelConfigurationTemplate.forSignal(
+                BeltVibrationSignal.CRITICAL_WARNING);
+        assertNotNull(template);
+        assertTrue(template.hasFixedOrientation());
+        template.writePacket(buffer, 0, 1, 100, false);
+        assertArrayEquals(new ChannelConfigurationCommand(1,
+                BeltVibrationPattern.SINGLE_LONG_PULSE, 100, OrientationType.BINARY_MASK,
+                0b0001000100010001, 3, 700, 0, true, false).getPacket(), buffer);
+        assertNull(ChannelConfigurationTemplate.forSignal(BeltVibrationSignal.BATTERY_LEVEL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void template_rejectsIllegalChannel() {
+        ChannelConfigurationTemplate.forSignal(BeltVibrationSignal.NAVIGATION).writePacket(
+                new byte[ChannelConfigurationCommand.PACKET_LENGTH], 0, 6, 50,
+                OrientationType.ANGLE, 0, false);
+    }
+
+}
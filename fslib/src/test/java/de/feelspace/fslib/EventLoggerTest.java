@@ -0,0 +1,92 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the ring-buffer event logger.
+ */
+public class EventLoggerTest {
+
+    @Test
+    public void log_belowLevel_notWritten() {
+        EventLogger logger = new EventLogger(8);
+        logger.setLogcatLevel(LogLevel.OFF);
+        logger.setLevel(LogLevel.WARN);
+        logger.log(LogEvent.GATT_REQUEST_STARTED, 1, 0xFE03, 4);
+        assertEquals(0, logger.getEventCount());
+        assertFalse(logger.isEnabled(LogLevel.DEBUG));
+        logger.log(LogEvent.GATT_OPERATION_FAILED, GattOperation.LOG_KIND_WRITE, 0xFE02, 120);
+        assertEquals(1, logger.getEventCount());
+        assertTrue(logger.dump().endsWith("ERROR GattOperation: BLE operation failed: Write " +
+                "characteristic on 0000FE02 after 120 us.\n"));
+    }
+
+    @Test
+    public void log_bufferFull_overwritesOldestEvents() {
+        EventLogger logger = new EventLogger(4);
+        logger.setLogcatLevel(LogLevel.OFF);
+        for (int i=0; i<10; i++) {
+            logger.log(LogEvent.GATT_REQUEST_COMPLETED, i, 0xFE03, 100);
+        }
+        assertEquals(10, logger.getEventCount());
+        assertEquals(6, logger.getDroppedCount());
+        String[] lines = logger.dump().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("BLE request 6 completed on 0000FE03"));
+        assertTrue(lines[3].contains("BLE request 9 completed"));
+        logger.clear();
+        assertEquals(0, logger.getEventCount());
+        assertEquals("", logger.dump());
+        logger.log(LogEvent.GATT_OPERATION_CANCELLED, 99, 0, -1);
+        assertTrue(logger.dump().contains("Cancelled BLE operation: Operation on 00000000"));
+    }
+
+    @Test
+    public void log_concurrentWritersOnSameSlots_noTornEntries() throws Exception {
+        final EventLogger logger = new EventLogger(4);
+        logger.setLogcatLevel(LogLevel.OFF);
+        Thread[] writers = new Thread[4];
+        for (int t=0; t<writers.length; t++) {
+            final int base = t*1000000;
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i=0; i<20000; i++) {
+                        // Request ID and duration always equal in a consistent entry
+                        logger.log(LogEvent.GATT_REQUEST_COMPLETED, base+i, 0xFE03, base+i);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        Pattern pattern = Pattern.compile(
+                "BLE request (\\d+) completed on 0000FE03 after (\\d+) us");
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread writer: writers) {
+                running |= writer.isAlive();
+            }
+            for (String line: logger.dump().split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Matcher matcher = pattern.matcher(line);
+                assertTrue(line, matcher.find());
+                assertEquals(line, matcher.group(1), matcher.group(2));
+            }
+        }
+        assertEquals(80000, logger.getEventCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_capacityNotPowerOfTwo_throws() {
+        new EventLogger(1000);
+    }
+
+}
@@ -0,0 +1,120 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the geodesic kernels and of their documented error bounds.
+ */
+public class GeoMathTest {
+
+    private static final int CASES = 20000;
+
+    @Test
+    public void vincenty_matchesReferenceGeodesic() {
+        // Flinders Peak to Buninyong (Vincenty, 1975)
+        double lat1 = -(37+57/60.+3.72030/3600);
+        double lon1 = 144+25/60.+29.52440/3600;
+        double lat2 = -(37+39/60.+10.15610/3600);
+        double lon2 = 143+55/60.+35.38390/3600;
+        assertEquals(54972.271, GeoMath.vincentyDistance(lat1, lon1, lat2, lon2), 1e-3);
+        assertEquals(306+52/60.+5.37/3600, GeoMath.vincentyBearing(lat1, lon1, lat2, lon2),
+                1e-5);
+        assertEquals(0, GeoMath.vincentyDistance(lat1, lon1, lat1, lon1), 0);
+    }
+
+    @Test
+    public void vincenty_matchesMeridianAndEquatorReferences() {
+        // WGS84 quarter meridian and one degree of the equator
+        assertEquals(10001965.7293, GeoMath.vincentyDistance(0, 0, 90, 0), 1e-3);
+        assertEquals(0, GeoMath.vincentyBearing(0, 0, 90, 0), 1e-9);
+        assertEquals(111319.4908, GeoMath.vincentyDistance(0, 0, 0, 1), 1e-3);
+        assertEquals(90, GeoMath.vincentyBearing(0, 0, 0, 1), 1e-9);
+        // Pole to pole
+        assertEquals(20003931.4586, GeoMath.vincentyDistance(90, 0, -90, 0), 1e-3);
+        assertEquals(180, GeoMath.vincentyBearing(90, 0, -90, 0), 1e-9);
+    }
+
+    @Test
+    public void nearPole_crossingThePole_followsTheMeridian() {
+        // Meridian arc from 89.9 to 90 degrees, twice
+        double reference = 22338.7957;
+        assertEquals(reference, GeoMath.vincentyDistance(89.9, 0, 89.9, 180), 1e-3);
+        double bearing = GeoMath.vincentyBearing(89.9, 0, 89.9, 180);
+        assertTrue(bearing >= 0 && bearing < 360);
+        assertEquals(0, HeadingPredictor.angleDifference(bearing, 0), 1e-6);
+        assertEquals(0, Math.abs(GeoMath.haversineDistance(89.9, 0, 89.9, 180)-reference)/
+                reference, 0.006);
+        assertEquals(0, HeadingPredictor.angleDifference(
+                GeoMath.sphericalBearing(89.9, 0, 89.9, 180), 0), 1e-6);
+    }
+
+    @Test
+    public void antipodalPoints_distanceWithinSphericalBound() {
+        // Equatorial antipodes, the geodesic runs over the poles
+        double reference = 20003931.4586;
+        double distance = GeoMath.vincentyDistance(0, 0, 0, 180);
+        assertEquals(0, Math.abs(distance-reference)/reference, 0.006);
+        // Nearly antipodal points (Karney, 2013)
+        reference = 19989832.8276;
+        distance = GeoMath.vincentyDistance(-30, 0, 29.9, 179.8);
+        assertEquals(0, Math.abs(distance-reference)/reference, 0.006);
+        double bearing = GeoMath.vincentyBearing(-30, 0, 29.9, 179.8);
+        assertTrue(bearing >= 0 && bearing < 360);
+    }
+
+    @Test
+    public void approximations_stayWithinDocumentedBounds() {
+        Random random = new Random(5);
+        double maxSphericalDistanceError = 0;
+        double maxSphericalBearingError = 0;
+        double maxFastDistanceError = 0;
+        double maxFastBearingError = 0;
+        for (int c=0; c<CASES; c++) {
+            double lat1 = random.nextDouble()*160-80;
+            double lon1 = random.nextDouble()*360-180;
+            // Second point up to 10 km away in a random direction
+            double d = 10+random.nextDouble()*9990;
+            double b = Math.toRadians(random.nextDouble()*360);
+            double lat2 = lat1+Math.toDegrees(d*Math.cos(b)/GeoMath.EARTH_RADIUS_M);
+            double lon2 = lon1+Math.toDegrees(d*Math.sin(b)/GeoMath.EARTH_RADIUS_M/
+                    Math.cos(Math.toRadians(lat1)));
+            lon2 = (lon2 >= 180)?(lon2-360):((lon2 < -180)?(lon2+360):(lon2));
+            double reference = GeoMath.vincentyDistance(lat1, lon1, lat2, lon2);
+            double referenceBearing = GeoMath.vincentyBearing(lat1, lon1, lat2, lon2);
+            double spherical = GeoMath.haversineDistance(lat1, lon1, lat2, lon2);
+            double fast = GeoMath.equirectangularDistance(lat1, lon1, lat2, lon2);
+            maxSphericalDistanceError = Math.max(maxSphericalDistanceError,
+                    Math.abs(spherical-reference)/reference);
+            maxFastDistanceError = Math.max(maxFastDistanceError,
+                    Math.abs(fast-spherical)/spherical);
+            double sphericalBearing = GeoMath.sphericalBearing(lat1, lon1, lat2, lon2);
+            maxSphericalBearingError = Math.max(maxSphericalBearingError, Math.abs(
+                    HeadingPredictor.angleDifference(sphericalBearing, referenceBearing)));
+            maxFastBearingError = Math.max(maxFastBearingError, Math.abs(
+                    HeadingPredictor.angleDifference(
+                            GeoMath.equirectangularBearing(lat1, lon1, lat2, lon2),
+                            sphericalBearing)));
+        }
+        assertTrue(maxSphericalDistanceError < 0.006);
+        assertTrue(maxSphericalBearingError < 0.2);
+        assertTrue(maxFastDistanceError < 0.0001);
+        assertTrue(maxFastBearingError < 0.3);
+    }
+
+    @Test
+    public void localFrame_matchesEquirectangular() {
+        GeoMath.LocalFrame frame = new GeoMath.LocalFrame(52.001, 9.002);
+        assertEquals(GeoMath.equirectangularDistance(52.0, 9.0, 52.001, 9.002),
+                frame.distanceFrom(52.0, 9.0), 0.1);
+        assertEquals(GeoMath.equirectangularBearing(52.0, 9.0, 52.001, 9.002),
+                frame.bearingFrom(52.0, 9.0), 0.01);
+        // Across the antimeridian
+        GeoMath.LocalFrame east = new GeoMath.LocalFrame(0, -179.999);
+        assertEquals(90.0, east.bearingFrom(0, 179.999), 1e-9);
+    }
+
+}
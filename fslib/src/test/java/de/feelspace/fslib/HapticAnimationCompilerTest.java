@@ -0,0 +1,146 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the haptic animation compiler.
+ */
+public class HapticAnimationCompilerTest {
+
+    @Test
+    public void repeatedPulse_foldedInOneCommand() {
+        HapticAnimation animation = new HapticAnimation()
+                .addRepeatedPulse(0, OrientationType.ANGLE, 90, 50, 100, 10, 500);
+        HapticCompilation compilation = new HapticAnimationCompiler().compile(animation);
+        assertEquals(1, compilation.getCommandCount());
+        assertEquals(9, compilation.getSavedWriteCount());
+        assertEquals(expand(animation), expand(compilation));
+    }
+
+    @Test
+    public void doublePulses_foldedWithPulseIterations() {
+        HapticAnimation animation = new HapticAnimation();
+        for (int i=0; i<5; i++) {
+            animation.addRepeatedPulse(i*2000, OrientationType.ANGLE, 0, 50, 100, 2, 250);
+        }
+        HapticCompilation compilation = new HapticAnimationCompiler().compile(animation);
+        assertEquals(1, compilation.getCommandCount());
+        byte[] packet = ((PulseCommand) compilation.getTimeline().getSortedCommands()[0])
+                .getPacket();
+        assertEquals(2, packet[8]);
+        assertEquals(5, packet[9]);
+        assertEquals(expand(animation), expand(compilation));
+    }
+
+    @Test
+    public void sweeps_foldedAndAssignedToChannels() {
+        HapticAnimation animation = new HapticAnimation()
+                .addSweep(0, new int[]{0, 1, 2, 3, 4, 5, 6, 7}, 150, 50, 100, 6, 1500)
+                .addPulseAtPositions(0, new int[]{8}, 50, 100);
+        HapticCompilation compilation = new HapticAnimationCompiler().compile(animation);
+        assertEquals(49, compilation.getPulseCount());
+        assertTrue(compilation.getSavedWriteCount() > 0);
+        assertTrue(compilation.getChannelCount() <= HapticAnimationCompiler.DEFAULT_CHANNELS.length);
+        assertEquals(expand(animation), expand(compilation));
+        // Single channel, sweeps are unfolded
+        HapticAnimation sweeps = new HapticAnimation()
+                .addSweep(0, new int[]{0, 1, 2, 3, 4, 5, 6, 7}, 150, 50, 100, 6, 1500);
+        compilation = new HapticAnimationCompiler(1).compile(sweeps);
+        assertEquals(expand(sweeps), expand(compilation));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void simultaneousPulses_moreThanChannels_rejected() {
+        HapticAnimation animation = new HapticAnimation()
+                .addPulse(0, OrientationType.ANGLE, 0, 50, 100)
+                .addPulse(50, OrientationType.ANGLE, 90, 50, 100);
+        new HapticAnimationCompiler(2).compile(animation);
+    }
+
+    @Test
+    public void binaryMask_moreThanSixMotors_rejectedWhenAdded() {
+        HapticAnimation animation = new HapticAnimation();
+        try {
+            animation.addPulse(0, OrientationType.BINARY_MASK, 0x7F, 50, 100);
+            fail("Mask with seven motors accepted.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("0x7f"));
+        }
+        try {
+            animation.addPulseAtPositions(0, new int[] {0, 16}, 50, 100);
+            fail("Mask beyond the motors of the belt accepted.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("0x10001"));
+        }
+        assertEquals(0, animation.getPulseCount());
+    }
+
+    /**
+     * Returns the sorted list of pulses "offset:mask:intensity:duration" of an animation, with
+     * one entry per vibration motor for binary masks.
+     */
+    private static ArrayList<String> expand(HapticAnimation animation) {
+        ArrayList<String> pulses = new ArrayList<>();
+        for (int i=0; i<animation.getPulseCount(); i++) {
+            addPulses(pulses, animation.getOffsetMs(i), animation.getOrientationType(i),
+                    animation.getOrientationValue(i), animation.getIntensity(i),
+                    animation.getOnDurationMs(i));
+        }
+        Collections.sort(pulses);
+        return pulses;
+    }
+
+    /**
+     * Returns the sorted list of pulses played by a compiled animation, checking that commands
+     * on the same channel do not overlap.
+     */
+    private static ArrayList<String> expand(HapticCompilation compilation) {
+        ArrayList<String> pulses = new ArrayList<>();
+        long[] offsets = compilation.getTimeline().getSortedOffsetsMs();
+        Object[] commands = compilation.getTimeline().getSortedCommands();
+        long[] channelEnds = new long[6];
+        for (int i=0; i<commands.length; i++) {
+            byte[] packet = ((PulseCommand) commands[i]).getPacket();
+            int channel = packet[1];
+            OrientationType type = OrientationType.fromValue(packet[2], null);
+            int value = BinaryUtils.readUInt16LE(packet, 3);
+            int intensity = packet[5];
+            int onDuration = BinaryUtils.readUInt16LE(packet, 6);
+            int pulseIterations = packet[8];
+            int patternIterations = packet[9];
+            int pulsePeriod = BinaryUtils.readUInt16LE(packet, 10);
+            int patternPeriod = BinaryUtils.readUInt16LE(packet, 12);
+            assertTrue("Overlap on channel "+channel, offsets[i] >= channelEnds[channel]);
+            long end = 0;
+            for (int k=0; k<patternIterations; k++) {
+                for (int p=0; p<pulseIterations; p++) {
+                    long offset = offsets[i]+(long)k*patternPeriod+(long)p*pulsePeriod;
+                    addPulses(pulses, offset, type, value, intensity, onDuration);
+                    end = offset+onDuration;
+                }
+            }
+            channelEnds[channel] = end;
+        }
+        Collections.sort(pulses);
+        return pulses;
+    }
+
+    private static void addPulses(ArrayList<String> pulses, long offset, OrientationType type,
+                                  int value, int intensity, int onDuration) {
+        if (type == OrientationType.BINARY_MASK) {
+            for (int b=0; b<16; b++) {
+                if ((value & (1 << b)) != 0) {
+                    pulses.add(offset+":"+type+":"+(1 << b)+":"+intensity+":"+onDuration);
+                }
+            }
+        } else {
+            pulses.add(offset+":"+type+":"+value+":"+intensity+":"+onDuration);
+        }
+    }
+
+}
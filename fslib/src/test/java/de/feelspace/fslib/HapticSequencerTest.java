@@ -0,0 +1,140 @@
+package de.feelspace.fslib;
+
+import android.bluetooth.BluetoothDevice;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the completion notifications of the haptic sequencer.
+ */
+public class HapticSequencerTest {
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    private final HapticSequencer sequencer = new HapticSequencer(new StubConnection(executor));
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void play_replacingPlayback_notifiesReplacedListener() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        HapticPlaybackReport firstReport = sequencer.play(laterStop(), first);
+        assertTrue(first.completed.isEmpty());
+        sequencer.play(laterStop(), second);
+        assertEquals(1, first.completed.size());
+        assertSame(firstReport, first.completed.get(0));
+        assertTrue(firstReport.isCancelled());
+        assertTrue(second.completed.isEmpty());
+        assertTrue(sequencer.isPlaying());
+        sequencer.cancel();
+        assertEquals(1, second.completed.size());
+        assertFalse(sequencer.isPlaying());
+    }
+
+    /**
+     * Returns a timeline with a stop that is not reached during the test.
+     */
+    private static HapticTimeline laterStop() {
+        return new HapticTimeline().addStop(60000, 1);
+    }
+
+    /**
+     * Listener recording the completed playbacks.
+     */
+    private static class RecordingListener implements HapticSequencerListener {
+        final ArrayList<HapticPlaybackReport> completed = new ArrayList<>();
+
+        @Override
+        public void onTimelineEntrySent(int entryIndex, long latenessNano, boolean success) {
+        }
+
+        @Override
+        public void onTimelineCompleted(HapticPlaybackReport report) {
+            completed.add(report);
+        }
+    }
+
+    /**
+     * Connection that only provides an executor.
+     */
+    private static class StubConnection extends BeltConnectionInterface {
+        private final ScheduledThreadPoolExecutor executor;
+
+        StubConnection(ScheduledThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void scan() {
+        }
+
+        @Override
+        public void scanInBackground(@Nullable String beltAddress, long scanWindowMs,
+                                     long idleWindowMs, boolean lowPower) {
+        }
+
+        @Override
+        public void stopScan() {
+        }
+
+        @Override
+        public long getScanOnTimeMs() {
+            return 0;
+        }
+
+        @Override
+        public void connect(BluetoothDevice device) {
+        }
+
+        @Override
+        public void scanAndConnect() {
+        }
+
+        @Override
+        public @Nullable BeltConnectionPath getLastConnectionPath() {
+            return null;
+        }
+
+        @Override
+        public long getLastTimeToConnectedMs() {
+            return 0;
+        }
+
+        @Override
+        public @NonNull MetricsRegistry getMetrics() {
+            return new MetricsRegistry();
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        protected @NonNull ScheduledThreadPoolExecutor getExecutor() {
+            return executor;
+        }
+
+        @Override
+        public BeltCommandInterface getCommandInterface() {
+            return null;
+        }
+
+        @Override
+        public BeltCommunicationInterface getCommunicationInterface() {
+            return null;
+        }
+    }
+
+}
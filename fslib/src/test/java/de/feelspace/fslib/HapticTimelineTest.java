@@ -0,0 +1,44 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the haptic timeline.
+ */
+public class HapticTimelineTest {
+
+    @Test
+    public void entries_sortedByOffsetKeepingInsertionOrder() {
+        ChannelConfigurationCommand config = new ChannelConfigurationCommand(1,
+                BeltVibrationPattern.CONTINUOUS, 50, OrientationType.ANGLE, 90, 1, 500, 0,
+                false, false);
+        HapticTimeline timeline = new HapticTimeline()
+                .addStop(600, 1)
+                .addChannelConfiguration(0, config)
+                .addStop(300)
+                .addStop(0, 2);
+        for (int i=0; i<10; i++) {
+            timeline.addStop(1000+i*10, i%6);
+        }
+        assertEquals(14, timeline.getEntryCount());
+        assertEquals(1090, timeline.getDurationMs());
+        long[] offsets = timeline.getSortedOffsetsMs();
+        Object[] commands = timeline.getSortedCommands();
+        assertEquals(0, offsets[0]);
+        assertSame(config, commands[0]);
+        assertArrayEquals(new int[]{2}, (int[]) commands[1]);
+        assertEquals(300, offsets[2]);
+        assertEquals(600, offsets[3]);
+        for (int i=1; i<offsets.length; i++) {
+            assertTrue(offsets[i-1] <= offsets[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeOffset_rejected() {
+        new HapticTimeline().addStop(-1);
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulation of the heading prediction on a turning belt.
+ */
+public class HeadingPredictorTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void noSample_predictsNothing() {
+        assertTrue(Double.isNaN(new HeadingPredictor().predict(0)));
+    }
+
+    @Test
+    public void constantTurn_isExtrapolatedAcrossNorth() {
+        HeadingPredictor predictor = new HeadingPredictor();
+        // 60 deg/s clockwise, one sample every 50 ms
+        for (int i=0; i<20; i++) {
+            predictor.addSample((330+3*i)%360, i*50*MS);
+        }
+        assertEquals(60.0, predictor.getAngularVelocity(), 1e-6);
+        // Last sample at 27 deg, 100 ms later the belt is at 33 deg
+        assertEquals(33.0, predictor.predict(19*50*MS+100*MS), 1e-6);
+        assertEquals(0.0, predictor.getMeanAbsoluteError(), 1e-6);
+        // The horizon is limited
+        assertEquals(57.0, predictor.predict(19*50*MS+10000*MS), 1e-6);
+    }
+
+    @Test
+    public void predictRotation_resendAfterRotation_onlyCompensatesLatency() {
+        HeadingPredictor predictor = new HeadingPredictor();
+        long latency = 20*MS;
+        // 120 deg/s clockwise during one second, one sample every 50 ms
+        for (int i=0; i<=20; i++) {
+            predictor.addSample(6*i, i*50*MS);
+        }
+        // Command sent while turning: only the rotation during the latency is compensated
+        assertEquals(2.4, predictor.predictRotation(1000*MS, latency), 1e-6);
+        // The belt stops, the direction is re-sent one second after the turn
+        for (int i=21; i<=40; i++) {
+            predictor.addSample(120, i*50*MS);
+        }
+        assertEquals(0, predictor.predictRotation(2000*MS, latency), 0.01);
+        // Re-sent after a pause of the orientation stream
+        assertEquals(0, predictor.predictRotation(10000*MS, latency), 0);
+        predictor.reset();
+        assertTrue(Double.isNaN(predictor.predictRotation(0, latency)));
+    }
+
+    @Test
+    public void simulatedTurns_errorBelowZeroOrderHold() {
+        HeadingPredictor predictor = new HeadingPredictor();
+        Random random = new Random(11);
+        double heading = 0;
+        double holdErrorSum = 0;
+        int previous = 0;
+        int samples = 400;
+        for (int i=0; i<samples; i++) {
+            // Turns of 90 deg/s alternating every 2 seconds, sensor noise of +/-1 deg
+            double velocity = ((i/40)%2 == 0)?(90):(-90);
+            heading += velocity*0.05;
+            int measured = (int) Math.round(heading+random.nextDouble()*2-1);
+            measured = ((measured%360)+360)%360;
+            if (i > 1) {
+                holdErrorSum += Math.abs(HeadingPredictor.angleDifference(measured, previous));
+            }
+            previous = measured;
+            predictor.addSample(measured, i*50*MS);
+        }
+        double holdError = holdErrorSum/(samples-2);
+        double predictionError = predictor.getMeanAbsoluteError();
+        assertEquals(samples-2, predictor.getPredictionErrorCount());
+        assertTrue(predictionError < holdError/2);
+    }
+
+}
@@ -0,0 +1,84 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the metrics registry.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void record_histogram_bucketsAndPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry();
+        for (int i=1; i<=100; i++) {
+            registry.record(Metric.GATT_OPERATION_LATENCY_US, i);
+        }
+        registry.record(Metric.GATT_OPERATION_LATENCY_US, -5);
+        MetricsSnapshot snapshot = registry.getSnapshot();
+        assertTrue(snapshot.isConsistent());
+        assertEquals(101, snapshot.getHistogramCount(Metric.GATT_OPERATION_LATENCY_US));
+        assertEquals(5050, snapshot.getHistogramSum(Metric.GATT_OPERATION_LATENCY_US));
+        assertEquals(100, snapshot.getHistogramMax(Metric.GATT_OPERATION_LATENCY_US));
+        assertEquals(1, snapshot.getHistogramBucket(Metric.GATT_OPERATION_LATENCY_US, 0));
+        // Values 32 to 63
+        assertEquals(32, snapshot.getHistogramBucket(Metric.GATT_OPERATION_LATENCY_US, 6));
+        assertEquals(63, snapshot.getHistogramPercentile(Metric.GATT_OPERATION_LATENCY_US, 50));
+        assertEquals(100, snapshot.getHistogramPercentile(Metric.GATT_OPERATION_LATENCY_US, 99));
+        assertEquals(0, snapshot.getHistogramPercentile(Metric.TIME_TO_CONNECTED_MS, 99));
+        assertEquals(MetricsRegistry.HISTOGRAM_BUCKET_COUNT-1,
+                MetricsRegistry.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void update_wrongType_throws() {
+        MetricsRegistry registry = new MetricsRegistry();
+        try {
+            registry.increment(Metric.GATT_PENDING_OPERATIONS);
+            fail("Gauge incremented as a counter.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        registry.setGauge(Metric.GATT_PENDING_OPERATIONS, 3);
+        assertEquals(3, registry.getSnapshot().getGauge(Metric.GATT_PENDING_OPERATIONS));
+    }
+
+    @Test
+    public void increment_concurrentThreads_countsAllUpdates() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final int updates = 20000;
+        Thread[] threads = new Thread[4];
+        for (int t=0; t<threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i=0; i<updates; i++) {
+                    registry.increment(Metric.GATT_OPERATIONS_QUEUED);
+                    registry.record(Metric.GATT_OPERATION_LATENCY_US, i);
+                    registry.increment(Metric.GATT_OPERATIONS_COMPLETED);
+                }
+            });
+            threads[t].start();
+        }
+        // Snapshots during the updates never show more completed than queued operations
+        for (int i=0; i<200; i++) {
+            MetricsSnapshot snapshot = registry.getSnapshot();
+            if (snapshot.isConsistent()) {
+                assertTrue(snapshot.getCounter(Metric.GATT_OPERATIONS_COMPLETED) <=
+                        snapshot.getCounter(Metric.GATT_OPERATIONS_QUEUED));
+            }
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        MetricsSnapshot snapshot = registry.getSnapshot();
+        assertTrue(snapshot.isConsistent());
+        assertEquals(threads.length*updates,
+                snapshot.getCounter(Metric.GATT_OPERATIONS_QUEUED));
+        assertEquals(threads.length*updates,
+                snapshot.getCounter(Metric.GATT_OPERATIONS_COMPLETED));
+        assertEquals(threads.length*updates,
+                snapshot.getHistogramCount(Metric.GATT_OPERATION_LATENCY_US));
+        assertEquals(updates-1, snapshot.getHistogramMax(Metric.GATT_OPERATION_LATENCY_US));
+    }
+
+}
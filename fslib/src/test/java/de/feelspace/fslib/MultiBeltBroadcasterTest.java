@@ -0,0 +1,181 @@
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the fan-out and acknowledgment tracking of the multi-belt broadcaster.
+ */
+public class MultiBeltBroadcasterTest {
+
+    private MultiBeltBroadcaster broadcaster;
+    private final ArrayList<MultiBeltBroadcaster.BroadcastReport> reports = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        broadcaster = new MultiBeltBroadcaster();
+        broadcaster.addBroadcastListener(new MultiBeltBroadcaster.BroadcastListener() {
+            @Override
+            public void onBroadcastCompleted(MultiBeltBroadcaster.BroadcastReport report) {
+                reports.add(report);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        broadcaster.close();
+    }
+
+    @Test
+    public void broadcastPulseCommand_connectedBelts_sentToEachAndReportedOnLastAck() {
+        StubTarget a = new StubTarget();
+        StubTarget b = new StubTarget();
+        StubTarget disconnected = new StubTarget();
+        disconnected.connected = false;
+        assertTrue(broadcaster.addTarget(a));
+        assertTrue(broadcaster.addTarget(b));
+        assertTrue(broadcaster.addTarget(disconnected));
+        assertTrue(broadcaster.broadcastPulseCommand(pulse()));
+        assertEquals(1, a.callbacks.size());
+        assertEquals(1, b.callbacks.size());
+        assertEquals(0, disconnected.callbacks.size());
+        a.callbacks.get(0).onWriteCompleted(true);
+        assertTrue(reports.isEmpty());
+        b.callbacks.get(0).onWriteCompleted(true);
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get(0).getBeltCount());
+        assertEquals(2, reports.get(0).getAcknowledgedCount());
+    }
+
+    @Test
+    public void broadcastPulseCommand_sendFailure_reportedAsPartialFailure() {
+        StubTarget a = new StubTarget();
+        StubTarget failing = new StubTarget();
+        failing.accept = false;
+        broadcaster.addTarget(a);
+        broadcaster.addTarget(failing);
+        assertTrue(broadcaster.broadcastPulseCommand(pulse()));
+        a.callbacks.get(0).onWriteCompleted(true);
+        // Reported without waiting for the timeout
+        assertEquals(1, reports.size());
+        MultiBeltBroadcaster.BroadcastReport report = reports.get(0);
+        assertEquals(2, report.getBeltCount());
+        assertEquals(1, report.getAcknowledgedCount());
+        assertTrue(report.getOnsetTimeNano(0) != -1);
+        assertEquals(-1, report.getOnsetTimeNano(1));
+        assertEquals(0, report.getSkewNano());
+    }
+
+    @Test
+    public void broadcastPulseCommand_identicalCommands_acksMatchedToTheirWrite() {
+        StubTarget a = new StubTarget();
+        StubTarget b = new StubTarget();
+        broadcaster.addTarget(a);
+        broadcaster.addTarget(b);
+        PulseCommand command = pulse();
+        broadcaster.broadcastPulseCommand(command);
+        broadcaster.broadcastPulseCommand(command);
+        // Second write of A fails, first write is acknowledged later
+        a.callbacks.get(1).onWriteCompleted(false);
+        b.callbacks.get(0).onWriteCompleted(true);
+        b.callbacks.get(1).onWriteCompleted(true);
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get(0).getBroadcastId());
+        assertEquals(1, reports.get(0).getAcknowledgedCount());
+        // A duplicated callback is ignored
+        a.callbacks.get(1).onWriteCompleted(true);
+        assertEquals(1, reports.size());
+        a.callbacks.get(0).onWriteCompleted(true);
+        assertEquals(2, reports.size());
+        assertEquals(1, reports.get(1).getBroadcastId());
+        assertEquals(2, reports.get(1).getAcknowledgedCount());
+    }
+
+    @Test
+    public void close_pendingBroadcast_reportedAndTargetsUnregistered() {
+        StubTarget a = new StubTarget();
+        broadcaster.addTarget(a);
+        assertTrue(a.registered);
+        broadcaster.broadcastPulseCommand(pulse());
+        broadcaster.close();
+        assertFalse(a.registered);
+        assertEquals(1, reports.size());
+        assertEquals(0, reports.get(0).getAcknowledgedCount());
+        assertTrue(broadcaster.isClosed());
+        // Closing again has no effect
+        broadcaster.close();
+        assertEquals(1, reports.size());
+    }
+
+    private static PulseCommand pulse() {
+        return new PulseCommand(0, OrientationType.VIBROMOTOR_INDEX, 0, 50, 100, 1, 1, 200,
+                200, ResetProgressOption.RESET_PROGRESS, false, false);
+    }
+
+    /**
+     * Belt target that records the completion callbacks of sent commands.
+     */
+    private static class StubTarget extends MultiBeltBroadcaster.BeltTarget {
+
+        boolean connected = true;
+        boolean accept = true;
+        boolean registered = false;
+        final ArrayList<GattController.WriteCompletionCallback> callbacks = new ArrayList<>();
+
+        StubTarget() {
+            super(null);
+        }
+
+        @Override
+        boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        long getAverageWriteLatencyNano() {
+            return 10*1000000L;
+        }
+
+        @Override
+        int getPendingOperationCount() {
+            return 0;
+        }
+
+        @Override
+        boolean sendPulseCommand(@NonNull PulseCommand command,
+                                 @NonNull GattController.WriteCompletionCallback callback) {
+            if (accept) {
+                callbacks.add(callback);
+            }
+            return accept;
+        }
+
+        @Override
+        boolean sendChannelConfigurationCommand(
+                @NonNull ChannelConfigurationCommand command,
+                @NonNull GattController.WriteCompletionCallback callback) {
+            if (accept) {
+                callbacks.add(callback);
+            }
+            return accept;
+        }
+
+        @Override
+        void register() {
+            registered = true;
+        }
+
+        @Override
+        void unregister() {
+            registered = false;
+        }
+    }
+}
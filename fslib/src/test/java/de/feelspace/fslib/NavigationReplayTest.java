@@ -0,0 +1,137 @@
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the navigation event log and its replay.
+ */
+public class NavigationReplayTest {
+
+    /**
+     * Runs a navigation session on a state machine logging in the given log.
+     */
+    private static NavigationStateMachine runSession(NavigationEventLog log, int updates) {
+        NavigationStateMachine machine = new NavigationStateMachine(null, log);
+        machine.onConnectionStateChanged(BeltConnectionState.STATE_CONNECTED, BeltMode.WAIT);
+        machine.startNavigation(90, true, BeltVibrationSignal.NAVIGATION, true, BeltMode.WAIT);
+        machine.onBeltModeChanged(BeltMode.APP, true, BeltMode.APP);
+        Random random = new Random(7);
+        for (int i=0; i<updates; i++) {
+            machine.updateNavigationSignal(random.nextInt(360), i%3 != 0,
+                    BeltVibrationSignal.NAVIGATION, random.nextInt(4) == 0);
+        }
+        machine.onBeltButtonPressed(BeltButton.PAUSE, BeltMode.APP, BeltMode.APP, true,
+                BeltMode.APP);
+        machine.onBeltModeChanged(BeltMode.PAUSE, true, BeltMode.PAUSE);
+        machine.onBeltButtonPressed(BeltButton.HOME, BeltMode.PAUSE, BeltMode.PAUSE, true,
+                BeltMode.PAUSE);
+        machine.onBeltModeChanged(BeltMode.APP, true, BeltMode.APP);
+        machine.onBeltButtonPressed(BeltButton.HOME, BeltMode.APP, BeltMode.APP, true,
+                BeltMode.APP);
+        return machine;
+    }
+
+    @Test
+    public void replay_fromStream_reproducesDecisions() throws Exception {
+        NavigationEventLog log = new NavigationEventLog();
+        NavigationStateMachine machine = runSession(log, 20);
+        assertEquals(NavigationState.NAVIGATING, machine.getState());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        log.writeTo(out);
+        assertEquals(12+log.getEventCount()*21, out.size());
+        NavigationEventLog read = NavigationEventLog.readFrom(
+                new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(log.getEventCount(), read.getEventCount());
+        NavigationReplay replay = NavigationReplay.replay(read);
+        assertEquals(28, replay.getInputCount());
+        assertTrue(replay.getDecisionCount() > 20);
+        assertEquals(0, replay.getMismatchCount());
+        assertEquals(-1, replay.getFirstMismatchIndex());
+        assertEquals(machine.getState(), replay.getFinalState());
+        assertEquals(machine.getDirection(), replay.getFinalDirection());
+        assertEquals(machine.isMagneticBearing(), replay.isFinalMagneticBearing());
+        assertEquals(machine.getSignal(), replay.getFinalSignal());
+    }
+
+    @Test
+    public void replay_afterWrap_startsFromSnapshot() {
+        NavigationEventLog log = new NavigationEventLog(150);
+        NavigationStateMachine machine = runSession(log, 500);
+        assertTrue(log.getDroppedCount() > 0);
+        assertNotEquals(NavigationLogEventType.SNAPSHOT, log.getType(0));
+        NavigationReplay replay = NavigationReplay.replay(log);
+        assertTrue(replay.getInputCount() > 0);
+        assertEquals(0, replay.getMismatchCount());
+        assertEquals(machine.getState(), replay.getFinalState());
+        assertEquals(machine.getDirection(), replay.getFinalDirection());
+    }
+
+    @Test
+    public void replay_outOfSyncTransitions_reproducesCorrections() {
+        NavigationEventLog log = new NavigationEventLog();
+        final ArrayList<String> outOfSync = new ArrayList<>();
+        NavigationStateMachine machine = new NavigationStateMachine(
+                new NavigationStateMachine.Effects() {
+            @Override
+            public void changeBeltMode(@NonNull BeltMode mode) {
+            }
+
+            @Override
+            public void sendVibrationCommand() {
+            }
+
+            @Override
+            public void onNavigationStateChanged(@NonNull NavigationState state) {
+            }
+
+            @Override
+            public void onHomeButtonPressed(boolean navigating) {
+            }
+
+            @Override
+            public void onOutOfSync(@NonNull NavigationState state, @NonNull BeltMode mode) {
+                outOfSync.add(state.name()+":"+mode.name());
+            }
+        }, log);
+        machine.onConnectionStateChanged(BeltConnectionState.STATE_CONNECTED, BeltMode.WAIT);
+        // App mode while stopped, the belt is sent back to wait mode
+        machine.onBeltModeChanged(BeltMode.APP, true, BeltMode.APP);
+        // Pause button in app mode while stopped
+        machine.onBeltButtonPressed(BeltButton.PAUSE, BeltMode.APP, BeltMode.APP, true,
+                BeltMode.APP);
+        // Navigating in compass mode, the navigation is paused
+        machine.startNavigation(30, true, BeltVibrationSignal.NAVIGATION, true, BeltMode.WAIT);
+        machine.onBeltModeChanged(BeltMode.APP, true, BeltMode.APP);
+        machine.onBeltModeChanged(BeltMode.COMPASS, true, BeltMode.COMPASS);
+        assertEquals(NavigationState.PAUSED, machine.getState());
+        assertEquals(3, outOfSync.size());
+        assertEquals("STOPPED:APP", outOfSync.get(0));
+        // The replay runs the same branches without effects
+        NavigationReplay replay = NavigationReplay.replay(log);
+        assertEquals(0, replay.getMismatchCount());
+        assertEquals(NavigationState.PAUSED, replay.getFinalState());
+    }
+
+    @Test
+    public void replay_detectsDivergentDecision() {
+        NavigationEventLog log = new NavigationEventLog();
+        NavigationStateMachine machine = new NavigationStateMachine(null, log);
+        machine.startNavigation(45, false, BeltVibrationSignal.CONTINUOUS, true, BeltMode.WAIT);
+        // Decision that the inputs do not explain
+        log.append(NavigationLogEventType.BELT_MODE_CHANGE_REQUESTED, BeltMode.PAUSE.ordinal(),
+                0, 0);
+        NavigationReplay replay = NavigationReplay.replay(log);
+        assertEquals(1, replay.getMismatchCount());
+        assertEquals(log.getEventCount()-1, replay.getFirstMismatchIndex());
+    }
+
+}
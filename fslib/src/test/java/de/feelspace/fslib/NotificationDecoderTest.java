@@ -0,0 +1,71 @@
+package de.feelspace.fslib;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the length check and of the statistics of notification decoders.
+ */
+public class NotificationDecoderTest {
+
+    /**
+     * Decoder that counts received packets and spends time in the dispatch of the values.
+     */
+    private static class SlowDispatchDecoder extends NotificationDecoder {
+        int receivedCount = 0;
+        int dispatchedCount = 0;
+
+        SlowDispatchDecoder() {
+            super("slow dispatch", 2);
+        }
+
+        @Override
+        protected void onPacketReceived() {
+            receivedCount++;
+        }
+
+        @Override
+        protected boolean decodeChecked(@NonNull byte[] value) {
+            boolean valid = (value[0] == 1);
+            parsed();
+            if (!valid) {
+                return false;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatchedCount++;
+            return true;
+        }
+    }
+
+    @Test
+    public void decode_shortOrNullPacket_receivedButMalformed() {
+        SlowDispatchDecoder decoder = new SlowDispatchDecoder();
+        assertFalse(decoder.decode(null));
+        assertFalse(decoder.decode(new byte[] {1}));
+        assertEquals(2, decoder.receivedCount);
+        assertEquals(0, decoder.dispatchedCount);
+        NotificationDecodeStatistics statistics = decoder.getStatistics();
+        assertEquals(2, statistics.getDecodedCount());
+        assertEquals(2, statistics.getMalformedCount());
+    }
+
+    @Test
+    public void decode_dispatchNotIncludedInDecodeTime() {
+        SlowDispatchDecoder decoder = new SlowDispatchDecoder();
+        assertTrue(decoder.decode(new byte[] {1, 0}));
+        assertFalse(decoder.decode(new byte[] {0, 0}));
+        assertEquals(1, decoder.dispatchedCount);
+        NotificationDecodeStatistics statistics = decoder.getStatistics();
+        assertEquals(1, statistics.getMalformedCount());
+        // The dispatch sleeps 50 ms
+        assertTrue(statistics.getTotalDecodeTimeNano() < 20*1000000L);
+    }
+
+}
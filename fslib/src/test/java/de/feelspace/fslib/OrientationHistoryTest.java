@@ -0,0 +1,76 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the windowed statistics of the orientation history.
+ */
+public class OrientationHistoryTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void emptyHistory_hasNoStatistics() {
+        OrientationHistory history = new OrientationHistory(8);
+        OrientationHistory.Statistics statistics = new OrientationHistory.Statistics();
+        assertFalse(history.computeForSamples(4, statistics));
+        assertEquals(0, statistics.getSampleCount());
+        assertTrue(Double.isNaN(statistics.getMeanHeading()));
+    }
+
+    @Test
+    public void meanHeading_wrapsAroundNorth() {
+        OrientationHistory history = new OrientationHistory(8);
+        history.add(350, false, 0);
+        history.add(10, false, 100*MS);
+        OrientationHistory.Statistics statistics = new OrientationHistory.Statistics();
+        assertTrue(history.computeForSamples(2, statistics));
+        double mean = statistics.getMeanHeading();
+        assertTrue(mean < 1e-6 || mean > 360-1e-6);
+        assertTrue(statistics.getCircularVariance() < 0.02);
+    }
+
+    @Test
+    public void angularVelocity_usesUnwrappedHeading() {
+        OrientationHistory history = new OrientationHistory(16);
+        // 90 deg/s clockwise across North, one sample every 100 ms
+        for (int i=0; i<10; i++) {
+            history.add((340+9*i)%360, false, i*100*MS);
+        }
+        OrientationHistory.Statistics statistics = new OrientationHistory.Statistics();
+        assertTrue(history.computeForTimeWindow(500, statistics));
+        assertEquals(6, statistics.getSampleCount());
+        assertEquals(90.0, statistics.getAngularVelocity(), 1e-9);
+    }
+
+    @Test
+    public void window_isLimitedToCapacityAfterWrapAround() {
+        OrientationHistory history = new OrientationHistory(4);
+        for (int i=0; i<20; i++) {
+            history.add(90, (i%2)==0, i*MS);
+        }
+        OrientationHistory.Statistics statistics = new OrientationHistory.Statistics();
+        assertTrue(history.computeForSamples(100, statistics));
+        assertEquals(4, statistics.getSampleCount());
+        assertEquals(90.0, statistics.getMeanHeading(), 1e-9);
+        assertEquals(0.5, statistics.getInaccurateRatio(), 1e-9);
+    }
+
+    @Test
+    public void clear_restartsRunningSums() {
+        OrientationHistory history = new OrientationHistory(4);
+        history.add(0, true, 0);
+        history.add(180, true, MS);
+        history.clear();
+        assertEquals(0, history.getSampleCount());
+        history.add(45, false, 2*MS);
+        OrientationHistory.Statistics statistics = new OrientationHistory.Statistics();
+        assertTrue(history.computeForSamples(4, statistics));
+        assertEquals(1, statistics.getSampleCount());
+        assertEquals(45.0, statistics.getMeanHeading(), 1e-9);
+        assertEquals(0.0, statistics.getInaccurateRatio(), 1e-9);
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the packing of parameter requests and of the fallback to single requests.
+ */
+public class ParameterRequestBatcherTest {
+
+    private final ArrayList<byte[]> packets = new ArrayList<>();
+    private final ParameterRequestBatcher batcher = new ParameterRequestBatcher(packet -> {
+        packets.add(packet);
+        return true;
+    }, null);
+
+    @Test
+    public void request_severalParameters_packedInOnePacket() {
+        assertTrue(batcher.request(EnumSet.of(BeltParameter.HEADING_OFFSET,
+                BeltParameter.ACCURACY_SIGNAL_STATE)));
+        assertEquals(1, packets.size());
+        assertArrayEquals(new byte[] {0x10, 0x02, 0x01, 0x03}, packets.get(0));
+        // All values notified, nothing is requested again
+        batcher.onParameterNotified(BeltParameter.ACCURACY_SIGNAL_STATE);
+        batcher.onParameterNotified(BeltParameter.HEADING_OFFSET);
+        batcher.onResponseTimeout();
+        assertEquals(1, packets.size());
+        assertFalse(batcher.isPackingDisabled());
+    }
+
+    @Test
+    public void request_singleParameter_notPacked() {
+        assertTrue(batcher.request(EnumSet.of(BeltParameter.HEADING_OFFSET)));
+        assertArrayEquals(new byte[] {0x10, 0x01, 0x01}, packets.get(0));
+    }
+
+    @Test
+    public void responseTimeout_missingValues_requestedSeparately() {
+        batcher.request(EnumSet.of(BeltParameter.HEADING_OFFSET,
+                BeltParameter.ACCURACY_SIGNAL_STATE));
+        batcher.onParameterNotified(BeltParameter.HEADING_OFFSET);
+        batcher.onResponseTimeout();
+        assertEquals(2, packets.size());
+        assertArrayEquals(new byte[] {0x10, 0x01, 0x03}, packets.get(1));
+        assertTrue(batcher.isPackingDisabled());
+        // Next requests are not packed until reset
+        batcher.request(EnumSet.of(BeltParameter.HEADING_OFFSET,
+                BeltParameter.ACCURACY_SIGNAL_STATE));
+        assertEquals(4, packets.size());
+        assertArrayEquals(new byte[] {0x10, 0x01, 0x01}, packets.get(2));
+        assertArrayEquals(new byte[] {0x10, 0x01, 0x03}, packets.get(3));
+        batcher.reset();
+        batcher.request(EnumSet.of(BeltParameter.HEADING_OFFSET,
+                BeltParameter.ACCURACY_SIGNAL_STATE));
+        assertEquals(5, packets.size());
+        assertEquals(4, packets.get(4).length);
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the incremental route follower.
+ */
+public class RouteFollowerTest {
+
+    // About 111 m per 0.001 degree of latitude
+    private static final double[] LATITUDES = new double[] {52.000, 52.001, 52.001, 52.002};
+    private static final double[] LONGITUDES = new double[] {9.000, 9.000, 9.002, 9.002};
+
+    @Test
+    public void follower_advancesAlongRoute() {
+        RouteFollower follower = new RouteFollower(LATITUDES, LONGITUDES);
+        assertFalse(follower.update(52.0002, 9.0));
+        assertEquals(0, follower.getActiveSegmentIndex());
+        // Heading North to the first corner
+        assertEquals(0.0, follower.getBearingToNextWaypoint(), 0.01);
+        assertEquals(89, follower.getDistanceToNextWaypoint(), 1);
+        // Past the first corner, heading East
+        assertTrue(follower.update(52.001, 9.0005));
+        assertEquals(1, follower.getActiveSegmentIndex());
+        assertEquals(90.0, follower.getBearingToNextWaypoint(), 0.1);
+        assertFalse(follower.isLastSegment());
+        // Close to the second corner
+        follower.update(52.001, 9.00195);
+        assertTrue(follower.isLastSegment());
+        assertEquals(0.0, follower.getBearingToNextWaypoint(), 3);
+        assertEquals(follower.getDistanceToNextWaypoint(),
+                follower.getDistanceToDestination(), 1e-9);
+    }
+
+    @Test
+    public void follower_neverMovesBackward() {
+        RouteFollower follower = new RouteFollower(LATITUDES, LONGITUDES);
+        follower.update(52.001, 9.001);
+        assertEquals(1, follower.getActiveSegmentIndex());
+        follower.update(52.0001, 9.0);
+        assertEquals(1, follower.getActiveSegmentIndex());
+        assertTrue(follower.getDistanceToRoute() > 50);
+    }
+
+    @Test
+    public void follower_segmentCrossingAntimeridian() {
+        // About 137 m per 0.002 degree of longitude at 52 degrees
+        RouteFollower follower = new RouteFollower(
+                new double[] {52.0, 52.0, 52.001},
+                new double[] {179.999, -179.999, -179.999});
+        // Just past the antimeridian, on the first segment
+        assertFalse(follower.update(52.0, -179.9995));
+        assertEquals(0, follower.getActiveSegmentIndex());
+        assertEquals(0, follower.getDistanceToRoute(), 0.1);
+        assertEquals(34, follower.getDistanceToNextWaypoint(), 1);
+        assertEquals(90.0, follower.getBearingToNextWaypoint(), 0.1);
+        // Off the segment by about 11 m
+        follower.update(52.0001, 179.9995);
+        assertEquals(0, follower.getActiveSegmentIndex());
+        assertEquals(11, follower.getDistanceToRoute(), 0.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void route_needsTwoWaypoints() {
+        new RouteFollower(new double[] {52.0}, new double[] {9.0});
+    }
+
+}
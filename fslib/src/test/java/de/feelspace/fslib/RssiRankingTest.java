@@ -0,0 +1,51 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the RSSI ranking of scan candidates.
+ */
+public class RssiRankingTest {
+
+    @Test
+    public void addSample_singleStrongSample_doesNotOvertakeSteadyCandidate() {
+        RssiRanking ranking = new RssiRanking(0.3);
+        for (int i=0; i<10; i++) {
+            ranking.addSample("A", -60);
+            ranking.addSample("B", -75);
+        }
+        // Spike of B
+        ranking.addSample("B", -40);
+        assertEquals(-60, ranking.getSmoothedRssi("A"), 1e-9);
+        assertEquals(-64.5, ranking.getSmoothedRssi("B"), 1e-9);
+        assertEquals("A", ranking.getBestAddress());
+        // Sustained improvement of B
+        for (int i=0; i<5; i++) {
+            ranking.addSample("B", -45);
+        }
+        assertEquals("B", ranking.getBestAddress());
+        assertEquals(16, ranking.getSampleCount("B"));
+    }
+
+    @Test
+    public void getRankedAddresses_ties_rankedBySamplesThenDiscovery() {
+        RssiRanking ranking = new RssiRanking();
+        assertNull(ranking.getBestAddress());
+        assertTrue(Double.isNaN(ranking.getSmoothedRssi("A")));
+        ranking.addSample("A", -70);
+        ranking.addSample("B", -70);
+        ranking.addSample("C", -70);
+        ranking.addSample("C", -70);
+        ranking.addSample("D", -50);
+        assertEquals(Arrays.asList("D", "C", "A", "B"), ranking.getRankedAddresses());
+        assertEquals("D", ranking.getBestAddress());
+        ranking.clear();
+        assertEquals(0, ranking.size());
+        assertFalse(ranking.contains("D"));
+    }
+
+}
@@ -0,0 +1,89 @@
+package de.feelspace.fslib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the vibration channel manager.
+ */
+public class VibrationChannelManagerTest {
+
+    /**
+     * Signal recording the changes of its lease.
+     */
+    private static class RecordingSignal implements VibrationChannelSignal {
+        final ArrayList<String> events = new ArrayList<>();
+
+        @Override
+        public void onChannelGranted(int channelIndex) {
+            events.add("granted:"+channelIndex);
+        }
+
+        @Override
+        public void onChannelRevoked(int channelIndex) {
+            events.add("revoked:"+channelIndex);
+        }
+    }
+
+    @Test
+    public void priority_evictsLowestAndReusesChannel() {
+        VibrationChannelManager manager = new VibrationChannelManager(null, null, 3, 4);
+        RecordingSignal low = new RecordingSignal();
+        RecordingSignal mid = new RecordingSignal();
+        RecordingSignal high = new RecordingSignal();
+        VibrationChannelLease lowLease = manager.acquire(1, 4, low);
+        VibrationChannelLease midLease = manager.acquire(5, VibrationChannelLease.NO_CHANNEL, mid);
+        assertEquals(4, lowLease.getChannelIndex());
+        assertEquals(3, midLease.getChannelIndex());
+        // The new lease takes the channel of the lowest priority
+        VibrationChannelLease highLease = manager.acquire(10, VibrationChannelLease.NO_CHANNEL,
+                high);
+        assertEquals(4, highLease.getChannelIndex());
+        assertEquals(VibrationChannelLease.NO_CHANNEL, lowLease.getChannelIndex());
+        assertEquals(3, midLease.getChannelIndex());
+        assertTrue(high.events.isEmpty());
+        assertTrue(mid.events.isEmpty());
+        assertEquals("revoked:4", low.events.get(0));
+        // The suspended lease gets the released channel
+        midLease.release();
+        assertTrue(midLease.isReleased());
+        assertEquals(3, lowLease.getChannelIndex());
+        assertEquals("granted:3", low.events.get(1));
+        assertEquals(2, manager.getLeaseCount());
+    }
+
+    @Test
+    public void multiplexing_rotatesSamePriority() {
+        VibrationChannelManager manager = new VibrationChannelManager(null, null, 1, 2);
+        VibrationChannelLease top = manager.acquire(10, VibrationChannelLease.NO_CHANNEL,
+                new RecordingSignal());
+        VibrationChannelLease a = manager.acquire(1, VibrationChannelLease.NO_CHANNEL,
+                new RecordingSignal());
+        VibrationChannelLease b = manager.acquire(1, VibrationChannelLease.NO_CHANNEL,
+                new RecordingSignal());
+        assertEquals(VibrationChannelLease.NO_CHANNEL, b.getChannelIndex());
+        manager.setMultiplexPeriod(100);
+        int channel = top.getChannelIndex();
+        manager.rotate();
+        assertEquals(channel, top.getChannelIndex());
+        assertEquals(VibrationChannelLease.NO_CHANNEL, a.getChannelIndex());
+        assertNotEquals(VibrationChannelLease.NO_CHANNEL, b.getChannelIndex());
+        manager.rotate();
+        assertNotEquals(VibrationChannelLease.NO_CHANNEL, a.getChannelIndex());
+        assertEquals(VibrationChannelLease.NO_CHANNEL, b.getChannelIndex());
+    }
+
+    @Test
+    public void defaultChannel_avoidsLeasedChannels() {
+        VibrationChannelManager manager = new VibrationChannelManager(null, null);
+        assertEquals(2, manager.getDefaultChannel(true));
+        assertEquals(1, manager.getDefaultChannel(false));
+        manager.acquire(1, 2, new RecordingSignal());
+        assertTrue(manager.isLeased(2));
+        assertEquals(1, manager.getDefaultChannel(true));
+    }
+
+}